@@ -0,0 +1,113 @@
+package io.github.lijinhong11.mdatabase.benchmarks;
+
+import io.github.lijinhong11.mdatabase.DatabaseConnection;
+import io.github.lijinhong11.mdatabase.DatabaseParameters;
+import io.github.lijinhong11.mdatabase.enums.BatchMode;
+import io.github.lijinhong11.mdatabase.impl.DatabaseConnections;
+import io.github.lijinhong11.mdatabase.sql.sentence.SQL;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Batch insert, upsert and update throughput against an embedded SQLite database in a temporary file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BatchWriteBenchmark {
+    @Param({"100", "1000"})
+    public int batchSize;
+
+    @Param({"JDBC_BATCH", "MULTI_ROW"})
+    public BatchMode mode;
+
+    @Param({"false", "true"})
+    public boolean sqliteTuned;
+
+    private Path file;
+    private DatabaseConnection connection;
+    private List<BenchPlayer> existing;
+    private int nextId;
+
+    @Setup(Level.Trial)
+    public void open() throws IOException, SQLException {
+        file = Files.createTempFile("mdatabase-bench", ".db");
+        DatabaseParameters parameters = new DatabaseParameters();
+        parameters.setBatchMode(mode);
+        parameters.setSqliteTuned(sqliteTuned);
+        connection = DatabaseConnections.sqlite(file.toAbsolutePath().toString(), parameters);
+        connection.createTableByClass(BenchPlayer.class);
+    }
+
+    /**
+     * Start every iteration from the same table: {@code batchSize} rows for the upserts and updates to hit.
+     */
+    @Setup(Level.Iteration)
+    public void reset() throws SQLException {
+        connection.execute(SQL.delete().from("bench_players"));
+        existing = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            existing.add(new BenchPlayer(i));
+        }
+        connection.insertBatch(BenchPlayer.class, existing);
+        nextId = batchSize;
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws IOException, SQLException {
+        connection.close();
+        for (String suffix : new String[]{"", "-wal", "-shm"}) {
+            Files.deleteIfExists(Path.of(file + suffix));
+        }
+    }
+
+    /**
+     * Inserts new rows; building the objects is part of the measurement.
+     */
+    @Benchmark
+    public void insertBatch() throws SQLException {
+        List<BenchPlayer> players = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            players.add(new BenchPlayer(nextId++));
+        }
+        connection.insertBatch(BenchPlayer.class, players);
+    }
+
+    @Benchmark
+    public void upsertBatch() throws SQLException {
+        for (BenchPlayer player : existing) {
+            player.balance++;
+        }
+        connection.upsertBatch(BenchPlayer.class, existing);
+    }
+
+    @Benchmark
+    public void updateBatch() throws SQLException {
+        for (BenchPlayer player : existing) {
+            player.balance++;
+        }
+        connection.updateBatch(BenchPlayer.class, existing);
+    }
+}
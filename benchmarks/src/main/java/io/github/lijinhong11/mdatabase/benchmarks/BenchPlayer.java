@@ -0,0 +1,40 @@
+package io.github.lijinhong11.mdatabase.benchmarks;
+
+import io.github.lijinhong11.mdatabase.serialization.annotations.Column;
+import io.github.lijinhong11.mdatabase.serialization.annotations.PrimaryKey;
+import io.github.lijinhong11.mdatabase.serialization.annotations.Table;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A typical plugin entity: a key, a few scalar columns and one collection stored as a binary blob.
+ */
+@Table(name = "bench_players")
+public class BenchPlayer {
+    @PrimaryKey
+    @Column
+    public int id;
+    @Column
+    public String name;
+    @Column
+    public long balance;
+    @Column
+    public double score;
+    @Column
+    public boolean online;
+    @Column
+    public List<String> tags;
+
+    public BenchPlayer() {
+    }
+
+    public BenchPlayer(int id) {
+        this.id = id;
+        this.name = "player-" + id;
+        this.balance = id * 100L;
+        this.score = id / 3D;
+        this.online = (id & 1) == 0;
+        this.tags = new ArrayList<>(List.of("vip", "builder", "tag-" + (id % 16)));
+    }
+}
@@ -0,0 +1,101 @@
+package io.github.lijinhong11.mdatabase.benchmarks;
+
+import io.github.lijinhong11.mdatabase.serialization.ObjectSerializer;
+import io.github.lijinhong11.mdatabase.serialization.annotations.Column;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.sql.rowset.CachedRowSet;
+import javax.sql.rowset.RowSetMetaDataImpl;
+import javax.sql.rowset.RowSetProvider;
+import java.lang.reflect.Type;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Round trips of collection columns through the binary encoding: {@link ObjectSerializer#convertBack(Object, Type)}
+ * writes a collection to bytes, hydrating a row reads it back.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class BinaryCollectionBenchmark {
+    @Param({"8", "256"})
+    public int size;
+
+    private Type listType;
+    private Type mapType;
+    private List<String> list;
+    private Map<String, Integer> map;
+    private CachedRowSet encoded;
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException, SQLException {
+        listType = Holder.class.getField("list").getGenericType();
+        mapType = Holder.class.getField("map").getGenericType();
+        list = new ArrayList<>(size);
+        map = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            list.add("value-" + i);
+            map.put("key-" + i, i);
+        }
+
+        encoded = RowSetProvider.newFactory().createCachedRowSet();
+        RowSetMetaDataImpl metaData = new RowSetMetaDataImpl();
+        metaData.setColumnCount(2);
+        metaData.setColumnName(1, "list");
+        metaData.setColumnType(1, Types.LONGVARBINARY);
+        metaData.setColumnName(2, "map");
+        metaData.setColumnType(2, Types.LONGVARBINARY);
+        encoded.setMetaData(metaData);
+        encoded.moveToInsertRow();
+        encoded.updateBytes(1, encodeList());
+        encoded.updateBytes(2, encodeMap());
+        encoded.insertRow();
+        encoded.moveToCurrentRow();
+    }
+
+    @Benchmark
+    public byte[] encodeList() {
+        return (byte[]) ObjectSerializer.convertBack(list, listType);
+    }
+
+    @Benchmark
+    public byte[] encodeMap() {
+        return (byte[]) ObjectSerializer.convertBack(map, mapType);
+    }
+
+    /**
+     * Decodes both columns of one row.
+     */
+    @Benchmark
+    public Holder decode() throws SQLException {
+        encoded.beforeFirst();
+        encoded.next();
+        return ObjectSerializer.serializeOne(Holder.class, encoded);
+    }
+
+    public static class Holder {
+        @Column
+        public List<String> list;
+        @Column
+        public Map<String, Integer> map;
+    }
+}
@@ -0,0 +1,90 @@
+package io.github.lijinhong11.mdatabase.benchmarks;
+
+import io.github.lijinhong11.mdatabase.serialization.ObjectSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.sql.rowset.CachedRowSet;
+import javax.sql.rowset.RowSetMetaDataImpl;
+import javax.sql.rowset.RowSetProvider;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hydrating entities from an in-memory {@link CachedRowSet}, so only the mapping is measured, not a driver.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class HydrationBenchmark {
+    @Param({"1", "100", "10000"})
+    public int rows;
+
+    private CachedRowSet rowSet;
+
+    @Setup
+    public void setUp() throws SQLException {
+        rowSet = RowSetProvider.newFactory().createCachedRowSet();
+        RowSetMetaDataImpl metaData = new RowSetMetaDataImpl();
+        metaData.setColumnCount(6);
+        metaData.setColumnName(1, "id");
+        metaData.setColumnType(1, Types.INTEGER);
+        metaData.setColumnName(2, "name");
+        metaData.setColumnType(2, Types.VARCHAR);
+        metaData.setColumnName(3, "balance");
+        metaData.setColumnType(3, Types.BIGINT);
+        metaData.setColumnName(4, "score");
+        metaData.setColumnType(4, Types.DOUBLE);
+        metaData.setColumnName(5, "online");
+        metaData.setColumnType(5, Types.BOOLEAN);
+        metaData.setColumnName(6, "tags");
+        metaData.setColumnType(6, Types.LONGVARBINARY);
+        rowSet.setMetaData(metaData);
+
+        for (int i = 0; i < rows; i++) {
+            BenchPlayer player = new BenchPlayer(i);
+            rowSet.moveToInsertRow();
+            rowSet.updateInt(1, player.id);
+            rowSet.updateString(2, player.name);
+            rowSet.updateLong(3, player.balance);
+            rowSet.updateDouble(4, player.score);
+            rowSet.updateBoolean(5, player.online);
+            rowSet.updateBytes(6, (byte[]) ObjectSerializer.convertBack(player.tags));
+            rowSet.insertRow();
+        }
+        rowSet.moveToCurrentRow();
+    }
+
+    @Benchmark
+    public List<BenchPlayer> serializeMulti() throws SQLException {
+        rowSet.beforeFirst();
+        return ObjectSerializer.serializeMulti(BenchPlayer.class, rowSet);
+    }
+
+    /**
+     * One row at a time, resolving the column layout for every row as {@code selectOne} does.
+     */
+    @Benchmark
+    public BenchPlayer serializeOnePerRow() throws SQLException {
+        rowSet.beforeFirst();
+        BenchPlayer last = null;
+        while (rowSet.next()) {
+            last = ObjectSerializer.serializeOne(BenchPlayer.class, rowSet);
+        }
+        return last;
+    }
+}
@@ -0,0 +1,91 @@
+package io.github.lijinhong11.mdatabase.benchmarks;
+
+import io.github.lijinhong11.mdatabase.enums.DatabaseType;
+import io.github.lijinhong11.mdatabase.sql.CompiledQuery;
+import io.github.lijinhong11.mdatabase.sql.conditions.Condition;
+import io.github.lijinhong11.mdatabase.sql.conditions.Conditions;
+import io.github.lijinhong11.mdatabase.sql.sentence.SQL;
+import io.github.lijinhong11.mdatabase.sql.sentence.SelectSQL;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendering condition trees and whole statements, as every call through the query builders does.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class SqlRenderBenchmark {
+    /**
+     * The number of OR groups, each holding four comparisons.
+     */
+    @Param({"1", "8"})
+    public int groups;
+
+    private Condition condition;
+
+    @Setup
+    public void setUp() {
+        Condition[] ors = new Condition[groups];
+        for (int i = 0; i < groups; i++) {
+            ors[i] = Conditions.and(
+                    Conditions.eq("name", "player-" + i),
+                    Conditions.like("name", "player-%"),
+                    Conditions.between("balance", i * 10L, i * 100L),
+                    Conditions.in("id", List.of(i, i + 1, i + 2, i + 3)));
+        }
+        condition = Conditions.and(Conditions.or(ors), Conditions.isNotNull("tags"));
+    }
+
+    @Benchmark
+    public String conditionSql() {
+        return condition.getSql();
+    }
+
+    @Benchmark
+    public String selectSql() {
+        return select().getSql(DatabaseType.MYSQL);
+    }
+
+    /**
+     * Includes rewriting placeholders for PostgreSQL and collecting the parameters.
+     */
+    @Benchmark
+    public CompiledQuery compilePostgres() {
+        return select().compile(DatabaseType.POSTGRESQL);
+    }
+
+    /**
+     * A fresh tree per call, as code building conditions from user input does.
+     */
+    @Benchmark
+    public String buildAndRender() {
+        List<Condition> names = new ArrayList<>(groups);
+        for (int i = 0; i < groups; i++) {
+            names.add(Conditions.eq("name", "player-" + i));
+        }
+        return SQL.select().allColumns().from("bench_players")
+                .where(Conditions.or(names.toArray(new Condition[0])))
+                .getSql(DatabaseType.MYSQL);
+    }
+
+    private SelectSQL select() {
+        return SQL.select().allColumns().from("bench_players").where(condition).orderBy("id").limit(50);
+    }
+}
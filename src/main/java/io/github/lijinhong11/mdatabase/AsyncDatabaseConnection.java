@@ -0,0 +1,287 @@
+package io.github.lijinhong11.mdatabase;
+
+import io.github.lijinhong11.mdatabase.enums.DatabaseType;
+import io.github.lijinhong11.mdatabase.enums.OrderType;
+import io.github.lijinhong11.mdatabase.sql.BoundQuery;
+import io.github.lijinhong11.mdatabase.sql.conditions.Condition;
+import io.github.lijinhong11.mdatabase.sql.sentence.SQL;
+import io.github.lijinhong11.mdatabase.sql.sentence.SelectSQL;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Non-blocking view of a {@link DatabaseConnection}.
+ * <p>
+ * Every method runs the matching blocking call on a bounded executor and returns a
+ * {@link CompletableFuture}. A {@link java.sql.SQLException} thrown by the blocking call
+ * completes the future exceptionally. Obtain instances via
+ * {@link io.github.lijinhong11.mdatabase.impl.DatabaseConnections#async(DatabaseConnection)}:
+ * <pre>{@code
+ * AsyncDatabaseConnection async = DatabaseConnections.async(conn)
+ *         .withCompletionExecutor(mainThreadExecutor);
+ * async.selectOne(User.class, Conditions.eq("id", 1))
+ *         .thenAccept(user -> player.sendMessage(user.name));
+ * }</pre>
+ * Transactions are bound to the calling thread and are therefore not exposed here.
+ */
+public interface AsyncDatabaseConnection {
+
+    /**
+     * Return the blocking connection backing this view.
+     *
+     * @return the underlying connection
+     */
+    @NotNull DatabaseConnection sync();
+
+    /**
+     * Return a view that delivers results on the given executor, e.g. a main-thread scheduler.
+     * The database work itself still runs on this view's executor.
+     *
+     * @param completionExecutor the executor completing the returned futures, or {@code null}
+     *                           to complete them on the database worker thread
+     * @return a new view sharing this view's executor
+     */
+    @NotNull AsyncDatabaseConnection withCompletionExecutor(@Nullable Executor completionExecutor);
+
+    /**
+     * @param sql the SQL to execute
+     * @return a future of {@link DatabaseConnection#execute(SQL)}
+     */
+    @NotNull CompletableFuture<Boolean> execute(@NotNull SQL sql);
+
+    /**
+     * @param sqls the SQL statements to execute in sequence
+     * @return a future of {@link DatabaseConnection#workspace(SQL...)}
+     */
+    @NotNull CompletableFuture<Void> workspace(@NotNull SQL... sqls);
+
+    /**
+     * @param sql the SELECT SQL to execute
+     * @return a future of {@link DatabaseConnection#query(SelectSQL)}
+     */
+    @NotNull CompletableFuture<ResultSet> query(@NotNull SelectSQL sql);
+
+    /**
+     * @param <T>       the entity type
+     * @param clazz     the entity class
+     * @param condition the WHERE condition
+     * @return a future of {@link DatabaseConnection#selectOne(Class, Condition)}
+     */
+    @NotNull <T> CompletableFuture<T> selectOne(@NotNull Class<T> clazz, @NotNull Condition condition);
+
+    /**
+     * @param <T>       the entity type
+     * @param table     explicit table name
+     * @param clazz     the entity class
+     * @param condition the WHERE condition
+     * @return a future of {@link DatabaseConnection#selectOne(String, Class, Condition)}
+     */
+    @NotNull <T> CompletableFuture<T> selectOne(@NotNull String table, @NotNull Class<T> clazz, @NotNull Condition condition);
+
+    /**
+     * @param <T>   the entity type
+     * @param clazz the entity class
+     * @return a future of {@link DatabaseConnection#selectMulti(Class)}
+     */
+    @NotNull <T> CompletableFuture<List<T>> selectMulti(@NotNull Class<T> clazz);
+
+    /**
+     * @param <T>   the entity type
+     * @param table explicit table name
+     * @param clazz the entity class
+     * @return a future of {@link DatabaseConnection#selectMulti(String, Class)}
+     */
+    @NotNull <T> CompletableFuture<List<T>> selectMulti(@NotNull String table, @NotNull Class<T> clazz);
+
+    /**
+     * @param <T>       the entity type
+     * @param clazz     the entity class
+     * @param condition the WHERE condition (nullable for all rows)
+     * @return a future of {@link DatabaseConnection#selectMulti(Class, Condition)}
+     */
+    @NotNull <T> CompletableFuture<List<T>> selectMulti(@NotNull Class<T> clazz, @Nullable Condition condition);
+
+    /**
+     * @param <T>       the entity type
+     * @param table     explicit table name
+     * @param clazz     the entity class
+     * @param condition the WHERE condition (nullable for all rows)
+     * @return a future of {@link DatabaseConnection#selectMulti(String, Class, Condition)}
+     */
+    @NotNull <T> CompletableFuture<List<T>> selectMulti(@NotNull String table, @NotNull Class<T> clazz, @Nullable Condition condition);
+
+    /**
+     * @param <T>       the entity type
+     * @param clazz     the entity class
+     * @param condition the WHERE condition (nullable for all rows)
+     * @param orderBy   the sort columns
+     * @param pageSize  the maximum number of rows per page
+     * @param token     the token of the previous page, or {@code null} for the first page
+     * @return a future of {@link DatabaseConnection#page(Class, Condition, List, int, String)}
+     */
+    @NotNull <T> CompletableFuture<Page<T>> page(@NotNull Class<T> clazz, @Nullable Condition condition, @NotNull List<String> orderBy,
+                                                 int pageSize, @Nullable String token);
+
+    /**
+     * @param <T>       the entity type
+     * @param clazz     the entity class
+     * @param condition the WHERE condition (nullable for all rows)
+     * @param orderBy   the sort columns
+     * @param order     the sort direction of all columns
+     * @param pageSize  the maximum number of rows per page
+     * @param token     the token of the previous page, or {@code null} for the first page
+     * @return a future of {@link DatabaseConnection#page(Class, Condition, List, OrderType, int, String)}
+     */
+    @NotNull <T> CompletableFuture<Page<T>> page(@NotNull Class<T> clazz, @Nullable Condition condition, @NotNull List<String> orderBy,
+                                                 @NotNull OrderType order, int pageSize, @Nullable String token);
+
+    /**
+     * @param query the bound query
+     * @return a future of {@link DatabaseConnection#execute(BoundQuery)}
+     */
+    @NotNull CompletableFuture<Boolean> execute(@NotNull BoundQuery query);
+
+    /**
+     * @param <T>   the entity type
+     * @param clazz the entity class
+     * @param query the bound query
+     * @return a future of {@link DatabaseConnection#selectOne(Class, BoundQuery)}
+     */
+    @NotNull <T> CompletableFuture<T> selectOne(@NotNull Class<T> clazz, @NotNull BoundQuery query);
+
+    /**
+     * @param <T>   the entity type
+     * @param clazz the entity class
+     * @param query the bound query
+     * @return a future of {@link DatabaseConnection#selectMulti(Class, BoundQuery)}
+     */
+    @NotNull <T> CompletableFuture<List<T>> selectMulti(@NotNull Class<T> clazz, @NotNull BoundQuery query);
+
+    /**
+     * @param clazz the entity class annotated with {@code @Table}
+     * @return a future of {@link DatabaseConnection#createTableByClass(Class)}
+     */
+    @NotNull CompletableFuture<Void> createTableByClass(@NotNull Class<?> clazz);
+
+    /**
+     * @param clazz the entity class annotated with {@code @Table}
+     * @return a future of {@link DatabaseConnection#autoMigrate(Class)}
+     */
+    @NotNull CompletableFuture<Void> autoMigrate(@NotNull Class<?> clazz);
+
+    /**
+     * @param <T>    the entity type
+     * @param clazz  the entity class
+     * @param object the object to insert/upsert
+     * @param upsert {@code true} for upsert, {@code false} for plain insert
+     * @return a future of {@link DatabaseConnection#insertObject(Class, Object, boolean)}
+     */
+    @NotNull <T> CompletableFuture<Void> insertObject(@NotNull Class<T> clazz, @NotNull T object, boolean upsert);
+
+    /**
+     * @param <T>     the entity type
+     * @param clazz   the entity class
+     * @param objects the objects to insert
+     * @return a future of {@link DatabaseConnection#insertBatch(Class, List)}
+     */
+    @NotNull <T> CompletableFuture<Void> insertBatch(@NotNull Class<T> clazz, @NotNull List<T> objects);
+
+    /**
+     * @param <T>     the entity type
+     * @param clazz   the entity class
+     * @param objects the objects to upsert
+     * @return a future of {@link DatabaseConnection#upsertBatch(Class, List)}
+     */
+    @NotNull <T> CompletableFuture<Void> upsertBatch(@NotNull Class<T> clazz, @NotNull List<T> objects);
+
+    /**
+     * @param <T>     the entity type
+     * @param clazz   the entity class
+     * @param objects the objects to insert
+     * @return a future of {@link DatabaseConnection#insertIfAbsentBatch(Class, List)}
+     */
+    @NotNull <T> CompletableFuture<Void> insertIfAbsentBatch(@NotNull Class<T> clazz, @NotNull List<T> objects);
+
+    /**
+     * @param <T>   the entity type
+     * @param clazz the entity class
+     * @param ids   the primary key values
+     * @return a future of {@link DatabaseConnection#selectByIds(Class, Collection)}
+     */
+    @NotNull <T> CompletableFuture<Map<Object, T>> selectByIds(@NotNull Class<T> clazz, @NotNull Collection<?> ids);
+
+    /**
+     * @param clazz the entity class
+     * @param ids   the primary key values
+     * @return a future of {@link DatabaseConnection#deleteByIds(Class, Collection)}
+     */
+    @NotNull CompletableFuture<Integer> deleteByIds(@NotNull Class<?> clazz, @NotNull Collection<?> ids);
+
+    /**
+     * @param <T>   the entity type
+     * @param clazz the entity class
+     * @param id    the primary key value
+     * @return a future of {@link DatabaseConnection#findById(Class, Object)}
+     */
+    @NotNull <T> CompletableFuture<T> findById(@NotNull Class<T> clazz, @NotNull Object id);
+
+    /**
+     * @param <T>       the entity type
+     * @param clazz     the entity class
+     * @param condition the condition to filter rows, or {@code null} for all rows
+     * @param ttl       how long the result may be reused
+     * @return a future of {@link DatabaseConnection#selectCached(Class, Condition, Duration)}
+     */
+    @NotNull <T> CompletableFuture<List<T>> selectCached(@NotNull Class<T> clazz, @Nullable Condition condition, @NotNull Duration ttl);
+
+    /**
+     * @param <R>  the result type
+     * @param work the unit of work, which may run several times
+     * @return a future of {@link DatabaseConnection#inTransaction(TransactionWork)}
+     */
+    @NotNull <R> CompletableFuture<R> inTransaction(@NotNull TransactionWork<R> work);
+
+    /**
+     * @param <T>     the entity type
+     * @param clazz   the entity class
+     * @param objects the objects to update
+     * @return a future of {@link DatabaseConnection#updateBatch(Class, List)}
+     */
+    @NotNull <T> CompletableFuture<Void> updateBatch(@NotNull Class<T> clazz, @NotNull List<T> objects);
+
+    /**
+     * @param <T>       the entity type
+     * @param clazz     the entity class
+     * @param object    the object with updated values
+     * @param condition the WHERE condition identifying the row
+     * @return a future of {@link DatabaseConnection#updateObject(Class, Object, Condition)}
+     */
+    @NotNull <T> CompletableFuture<Void> updateObject(@NotNull Class<T> clazz, @NotNull T object, @NotNull Condition condition);
+
+    /**
+     * @param clazz     the entity class
+     * @param condition the WHERE condition
+     * @return a future of {@link DatabaseConnection#deleteObject(Class, Condition)}
+     */
+    @NotNull CompletableFuture<Void> deleteObject(@NotNull Class<?> clazz, @NotNull Condition condition);
+
+    /**
+     * @return a future of {@link DatabaseConnection#ping()}
+     */
+    @NotNull CompletableFuture<Boolean> ping();
+
+    /**
+     * Return the database type of the underlying connection.
+     *
+     * @return the database type
+     */
+    @NotNull DatabaseType getType();
+}
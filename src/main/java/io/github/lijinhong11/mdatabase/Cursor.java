@@ -0,0 +1,30 @@
+package io.github.lijinhong11.mdatabase;
+
+import java.util.Iterator;
+
+/**
+ * A lazily hydrated, forward-only view of a query result.
+ * <p>
+ * A cursor holds its pooled connection until it is closed, so always use it in a
+ * try-with-resources block:
+ * <pre>{@code
+ * try (Cursor<User> users = conn.selectCursor(User.class, Conditions.gt("score", 0))) {
+ *     while (users.hasNext()) {
+ *         process(users.next());
+ *     }
+ * }
+ * }</pre>
+ * Iterating to the end does not close the cursor. Failures while reading are thrown as
+ * {@link io.github.lijinhong11.mdatabase.exceptions.DatabaseAccessException}.
+ *
+ * @param <T> the entity type
+ */
+public interface Cursor<T> extends Iterator<T>, AutoCloseable {
+    /**
+     * Close the result set and statement and hand the connection back. Idempotent.
+     *
+     * @throws io.github.lijinhong11.mdatabase.exceptions.DatabaseAccessException if releasing the resources fails
+     */
+    @Override
+    void close();
+}
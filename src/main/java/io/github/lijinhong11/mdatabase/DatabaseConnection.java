@@ -1,6 +1,13 @@
 package io.github.lijinhong11.mdatabase;
 
+import io.github.lijinhong11.mdatabase.cache.CacheStats;
 import io.github.lijinhong11.mdatabase.enums.DatabaseType;
+import io.github.lijinhong11.mdatabase.enums.IsolationLevel;
+import io.github.lijinhong11.mdatabase.enums.OrderType;
+import io.github.lijinhong11.mdatabase.impl.TransactionStats;
+import io.github.lijinhong11.mdatabase.metrics.QueryListener;
+import io.github.lijinhong11.mdatabase.sql.BoundQuery;
+import io.github.lijinhong11.mdatabase.sql.StatementCacheStats;
 import io.github.lijinhong11.mdatabase.sql.conditions.Condition;
 import io.github.lijinhong11.mdatabase.sql.sentence.SQL;
 import io.github.lijinhong11.mdatabase.sql.sentence.SelectSQL;
@@ -9,7 +16,11 @@ import org.jetbrains.annotations.Nullable;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 /**
  * The main API for database operations.
@@ -59,7 +70,7 @@ public interface DatabaseConnection {
 
     /**
      * Execute a raw SELECT query and return the live ResultSet.
-     * The caller is responsible for managing the connection lifecycle of the returned ResultSet.
+     * The pooled connection stays checked out until the caller closes the returned ResultSet.
      * Prefer {@link #selectOne} or {@link #selectMulti} for most use cases.
      *
      * @param sql the SELECT SQL to execute
@@ -135,6 +146,134 @@ public interface DatabaseConnection {
      */
     @NotNull <T> List<T> selectMulti(@NotNull String table, @NotNull Class<T> clazz, @Nullable Condition condition) throws SQLException;
 
+    /**
+     * Open a lazily hydrated cursor over the rows matching the condition, fetching
+     * {@link DatabaseParameters#getStreamFetchSize()} rows per round trip.
+     * The cursor holds a pooled connection until it is closed.
+     *
+     * @param <T>       the entity type
+     * @param clazz     the entity class
+     * @param condition the WHERE condition (nullable for all rows)
+     * @return an open cursor
+     * @throws SQLException if a database error occurs
+     * @see Cursor
+     */
+    @NotNull <T> Cursor<T> selectCursor(@NotNull Class<T> clazz, @Nullable Condition condition) throws SQLException;
+
+    /**
+     * Open a lazily hydrated cursor with an explicit fetch size.
+     * On PostgreSQL a server-side cursor is used, which needs auto-commit off while the cursor is open.
+     *
+     * @param <T>       the entity type
+     * @param clazz     the entity class
+     * @param condition the WHERE condition (nullable for all rows)
+     * @param fetchSize the number of rows fetched per round trip
+     * @return an open cursor
+     * @throws SQLException if a database error occurs
+     */
+    @NotNull <T> Cursor<T> selectCursor(@NotNull Class<T> clazz, @Nullable Condition condition, int fetchSize) throws SQLException;
+
+    /**
+     * Stream the rows matching the condition. The stream holds a pooled connection until it is closed:
+     * <pre>{@code
+     * try (Stream<User> users = conn.selectStream(User.class, null)) {
+     *     users.filter(User::isActive).forEach(this::export);
+     * }
+     * }</pre>
+     *
+     * @param <T>       the entity type
+     * @param clazz     the entity class
+     * @param condition the WHERE condition (nullable for all rows)
+     * @return a lazily hydrated stream that must be closed
+     * @throws SQLException if a database error occurs
+     */
+    @NotNull <T> Stream<T> selectStream(@NotNull Class<T> clazz, @Nullable Condition condition) throws SQLException;
+
+    /**
+     * Stream the rows matching the condition with an explicit fetch size.
+     *
+     * @param <T>       the entity type
+     * @param clazz     the entity class
+     * @param condition the WHERE condition (nullable for all rows)
+     * @param fetchSize the number of rows fetched per round trip
+     * @return a lazily hydrated stream that must be closed
+     * @throws SQLException if a database error occurs
+     * @see #selectCursor(Class, Condition, int)
+     */
+    @NotNull <T> Stream<T> selectStream(@NotNull Class<T> clazz, @Nullable Condition condition, int fetchSize) throws SQLException;
+
+    /**
+     * Read one page of rows in ascending order using keyset (seek) pagination.
+     *
+     * @param <T>       the entity type
+     * @param clazz     the entity class
+     * @param condition the WHERE condition (nullable for all rows)
+     * @param orderBy   the sort columns; the primary key is appended to break ties
+     * @param pageSize  the maximum number of rows per page
+     * @param token     the token of the previous page, or {@code null} for the first page
+     * @return the page
+     * @throws SQLException if a database error occurs
+     * @see #page(Class, Condition, List, OrderType, int, String)
+     */
+    @NotNull <T> Page<T> page(@NotNull Class<T> clazz, @Nullable Condition condition, @NotNull List<String> orderBy,
+                              int pageSize, @Nullable String token) throws SQLException;
+
+    /**
+     * Read one page of rows using keyset (seek) pagination. Instead of an OFFSET, each page continues
+     * strictly after the sort key of the previous page's last row, so every page costs the same
+     * regardless of depth when an index covers the sort columns:
+     * <pre>{@code
+     * Page<User> page = conn.page(User.class, null, List.of("created_at"), OrderType.DESC, 50, null);
+     * Page<User> next = conn.page(User.class, null, List.of("created_at"), OrderType.DESC, 50, page.getNextToken());
+     * }</pre>
+     * Sort columns must be {@code @Column}s that are never NULL. Tokens are opaque and only valid for the same
+     * table, sort columns and direction.
+     *
+     * @param <T>       the entity type
+     * @param clazz     the entity class
+     * @param condition the WHERE condition (nullable for all rows)
+     * @param orderBy   the sort columns; the primary key is appended to break ties
+     * @param order     the sort direction of all columns
+     * @param pageSize  the maximum number of rows per page
+     * @param token     the token of the previous page, or {@code null} for the first page
+     * @return the page
+     * @throws SQLException             if a database error occurs
+     * @throws IllegalArgumentException if the token is malformed or belongs to a different query
+     */
+    @NotNull <T> Page<T> page(@NotNull Class<T> clazz, @Nullable Condition condition, @NotNull List<String> orderBy,
+                              @NotNull OrderType order, int pageSize, @Nullable String token) throws SQLException;
+
+    /**
+     * Execute a bound {@link io.github.lijinhong11.mdatabase.sql.CompiledQuery}.
+     *
+     * @param query the bound query, compiled for this connection's database type
+     * @return {@code true} if the result is a ResultSet, {@code false} for an update count
+     * @throws SQLException if a database error occurs
+     */
+    boolean execute(@NotNull BoundQuery query) throws SQLException;
+
+    /**
+     * Select a single object with a bound compiled SELECT query.
+     *
+     * @param <T>   the entity type
+     * @param clazz the entity class
+     * @param query the bound query, compiled for this connection's database type
+     * @return the matched object
+     * @throws SQLException if a database error occurs
+     */
+    @NotNull <T> T selectOne(@NotNull Class<T> clazz, @NotNull BoundQuery query) throws SQLException;
+
+    /**
+     * Select rows with a bound compiled SELECT query.
+     *
+     * @param <T>   the entity type
+     * @param clazz the entity class
+     * @param query the bound query, compiled for this connection's database type
+     * @return matched rows as a list
+     * @throws SQLException if a database error occurs
+     */
+    @NotNull <T> List<T> selectMulti(@NotNull Class<T> clazz, @NotNull BoundQuery query) throws SQLException;
+
     /**
      * Create a table from an entity class definition.
      * If the class is annotated with {@code @AutoMigrate}, missing columns will be added
@@ -176,8 +315,10 @@ public interface DatabaseConnection {
     <T> void insertObject(@NotNull Class<T> clazz, @NotNull T object, boolean upsert) throws SQLException;
 
     /**
-     * Batch insert multiple objects using JDBC {@link java.sql.Statement#executeBatch()}.
-     * All rows are inserted on a single connection. An empty list is a no-op.
+     * Batch insert multiple objects. With {@link io.github.lijinhong11.mdatabase.enums.BatchMode#MULTI_ROW}
+     * (the default) rows are sent as multi-row {@code INSERT ... VALUES} statements sized to the database's
+     * bind parameter limit; with {@link io.github.lijinhong11.mdatabase.enums.BatchMode#JDBC_BATCH} via JDBC
+     * {@link java.sql.Statement#executeBatch()}. All rows are inserted on a single connection. An empty list is a no-op.
      *
      * @param <T>     the entity type
      * @param clazz   the entity class
@@ -186,6 +327,84 @@ public interface DatabaseConnection {
      */
     <T> void insertBatch(@NotNull Class<T> clazz, @NotNull List<T> objects) throws SQLException;
 
+    /**
+     * Batch upsert multiple objects: rows whose primary key already exists are updated, others inserted.
+     * Uses the same statements as {@link #insertObject(Class, Object, boolean)} with {@code upsert = true},
+     * sent like {@link #insertBatch(Class, List)} on a single connection. If the list holds several objects
+     * with the same key, the last one wins. An empty list is a no-op.
+     *
+     * @param <T>     the entity type
+     * @param clazz   the entity class (must have a {@code @PrimaryKey} on SQLite and PostgreSQL)
+     * @param objects the objects to upsert
+     * @throws SQLException if a database error occurs
+     */
+    <T> void upsertBatch(@NotNull Class<T> clazz, @NotNull List<T> objects) throws SQLException;
+
+    /**
+     * Batch insert multiple objects, skipping those that conflict with an existing key
+     * ({@code INSERT IGNORE} on MySQL/MariaDB, {@code ON CONFLICT DO NOTHING} elsewhere).
+     * Sent like {@link #insertBatch(Class, List)} on a single connection. An empty list is a no-op.
+     *
+     * @param <T>     the entity type
+     * @param clazz   the entity class
+     * @param objects the objects to insert
+     * @throws SQLException if a database error occurs
+     */
+    <T> void insertIfAbsentBatch(@NotNull Class<T> clazz, @NotNull List<T> objects) throws SQLException;
+
+    /**
+     * Select the objects with the given primary keys. Keys are sent in IN lists of power-of-two size on a
+     * single connection, so any number of ids is fine and statements are reused across calls.
+     * Ids that match no row are missing from the result.
+     *
+     * @param <T>   the entity type
+     * @param clazz the entity class (must have at least one {@code @PrimaryKey})
+     * @param ids   the key values of the field's type; for composite keys, lists of values in {@code @PrimaryKey} order
+     * @return the objects keyed by their primary key field value, or by a list of values for composite keys
+     * @throws SQLException if a database error occurs
+     */
+    <T> @NotNull Map<Object, T> selectByIds(@NotNull Class<T> clazz, @NotNull Collection<?> ids) throws SQLException;
+
+    /**
+     * Delete the rows with the given primary keys, chunked like {@link #selectByIds(Class, Collection)}.
+     *
+     * @param clazz the entity class (must have at least one {@code @PrimaryKey})
+     * @param ids   the key values of the field's type; for composite keys, lists of values in {@code @PrimaryKey} order
+     * @return the number of rows deleted
+     * @throws SQLException if a database error occurs
+     */
+    int deleteByIds(@NotNull Class<?> clazz, @NotNull Collection<?> ids) throws SQLException;
+
+    /**
+     * Select one object by primary key. For {@code @Cached} classes the object is served from and stored in
+     * the entity cache of this connection; inside a transaction the cache is bypassed.
+     *
+     * @param <T>   the entity type
+     * @param clazz the entity class (must have at least one {@code @PrimaryKey})
+     * @param id    the key value; for composite keys, a list of values in {@code @PrimaryKey} order
+     * @return the object, or {@code null} if there is no such row
+     * @throws SQLException if a database error occurs
+     */
+    <T> @Nullable T findById(@NotNull Class<T> clazz, @NotNull Object id) throws SQLException;
+
+    /**
+     * Select objects like {@link #selectMulti(Class, Condition)}, serving repeated calls from the query cache
+     * for up to {@code ttl}. Results are keyed by the rendered SQL and its parameters, and dropped as soon as
+     * this connection writes the table. Inside a transaction the cache is bypassed.
+     * <p>
+     * The returned list is unmodifiable and shared by every caller that hits the same entry.
+     * Writes made by other processes are not seen until the entry expires.
+     *
+     * @param <T>       the entity type
+     * @param clazz     the entity class
+     * @param condition the condition to filter rows, or {@code null} for all rows
+     * @param ttl       how long the result may be reused
+     * @return the list of objects
+     * @throws SQLException if a database error occurs
+     * @see DatabaseParameters#setQueryCacheSize(int)
+     */
+    <T> @NotNull List<T> selectCached(@NotNull Class<T> clazz, @Nullable Condition condition, @NotNull Duration ttl) throws SQLException;
+
     /**
      * Batch update multiple objects identified by their {@code @PrimaryKey} fields.
      * Non-primary-key {@code @Column} fields become the SET clause; primary key fields
@@ -235,6 +454,33 @@ public interface DatabaseConnection {
      */
     @NotNull DatabaseType getType();
 
+    /**
+     * Return the hit, miss and eviction counters of the prepared statement caches.
+     * Cache sizes are configured via {@link DatabaseParameters#setStatementCacheSize(int)}.
+     *
+     * @return the statement cache counters of this connection
+     */
+    @NotNull StatementCacheStats getStatementCacheStats();
+
+    /**
+     * @param clazz the entity class
+     * @return the entity cache counters of the class, or {@code null} if it is not {@code @Cached}
+     */
+    @Nullable CacheStats getEntityCacheStats(@NotNull Class<?> clazz);
+
+    /**
+     * @return the query cache counters of this connection, or {@code null} if the query cache is disabled
+     */
+    @Nullable CacheStats getQueryCacheStats();
+
+    /**
+     * Drop every cached object of a class, e.g. after changing its table with raw SQL.
+     * Does nothing if the class is not {@code @Cached}.
+     *
+     * @param clazz the entity class
+     */
+    void invalidateCache(@NotNull Class<?> clazz);
+
     /**
      * Enable or disable debug logging of generated SQL statements.
      *
@@ -270,4 +516,77 @@ public interface DatabaseConnection {
      * @throws SQLException if no transaction is active or rollback fails
      */
     void rollback() throws SQLException;
+
+    /**
+     * Open a {@link Session}: a transaction on its own pooled connection that any thread can use.
+     *
+     * @return a new session, to be closed by the caller
+     * @throws SQLException if no connection can be obtained
+     */
+    @NotNull Session openSession() throws SQLException;
+
+    /**
+     * Open a {@link Session} with the given isolation level and access mode.
+     * Read-only sessions let the database skip write bookkeeping and reject accidental writes.
+     *
+     * @param isolation the isolation level, or {@code null} for the database default
+     * @param readOnly  {@code true} to open a read-only session
+     * @return a new session, to be closed by the caller
+     * @throws SQLException if no connection can be obtained or the settings are not supported
+     */
+    @NotNull Session openSession(@Nullable IsolationLevel isolation, boolean readOnly) throws SQLException;
+
+    /**
+     * Run a unit of work in a new {@link Session} and commit it. If the work or the commit fails because of
+     * a deadlock, a serialization failure or a busy database, as classified for this {@link DatabaseType},
+     * the session is rolled back and the whole unit is run again after an exponential backoff with jitter,
+     * up to {@link DatabaseParameters#getTransactionMaxAttempts()} attempts. Other errors are thrown at once.
+     * Once the commit succeeded the work is never run again; a failure to close the session after it is only logged.
+     * <pre>{@code
+     * int balance = conn.inTransaction(session -> {
+     *     Account account = session.selectOne(Account.class, Conditions.eq("id", id));
+     *     account.balance -= amount;
+     *     session.updateObject(Account.class, account, Conditions.eq("id", id));
+     *     return account.balance;
+     * });
+     * }</pre>
+     * Called on a {@link Session}, the work runs once in a nested savepoint scope instead, since only the
+     * outermost transaction can be retried.
+     *
+     * @param <R>  the result type
+     * @param work the unit of work, which may run several times
+     * @return the result of the attempt that committed
+     * @throws SQLException the error of the last attempt
+     */
+    <R> R inTransaction(@NotNull TransactionWork<R> work) throws SQLException;
+
+    /**
+     * Like {@link #inTransaction(TransactionWork)}, with the given isolation level.
+     *
+     * @param <R>       the result type
+     * @param isolation the isolation level, or {@code null} for the database default
+     * @param work      the unit of work, which may run several times
+     * @return the result of the attempt that committed
+     * @throws SQLException the error of the last attempt
+     */
+    <R> R inTransaction(@Nullable IsolationLevel isolation, @NotNull TransactionWork<R> work) throws SQLException;
+
+    /**
+     * @return the commit, retry and give-up counters of {@link #inTransaction(TransactionWork)}
+     */
+    @NotNull TransactionStats getTransactionStats();
+
+    /**
+     * Report every call that reaches the database to a listener, e.g. a
+     * {@link io.github.lijinhong11.mdatabase.metrics.MetricsRecorder}. Listeners run on the calling thread
+     * right after each call, so they must be fast and thread-safe; without listeners nothing is measured.
+     *
+     * @param listener the listener to add
+     */
+    void addQueryListener(@NotNull QueryListener listener);
+
+    /**
+     * @param listener a listener added with {@link #addQueryListener(QueryListener)}
+     */
+    void removeQueryListener(@NotNull QueryListener listener);
 }
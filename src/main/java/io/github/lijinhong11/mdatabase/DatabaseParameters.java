@@ -1,6 +1,7 @@
 package io.github.lijinhong11.mdatabase;
 
 import com.zaxxer.hikari.HikariConfig;
+import io.github.lijinhong11.mdatabase.enums.BatchMode;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -29,6 +30,116 @@ public class DatabaseParameters {
     private long leakDetectionThreshold = 0L;
     private long maxKeepAlive = TimeUnit.MINUTES.toMillis(2L);
     private String poolName;
+    /**
+     * Maximum number of concurrent tasks for the shared executor behind
+     * {@link io.github.lijinhong11.mdatabase.impl.DatabaseConnections#async(DatabaseConnection)}.
+     * Defaults to {@link #maxPoolSize} when {@code null}.
+     */
+    private Integer asyncMaxConcurrency;
+    /**
+     * Maximum number of idle prepared statements cached per physical connection. {@code 0} disables the cache.
+     */
+    private int statementCacheSize = 64;
+    /**
+     * SQL longer than this many characters is never cached.
+     */
+    private int statementCacheMaxSqlLength = 4096;
+    /**
+     * Rows fetched per round trip by {@code selectCursor}/{@code selectStream} when no fetch size is given.
+     */
+    private int streamFetchSize = 1000;
+    /**
+     * How {@code insertBatch} sends its rows.
+     */
+    private BatchMode batchMode = BatchMode.MULTI_ROW;
+    /**
+     * Upper bound on the rows of one multi-row INSERT, below the database's bind parameter limit.
+     */
+    private int multiRowBatchSize = 1000;
+    /**
+     * Upper bound on the keys of one IN list sent by {@code selectByIds}/{@code deleteByIds}.
+     * Lists are split into power-of-two chunks no larger than this.
+     */
+    private int inListMaxSize = 1024;
+    /**
+     * Maximum number of results kept by {@code selectCached}. {@code 0} disables the query cache.
+     */
+    private int queryCacheSize = 1000;
+    /**
+     * How many times {@code inTransaction} runs a unit of work that keeps failing with a retryable error,
+     * counting the first attempt.
+     */
+    private int transactionMaxAttempts = 5;
+    /**
+     * The backoff ceiling in milliseconds before the first retry of {@code inTransaction}, doubled for each
+     * further retry. The actual delay is picked at random below the ceiling.
+     */
+    private long transactionRetryBaseDelay = 10L;
+    /**
+     * The largest backoff ceiling in milliseconds between two attempts of {@code inTransaction}.
+     */
+    private long transactionRetryMaxDelay = 1000L;
+    /**
+     * How long in milliseconds a routing connection keeps reading a table from the primary after it was written,
+     * so that callers see their own writes before the replicas do. {@code 0} disables the stickiness.
+     */
+    private long readAfterWriteWindow = 2000L;
+    /**
+     * Replicas of a routing connection lagging more than this many milliseconds behind the primary get no reads.
+     */
+    private long replicaMaxLag = 10_000L;
+    /**
+     * Milliseconds between two health and lag checks of the replicas of a routing connection.
+     */
+    private long replicaCheckInterval = 5000L;
+    /**
+     * Open SQLite databases in WAL mode with a single writer connection, through which every write and
+     * transaction goes, and a pool of {@link #maxPoolSize} read-only connections serving plain reads.
+     * The {@code sqlite*} pragmas below are applied to every connection only in this mode.
+     */
+    private boolean sqliteTuned = false;
+    /**
+     * {@code PRAGMA synchronous} of a tuned SQLite database: {@code OFF}, {@code NORMAL}, {@code FULL} or {@code EXTRA}.
+     * {@code NORMAL} is durable against application crashes in WAL mode and skips most fsyncs.
+     */
+    private String sqliteSynchronous = "NORMAL";
+    /**
+     * {@code PRAGMA cache_size} of a tuned SQLite database: pages if positive, KiB if negative.
+     */
+    private int sqliteCacheSize = -16384;
+    /**
+     * {@code PRAGMA mmap_size} of a tuned SQLite database in bytes, {@code 0} to disable memory mapping.
+     */
+    private long sqliteMmapSize = 256L * 1024L * 1024L;
+    /**
+     * {@code PRAGMA temp_store} of a tuned SQLite database: {@code DEFAULT}, {@code FILE} or {@code MEMORY}.
+     */
+    private String sqliteTempStore = "MEMORY";
+    /**
+     * {@code PRAGMA busy_timeout} of a tuned SQLite database in milliseconds.
+     */
+    private int sqliteBusyTimeout = 5000;
+    /**
+     * Calls taking at least this many milliseconds are written to the slow query log
+     * of {@link io.github.lijinhong11.mdatabase.metrics.SlowQueryLog}. {@code 0} disables it.
+     */
+    private long slowQueryThreshold = 0L;
+    /**
+     * Whether the slow query log shows bound values. When {@code false} each value is replaced by its type.
+     */
+    private boolean slowQueryLogParameters = false;
+    /**
+     * Maximum number of characters of each bound value in the slow query log; longer values are truncated.
+     */
+    private int slowQueryMaxParameterLength = 64;
+    /**
+     * Whether the slow query log records the first stack frame outside MDatabase that made the call.
+     */
+    private boolean slowQueryCaptureCaller = false;
+    /**
+     * Maximum number of slow query log entries per minute for the same SQL; further ones are only counted.
+     */
+    private int slowQueryLimitPerMinute = 6;
 
     public void applyTo(HikariConfig config) {
         config.setMaximumPoolSize(maxPoolSize);
@@ -0,0 +1,311 @@
+package io.github.lijinhong11.mdatabase;
+
+import io.github.lijinhong11.mdatabase.sql.conditions.Condition;
+import org.jetbrains.annotations.NotNull;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Applies writes from many threads in shared transactions, so that they share one commit.
+ * <p>
+ * On SQLite every autocommit write is a transaction of its own with its own sync to disk, which caps writes
+ * at a few hundred per second. Writes submitted here are queued and run by one background thread: it takes
+ * the first waiting write, collects more for up to {@code maxDelay} or until {@code maxWrites} are waiting,
+ * and runs them all in one {@link Session}. Each write runs inside its own savepoint, so a failing write is
+ * rolled back alone and the others still commit. Futures complete once the shared commit has succeeded,
+ * or fail with the write's own error or the error of the commit. Should the background thread itself die,
+ * every pending future fails and later writes are rejected.
+ * <pre>{@code
+ * GroupCommitExecutor writes = new GroupCommitExecutor(conn, Duration.ofMillis(5), 256);
+ * writes.insertObject(Mail.class, mail, false).join();   // durable once this returns
+ * writes.close();
+ * }</pre>
+ * Any {@link DatabaseConnection} works, but only databases that sync on each commit, like SQLite, gain much.
+ * With {@link DatabaseParameters#isSqliteTuned()} the shared transaction holds the writer connection.
+ */
+public final class GroupCommitExecutor implements AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger("MDatabase");
+    private static final Write<?> STOP = new Write<>(session -> null, new CompletableFuture<>());
+
+    private final DatabaseConnection connection;
+    private final long maxDelayNanos;
+    private final int maxWrites;
+    private final BlockingQueue<Write<?>> queue = new LinkedBlockingQueue<>();
+    private final Thread worker;
+    private final AtomicLong commits = new AtomicLong();
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong failedWrites = new AtomicLong();
+    private volatile boolean closed;
+    private volatile Throwable workerFailure;
+
+    /**
+     * @param connection the connection to write through
+     * @param maxDelay   how long the first write of a group waits for others to join it
+     * @param maxWrites  the number of writes that commits a group right away
+     */
+    public GroupCommitExecutor(@NotNull DatabaseConnection connection, @NotNull Duration maxDelay, int maxWrites) {
+        if (maxDelay.isNegative()) {
+            throw new IllegalArgumentException("maxDelay cannot be negative");
+        }
+        if (maxWrites < 1) {
+            throw new IllegalArgumentException("maxWrites must be at least 1");
+        }
+
+        this.connection = connection;
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.maxWrites = maxWrites;
+        this.worker = new Thread(this::runWorker, "MDatabase-group-commit");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Queue a unit of work to run in the next shared transaction. The work may run statements through the
+     * given session but must not commit or roll it back.
+     *
+     * @param work the work, run once
+     * @param <R>  the result type
+     * @return a future of the work's result, completed after the commit
+     * @throws IllegalStateException if the executor has been closed or its background thread died
+     */
+    public <R> @NotNull CompletableFuture<R> submit(@NotNull TransactionWork<R> work) {
+        if (closed) {
+            throw closedException();
+        }
+
+        Write<R> write = new Write<>(work, new CompletableFuture<>());
+        queue.add(write);
+        if (closed && queue.remove(write)) {
+            write.future.completeExceptionally(closedException());
+        }
+        return write.future;
+    }
+
+    private IllegalStateException closedException() {
+        Throwable failure = workerFailure;
+        return failure == null ? new IllegalStateException("the executor has been closed")
+                : new IllegalStateException("the executor stopped after an error", failure);
+    }
+
+    /**
+     * @see DatabaseConnection#insertObject(Class, Object, boolean)
+     */
+    public <T> @NotNull CompletableFuture<Void> insertObject(@NotNull Class<T> clazz, @NotNull T object, boolean upsert) {
+        return submit(session -> {
+            session.insertObject(clazz, object, upsert);
+            return null;
+        });
+    }
+
+    /**
+     * @see DatabaseConnection#updateObject(Class, Object, Condition)
+     */
+    public <T> @NotNull CompletableFuture<Void> updateObject(@NotNull Class<T> clazz, @NotNull T object, @NotNull Condition condition) {
+        return submit(session -> {
+            session.updateObject(clazz, object, condition);
+            return null;
+        });
+    }
+
+    /**
+     * @see DatabaseConnection#deleteObject(Class, Condition)
+     */
+    public @NotNull CompletableFuture<Void> deleteObject(@NotNull Class<?> clazz, @NotNull Condition condition) {
+        return submit(session -> {
+            session.deleteObject(clazz, condition);
+            return null;
+        });
+    }
+
+    private void runWorker() {
+        List<Write<?>> group = new ArrayList<>(maxWrites);
+        try {
+            collectAndCommit(group);
+        } catch (Throwable t) {
+            // reject new writes first, so that none is queued after the queue is drained below
+            workerFailure = t;
+            closed = true;
+            LOGGER.log(Level.SEVERE, "Group commit thread stopped, failing " + (group.size() + queue.size()) + " writes", t);
+            for (Write<?> write : group) {
+                write.fail(t, failedWrites);
+            }
+            Write<?> left;
+            while ((left = queue.poll()) != null) {
+                if (left != STOP) {
+                    left.fail(t, failedWrites);
+                }
+            }
+        }
+    }
+
+    private void collectAndCommit(List<Write<?>> group) {
+        boolean stopping = false;
+        while (!stopping || !queue.isEmpty()) {
+            try {
+                Write<?> first = stopping ? queue.poll() : queue.take();
+                if (first == null) {
+                    break;
+                }
+                if (first == STOP) {
+                    stopping = true;
+                    continue;
+                }
+
+                group.add(first);
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (group.size() < maxWrites) {
+                    long remaining = deadline - System.nanoTime();
+                    Write<?> next = remaining > 0L && !stopping ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    if (next == STOP) {
+                        stopping = true;
+                        continue;
+                    }
+                    group.add(next);
+                }
+            } catch (InterruptedException e) {
+                stopping = true;
+            }
+
+            if (!group.isEmpty()) {
+                commitGroup(group);
+                group.clear();
+            }
+        }
+    }
+
+    private void commitGroup(List<Write<?>> group) {
+        try (Session session = connection.openSession()) {
+            for (Write<?> write : group) {
+                write.run(session);
+            }
+            session.commit();
+        } catch (SQLException | RuntimeException e) {
+            // the session itself failed: nothing in the group was committed
+            LOGGER.log(Level.WARNING, "Group commit of " + group.size() + " writes failed", e);
+            for (Write<?> write : group) {
+                write.fail(e, failedWrites);
+            }
+            return;
+        }
+
+        commits.incrementAndGet();
+        writes.addAndGet(group.size());
+        for (Write<?> write : group) {
+            write.complete(failedWrites);
+        }
+    }
+
+    /**
+     * @return the number of writes waiting for the next group
+     */
+    public int getPendingCount() {
+        return queue.size();
+    }
+
+    /**
+     * @return the number of shared transactions committed
+     */
+    public long getCommitCount() {
+        return commits.get();
+    }
+
+    /**
+     * @return the number of writes that were part of a committed group, including ones rolled back alone
+     */
+    public long getWriteCount() {
+        return writes.get();
+    }
+
+    /**
+     * @return the number of writes whose future failed
+     */
+    public long getFailedWriteCount() {
+        return failedWrites.get();
+    }
+
+    /**
+     * Stop accepting writes, commit everything still queued and stop the background thread. Idempotent.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        queue.add(STOP);
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        Write<?> left;
+        while ((left = queue.poll()) != null) {
+            left.future.completeExceptionally(new IllegalStateException("the executor has been closed"));
+        }
+    }
+
+    private static final class Write<R> {
+        private final TransactionWork<R> work;
+        private final CompletableFuture<R> future;
+        private R result;
+        private Throwable error;
+
+        Write(TransactionWork<R> work, CompletableFuture<R> future) {
+            this.work = work;
+            this.future = future;
+        }
+
+        /**
+         * Run the work in a savepoint, keeping its own failure, errors included, instead of failing the group.
+         * Only a failure to roll back to the savepoint is thrown, since the session is then unusable.
+         */
+        void run(Session session) throws SQLException {
+            SavepointScope scope = session.savepoint();
+            try {
+                result = work.run(session);
+                scope.release();
+            } catch (Throwable t) {
+                error = t;
+                scope.rollback();
+            }
+        }
+
+        /**
+         * Complete the future after the commit. A failure of the work is counted before the future
+         * completes, so that callers joining it see the count.
+         */
+        void complete(AtomicLong failed) {
+            if (error != null) {
+                failed.incrementAndGet();
+                future.completeExceptionally(error);
+            } else {
+                future.complete(result);
+            }
+        }
+
+        /**
+         * Fail the future unless it is already done, with the work's own error if it had one.
+         */
+        void fail(Throwable cause, AtomicLong failed) {
+            if (!future.isDone()) {
+                failed.incrementAndGet();
+                future.completeExceptionally(error != null ? error : cause);
+            }
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package io.github.lijinhong11.mdatabase;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated query, see
+ * {@link DatabaseConnection#page(Class, io.github.lijinhong11.mdatabase.sql.conditions.Condition, List, int, String)}.
+ *
+ * @param <T> the entity type
+ */
+public final class Page<T> {
+    private final List<T> items;
+    private final @Nullable String nextToken;
+
+    /**
+     * @param items     the rows of this page
+     * @param nextToken the token of the following page, or {@code null} if this is the last page
+     */
+    public Page(@NotNull List<T> items, @Nullable String nextToken) {
+        this.items = List.copyOf(items);
+        this.nextToken = nextToken;
+    }
+
+    /**
+     * @return the rows of this page, in sort order
+     */
+    public @NotNull List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * @return the opaque token to pass for the next page, or {@code null} if this is the last page
+     */
+    public @Nullable String getNextToken() {
+        return nextToken;
+    }
+
+    /**
+     * @return {@code true} if another page follows
+     */
+    public boolean hasNext() {
+        return nextToken != null;
+    }
+}
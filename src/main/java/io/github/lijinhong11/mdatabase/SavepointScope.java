@@ -0,0 +1,64 @@
+package io.github.lijinhong11.mdatabase;
+
+import java.sql.SQLException;
+import java.sql.Savepoint;
+
+/**
+ * A nested scope of a {@link Session}, obtained via {@link Session#savepoint()}.
+ * <p>
+ * If {@link #close()} is called without an explicit {@link #release()}, the work done in the scope
+ * is rolled back while the rest of the session's transaction is kept.
+ */
+public final class SavepointScope implements AutoCloseable {
+    private final Session session;
+    private final Savepoint savepoint;
+    private boolean completed;
+
+    /**
+     * Construct a scope for a savepoint already set in the session.
+     * Prefer using {@link Session#savepoint()} instead.
+     *
+     * @param session   the session
+     * @param savepoint the savepoint
+     */
+    public SavepointScope(Session session, Savepoint savepoint) {
+        this.session = session;
+        this.savepoint = savepoint;
+    }
+
+    /**
+     * Keep the work of this scope. Idempotent — subsequent calls are ignored.
+     *
+     * @throws SQLException if the savepoint cannot be released
+     */
+    public void release() throws SQLException {
+        if (!completed) {
+            session.releaseSavepoint(savepoint);
+            completed = true;
+        }
+    }
+
+    /**
+     * Undo the work of this scope. Idempotent — subsequent calls are ignored.
+     *
+     * @throws SQLException if the rollback fails
+     */
+    public void rollback() throws SQLException {
+        if (!completed) {
+            session.rollbackTo(savepoint);
+            completed = true;
+        }
+    }
+
+    /**
+     * Close this scope, rolling back if not yet released.
+     *
+     * @throws SQLException if the rollback fails
+     */
+    @Override
+    public void close() throws SQLException {
+        if (!completed) {
+            rollback();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package io.github.lijinhong11.mdatabase;
+
+import io.github.lijinhong11.mdatabase.enums.IsolationLevel;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.sql.SQLException;
+import java.sql.Savepoint;
+
+/**
+ * A transaction that owns its own pooled connection, obtained via {@link DatabaseConnection#openSession()}.
+ * <p>
+ * Unlike {@link DatabaseConnection#beginTransaction()}, which binds the transaction to the calling thread,
+ * every method of a session runs in the session's transaction no matter which thread calls it, so the work
+ * of one transaction can be spread over {@code CompletableFuture} stages or virtual threads. Calls are
+ * serialized: a session can be shared, but its statements never run concurrently.
+ * <pre>{@code
+ * try (Session session = conn.openSession(IsolationLevel.REPEATABLE_READ, false)) {
+ *     session.insertObject(Order.class, order, false);
+ *     try (SavepointScope scope = session.savepoint()) {
+ *         session.updateObject(Stock.class, stock, Conditions.eq("id", stock.id));
+ *         scope.release();
+ *     }
+ *     session.commit();
+ * }
+ * }</pre>
+ * {@link #commit()} and {@link #rollback()} end the current transaction and start the next one on the same
+ * connection. {@link #close()} rolls back what was not committed and returns the connection to the pool.
+ * Entity and query caches are bypassed inside a session, like in any transaction.
+ * <p>
+ * A {@link Cursor}, stream or {@link java.sql.ResultSet} of a session keeps
+ * reading from its connection after the call returns. Until it is closed the session belongs to the thread
+ * that opened it: calls from other threads wait for it to be closed, and {@link #commit()} and
+ * {@link #rollback()} fail, as ending the transaction would close it. {@link #close()} on that thread closes
+ * what it left open. Read a result on the thread that opened it, and close it before handing the session on.
+ */
+public interface Session extends DatabaseConnection, AutoCloseable {
+    /**
+     * Start a nested scope that can be rolled back on its own.
+     *
+     * @return a scope rolled back on close unless it was released
+     * @throws SQLException if the savepoint cannot be set
+     */
+    @NotNull SavepointScope savepoint() throws SQLException;
+
+    /**
+     * Undo the work done since a savepoint was set, keeping the savepoint.
+     * Prefer {@link SavepointScope#rollback()}.
+     *
+     * @param savepoint the savepoint
+     * @throws SQLException if the rollback fails
+     */
+    void rollbackTo(@NotNull Savepoint savepoint) throws SQLException;
+
+    /**
+     * Keep the work done since a savepoint was set, as part of the enclosing transaction.
+     * Prefer {@link SavepointScope#release()}.
+     *
+     * @param savepoint the savepoint
+     * @throws SQLException if the savepoint cannot be released
+     */
+    void releaseSavepoint(@NotNull Savepoint savepoint) throws SQLException;
+
+    /**
+     * @return the isolation level the session was opened with, or {@code null} for the database default
+     */
+    @Nullable IsolationLevel getIsolationLevel();
+
+    /**
+     * @return {@code true} if the session was opened read-only
+     */
+    boolean isReadOnly();
+
+    /**
+     * @return {@code true} once the session has been closed
+     */
+    boolean isClosed();
+
+    /**
+     * Sessions are already transactions; use {@link #savepoint()} for nested scopes.
+     *
+     * @throws SQLException always
+     */
+    @Override
+    Transaction beginTransaction() throws SQLException;
+
+    /**
+     * Commit the work of the session so far. The session stays open for further work.
+     *
+     * @throws SQLException if the commit fails, the session is closed or one of its results is still open
+     */
+    @Override
+    void commit() throws SQLException;
+
+    /**
+     * Undo the work of the session since the last commit. The session stays open for further work.
+     *
+     * @throws SQLException if the rollback fails, the session is closed or one of its results is still open
+     */
+    @Override
+    void rollback() throws SQLException;
+
+    /**
+     * Roll back what was not committed and return the connection to the pool; the database connection
+     * the session was opened from stays open. Idempotent.
+     *
+     * @throws SQLException if the rollback fails
+     */
+    @Override
+    void close() throws SQLException;
+}
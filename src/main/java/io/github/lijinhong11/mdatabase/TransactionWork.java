@@ -0,0 +1,20 @@
+package io.github.lijinhong11.mdatabase;
+
+import java.sql.SQLException;
+
+/**
+ * A unit of work run by {@link DatabaseConnection#inTransaction(TransactionWork)}.
+ * It may run several times, so it must not have effects outside the session it is given
+ * that would be wrong to repeat.
+ *
+ * @param <R> the result type
+ */
+@FunctionalInterface
+public interface TransactionWork<R> {
+    /**
+     * @param session the session of this attempt
+     * @return the result of the work
+     * @throws SQLException if a database error occurs
+     */
+    R run(Session session) throws SQLException;
+}
@@ -0,0 +1,246 @@
+package io.github.lijinhong11.mdatabase;
+
+import io.github.lijinhong11.mdatabase.exceptions.DatabaseAccessException;
+import io.github.lijinhong11.mdatabase.serialization.ColumnMetadata;
+import io.github.lijinhong11.mdatabase.serialization.EntityMetadata;
+import org.jetbrains.annotations.NotNull;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Collects writes of an {@code @Table} entity in memory and persists them later in batches.
+ * <p>
+ * Pending writes are coalesced per primary key: if an object is written several times before the next flush,
+ * only the latest one reaches the database. Objects are kept by reference and read when they are flushed.
+ * Flushes run on a single background thread, every {@code flushInterval} and as soon as {@code maxPending}
+ * keys are waiting, and use {@link DatabaseConnection#upsertBatch(Class, List)}, so new rows are inserted too.
+ * <pre>{@code
+ * WriteBehindBuffer<PlayerData> buffer = new WriteBehindBuffer<>(conn, PlayerData.class, Duration.ofSeconds(5), 500);
+ * buffer.write(data);             // returns immediately
+ * buffer.flush().join();          // e.g. before a backup
+ * buffer.close();                 // on shutdown, writes everything still pending
+ * }</pre>
+ * A failed flush puts its objects back unless a newer version was written in the meantime, so they are
+ * retried with the next flush.
+ *
+ * @param <T> the entity type
+ */
+public final class WriteBehindBuffer<T> implements AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger("MDatabase");
+
+    private final DatabaseConnection connection;
+    private final Class<T> clazz;
+    private final List<ColumnMetadata> keyColumns;
+    private final int maxPending;
+    private final ScheduledExecutorService scheduler;
+    private final Map<Object, T> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean flushQueued = new AtomicBoolean();
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong flushedRows = new AtomicLong();
+    private final AtomicLong failedFlushes = new AtomicLong();
+    private volatile boolean closed;
+
+    /**
+     * @param connection    the connection to write through
+     * @param clazz         the entity class (must have at least one {@code @PrimaryKey})
+     * @param flushInterval the time between periodic flushes
+     * @param maxPending    the number of pending keys that triggers a flush right away
+     * @throws IllegalStateException if the class has no {@code @PrimaryKey}
+     */
+    public WriteBehindBuffer(@NotNull DatabaseConnection connection, @NotNull Class<T> clazz,
+                             @NotNull Duration flushInterval, int maxPending) {
+        if (flushInterval.isNegative() || flushInterval.isZero()) {
+            throw new IllegalArgumentException("flushInterval must be positive");
+        }
+        if (maxPending < 1) {
+            throw new IllegalArgumentException("maxPending must be at least 1");
+        }
+
+        EntityMetadata metadata = EntityMetadata.of(clazz);
+        if (metadata.getKeyColumns().isEmpty()) {
+            throw new IllegalStateException("No @PrimaryKey field found in " + clazz.getName());
+        }
+
+        this.connection = connection;
+        this.clazz = clazz;
+        this.keyColumns = metadata.getKeyColumns();
+        this.maxPending = maxPending;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "MDatabase-write-behind-" + metadata.getTableName());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        long interval = flushInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Queue an object to be written, replacing any pending version with the same primary key.
+     *
+     * @param object the object to write
+     * @throws IllegalStateException if the buffer has been closed
+     */
+    public void write(@NotNull T object) {
+        if (closed) {
+            throw new IllegalStateException("the buffer has been closed");
+        }
+
+        writes.incrementAndGet();
+        if (pending.put(keyOf(object), object) != null) {
+            coalesced.incrementAndGet();
+        }
+
+        if (pending.size() >= maxPending && flushQueued.compareAndSet(false, true)) {
+            scheduler.execute(this::flushQuietly);
+        }
+    }
+
+    /**
+     * Write everything pending now. The future completes once every object written before this call
+     * has been persisted, or fails with the {@link SQLException} of the batch.
+     *
+     * @return a future of the number of objects written by this flush
+     */
+    public @NotNull CompletableFuture<Integer> flush() {
+        CompletableFuture<Integer> future = new CompletableFuture<>();
+        try {
+            scheduler.execute(() -> {
+                try {
+                    future.complete(flushNow());
+                } catch (Throwable t) {
+                    future.completeExceptionally(t);
+                }
+            });
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    private void flushQuietly() {
+        try {
+            flushNow();
+        } catch (SQLException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Write-behind flush of " + clazz.getName() + " failed, will retry", e);
+        }
+    }
+
+    private int flushNow() throws SQLException {
+        flushQueued.set(false);
+        if (pending.isEmpty()) {
+            return 0;
+        }
+
+        List<Object> keys = new ArrayList<>(pending.size());
+        List<T> batch = new ArrayList<>(pending.size());
+        for (Object key : pending.keySet()) {
+            T object = pending.remove(key);
+            if (object != null) {
+                keys.add(key);
+                batch.add(object);
+            }
+        }
+
+        try {
+            connection.upsertBatch(clazz, batch);
+        } catch (SQLException | RuntimeException e) {
+            failedFlushes.incrementAndGet();
+            for (int i = 0; i < keys.size(); i++) {
+                pending.putIfAbsent(keys.get(i), batch.get(i));
+            }
+            throw e;
+        }
+
+        flushedRows.addAndGet(batch.size());
+        return batch.size();
+    }
+
+    private Object keyOf(T object) {
+        if (keyColumns.size() == 1) {
+            return keyColumns.get(0).get(object);
+        }
+
+        List<Object> key = new ArrayList<>(keyColumns.size());
+        for (ColumnMetadata column : keyColumns) {
+            key.add(column.get(object));
+        }
+        return key;
+    }
+
+    /**
+     * @return the number of distinct keys waiting to be written
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * @return the number of {@link #write(Object)} calls so far
+     */
+    public long getWriteCount() {
+        return writes.get();
+    }
+
+    /**
+     * @return the number of writes that replaced a pending version and never reached the database
+     */
+    public long getCoalescedCount() {
+        return coalesced.get();
+    }
+
+    /**
+     * @return the number of objects persisted so far
+     */
+    public long getFlushedCount() {
+        return flushedRows.get();
+    }
+
+    /**
+     * @return the number of flushes that failed
+     */
+    public long getFailedFlushCount() {
+        return failedFlushes.get();
+    }
+
+    /**
+     * Stop accepting writes, write everything still pending and stop the background thread. Idempotent.
+     *
+     * @throws DatabaseAccessException if the final flush fails; the objects it held are lost
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        CompletableFuture<Integer> last = flush();
+        scheduler.shutdown();
+        try {
+            last.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SQLException sql) {
+                throw new DatabaseAccessException("Final write-behind flush of " + clazz.getName() + " failed", sql);
+            }
+            throw new IllegalStateException("Final write-behind flush of " + clazz.getName() + " failed", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package io.github.lijinhong11.mdatabase.cache;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache of entities of one class keyed by primary key, with a time to live and optional
+ * remembering of absent keys.
+ * <p>
+ * The key space is split over independently locked LRU segments, so lookups of different keys rarely
+ * contend and there is no global lock. Loads are guarded against racing writes: take a token with
+ * {@link #startLoad(Object)} before reading the database and pass it to {@link #put(Object, Object, long)};
+ * if the key was invalidated in between, the possibly stale value is dropped.
+ * <pre>{@code
+ * Object cached = cache.get(id);
+ * if (cached == null) {
+ *     long token = cache.startLoad(id);
+ *     User user = load(id);
+ *     cache.put(id, user, token);
+ * }
+ * }</pre>
+ */
+public final class EntityCache {
+    /**
+     * Returned by {@link #get(Object)} for a key remembered to have no row.
+     */
+    public static final Object ABSENT = new Object();
+
+    private static final int MAX_SEGMENTS = 16;
+
+    private final Segment[] segments;
+    private final long ttlNanos;
+    private final boolean cacheAbsent;
+    private final CacheStats stats = new CacheStats();
+
+    /**
+     * @param maxEntries  the maximum number of entries, including absent keys
+     * @param ttlNanos    how long an entry stays valid, {@code 0} for no expiry
+     * @param cacheAbsent whether absent keys are remembered
+     */
+    public EntityCache(int maxEntries, long ttlNanos, boolean cacheAbsent) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be at least 1");
+        }
+
+        int count = Math.min(MAX_SEGMENTS, Integer.highestOneBit(maxEntries));
+        this.segments = new Segment[count];
+        int perSegment = (maxEntries + count - 1) / count;
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment(perSegment, stats);
+        }
+        this.ttlNanos = Math.max(0L, ttlNanos);
+        this.cacheAbsent = cacheAbsent;
+    }
+
+    private Segment segmentFor(Object key) {
+        int hash = key.hashCode();
+        hash ^= hash >>> 16;
+        return segments[hash & (segments.length - 1)];
+    }
+
+    /**
+     * @param key the primary key
+     * @return the cached entity, {@link #ABSENT} if the key is known to have no row, or {@code null} on a miss
+     */
+    public @Nullable Object get(Object key) {
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            Entry entry = segment.get(key);
+            if (entry != null && entry.expiresAt != 0L && entry.expiresAt - System.nanoTime() <= 0L) {
+                segment.remove(key);
+                entry = null;
+            }
+
+            if (entry == null) {
+                stats.recordMiss();
+                return null;
+            }
+
+            stats.recordHit();
+            return entry.value != null ? entry.value : ABSENT;
+        }
+    }
+
+    /**
+     * Take a token before loading a key from the database.
+     *
+     * @param key the primary key
+     * @return the token to pass to {@link #put(Object, Object, long)}
+     */
+    public long startLoad(Object key) {
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            return segment.generation;
+        }
+    }
+
+    /**
+     * Store a loaded entity unless the key was invalidated since the token was taken.
+     *
+     * @param key    the primary key
+     * @param value  the loaded entity, or {@code null} if there is no row
+     * @param token  the token from {@link #startLoad(Object)}
+     */
+    public void put(Object key, @Nullable Object value, long token) {
+        if (value == null && !cacheAbsent) {
+            return;
+        }
+
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            if (segment.generation != token) {
+                return;
+            }
+            // 0 means "never expires", so keep real deadlines odd
+            long expiresAt = ttlNanos == 0L ? 0L : (System.nanoTime() + ttlNanos) | 1L;
+            segment.put(key, new Entry(value, expiresAt));
+        }
+    }
+
+    /**
+     * Drop the entry of a key, and fail loads of it that are in progress.
+     *
+     * @param key the primary key
+     */
+    public void invalidate(Object key) {
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            segment.generation++;
+            if (segment.remove(key) != null) {
+                stats.recordInvalidations(1);
+            }
+        }
+    }
+
+    /**
+     * Drop every entry, and fail all loads in progress.
+     */
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.generation++;
+                stats.recordInvalidations(segment.size());
+                segment.clear();
+            }
+        }
+    }
+
+    /**
+     * @return the number of entries, including expired ones not yet dropped
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * @return the counters of this cache
+     */
+    public CacheStats getStats() {
+        return stats;
+    }
+
+    private record Entry(@Nullable Object value, long expiresAt) {
+    }
+
+    private static final class Segment extends LinkedHashMap<Object, Entry> {
+        private final int maxSize;
+        private final CacheStats stats;
+        private long generation;
+
+        Segment(int maxSize, CacheStats stats) {
+            super(16, 0.75F, true);
+            this.maxSize = maxSize;
+            this.stats = stats;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Object, Entry> eldest) {
+            if (size() > maxSize) {
+                stats.recordEviction();
+                return true;
+            }
+            return false;
+        }
+    }
+}
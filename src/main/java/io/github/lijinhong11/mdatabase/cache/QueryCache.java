@@ -0,0 +1,209 @@
+package io.github.lijinhong11.mdatabase.cache;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded cache of query results, each tagged with the tables it read and its own time to live.
+ * <p>
+ * Tables carry version counters instead of an index of entries: {@link #invalidateTable(String)} bumps
+ * one counter, and entries whose tables moved on since they were loaded are dropped when next looked up.
+ * A load takes a {@link Ticket} before reading the database so that a result read while a table was being
+ * written is never stored.
+ * <pre>{@code
+ * Object cached = cache.get(key);
+ * if (cached == null) {
+ *     QueryCache.Ticket ticket = cache.startLoad(List.of("users"));
+ *     List<User> users = load();
+ *     cache.put(key, users, ticket, ttlNanos);
+ * }
+ * }</pre>
+ */
+public final class QueryCache {
+    private static final int MAX_SEGMENTS = 16;
+
+    private final Segment[] segments;
+    private final Map<String, AtomicLong> tableVersions = new ConcurrentHashMap<>();
+    private final AtomicLong globalVersion = new AtomicLong();
+    private final CacheStats stats = new CacheStats();
+
+    /**
+     * @param maxEntries the maximum number of cached results
+     */
+    public QueryCache(int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be at least 1");
+        }
+
+        int count = Math.min(MAX_SEGMENTS, Integer.highestOneBit(maxEntries));
+        this.segments = new Segment[count];
+        int perSegment = (maxEntries + count - 1) / count;
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment(perSegment, stats);
+        }
+    }
+
+    private Segment segmentFor(Object key) {
+        int hash = key.hashCode();
+        hash ^= hash >>> 16;
+        return segments[hash & (segments.length - 1)];
+    }
+
+    private AtomicLong versionOf(String table) {
+        return tableVersions.computeIfAbsent(table.toLowerCase(Locale.ROOT), name -> new AtomicLong());
+    }
+
+    /**
+     * @param key the query key, e.g. the rendered SQL with its parameters
+     * @return the cached result, or {@code null} on a miss
+     */
+    public @Nullable Object get(Object key) {
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            Entry entry = segment.get(key);
+            if (entry == null) {
+                stats.recordMiss();
+                return null;
+            }
+
+            if (!entry.ticket.isCurrent() || (entry.expiresAt - System.nanoTime()) <= 0L) {
+                segment.remove(key);
+                stats.recordInvalidations(1);
+                stats.recordMiss();
+                return null;
+            }
+
+            stats.recordHit();
+            return entry.value;
+        }
+    }
+
+    /**
+     * Take a ticket before running a query.
+     *
+     * @param tables the tables the query reads
+     * @return the ticket to pass to {@link #put(Object, Object, Ticket, long)}
+     */
+    public Ticket startLoad(Collection<String> tables) {
+        AtomicLong[] counters = new AtomicLong[tables.size()];
+        long[] versions = new long[counters.length];
+        int i = 0;
+        for (String table : tables) {
+            counters[i] = versionOf(table);
+            versions[i] = counters[i].get();
+            i++;
+        }
+        return new Ticket(counters, versions, globalVersion.get());
+    }
+
+    /**
+     * Store a result unless one of its tables was invalidated since the ticket was taken.
+     *
+     * @param key      the query key
+     * @param value    the result
+     * @param ticket   the ticket from {@link #startLoad(Collection)}
+     * @param ttlNanos how long the result stays valid
+     */
+    public void put(Object key, Object value, Ticket ticket, long ttlNanos) {
+        if (ttlNanos <= 0L || !ticket.isCurrent()) {
+            return;
+        }
+
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            segment.put(key, new Entry(value, ticket, System.nanoTime() + ttlNanos));
+        }
+    }
+
+    /**
+     * Make every result that read a table stale, and fail loads of it that are in progress.
+     *
+     * @param table the table that was written
+     */
+    public void invalidateTable(String table) {
+        versionOf(table).incrementAndGet();
+    }
+
+    /**
+     * Make every result stale, e.g. after SQL whose target tables are unknown.
+     */
+    public void invalidateAll() {
+        globalVersion.incrementAndGet();
+    }
+
+    /**
+     * @return the number of entries, including stale ones not yet dropped
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * @return the counters of this cache
+     */
+    public CacheStats getStats() {
+        return stats;
+    }
+
+    /**
+     * The table versions seen when a load started.
+     */
+    public final class Ticket {
+        private final AtomicLong[] counters;
+        private final long[] versions;
+        private final long global;
+
+        private Ticket(AtomicLong[] counters, long[] versions, long global) {
+            this.counters = counters;
+            this.versions = versions;
+            this.global = global;
+        }
+
+        boolean isCurrent() {
+            if (globalVersion.get() != global) {
+                return false;
+            }
+            for (int i = 0; i < counters.length; i++) {
+                if (counters[i].get() != versions[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private record Entry(Object value, Ticket ticket, long expiresAt) {
+    }
+
+    private static final class Segment extends LinkedHashMap<Object, Entry> {
+        private final int maxSize;
+        private final CacheStats stats;
+
+        Segment(int maxSize, CacheStats stats) {
+            super(16, 0.75F, true);
+            this.maxSize = maxSize;
+            this.stats = stats;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Object, Entry> eldest) {
+            if (size() > maxSize) {
+                stats.recordEviction();
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package io.github.lijinhong11.mdatabase.enums;
+
+/**
+ * How {@code insertBatch} sends its rows to the database.
+ */
+public enum BatchMode {
+    /**
+     * One single-row INSERT, executed through JDBC {@code addBatch}/{@code executeBatch}.
+     * Whether this saves round trips depends on the driver.
+     */
+    JDBC_BATCH,
+    /**
+     * {@code INSERT ... VALUES (...), (...), ...} in chunks sized to the database's bind parameter limit.
+     */
+    MULTI_ROW
+}
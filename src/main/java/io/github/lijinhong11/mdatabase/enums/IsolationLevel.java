@@ -0,0 +1,27 @@
+package io.github.lijinhong11.mdatabase.enums;
+
+import java.sql.Connection;
+
+/**
+ * Transaction isolation levels, as defined by JDBC. Not every database supports every level;
+ * SQLite only offers {@link #SERIALIZABLE} and, with a shared cache, {@link #READ_UNCOMMITTED}.
+ */
+public enum IsolationLevel {
+    READ_UNCOMMITTED(Connection.TRANSACTION_READ_UNCOMMITTED),
+    READ_COMMITTED(Connection.TRANSACTION_READ_COMMITTED),
+    REPEATABLE_READ(Connection.TRANSACTION_REPEATABLE_READ),
+    SERIALIZABLE(Connection.TRANSACTION_SERIALIZABLE);
+
+    private final int level;
+
+    IsolationLevel(int level) {
+        this.level = level;
+    }
+
+    /**
+     * @return the {@code Connection.TRANSACTION_*} constant
+     */
+    public int getLevel() {
+        return level;
+    }
+}
@@ -0,0 +1,26 @@
+package io.github.lijinhong11.mdatabase.enums;
+
+/**
+ * The kind of a statement, as reported to {@link io.github.lijinhong11.mdatabase.metrics.QueryListener}s.
+ */
+public enum OperationType {
+    SELECT,
+    INSERT,
+    /**
+     * An insert that updates the row if its key exists.
+     */
+    UPSERT,
+    UPDATE,
+    /**
+     * Deletes, including {@code TRUNCATE}.
+     */
+    DELETE,
+    /**
+     * Statements that change the schema.
+     */
+    DDL,
+    /**
+     * Raw SQL that could not be classified.
+     */
+    OTHER
+}
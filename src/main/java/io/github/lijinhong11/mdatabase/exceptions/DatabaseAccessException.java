@@ -0,0 +1,18 @@
+package io.github.lijinhong11.mdatabase.exceptions;
+
+import java.sql.SQLException;
+
+/**
+ * Unchecked wrapper for a {@link SQLException} thrown where checked exceptions cannot be,
+ * such as inside an {@link java.util.Iterator} or a {@link java.util.stream.Stream}.
+ */
+public class DatabaseAccessException extends RuntimeException {
+    public DatabaseAccessException(String message, SQLException cause) {
+        super(message, cause);
+    }
+
+    @Override
+    public synchronized SQLException getCause() {
+        return (SQLException) super.getCause();
+    }
+}
@@ -1,68 +1,340 @@
 package io.github.lijinhong11.mdatabase.impl;
 
+import io.github.lijinhong11.mdatabase.Cursor;
 import io.github.lijinhong11.mdatabase.DatabaseConnection;
+import io.github.lijinhong11.mdatabase.DatabaseParameters;
+import io.github.lijinhong11.mdatabase.Page;
+import io.github.lijinhong11.mdatabase.Session;
 import io.github.lijinhong11.mdatabase.Transaction;
+import io.github.lijinhong11.mdatabase.TransactionWork;
+import io.github.lijinhong11.mdatabase.cache.EntityCache;
+import io.github.lijinhong11.mdatabase.cache.CacheStats;
+import io.github.lijinhong11.mdatabase.cache.QueryCache;
+import io.github.lijinhong11.mdatabase.enums.BatchMode;
 import io.github.lijinhong11.mdatabase.enums.DatabaseType;
+import io.github.lijinhong11.mdatabase.enums.IsolationLevel;
+import io.github.lijinhong11.mdatabase.enums.OperationType;
+import io.github.lijinhong11.mdatabase.exceptions.DatabaseAccessException;
+import io.github.lijinhong11.mdatabase.enums.OrderType;
 import io.github.lijinhong11.mdatabase.exceptions.WrongTypeException;
+import io.github.lijinhong11.mdatabase.metrics.QueryListener;
+import io.github.lijinhong11.mdatabase.metrics.SlowQueryLog;
+import io.github.lijinhong11.mdatabase.serialization.ChangeTracker;
+import io.github.lijinhong11.mdatabase.serialization.ColumnMetadata;
+import io.github.lijinhong11.mdatabase.serialization.EntityMetadata;
 import io.github.lijinhong11.mdatabase.serialization.ObjectSerializer;
-import io.github.lijinhong11.mdatabase.serialization.annotations.AutoIncrement;
-import io.github.lijinhong11.mdatabase.serialization.annotations.AutoMigrate;
+import io.github.lijinhong11.mdatabase.serialization.RowBinder;
+import io.github.lijinhong11.mdatabase.serialization.annotations.Cached;
 import io.github.lijinhong11.mdatabase.serialization.annotations.Column;
-import io.github.lijinhong11.mdatabase.serialization.annotations.PrimaryKey;
 import io.github.lijinhong11.mdatabase.serialization.annotations.Table;
+import io.github.lijinhong11.mdatabase.sql.BoundQuery;
+import io.github.lijinhong11.mdatabase.sql.CompiledQuery;
+import io.github.lijinhong11.mdatabase.sql.StatementCache;
+import io.github.lijinhong11.mdatabase.sql.StatementCacheStats;
 import io.github.lijinhong11.mdatabase.sql.conditions.Condition;
+import io.github.lijinhong11.mdatabase.sql.conditions.Conditions;
 import io.github.lijinhong11.mdatabase.sql.sentence.*;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.lang.reflect.Field;
 import java.sql.Connection;
+import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.SQLTransactionRollbackException;
+import java.time.Duration;
+import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 abstract class AbstractDatabaseConnection implements DatabaseConnection {
     private static final Logger LOGGER = Logger.getLogger("MDatabase");
 
+    private final DatabaseParameters parameters;
     private boolean debug = false;
-    private final ThreadLocal<Connection> transactionConnection = new ThreadLocal<>();
+    private final ThreadLocal<TransactionContext> transaction = new ThreadLocal<>();
+    private volatile BoundedExecutor asyncExecutor;
+    private final Map<Connection, StatementCache> statementCaches = new ConcurrentHashMap<>();
+    private final StatementCacheStats statementCacheStats = new StatementCacheStats();
+    private volatile int[] databaseVersion;
+    private final Map<Class<?>, EntityCache> entityCaches = new ConcurrentHashMap<>();
+    private final @Nullable QueryCache queryCache;
+    private final TransactionStats transactionStats = new TransactionStats();
+    private volatile @Nullable Consumer<@Nullable String> writeObserver;
+    private final List<QueryListener> queryListeners = new CopyOnWriteArrayList<>();
+    private final @Nullable SlowQueryLog slowQueryLog;
+
+    AbstractDatabaseConnection(DatabaseParameters parameters) {
+        this.parameters = parameters;
+        this.queryCache = parameters.getQueryCacheSize() > 0 ? new QueryCache(parameters.getQueryCacheSize()) : null;
+        this.slowQueryLog = parameters.getSlowQueryThreshold() > 0L ? new SlowQueryLog(parameters) : null;
+        if (slowQueryLog != null) {
+            queryListeners.add(slowQueryLog);
+        }
+    }
 
     abstract Connection createRawConnection() throws SQLException;
 
+    /**
+     * Open a connection for statements that only read. Dialects with a separate reader pool override this.
+     */
+    Connection createReadConnection() throws SQLException {
+        return createRawConnection();
+    }
+
+    abstract void closeDataSource();
+
+    DatabaseParameters getParameters() {
+        return parameters;
+    }
+
+    /**
+     * The executor shared by every async view of this connection, created on first use.
+     * Its concurrency is capped at {@link DatabaseParameters#getAsyncMaxConcurrency()},
+     * or the pool size when unset, since more workers would only wait for a pooled connection.
+     */
+    BoundedExecutor getAsyncExecutor() {
+        BoundedExecutor executor = asyncExecutor;
+        if (executor == null) {
+            synchronized (this) {
+                executor = asyncExecutor;
+                if (executor == null) {
+                    Integer concurrency = parameters.getAsyncMaxConcurrency();
+                    executor = BoundedExecutor.create(concurrency != null ? concurrency : parameters.getMaxPoolSize());
+                    asyncExecutor = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
     Connection getConnection() throws SQLException {
-        Connection txConn = transactionConnection.get();
-        if (txConn != null) {
-            return txConn;
+        TransactionContext context = transaction.get();
+        if (context != null) {
+            return context.connection;
         }
         return createRawConnection();
     }
 
+    /**
+     * The connection for a read: the transaction's connection if one is bound, so it sees its own writes,
+     * otherwise one from {@link #createReadConnection()}.
+     */
+    Connection getReadConnection() throws SQLException {
+        TransactionContext context = transaction.get();
+        if (context != null) {
+            return context.connection;
+        }
+        return createReadConnection();
+    }
+
     boolean isInTransaction() {
-        return transactionConnection.get() != null;
+        return transaction.get() != null;
+    }
+
+    void releaseConnection(Connection connection) throws SQLException {
+        if (!isInTransaction()) {
+            connection.close();
+        }
+    }
+
+    /**
+     * Return the statement cache of the physical connection behind a pooled connection handle.
+     * Statements are prepared on the physical connection so they survive the handle being
+     * returned to the pool; caches of connections the pool has since closed are dropped.
+     */
+    StatementCache getStatements(Connection connection) throws SQLException {
+        if (parameters.getStatementCacheSize() <= 0) {
+            return new StatementCache(connection, 0, 0, statementCacheStats);
+        }
+
+        Connection physical = connection.isWrapperFor(Connection.class) ? connection.unwrap(Connection.class) : connection;
+        StatementCache cache = statementCaches.get(physical);
+        if (cache == null) {
+            statementCaches.entrySet().removeIf(entry -> isClosed(entry.getKey()));
+            cache = new StatementCache(physical, parameters.getStatementCacheSize(),
+                    parameters.getStatementCacheMaxSqlLength(), statementCacheStats);
+            statementCaches.put(physical, cache);
+        }
+        return cache;
+    }
+
+    private static boolean isClosed(Connection connection) {
+        try {
+            return connection.isClosed();
+        } catch (SQLException e) {
+            return true;
+        }
+    }
+
+    /**
+     * Whether the database server is at least the given version, read once from the driver metadata.
+     */
+    boolean isVersionAtLeast(Connection connection, int major, int minor) throws SQLException {
+        int[] version = databaseVersion;
+        if (version == null) {
+            DatabaseMetaData metaData = connection.getMetaData();
+            version = new int[]{metaData.getDatabaseMajorVersion(), metaData.getDatabaseMinorVersion()};
+            databaseVersion = version;
+        }
+        return version[0] > major || (version[0] == major && version[1] >= minor);
+    }
+
+    /**
+     * Whether {@code INSERT ... RETURNING} is available, used to read generated keys of multi-row inserts.
+     * Without it generated keys are read row by row through {@link Statement#getGeneratedKeys()}.
+     */
+    boolean supportsReturning(Connection connection) throws SQLException {
+        return false;
+    }
+
+    /**
+     * The most bind parameters a single statement may carry on this database.
+     * PostgreSQL, MySQL and MariaDB all count parameters in an unsigned 16-bit field.
+     */
+    int getMaxBindParameters(Connection connection) throws SQLException {
+        return 65535;
+    }
+
+    /**
+     * Drop every cached statement, called after a schema change made through this connection.
+     */
+    void invalidateStatements() {
+        for (StatementCache cache : statementCaches.values()) {
+            cache.invalidate();
+        }
+    }
+
+    private boolean executeStatement(Connection connection, SQL sql, QueryProbe probe) throws SQLException {
+        probe.sql(sql);
+        StatementCache statements = getStatements(connection);
+        PreparedStatement stmt = sql.build(statements, getType());
+        try {
+            boolean hasResultSet = stmt.execute();
+            if (hasResultSet) {
+                stmt.getResultSet().close();
+            } else {
+                probe.rows(stmt.getUpdateCount());
+            }
+            return hasResultSet;
+        } finally {
+            statements.release(stmt);
+            if (!sql.isCacheable()) {
+                invalidateStatements();
+            }
+            if (!sql.isReadOnly()) {
+                tableWritten(sql.getModifiedTable());
+            }
+        }
+    }
+
+    /**
+     * Run one statement on a connection of its own, or on the transaction's, and report it to the query listeners.
+     */
+    private boolean runStatement(SQL sql, @Nullable String table, @Nullable Class<?> entityType) throws SQLException {
+        return probed(sql.getOperationType(), table, entityType, probe -> {
+            Connection connection = getConnection();
+            probe.acquired();
+            try {
+                return executeStatement(connection, sql, probe);
+            } finally {
+                releaseConnection(connection);
+            }
+        });
+    }
+
+    QueryProbe probe(OperationType operation, @Nullable String table, @Nullable Class<?> entityType) {
+        return QueryProbe.start(queryListeners, getType(), operation, table, entityType);
+    }
+
+    /**
+     * Run an action under a probe, which reports it to the query listeners with its outcome.
+     */
+    <R> R probed(OperationType operation, @Nullable String table, @Nullable Class<?> entityType,
+                 ProbedCallable<R> action) throws SQLException {
+        QueryProbe probe = probe(operation, table, entityType);
+        Throwable error = null;
+        try {
+            return action.call(probe);
+        } catch (Throwable t) {
+            error = t;
+            throw t;
+        } finally {
+            probe.end(error);
+        }
+    }
+
+    private static @Nullable String tableOf(SQL sql) {
+        if (sql instanceof SelectSQL select) {
+            List<String> tables = select.getTables();
+            return tables.isEmpty() ? null : tables.get(0);
+        }
+        return sql.getModifiedTable();
+    }
+
+    @Override
+    public void addQueryListener(@NotNull QueryListener listener) {
+        queryListeners.add(Objects.requireNonNull(listener, "listener"));
+    }
+
+    @Override
+    public void removeQueryListener(@NotNull QueryListener listener) {
+        queryListeners.remove(listener);
+    }
+
+    @Override
+    public @NotNull StatementCacheStats getStatementCacheStats() {
+        return statementCacheStats;
     }
 
     @Override
     public abstract @NotNull DatabaseType getType();
 
     @Override
-    public abstract void close();
+    public void close() {
+        BoundedExecutor executor = asyncExecutor;
+        if (executor != null) {
+            executor.shutdown();
+        }
+
+        for (StatementCache cache : statementCaches.values()) {
+            cache.close();
+        }
+        statementCaches.clear();
+
+        if (slowQueryLog != null) {
+            slowQueryLog.close();
+        }
+        closeDataSource();
+    }
 
     @Override
     public boolean execute(@NotNull SQL sql) throws SQLException {
-        Connection connection = getConnection();
-        try {
-            return sql.build(connection, getType()).execute();
-        } finally {
-            if (!isInTransaction()) {
-                connection.close();
-            }
-        }
+        return runStatement(sql, tableOf(sql), null);
     }
 
     @Override
@@ -70,25 +342,114 @@ abstract class AbstractDatabaseConnection implements DatabaseConnection {
         Connection connection = getConnection();
         try {
             for (SQL sql : sqls) {
-                sql.build(connection, getType()).execute();
+                probed(sql.getOperationType(), tableOf(sql), null, probe -> {
+                    executeStatement(connection, sql, probe);
+                    return null;
+                });
             }
         } finally {
-            if (!isInTransaction()) {
-                connection.close();
-            }
+            releaseConnection(connection);
         }
     }
 
     @Override
     public @NotNull ResultSet query(@NotNull SelectSQL sql) throws SQLException {
-        Connection connection = getConnection();
-        try {
-            return sql.build(connection, getType()).executeQuery();
-        } finally {
-            if (!isInTransaction()) {
-                connection.close();
+        return probed(OperationType.SELECT, tableOf(sql), null, probe -> {
+            Connection connection = getReadConnection();
+            probe.acquired();
+            boolean ownsConnection = !isInTransaction();
+            try {
+                probe.sql(sql);
+                PreparedStatement stmt = sql.build(connection, getType());
+                try {
+                    stmt.closeOnCompletion();
+                    ResultSet rs = stmt.executeQuery();
+                    probe.executed();
+                    return ownsConnection ? ConnectionBoundResultSet.wrap(rs, connection) : rs;
+                } catch (SQLException | RuntimeException e) {
+                    stmt.close();
+                    throw e;
+                }
+            } catch (SQLException | RuntimeException e) {
+                releaseConnection(connection);
+                throw e;
             }
+        });
+    }
+
+    @Override
+    public <T> @NotNull Cursor<T> selectCursor(@NotNull Class<T> clazz, @Nullable Condition condition) throws SQLException {
+        return selectCursor(clazz, condition, parameters.getStreamFetchSize());
+    }
+
+    @Override
+    public <T> @NotNull Cursor<T> selectCursor(@NotNull Class<T> clazz, @Nullable Condition condition, int fetchSize) throws SQLException {
+        SelectSQL sql = SQL.select()
+                .allColumns()
+                .from(EntityMetadata.of(clazz).getTableName());
+
+        if (condition != null) {
+            sql.where(condition);
+        }
+
+        return openCursor(clazz, sql, fetchSize);
+    }
+
+    @Override
+    public <T> @NotNull Stream<T> selectStream(@NotNull Class<T> clazz, @Nullable Condition condition) throws SQLException {
+        return selectStream(clazz, condition, parameters.getStreamFetchSize());
+    }
+
+    @Override
+    public <T> @NotNull Stream<T> selectStream(@NotNull Class<T> clazz, @Nullable Condition condition, int fetchSize) throws SQLException {
+        Cursor<T> cursor = selectCursor(clazz, condition, fetchSize);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(cursor, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(cursor::close);
+    }
+
+    /**
+     * Run a query whose rows are fetched in chunks while the returned cursor is iterated.
+     * The MariaDB driver, used for MySQL too, streams with any positive fetch size;
+     * PostgreSQL only uses a server-side cursor with auto-commit off, which is restored on close.
+     */
+    <T> Cursor<T> openCursor(Class<T> clazz, SelectSQL sql, int fetchSize) throws SQLException {
+        if (debug) {
+            LOGGER.info("Streaming SQL: " + sql.getSql(getType()));
         }
+
+        // only the time until the first rows arrive is reported; the cursor's iteration is up to the caller
+        return probed(OperationType.SELECT, tableOf(sql), clazz, probe -> {
+            probe.sql(sql);
+            Connection connection = getReadConnection();
+            probe.acquired();
+            boolean ownsConnection = !isInTransaction();
+            boolean restoreAutoCommit = false;
+            PreparedStatement stmt = null;
+            try {
+                if (getType() == DatabaseType.POSTGRESQL && connection.getAutoCommit()) {
+                    connection.setAutoCommit(false);
+                    restoreAutoCommit = true;
+                }
+
+                stmt = sql.build(connection, getType());
+                stmt.setFetchSize(Math.max(1, fetchSize));
+                ResultSet rs = stmt.executeQuery();
+                probe.executed();
+                return new ResultSetCursor<>(clazz, connection, ownsConnection, restoreAutoCommit, stmt, rs);
+            } catch (SQLException | RuntimeException e) {
+                try {
+                    if (stmt != null) {
+                        stmt.close();
+                    }
+                    if (restoreAutoCommit) {
+                        connection.setAutoCommit(true);
+                    }
+                } finally {
+                    releaseConnection(connection);
+                }
+                throw e;
+            }
+        });
     }
 
     private <T> T selectOneInternal(String tableName, Class<T> clazz, Condition condition) throws SQLException {
@@ -102,53 +463,53 @@ abstract class AbstractDatabaseConnection implements DatabaseConnection {
             LOGGER.info("Invoking SQL: " + sql.getSql(getType()));
         }
 
-        Connection connection = getConnection();
-        try {
-            ResultSet rs = sql.build(connection, getType()).executeQuery();
+        return probed(OperationType.SELECT, tableName, clazz, probe -> {
+            probe.sql(sql);
+            Connection connection = getReadConnection();
+            probe.acquired();
             try {
-                return ObjectSerializer.serializeOne(clazz, rs);
+                StatementCache statements = getStatements(connection);
+                PreparedStatement stmt = sql.build(statements, getType());
+                try {
+                    ResultSet rs = stmt.executeQuery();
+                    probe.executed();
+                    try {
+                        T result = ObjectSerializer.serializeOne(clazz, rs);
+                        probe.rows(result != null ? 1 : 0);
+                        probe.hydrated();
+                        return result;
+                    } finally {
+                        rs.close();
+                    }
+                } finally {
+                    statements.release(stmt);
+                }
             } finally {
-                rs.close();
+                releaseConnection(connection);
             }
-        } finally {
-            if (!isInTransaction()) {
-                connection.close();
-            }
-        }
+        });
     }
 
     @Override
     public <T> @NotNull T selectOne(@NotNull Class<T> clazz, @NotNull Condition condition) throws SQLException {
-        if (!clazz.isAnnotationPresent(Table.class)) {
-            throw new IllegalArgumentException("the class must be annotated with @Table");
-        }
-
-        Table table = clazz.getAnnotation(Table.class);
-        if (Objects.isNull(table.name()) || table.name().isBlank()) {
-            throw new IllegalArgumentException("the table name cannot be empty");
-        }
-
-        return selectOneInternal(table.name(), clazz, condition);
+        return selectOneInternal(EntityMetadata.of(clazz).getTableName(), clazz, condition);
     }
 
     @Override
     public <T> @NotNull T selectOne(@NotNull String table, @NotNull Class<T> clazz, @NotNull Condition condition) throws SQLException {
-        if (!clazz.isAnnotationPresent(Table.class)) {
-            throw new IllegalArgumentException("the class must be annotated with @Table");
-        }
-
+        EntityMetadata.of(clazz);
         return selectOneInternal(table, clazz, condition);
     }
 
 
     @Override
     public <T> @NotNull List<T> selectMulti(@NotNull Class<T> clazz) throws SQLException {
-        return selectMulti(clazz, null);
+        return selectMulti(clazz, (Condition) null);
     }
 
     @Override
     public <T> @NotNull List<T> selectMulti(@NotNull String table, @NotNull Class<T> clazz) throws SQLException {
-        return selectMulti(table, clazz, null);
+        return selectMulti(table, clazz, (Condition) null);
     }
 
     private <T> List<T> selectMultiInternal(String tableName, Class<T> clazz, Condition condition) throws SQLException {
@@ -160,46 +521,278 @@ abstract class AbstractDatabaseConnection implements DatabaseConnection {
             sql.where(condition);
         }
 
+        return selectMulti(clazz, sql);
+    }
+
+    private <T> List<T> selectMulti(Class<T> clazz, SelectSQL sql) throws SQLException {
         if (debug) {
             LOGGER.info("Invoking SQL: " + sql.getSql(getType()));
         }
 
-        Connection connection = getConnection();
-        try {
-            ResultSet rs = sql.build(connection, getType()).executeQuery();
+        return probed(OperationType.SELECT, tableOf(sql), clazz, probe -> {
+            probe.sql(sql);
+            Connection connection = getReadConnection();
+            probe.acquired();
             try {
-                return ObjectSerializer.serializeMulti(clazz, rs);
+                StatementCache statements = getStatements(connection);
+                PreparedStatement stmt = sql.build(statements, getType());
+                try {
+                    ResultSet rs = stmt.executeQuery();
+                    probe.executed();
+                    try {
+                        List<T> result = ObjectSerializer.serializeMulti(clazz, rs);
+                        probe.rows(result.size());
+                        probe.hydrated();
+                        return result;
+                    } finally {
+                        rs.close();
+                    }
+                } finally {
+                    statements.release(stmt);
+                }
             } finally {
-                rs.close();
-            }
-        } finally {
-            if (!isInTransaction()) {
-                connection.close();
+                releaseConnection(connection);
             }
-        }
+        });
     }
 
     @Override
     public <T> @NotNull List<T> selectMulti(@NotNull Class<T> clazz, @Nullable Condition condition) throws SQLException {
-        if (!clazz.isAnnotationPresent(Table.class)) {
-            throw new IllegalArgumentException("the class must be annotated with @Table");
+        return selectMultiInternal(EntityMetadata.of(clazz).getTableName(), clazz, condition);
+    }
+
+    @Override
+    public <T> @NotNull List<T> selectMulti(@NotNull String table, @NotNull Class<T> clazz, @Nullable Condition condition) throws SQLException {
+        EntityMetadata.of(clazz);
+        return selectMultiInternal(table, clazz, condition);
+    }
+
+    @Override
+    public <T> @NotNull List<T> selectCached(@NotNull Class<T> clazz, @Nullable Condition condition, @NotNull Duration ttl) throws SQLException {
+        String tableName = EntityMetadata.of(clazz).getTableName();
+        if (queryCache == null || isInTransaction()) {
+            return selectMultiInternal(tableName, clazz, condition);
+        }
+
+        SelectSQL sql = SQL.select().allColumns().from(tableName);
+        if (condition != null) {
+            sql.where(condition);
+        }
+        QueryKey key = new QueryKey(clazz, sql.getSql(getType()),
+                condition != null ? condition.getParameters() : Collections.emptyList());
+
+        Object cached = queryCache.get(key);
+        if (cached != null) {
+            @SuppressWarnings("unchecked")
+            List<T> result = (List<T>) cached;
+            return result;
+        }
+
+        QueryCache.Ticket ticket = queryCache.startLoad(Collections.singletonList(tableName));
+        List<T> result = Collections.unmodifiableList(selectMulti(clazz, sql));
+        queryCache.put(key, result, ticket, ttl.toNanos());
+        return result;
+    }
+
+    @Override
+    public @Nullable CacheStats getQueryCacheStats() {
+        return queryCache != null ? queryCache.getStats() : null;
+    }
+
+    private record QueryKey(Class<?> type, String sql, List<Object> parameters) {
+    }
+
+    private PreparedStatement buildBound(StatementCache statements, BoundQuery query) throws SQLException {
+        if (query.getQuery().getType() != getType()) {
+            throw new IllegalArgumentException("the query was compiled for " + query.getQuery().getType() + " but this connection is " + getType());
         }
 
-        Table table = clazz.getAnnotation(Table.class);
-        if (Objects.isNull(table.name()) || table.name().isBlank()) {
-            throw new IllegalArgumentException("the table name cannot be empty");
+        if (debug) {
+            LOGGER.info("Invoking SQL: " + query.getQuery().getSql());
         }
 
-        return selectMultiInternal(table.name(), clazz, condition);
+        return query.build(statements);
     }
 
     @Override
-    public <T> @NotNull List<T> selectMulti(@NotNull String table, @NotNull Class<T> clazz, @Nullable Condition condition) throws SQLException {
-        if (!clazz.isAnnotationPresent(Table.class)) {
-            throw new IllegalArgumentException("the class must be annotated with @Table");
+    public boolean execute(@NotNull BoundQuery query) throws SQLException {
+        return probed(operationOf(query), null, null, probe -> {
+            probe.sql(query);
+            Connection connection = getConnection();
+            probe.acquired();
+            try {
+                StatementCache statements = getStatements(connection);
+                PreparedStatement stmt = buildBound(statements, query);
+                try {
+                    boolean hasResultSet = stmt.execute();
+                    probe.executed();
+                    if (hasResultSet) {
+                        stmt.getResultSet().close();
+                    } else {
+                        probe.rows(stmt.getUpdateCount());
+                    }
+                    return hasResultSet;
+                } finally {
+                    statements.release(stmt);
+                    if (!query.getQuery().isCacheable()) {
+                        invalidateStatements();
+                    }
+                    if (!isSelect(query)) {
+                        tableWritten(null);
+                    }
+                }
+            } finally {
+                releaseConnection(connection);
+            }
+        });
+    }
+
+    private static boolean isSelect(BoundQuery query) {
+        String sql = query.getQuery().getSql().stripLeading();
+        return sql.regionMatches(true, 0, "SELECT", 0, 6);
+    }
+
+    /**
+     * The operation of a hand-written query, from its first keyword.
+     */
+    private static OperationType operationOf(BoundQuery query) {
+        String sql = query.getQuery().getSql().stripLeading();
+        int end = 0;
+        while (end < sql.length() && Character.isLetter(sql.charAt(end))) {
+            end++;
         }
+        return switch (sql.substring(0, end).toUpperCase(Locale.ROOT)) {
+            case "SELECT", "WITH" -> OperationType.SELECT;
+            case "INSERT", "REPLACE", "MERGE" -> OperationType.INSERT;
+            case "UPDATE" -> OperationType.UPDATE;
+            case "DELETE", "TRUNCATE" -> OperationType.DELETE;
+            case "CREATE", "ALTER", "DROP", "RENAME" -> OperationType.DDL;
+            default -> OperationType.OTHER;
+        };
+    }
 
-        return selectMultiInternal(table, clazz, condition);
+    @Override
+    public <T> @NotNull T selectOne(@NotNull Class<T> clazz, @NotNull BoundQuery query) throws SQLException {
+        return probed(operationOf(query), null, clazz, probe -> {
+            probe.sql(query);
+            Connection connection = isSelect(query) ? getReadConnection() : getConnection();
+            probe.acquired();
+            try {
+                StatementCache statements = getStatements(connection);
+                PreparedStatement stmt = buildBound(statements, query);
+                try {
+                    ResultSet rs = stmt.executeQuery();
+                    probe.executed();
+                    try {
+                        T result = ObjectSerializer.serializeOne(clazz, rs);
+                        probe.rows(result != null ? 1 : 0);
+                        probe.hydrated();
+                        return result;
+                    } finally {
+                        rs.close();
+                    }
+                } finally {
+                    statements.release(stmt);
+                }
+            } finally {
+                releaseConnection(connection);
+            }
+        });
+    }
+
+    @Override
+    public <T> @NotNull List<T> selectMulti(@NotNull Class<T> clazz, @NotNull BoundQuery query) throws SQLException {
+        return probed(operationOf(query), null, clazz, probe -> {
+            probe.sql(query);
+            Connection connection = isSelect(query) ? getReadConnection() : getConnection();
+            probe.acquired();
+            try {
+                StatementCache statements = getStatements(connection);
+                PreparedStatement stmt = buildBound(statements, query);
+                try {
+                    ResultSet rs = stmt.executeQuery();
+                    probe.executed();
+                    try {
+                        List<T> result = ObjectSerializer.serializeMulti(clazz, rs);
+                        probe.rows(result.size());
+                        probe.hydrated();
+                        return result;
+                    } finally {
+                        rs.close();
+                    }
+                } finally {
+                    statements.release(stmt);
+                }
+            } finally {
+                releaseConnection(connection);
+            }
+        });
+    }
+
+    @Override
+    public <T> @NotNull Page<T> page(@NotNull Class<T> clazz, @Nullable Condition condition, @NotNull List<String> orderBy,
+                                     int pageSize, @Nullable String token) throws SQLException {
+        return page(clazz, condition, orderBy, OrderType.ASC, pageSize, token);
+    }
+
+    @Override
+    public <T> @NotNull Page<T> page(@NotNull Class<T> clazz, @Nullable Condition condition, @NotNull List<String> orderBy,
+                                     @NotNull OrderType order, int pageSize, @Nullable String token) throws SQLException {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("pageSize must be at least 1");
+        }
+
+        EntityMetadata metadata = EntityMetadata.of(clazz);
+        List<ColumnMetadata> keys = new ArrayList<>();
+        for (String column : orderBy) {
+            ColumnMetadata key = metadata.getColumn(column);
+            if (key == null) {
+                throw new IllegalArgumentException("Cannot page by " + column + ": not a @Column of " + clazz.getName());
+            }
+            keys.add(key);
+        }
+        // the primary key breaks ties, so rows with equal sort values are neither skipped nor repeated
+        for (ColumnMetadata key : metadata.getKeyColumns()) {
+            if (!keys.contains(key)) {
+                keys.add(key);
+            }
+        }
+        if (keys.isEmpty()) {
+            throw new IllegalArgumentException("Paging needs at least one sort column or @PrimaryKey in " + clazz.getName());
+        }
+
+        List<String> keyNames = keys.stream().map(ColumnMetadata::getName).toList();
+        int shape = Objects.hash(metadata.getTableName(), keyNames, order);
+
+        Condition where = condition;
+        if (token != null) {
+            Condition after = Conditions.after(keyNames, KeysetToken.decode(shape, token), order, getType() == DatabaseType.SQLITE || getType() == DatabaseType.POSTGRESQL);
+            where = where == null ? after : Conditions.and(where, after);
+        }
+
+        SelectSQL sql = SQL.select()
+                .allColumns()
+                .from(metadata.getTableName());
+        if (where != null) {
+            sql.where(where);
+        }
+        for (String key : keyNames) {
+            sql.orderBy(key, order);
+        }
+        sql.limit(pageSize + 1);
+
+        List<T> rows = selectMulti(clazz, sql);
+        if (rows.size() <= pageSize) {
+            return new Page<>(rows, null);
+        }
+
+        rows = rows.subList(0, pageSize);
+        T last = rows.get(pageSize - 1);
+        List<Object> lastKey = new ArrayList<>(keys.size());
+        for (ColumnMetadata key : keys) {
+            lastKey.add(key.toDatabase(last));
+        }
+        return new Page<>(rows, KeysetToken.encode(shape, lastKey));
     }
 
     @Override
@@ -208,9 +801,7 @@ abstract class AbstractDatabaseConnection implements DatabaseConnection {
         try {
             return connection.isValid(1);
         } finally {
-            if (!isInTransaction()) {
-                connection.close();
-            }
+            releaseConnection(connection);
         }
     }
 
@@ -226,61 +817,44 @@ abstract class AbstractDatabaseConnection implements DatabaseConnection {
         Set<String> columns = new HashSet<>();
         Connection conn = getConnection();
         try {
-            PreparedStatement ps = conn.prepareStatement(sql);
-            ps.setString(1, tableName);
-            ResultSet rs = ps.executeQuery();
+            StatementCache statements = getStatements(conn);
+            PreparedStatement ps = statements.prepare(sql);
             try {
-                while (rs.next()) {
-                    columns.add(rs.getString(1));
+                ps.setString(1, tableName);
+                ResultSet rs = ps.executeQuery();
+                try {
+                    while (rs.next()) {
+                        columns.add(rs.getString(1));
+                    }
+                } finally {
+                    rs.close();
                 }
             } finally {
-                rs.close();
+                statements.release(ps);
             }
-            ps.close();
         } finally {
-            if (!isInTransaction()) {
-                conn.close();
-            }
+            releaseConnection(conn);
         }
         return columns;
     }
 
     @Override
     public void autoMigrate(@NotNull Class<?> clazz) throws SQLException {
-        if (!clazz.isAnnotationPresent(Table.class)) {
-            throw new IllegalArgumentException("the class must be annotated with @Table");
-        }
-
-        Table table = clazz.getAnnotation(Table.class);
-        if (Objects.isNull(table.name()) || table.name().isBlank()) {
-            throw new IllegalArgumentException("the table name cannot be empty");
-        }
-
-        String tableName = table.name();
-        List<Field> fields = ObjectSerializer.getAllFields(clazz);
+        EntityMetadata metadata = EntityMetadata.of(clazz);
+        String tableName = metadata.getTableName();
         Set<String> existingColumns = getExistingColumns(tableName);
         Set<String> classColumnNames = new HashSet<>();
 
-        for (Field f : fields) {
-            if (f.isAnnotationPresent(Column.class)) {
-                classColumnNames.add(ObjectSerializer.getColumnName(f));
-            }
+        for (ColumnMetadata column : metadata.getColumns()) {
+            classColumnNames.add(column.getName());
         }
 
-        boolean doDrop = clazz.isAnnotationPresent(AutoMigrate.class)
-                && clazz.getAnnotation(AutoMigrate.class).drop();
-
-        for (Field f : fields) {
-            if (!f.isAnnotationPresent(Column.class)) {
-                continue;
-            }
-            Column column = f.getAnnotation(Column.class);
-            if (column == null) {
-                continue;
-            }
+        boolean doDrop = metadata.isDropOnMigrate();
 
-            String columnName = ObjectSerializer.getColumnName(f);
-            String sqlType = ObjectSerializer.getSqlType(f.getGenericType());
+        for (ColumnMetadata columnMetadata : metadata.getColumns()) {
+            Column column = columnMetadata.getColumn();
+            String columnName = columnMetadata.getName();
+            String sqlType = columnMetadata.getSqlType();
             boolean notNull = !column.nullable();
             String defaultVal = (Objects.isNull(column.defaultValue()) || column.defaultValue().isBlank())
                     ? null : column.defaultValue();
@@ -292,14 +866,7 @@ abstract class AbstractDatabaseConnection implements DatabaseConnection {
                 if (debug) {
                     LOGGER.info("Auto-migrating rename: " + rename.getSql(getType()));
                 }
-                Connection renameConn = getConnection();
-                try {
-                    rename.build(renameConn, getType()).execute();
-                } finally {
-                    if (!isInTransaction()) {
-                        renameConn.close();
-                    }
-                }
+                runStatement(rename, tableName, clazz);
                 existingColumns.remove(column.renamedFrom());
                 existingColumns.add(columnName);
                 continue;
@@ -316,14 +883,7 @@ abstract class AbstractDatabaseConnection implements DatabaseConnection {
                 LOGGER.info("Auto-migrating add: " + alter.getSql(getType()));
             }
 
-            Connection conn = getConnection();
-            try {
-                alter.build(conn, getType()).execute();
-            } finally {
-                if (!isInTransaction()) {
-                    conn.close();
-                }
-            }
+            runStatement(alter, tableName, clazz);
             existingColumns.add(columnName);
         }
 
@@ -334,14 +894,7 @@ abstract class AbstractDatabaseConnection implements DatabaseConnection {
                     if (debug) {
                         LOGGER.info("Auto-migrating drop: " + drop.getSql(getType()));
                     }
-                    Connection dropConn = getConnection();
-                    try {
-                        drop.build(dropConn, getType()).execute();
-                    } finally {
-                        if (!isInTransaction()) {
-                            dropConn.close();
-                        }
-                    }
+                    runStatement(drop, tableName, clazz);
                 }
             }
         }
@@ -349,53 +902,39 @@ abstract class AbstractDatabaseConnection implements DatabaseConnection {
 
     @Override
     public void createTableByClass(@NotNull Class<?> clazz) throws SQLException {
-        if (!clazz.isAnnotationPresent(Table.class)) {
-            throw new IllegalArgumentException("the class must be annotated with @Table");
-        }
-
-        Table table = clazz.getAnnotation(Table.class);
-        if (Objects.isNull(table.name()) || table.name().isBlank()) {
-            throw new IllegalArgumentException("the table name cannot be empty");
-        }
-
-        List<Field> field = ObjectSerializer.getAllFields(clazz);
+        EntityMetadata metadata = EntityMetadata.of(clazz);
+        Table table = metadata.getTable();
 
-        CreateTableSQL sql = SQL.createTable().table(table.name()).ifNotExists();
+        CreateTableSQL sql = SQL.createTable().table(metadata.getTableName()).ifNotExists();
 
         if (!table.engine().isBlank()) {
             sql.options("ENGINE=" + table.engine());
         }
 
-        for (Field f : field) {
-            if (f.isAnnotationPresent(Column.class)) {
-                Column column = f.getAnnotation(Column.class);
-                if (column != null) {
-                    Class<?> type = f.getType();
-
-                    String sqlType = ObjectSerializer.getSqlType(f.getGenericType());
-                    String columnName = ObjectSerializer.getColumnName(f);
+        for (ColumnMetadata columnMetadata : metadata.getColumns()) {
+            Column column = columnMetadata.getColumn();
+            Class<?> type = columnMetadata.getField().getType();
+            String columnName = columnMetadata.getName();
 
-                    sql.column(columnName, sqlType);
+            sql.column(columnName, columnMetadata.getSqlType());
 
-                    if (f.isAnnotationPresent(AutoIncrement.class)) {
-                        if (!type.isAssignableFrom(Number.class)) {
-                            throw new WrongTypeException("Class " + type + "isn't incrementable");
-                        }
-                        sql.autoIncrement(columnName);
-                    }
+            if (columnMetadata.isAutoIncrement()) {
+                if (!isIncrementable(type)) {
+                    throw new WrongTypeException("Class " + type + " isn't incrementable");
+                }
+                sql.autoIncrement(columnName);
+            }
 
-                    if (f.isAnnotationPresent(PrimaryKey.class)) {
-                        sql.primaryKey(columnName);
-                    }
+            if (columnMetadata.isPrimaryKey()) {
+                sql.primaryKey(columnName);
+            }
 
-                    if (!column.nullable()) {
-                        sql.notNull(columnName);
-                    }
+            if (!column.nullable()) {
+                sql.notNull(columnName);
+            }
 
-                    if (!Objects.isNull(column.defaultValue()) && !column.defaultValue().isBlank()) {
-                        sql.defaultValue(columnName, column.defaultValue());
-                    }
-                }
+            if (!Objects.isNull(column.defaultValue()) && !column.defaultValue().isBlank()) {
+                sql.defaultValue(columnName, column.defaultValue());
             }
         }
 
@@ -403,287 +942,739 @@ abstract class AbstractDatabaseConnection implements DatabaseConnection {
             LOGGER.info("Invoking SQL: " + sql.getSql(getType()));
         }
 
+        runStatement(sql, metadata.getTableName(), clazz);
+
+        if (metadata.isAutoMigrate()) {
+            autoMigrate(clazz);
+        }
+    }
+
+    private static boolean isIncrementable(Class<?> type) {
+        return type == int.class || type == long.class || type == short.class
+                || Integer.class == type || Long.class == type || Short.class == type;
+    }
+
+    /**
+     * Prepare the statement on a pooled connection, let the binder fill it and run it once per binder call.
+     */
+    private void executePrepared(String sql, StatementBinder binder, QueryProbe probe) throws SQLException {
+        if (debug) {
+            LOGGER.info("Invoking SQL: " + sql);
+        }
+
+        probe.sql(sql);
         Connection connection = getConnection();
+        probe.acquired();
         try {
-            sql.build(connection, getType()).execute();
-        } finally {
-            if (!isInTransaction()) {
-                connection.close();
+            StatementCache statements = getStatements(connection);
+            PreparedStatement stmt = statements.prepare(sql);
+            try {
+                binder.bind(stmt);
+                probe.rows(stmt.executeUpdate());
+                probe.executed();
+            } finally {
+                statements.release(stmt);
             }
+        } finally {
+            releaseConnection(connection);
         }
+    }
 
-        if (clazz.isAnnotationPresent(AutoMigrate.class)) {
-            autoMigrate(clazz);
+    private <T> void executeBatch(String sql, List<T> objects, EntityBinder<T> binder, QueryProbe probe) throws SQLException {
+        if (debug) {
+            LOGGER.info("Batch executing " + objects.size() + " rows: " + sql);
         }
-    }
 
-    @Override
-    public <T> void insertObject(@NotNull Class<T> clazz, @NotNull T object, boolean upsert) throws SQLException {
-        if (!clazz.isAnnotationPresent(Table.class)) {
-            throw new IllegalArgumentException("the class must be annotated with @Table");
+        probe.sql(sql);
+        Connection connection = getConnection();
+        probe.acquired();
+        try {
+            StatementCache statements = getStatements(connection);
+            PreparedStatement stmt = statements.prepare(sql);
+            try {
+                for (T object : objects) {
+                    binder.bind(stmt, object);
+                    stmt.addBatch();
+                }
+                for (int count : stmt.executeBatch()) {
+                    probe.rows(count);
+                }
+                probe.executed();
+            } finally {
+                statements.release(stmt);
+            }
+        } finally {
+            releaseConnection(connection);
         }
+    }
+
+    /**
+     * Write the objects with multi-row statements. Full chunks carry as many rows as the bind parameter limit
+     * and {@link DatabaseParameters#getMultiRowBatchSize()} allow; the tail is split into power-of-two chunks,
+     * so only a handful of statement shapes ever reach the statement cache.
+     */
+    private <T> void executeMultiRow(List<T> objects, int columnsPerRow, IntFunction<String> sqlForRows, RowBinder<T> binder,
+                                     QueryProbe probe) throws SQLException {
+        Connection connection = getConnection();
+        probe.acquired();
+        try {
+            int chunk = multiRowChunk(connection, columnsPerRow);
+            if (debug) {
+                LOGGER.info("Multi-row executing " + objects.size() + " rows, up to " + chunk + " per statement: " + sqlForRows.apply(1));
+            }
 
-        Table table = clazz.getAnnotation(Table.class);
-        if (Objects.isNull(table.name()) || table.name().isBlank()) {
-            throw new IllegalArgumentException("the table name cannot be empty");
+            StatementCache statements = getStatements(connection);
+            int offset = 0;
+            while (offset < objects.size()) {
+                int remaining = objects.size() - offset;
+                int rows = remaining >= chunk ? chunk : Integer.highestOneBit(remaining);
+                String sql = sqlForRows.apply(rows);
+                probe.sql(sql);
+                PreparedStatement stmt = statements.prepare(sql, true);
+                try {
+                    int index = 1;
+                    for (int i = offset; i < offset + rows; i++) {
+                        index = binder.bind(stmt, index, objects.get(i));
+                    }
+                    probe.rows(stmt.executeUpdate());
+                    probe.executed();
+                } finally {
+                    statements.release(stmt);
+                }
+                offset += rows;
+            }
+        } finally {
+            releaseConnection(connection);
         }
+    }
 
-        List<Field> fields = ObjectSerializer.getAllFields(clazz);
+    private int multiRowChunk(Connection connection, int columnsPerRow) throws SQLException {
+        int chunk = Math.min(parameters.getMultiRowBatchSize(), getMaxBindParameters(connection) / columnsPerRow);
+        return Math.max(1, chunk);
+    }
 
-        InsertSQL sql = upsert ? SQL.upsert().into(table.name()) : SQL.insert().into(table.name());
+    /**
+     * Insert the objects and store the values of their {@code @AutoIncrement} columns in them. Multi-row chunks
+     * read the keys through {@code RETURNING}; without it every row is its own statement.
+     */
+    private <T> void insertReturningKeys(EntityMetadata metadata, List<T> objects, QueryProbe probe) throws SQLException {
+        RowBinder<T> binder = metadata.getInsertBinder();
+        int columns = metadata.getInsertColumns().size();
 
-        List<String> conflictKeys = new ArrayList<>();
+        Connection connection = getConnection();
+        probe.acquired();
+        try {
+            boolean returning = supportsReturning(connection);
+            int chunk = 1;
+            if (columns > 0 && parameters.getBatchMode() == BatchMode.MULTI_ROW && returning) {
+                chunk = multiRowChunk(connection, columns);
+            }
+            if (debug) {
+                String sql = returning ? metadata.getInsertReturningSql(getType(), 1) : metadata.getInsertSql(getType());
+                LOGGER.info("Inserting " + objects.size() + " rows, up to " + chunk + " per statement: " + sql);
+            }
 
-        for (Field f : fields) {
-            if (f.isAnnotationPresent(Column.class)) {
-                String columnName = ObjectSerializer.getColumnName(f);
+            StatementCache statements = getStatements(connection);
+            int offset = 0;
+            while (offset < objects.size()) {
+                int remaining = objects.size() - offset;
+                int rows = remaining >= chunk ? chunk : Integer.highestOneBit(remaining);
+                String sql = returning ? metadata.getInsertReturningSql(getType(), rows) : metadata.getInsertSql(getType(), rows);
+                probe.sql(sql);
+                PreparedStatement stmt = returning ? statements.prepare(sql, true) : statements.prepareReturningKeys(sql, true);
                 try {
-                    sql.value(columnName, ObjectSerializer.convertBack(f.get(object), f.getGenericType()));
-                } catch (IllegalAccessException e) {
-                    throw new RuntimeException(e);
-                }
+                    int index = 1;
+                    for (int i = offset; i < offset + rows; i++) {
+                        index = binder.bind(stmt, index, objects.get(i));
+                    }
 
-                if (upsert && (getType() == DatabaseType.SQLITE || getType() == DatabaseType.POSTGRESQL)) {
-                    boolean isPrimary = f.isAnnotationPresent(PrimaryKey.class);
-                    if (isPrimary) {
-                        conflictKeys.add(columnName);
+                    ResultSet keys;
+                    if (returning) {
+                        keys = stmt.executeQuery();
+                    } else {
+                        stmt.executeUpdate();
+                        keys = stmt.getGeneratedKeys();
                     }
+                    probe.executed();
+                    probe.rows(rows);
+                    try (keys) {
+                        for (int i = offset; i < offset + rows && keys.next(); i++) {
+                            metadata.readGeneratedKeys(keys, objects.get(i));
+                        }
+                    }
+                    probe.hydrated();
+                } finally {
+                    statements.release(stmt);
                 }
+                offset += rows;
             }
+        } finally {
+            releaseConnection(connection);
         }
+    }
 
-        if (upsert && (getType() == DatabaseType.SQLITE || getType() == DatabaseType.POSTGRESQL)) {
-            if (conflictKeys.isEmpty()) {
-                throw new IllegalStateException("Upsert requires at least one @PrimaryKey or @Column(primaryKey=true) in " + clazz.getName());
-            }
+    @Override
+    public <T> void insertObject(@NotNull Class<T> clazz, @NotNull T object, boolean upsert) throws SQLException {
+        EntityMetadata metadata = EntityMetadata.of(clazz);
+        try {
+            probed(upsert ? OperationType.UPSERT : OperationType.INSERT, metadata.getTableName(), clazz, probe -> {
+                if (upsert) {
+                    RowBinder<T> binder = metadata.getRowBinder();
+                    executePrepared(metadata.getUpsertSql(getType()), stmt -> binder.bind(stmt, 1, object), probe);
+                } else {
+                    insert(metadata, Collections.singletonList(object), probe);
+                }
+                trackWritten(metadata, Collections.singletonList(object));
+                return null;
+            });
+        } finally {
+            invalidateCached(metadata, Collections.singletonList(object));
+        }
+    }
 
-            sql.conflictKeys(conflictKeys.toArray(new String[0]));
+    @Override
+    public <T> void insertBatch(@NotNull Class<T> clazz, @NotNull List<T> objects) throws SQLException {
+        if (objects.isEmpty()) {
+            return;
         }
 
-        if (debug) {
-            LOGGER.info("Invoking SQL: " + sql.getSql(getType()));
+        EntityMetadata metadata = EntityMetadata.of(clazz);
+        try {
+            probed(OperationType.INSERT, metadata.getTableName(), clazz, probe -> {
+                insert(metadata, objects, probe);
+                trackWritten(metadata, objects);
+                return null;
+            });
+        } finally {
+            invalidateCached(metadata, objects);
         }
+    }
 
-        Connection insertConn = getConnection();
+    @Override
+    public <T> void upsertBatch(@NotNull Class<T> clazz, @NotNull List<T> objects) throws SQLException {
+        if (objects.isEmpty()) {
+            return;
+        }
+
+        EntityMetadata metadata = EntityMetadata.of(clazz);
+        // PostgreSQL rejects a statement that updates the same row twice
+        List<T> rows = getType() == DatabaseType.POSTGRESQL && parameters.getBatchMode() == BatchMode.MULTI_ROW
+                ? lastPerKey(metadata, objects) : objects;
         try {
-            sql.build(insertConn, getType()).execute();
+            probed(OperationType.UPSERT, metadata.getTableName(), clazz, probe -> {
+                writeBatch(metadata.getRowBinder(), metadata.getColumns().size(), rows, count -> metadata.getUpsertSql(getType(), count), probe);
+                trackWritten(metadata, objects);
+                return null;
+            });
         } finally {
-            if (!isInTransaction()) {
-                insertConn.close();
-            }
+            invalidateCached(metadata, objects);
         }
     }
 
     @Override
-    public <T> void insertBatch(@NotNull Class<T> clazz, @NotNull List<T> objects) throws SQLException {
+    public <T> void insertIfAbsentBatch(@NotNull Class<T> clazz, @NotNull List<T> objects) throws SQLException {
         if (objects.isEmpty()) {
             return;
         }
 
-        if (!clazz.isAnnotationPresent(Table.class)) {
-            throw new IllegalArgumentException("the class must be annotated with @Table");
+        EntityMetadata metadata = EntityMetadata.of(clazz);
+        try {
+            probed(OperationType.INSERT, metadata.getTableName(), clazz, probe -> {
+                writeBatch(metadata.getRowBinder(), metadata.getColumns().size(), objects, rows -> metadata.getInsertIgnoreSql(getType(), rows), probe);
+                return null;
+            });
+        } finally {
+            invalidateCached(metadata, objects);
+        }
+    }
+
+    private <T> void insert(EntityMetadata metadata, List<T> objects, QueryProbe probe) throws SQLException {
+        if (!metadata.getGeneratedColumns().isEmpty()) {
+            insertReturningKeys(metadata, objects, probe);
+            return;
         }
 
-        Table table = clazz.getAnnotation(Table.class);
-        if (Objects.isNull(table.name()) || table.name().isBlank()) {
-            throw new IllegalArgumentException("the table name cannot be empty");
+        writeBatch(metadata.getInsertBinder(), metadata.getInsertColumns().size(), objects, rows -> metadata.getInsertSql(getType(), rows), probe);
+    }
+
+    /**
+     * Write the objects with the statement rendered for a given row count, as multi-row chunks or a JDBC batch
+     * of single-row statements depending on {@link DatabaseParameters#getBatchMode()}. A single object is
+     * written with one plain statement.
+     */
+    private <T> void writeBatch(RowBinder<T> binder, int columns, List<T> objects, IntFunction<String> sqlForRows,
+                                QueryProbe probe) throws SQLException {
+        if (objects.size() == 1) {
+            executePrepared(sqlForRows.apply(1), stmt -> binder.bind(stmt, 1, objects.get(0)), probe);
+            return;
+        }
+
+        if (parameters.getBatchMode() == BatchMode.MULTI_ROW && columns > 0) {
+            executeMultiRow(objects, columns, sqlForRows, binder, probe);
+            return;
+        }
+
+        executeBatch(sqlForRows.apply(1), objects, (stmt, object) -> binder.bind(stmt, 1, object), probe);
+    }
+
+    private static <T> List<T> lastPerKey(EntityMetadata metadata, List<T> objects) {
+        List<ColumnMetadata> keys = metadata.getKeyColumns();
+        if (keys.isEmpty()) {
+            return objects;
         }
 
-        List<Field> fields = ObjectSerializer.getAllFields(clazz);
-        List<Field> columnFields = new ArrayList<>();
-        List<String> columnNames = new ArrayList<>();
-        for (Field f : fields) {
-            if (f.isAnnotationPresent(Column.class)) {
-                columnFields.add(f);
-                columnNames.add(ObjectSerializer.getColumnName(f));
+        Map<List<Object>, T> latest = new LinkedHashMap<>();
+        for (T object : objects) {
+            List<Object> key = new ArrayList<>(keys.size());
+            for (ColumnMetadata column : keys) {
+                key.add(column.toDatabase(object));
             }
+            latest.remove(key);
+            latest.put(key, object);
         }
+        return latest.size() == objects.size() ? objects : new ArrayList<>(latest.values());
+    }
 
-        String sql = "INSERT INTO " + table.name() + " (" +
-                String.join(", ", columnNames) + ") VALUES (" +
-                String.join(", ", columnNames.stream().map(c -> "?").toArray(String[]::new)) + ")";
+    @Override
+    public <T> void updateBatch(@NotNull Class<T> clazz, @NotNull List<T> objects) throws SQLException {
+        if (objects.isEmpty()) {
+            return;
+        }
 
-        if (debug) {
-            LOGGER.info("Batch inserting " + objects.size() + " rows: " + sql);
+        EntityMetadata metadata = EntityMetadata.of(clazz);
+        Map<BitSet, List<T>> groups = groupByChanges(metadata.getChangeTracker(), objects);
+        if (groups.isEmpty()) {
+            return;
         }
 
-        Connection conn = getConnection();
         try {
-            PreparedStatement ps = conn.prepareStatement(sql);
-            try {
-                for (T obj : objects) {
-                    int idx = 1;
-                    for (Field f : columnFields) {
-                        Object value;
-                        try {
-                            value = ObjectSerializer.convertBack(f.get(obj), f.getGenericType());
-                        } catch (IllegalAccessException e) {
-                            throw new RuntimeException(e);
-                        }
-                        ps.setObject(idx++, value);
-                    }
-                    ps.addBatch();
+            probed(OperationType.UPDATE, metadata.getTableName(), clazz, probe -> {
+                for (Map.Entry<BitSet, List<T>> group : groups.entrySet()) {
+                    BitSet changed = group.getKey();
+                    String sql = changed == null ? metadata.getUpdateByKeySql(getType()) : metadata.getUpdateByKeySql(getType(), changed);
+                    RowBinder<T> binder = changed == null ? metadata.getUpdateByKeyBinder() : metadata.getUpdateByKeyBinder(changed);
+                    executeBatch(sql, group.getValue(), (stmt, object) -> binder.bind(stmt, 1, object), probe);
+                    trackWritten(metadata, group.getValue());
                 }
-                ps.executeBatch();
-            } finally {
-                ps.close();
-            }
+                return null;
+            });
         } finally {
-            if (!isInTransaction()) {
-                conn.close();
+            invalidateCached(metadata, objects);
+        }
+    }
+
+    /**
+     * Group objects by the value columns that changed since they were loaded, leaving out unchanged ones.
+     * Objects without a snapshot, and all objects of untracked classes, are grouped under {@code null}.
+     */
+    private static <T> Map<BitSet, List<T>> groupByChanges(@Nullable ChangeTracker tracker, List<T> objects) {
+        if (tracker == null) {
+            return Collections.singletonMap(null, objects);
+        }
+
+        Map<BitSet, List<T>> groups = new LinkedHashMap<>();
+        for (T object : objects) {
+            BitSet changed = tracker.getChangedColumns(object);
+            if (changed == null || !changed.isEmpty()) {
+                groups.computeIfAbsent(changed, key -> new ArrayList<>()).add(object);
             }
         }
+        return groups;
     }
 
-    @Override
-    public <T> void updateBatch(@NotNull Class<T> clazz, @NotNull List<T> objects) throws SQLException {
-        if (objects.isEmpty()) {
+    /**
+     * Take new snapshots of objects just written. Inside a transaction they are dropped again on rollback,
+     * so the next update of those objects writes every column.
+     */
+    private void trackWritten(EntityMetadata metadata, List<?> objects) {
+        ChangeTracker tracker = metadata.getChangeTracker();
+        if (tracker == null) {
             return;
         }
 
-        if (!clazz.isAnnotationPresent(Table.class)) {
-            throw new IllegalArgumentException("the class must be annotated with @Table");
+        TransactionContext context = transaction.get();
+        for (Object object : objects) {
+            tracker.capture(object);
+            if (context != null) {
+                context.snapshots.put(object, tracker);
+            }
         }
+    }
 
-        Table table = clazz.getAnnotation(Table.class);
-        if (Objects.isNull(table.name()) || table.name().isBlank()) {
-            throw new IllegalArgumentException("the table name cannot be empty");
+    @Override
+    public <T> @NotNull Map<Object, T> selectByIds(@NotNull Class<T> clazz, @NotNull Collection<?> ids) throws SQLException {
+        Map<Object, T> result = new LinkedHashMap<>();
+        if (ids.isEmpty()) {
+            return result;
         }
 
-        List<Field> fields = ObjectSerializer.getAllFields(clazz);
-        List<Field> valueFields = new ArrayList<>();
-        List<Field> keyFields = new ArrayList<>();
-        List<String> valueNames = new ArrayList<>();
-        List<String> keyNames = new ArrayList<>();
-        for (Field f : fields) {
-            if (f.isAnnotationPresent(Column.class)) {
-                if (f.isAnnotationPresent(PrimaryKey.class)) {
-                    keyFields.add(f);
-                    keyNames.add(ObjectSerializer.getColumnName(f));
-                } else {
-                    valueFields.add(f);
-                    valueNames.add(ObjectSerializer.getColumnName(f));
+        EntityMetadata metadata = EntityMetadata.of(clazz);
+        List<ColumnMetadata> keys = metadata.getKeyColumns();
+        return probed(OperationType.SELECT, metadata.getTableName(), clazz, probe -> {
+            forEachKeyChunk(metadata, ids, true, where -> SQL.select().allColumns().from(metadata.getTableName()).where(where), stmt -> {
+                try (ResultSet rs = stmt.executeQuery()) {
+                    probe.executed();
+                    for (T object : ObjectSerializer.serializeMulti(clazz, rs)) {
+                        result.put(keyOf(keys, object), object);
+                        probe.rows(1);
+                    }
+                    probe.hydrated();
                 }
-            }
+            }, probe);
+            return result;
+        });
+    }
+
+    @Override
+    public int deleteByIds(@NotNull Class<?> clazz, @NotNull Collection<?> ids) throws SQLException {
+        if (ids.isEmpty()) {
+            return 0;
         }
 
-        if (keyFields.isEmpty()) {
-            throw new IllegalStateException("No @PrimaryKey field found in " + clazz.getName());
+        EntityMetadata metadata = EntityMetadata.of(clazz);
+        int[] deleted = new int[1];
+        try {
+            probed(OperationType.DELETE, metadata.getTableName(), clazz, probe -> {
+                forEachKeyChunk(metadata, ids, false, where -> SQL.delete().from(metadata.getTableName()).where(where), stmt -> {
+                    int count = stmt.executeUpdate();
+                    probe.executed();
+                    probe.rows(count);
+                    deleted[0] += count;
+                }, probe);
+                return null;
+            });
+        } finally {
+            EntityCache cache = touchEntityCache(clazz);
+            if (cache != null) {
+                for (Object id : ids) {
+                    cache.invalidate(cacheKey(metadata.getKeyColumns(), id));
+                }
+            }
         }
+        return deleted[0];
+    }
 
-        String setClause = String.join(", ", valueNames.stream().map(c -> c + " = ?").toArray(String[]::new));
-        String whereClause = String.join(" AND ", keyNames.stream().map(c -> c + " = ?").toArray(String[]::new));
-        String sql = "UPDATE " + table.name() + " SET " + setClause + " WHERE " + whereClause;
+    /**
+     * Run one statement per chunk of primary keys on a single connection. Chunks hold a power-of-two number of
+     * keys and the last one is padded by repeating its final key, so an entity has only a handful of statement
+     * shapes however many ids are passed. Composite keys use a row-value IN except on SQLite, which only
+     * accepts row values in IN against a subquery.
+     */
+    private void forEachKeyChunk(EntityMetadata metadata, Collection<?> ids, boolean read, Function<Condition, SQL> statementFor,
+                                 ChunkAction action, QueryProbe probe) throws SQLException {
+        List<ColumnMetadata> keys = metadata.getKeyColumns();
+        if (keys.isEmpty()) {
+            throw new IllegalStateException("No @PrimaryKey field found in " + metadata.getType().getName());
+        }
 
-        if (debug) {
-            LOGGER.info("Batch updating " + objects.size() + " rows: " + sql);
+        List<String> keyNames = keys.stream().map(ColumnMetadata::getName).toList();
+        List<List<Object>> keyValues = new ArrayList<>(ids.size());
+        for (Object id : ids) {
+            keyValues.add(toKeyValues(keys, id));
         }
+        boolean rowValues = getType() != DatabaseType.SQLITE;
 
-        Connection conn = getConnection();
+        Connection connection = read ? getReadConnection() : getConnection();
+        probe.acquired();
         try {
-            PreparedStatement ps = conn.prepareStatement(sql);
-            try {
-                for (T obj : objects) {
-                    int idx = 1;
-                    for (Field f : valueFields) {
-                        Object value;
-                        try {
-                            value = ObjectSerializer.convertBack(f.get(obj), f.getGenericType());
-                        } catch (IllegalAccessException e) {
-                            throw new RuntimeException(e);
-                        }
-                        ps.setObject(idx++, value);
-                    }
-                    for (Field f : keyFields) {
-                        Object value;
-                        try {
-                            value = ObjectSerializer.convertBack(f.get(obj), f.getGenericType());
-                        } catch (IllegalAccessException e) {
-                            throw new RuntimeException(e);
-                        }
-                        ps.setObject(idx++, value);
+            int maxKeys = Math.min(parameters.getInListMaxSize(), getMaxBindParameters(connection) / keys.size());
+            int chunk = Integer.highestOneBit(Math.max(1, maxKeys));
+            StatementCache statements = getStatements(connection);
+            for (int offset = 0; offset < keyValues.size(); offset += chunk) {
+                List<List<Object>> rows = new ArrayList<>(keyValues.subList(offset, Math.min(offset + chunk, keyValues.size())));
+                int padded = rows.size() == 1 ? 1 : Integer.highestOneBit(rows.size() - 1) << 1;
+                while (rows.size() < padded) {
+                    rows.add(rows.get(rows.size() - 1));
+                }
+
+                CompiledQuery query = statementFor.apply(Conditions.in(keyNames, rows, rowValues)).compile(getType());
+                if (debug) {
+                    LOGGER.info("Invoking SQL: " + query.getSql());
+                }
+
+                BoundQuery bound = query.bind();
+                probe.sql(bound);
+                PreparedStatement stmt = statements.prepare(query.getSql(), true);
+                try {
+                    List<Object> values = bound.getParameters();
+                    for (int i = 0; i < values.size(); i++) {
+                        stmt.setObject(i + 1, values.get(i));
                     }
-                    ps.addBatch();
+                    action.run(stmt);
+                } finally {
+                    statements.release(stmt);
                 }
-                ps.executeBatch();
-            } finally {
-                ps.close();
             }
         } finally {
-            if (!isInTransaction()) {
-                conn.close();
-            }
+            releaseConnection(connection);
+        }
+    }
+
+    private static List<Object> toKeyValues(List<ColumnMetadata> keys, Object id) {
+        if (id == null) {
+            throw new IllegalArgumentException("ids cannot contain null");
+        }
+        if (keys.size() == 1) {
+            return Collections.singletonList(keys.get(0).toDatabaseValue(id));
+        }
+        if (!(id instanceof List<?> values) || values.size() != keys.size()) {
+            throw new IllegalArgumentException("Composite key ids must be lists of " + keys.size() + " values in @PrimaryKey order: " + id);
+        }
+
+        List<Object> converted = new ArrayList<>(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            converted.add(keys.get(i).toDatabaseValue(values.get(i)));
         }
+        return converted;
+    }
+
+    private static Object keyOf(List<ColumnMetadata> keys, Object object) {
+        if (keys.size() == 1) {
+            return keys.get(0).get(object);
+        }
+
+        List<Object> key = new ArrayList<>(keys.size());
+        for (ColumnMetadata column : keys) {
+            key.add(column.get(object));
+        }
+        return key;
     }
 
     @Override
-    public <T> void updateObject(@NotNull Class<T> clazz, @NotNull T object, @NotNull Condition condition) throws SQLException {
-        if (!clazz.isAnnotationPresent(Table.class)) {
-            throw new IllegalArgumentException("the class must be annotated with @Table");
+    public <T> @Nullable T findById(@NotNull Class<T> clazz, @NotNull Object id) throws SQLException {
+        EntityMetadata metadata = EntityMetadata.of(clazz);
+        EntityCache cache = isInTransaction() ? null : getEntityCache(clazz);
+        if (cache == null) {
+            return selectById(clazz, id);
         }
 
-        Table table = clazz.getAnnotation(Table.class);
-        if (Objects.isNull(table.name()) || table.name().isBlank()) {
-            throw new IllegalArgumentException("the table name cannot be empty");
+        Object key = cacheKey(metadata.getKeyColumns(), id);
+        Object cached = cache.get(key);
+        if (cached == EntityCache.ABSENT) {
+            return null;
+        }
+        if (cached != null) {
+            return clazz.cast(cached);
         }
 
-        List<Field> field = ObjectSerializer.getAllFields(clazz);
+        long token = cache.startLoad(key);
+        T loaded = selectById(clazz, id);
+        cache.put(key, loaded, token);
+        return loaded;
+    }
 
-        UpdateSQL sql = SQL.update().table(table.name());
-        for (Field f : field) {
-            if (f.isAnnotationPresent(Column.class)) {
-                String columnName = ObjectSerializer.getColumnName(f);
-                if (!f.isAnnotationPresent(PrimaryKey.class)) {
-                    try {
-                        sql.set(columnName, ObjectSerializer.convertBack(f.get(object), f.getGenericType()));
-                    } catch (IllegalAccessException e) {
-                        //never happen
-                        throw new RuntimeException(e);
-                    }
-                }
+    private <T> @Nullable T selectById(Class<T> clazz, Object id) throws SQLException {
+        Iterator<T> found = selectByIds(clazz, Collections.singletonList(id)).values().iterator();
+        return found.hasNext() ? found.next() : null;
+    }
+
+    @Override
+    public @Nullable CacheStats getEntityCacheStats(@NotNull Class<?> clazz) {
+        EntityCache cache = getEntityCache(clazz);
+        return cache != null ? cache.getStats() : null;
+    }
+
+    @Override
+    public void invalidateCache(@NotNull Class<?> clazz) {
+        clearCached(clazz);
+    }
+
+    /**
+     * The entity cache of a {@code @Cached} class, created on first use.
+     */
+    @Nullable EntityCache getEntityCache(Class<?> clazz) {
+        EntityCache cache = entityCaches.get(clazz);
+        if (cache != null) {
+            return cache;
+        }
+
+        Cached cached = clazz.getAnnotation(Cached.class);
+        if (cached == null) {
+            return null;
+        }
+        return entityCaches.computeIfAbsent(clazz, type -> new EntityCache(cached.maxEntries(),
+                TimeUnit.SECONDS.toNanos(cached.ttlSeconds()), cached.cacheAbsent()));
+    }
+
+    /**
+     * Make the cached query results of a table stale, or all of them if the table is {@code null}.
+     * Inside a transaction this is repeated on commit or rollback, since other threads may cache rows
+     * the transaction is changing.
+     */
+    private void tableWritten(@Nullable String table) {
+        if (queryCache != null) {
+            if (table == null) {
+                queryCache.invalidateAll();
+            } else {
+                queryCache.invalidateTable(table);
             }
         }
 
-        sql.where(condition);
+        Consumer<@Nullable String> observer = writeObserver;
+        if (observer != null) {
+            observer.accept(table);
+        }
+
+        TransactionContext context = transaction.get();
+        if (context != null) {
+            context.tables.add(table);
+        }
+    }
 
-        if (debug) {
-            LOGGER.info("Invoking SQL: " + sql.getSql(getType()));
+    /**
+     * Return the cache of a class about to be invalidated, and make the query results of its table stale.
+     * Inside a transaction the cache is remembered and cleared again on commit or rollback.
+     */
+    private @Nullable EntityCache touchEntityCache(Class<?> clazz) {
+        tableWritten(EntityMetadata.of(clazz).getTableName());
+        EntityCache cache = getEntityCache(clazz);
+        TransactionContext context = transaction.get();
+        if (cache != null && context != null) {
+            context.entityCaches.add(cache);
         }
+        return cache;
+    }
+
+    private void invalidateCached(EntityMetadata metadata, List<?> objects) {
+        EntityCache cache = touchEntityCache(metadata.getType());
+        if (cache == null) {
+            return;
+        }
+
+        for (Object object : objects) {
+            cache.invalidate(keyOf(metadata.getKeyColumns(), object));
+        }
+    }
+
+    private void clearCached(Class<?> clazz) {
+        EntityCache cache = touchEntityCache(clazz);
+        if (cache != null) {
+            cache.clear();
+        }
+    }
 
-        Connection updateConn = getConnection();
+    /**
+     * Reset what a transaction touched once it committed or rolled back. Must be called with the
+     * context no longer bound, so that invalidating its tables is not recorded in it again.
+     */
+    void endTransaction(TransactionContext context, boolean rolledBack) {
+        for (EntityCache cache : context.entityCaches) {
+            cache.clear();
+        }
+        context.entityCaches.clear();
+
+        for (String table : context.tables) {
+            tableWritten(table);
+        }
+        context.tables.clear();
+
+        if (rolledBack) {
+            context.snapshots.forEach((object, tracker) -> tracker.forget(object));
+        }
+        context.snapshots.clear();
+    }
+
+    /**
+     * Run an action with a transaction bound to the calling thread, restoring whatever was bound before.
+     */
+    <R> R callInTransaction(TransactionContext context, SQLCallable<R> action) throws SQLException {
+        TransactionContext previous = transaction.get();
+        transaction.set(context);
         try {
-            sql.build(updateConn, getType()).execute();
+            return action.call();
         } finally {
-            if (!isInTransaction()) {
-                updateConn.close();
+            if (previous == null) {
+                transaction.remove();
+            } else {
+                transaction.set(previous);
             }
         }
     }
 
+    /**
+     * The cache key of an id given by a caller, matching {@link #keyOf(List, Object)} of the entity:
+     * numbers are widened or narrowed to the key field's type so that {@code findById(User.class, 5)}
+     * and a {@code long} key share an entry.
+     */
+    private static Object cacheKey(List<ColumnMetadata> keys, Object id) {
+        if (keys.isEmpty()) {
+            throw new IllegalStateException("No @PrimaryKey field found");
+        }
+        if (keys.size() == 1) {
+            return normalizeKey(keys.get(0), id);
+        }
+        if (!(id instanceof List<?> values) || values.size() != keys.size()) {
+            throw new IllegalArgumentException("Composite key ids must be lists of " + keys.size() + " values in @PrimaryKey order: " + id);
+        }
+
+        List<Object> key = new ArrayList<>(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            key.add(normalizeKey(keys.get(i), values.get(i)));
+        }
+        return key;
+    }
+
+    private static Object normalizeKey(ColumnMetadata column, Object value) {
+        Class<?> type = column.getField().getType();
+        if (value instanceof Number number && !type.isInstance(value)) {
+            if (type == long.class || type == Long.class) {
+                return number.longValue();
+            }
+            if (type == int.class || type == Integer.class) {
+                return number.intValue();
+            }
+            if (type == short.class || type == Short.class) {
+                return number.shortValue();
+            }
+        }
+        return value;
+    }
+
     @Override
-    public void deleteObject(@NotNull Class<?> clazz, @NotNull Condition condition) throws SQLException {
-        if (!clazz.isAnnotationPresent(Table.class)) {
-            throw new IllegalArgumentException("the class must be annotated with @Table");
+    public <T> void updateObject(@NotNull Class<T> clazz, @NotNull T object, @NotNull Condition condition) throws SQLException {
+        EntityMetadata metadata = EntityMetadata.of(clazz);
+        // only the object's own row is known to hold its snapshot; other conditions get every column
+        ChangeTracker tracker = metadata.getChangeTracker();
+        boolean ownRow = tracker != null && metadata.isKeyCondition(condition, object);
+        BitSet changed = ownRow ? tracker.getChangedColumns(object) : null;
+        if (changed != null && changed.isEmpty()) {
+            return;
         }
 
-        Table table = clazz.getAnnotation(Table.class);
-        if (Objects.isNull(table.name()) || table.name().isBlank()) {
-            throw new IllegalArgumentException("the table name cannot be empty");
+        String sql = (changed == null ? metadata.getUpdateSql(getType()) : metadata.getUpdateSql(getType(), changed))
+                + " WHERE " + condition.getSql();
+        RowBinder<T> binder = changed == null ? metadata.getUpdateBinder() : metadata.getUpdateBinder(changed);
+        try {
+            probed(OperationType.UPDATE, metadata.getTableName(), clazz, probe -> {
+                executePrepared(sql, stmt -> {
+                    int index = binder.bind(stmt, 1, object);
+                    for (Object parameter : condition.getParameters()) {
+                        stmt.setObject(index++, parameter);
+                    }
+                }, probe);
+                if (ownRow) {
+                    trackWritten(metadata, Collections.singletonList(object));
+                }
+                return null;
+            });
+        } finally {
+            // the condition may match any rows
+            clearCached(clazz);
         }
+    }
 
-        DeleteSQL sql = SQL.delete().from(table.name()).where(condition);
+    @Override
+    public void deleteObject(@NotNull Class<?> clazz, @NotNull Condition condition) throws SQLException {
+        DeleteSQL sql = SQL.delete().from(EntityMetadata.of(clazz).getTableName()).where(condition);
 
         if (debug) {
             LOGGER.info("Invoking SQL: " + sql.getSql(getType()));
         }
 
-        Connection deleteConn = getConnection();
         try {
-            sql.build(deleteConn, getType()).execute();
+            runStatement(sql, sql.getModifiedTable(), clazz);
         } finally {
-            if (!isInTransaction()) {
-                deleteConn.close();
-            }
+            clearCached(clazz);
         }
     }
 
@@ -699,37 +1690,231 @@ abstract class AbstractDatabaseConnection implements DatabaseConnection {
         }
         Connection conn = createRawConnection();
         conn.setAutoCommit(false);
-        transactionConnection.set(conn);
+        transaction.set(new TransactionContext(conn));
         return new Transaction(this);
     }
 
     @Override
     public void commit() throws SQLException {
-        Connection conn = transactionConnection.get();
-        if (conn == null) {
+        TransactionContext context = transaction.get();
+        if (context == null) {
             throw new SQLException("No active transaction");
         }
+        Connection conn = context.connection;
         try {
             conn.commit();
         } finally {
             conn.setAutoCommit(true);
             conn.close();
-            transactionConnection.remove();
+            transaction.remove();
+            endTransaction(context, false);
         }
     }
 
     @Override
     public void rollback() throws SQLException {
-        Connection conn = transactionConnection.get();
-        if (conn == null) {
+        TransactionContext context = transaction.get();
+        if (context == null) {
             throw new SQLException("No active transaction");
         }
+        Connection conn = context.connection;
         try {
             conn.rollback();
         } finally {
             conn.setAutoCommit(true);
             conn.close();
-            transactionConnection.remove();
+            transaction.remove();
+            endTransaction(context, true);
+        }
+    }
+
+    @Override
+    public @NotNull Session openSession() throws SQLException {
+        return openSession(null, false);
+    }
+
+    @Override
+    public @NotNull Session openSession(@Nullable IsolationLevel isolation, boolean readOnly) throws SQLException {
+        Connection conn = readOnly ? createReadConnection() : createRawConnection();
+        try {
+            if (readOnly) {
+                setReadOnly(conn, true);
+            }
+            if (isolation != null) {
+                conn.setTransactionIsolation(isolation.getLevel());
+            }
+            conn.setAutoCommit(false);
+        } catch (SQLException | RuntimeException e) {
+            conn.close();
+            throw e;
+        }
+        return new SessionImpl(this, new TransactionContext(conn), isolation, readOnly);
+    }
+
+    @Override
+    public <R> R inTransaction(@NotNull TransactionWork<R> work) throws SQLException {
+        return inTransaction(null, work);
+    }
+
+    @Override
+    public <R> R inTransaction(@Nullable IsolationLevel isolation, @NotNull TransactionWork<R> work) throws SQLException {
+        int maxAttempts = Math.max(1, parameters.getTransactionMaxAttempts());
+        for (int attempt = 1; ; attempt++) {
+            R result = null;
+            boolean committed = false;
+            try (Session session = openSession(isolation, false)) {
+                result = work.run(session);
+                session.commit();
+                committed = true;
+            } catch (SQLException | RuntimeException e) {
+                if (committed) {
+                    // only handing the connection back failed; running the work again would repeat what is committed
+                    LOGGER.log(Level.WARNING, "Failed to close the session of a committed transaction", e);
+                    transactionStats.recordCommit();
+                    return result;
+                }
+                boolean retryable = (e instanceof SQLException || e instanceof DatabaseAccessException) && isRetryable(e);
+                if (!retryable) {
+                    transactionStats.recordFailure();
+                    throw e;
+                }
+                if (attempt >= maxAttempts || !backoff(attempt)) {
+                    transactionStats.recordGiveUp();
+                    throw e;
+                }
+                transactionStats.recordRetry();
+                if (debug) {
+                    LOGGER.info("Retrying transaction after attempt " + attempt + " failed: " + e.getMessage());
+                }
+                continue;
+            }
+            transactionStats.recordCommit();
+            return result;
+        }
+    }
+
+    /**
+     * Sleep before retry number {@code attempt}, a random time below an exponentially growing ceiling
+     * ("full jitter"), so that the transactions that collided do not collide again.
+     *
+     * @return {@code false} if the thread was interrupted
+     */
+    private boolean backoff(int attempt) {
+        long base = Math.max(0L, parameters.getTransactionRetryBaseDelay());
+        long ceiling = Math.min(parameters.getTransactionRetryMaxDelay(), base << Math.min(attempt - 1, 20));
+        if (ceiling <= 0L) {
+            return true;
+        }
+
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Whether an error, or any cause or chained exception of it, means the transaction lost a race
+     * and running it again may succeed.
+     */
+    boolean isRetryable(Throwable error) {
+        int depth = 0;
+        for (Throwable t = error; t != null && depth < 16; t = t.getCause(), depth++) {
+            if (t instanceof SQLException sql) {
+                for (SQLException e = sql; e != null && depth < 16; e = e.getNextException(), depth++) {
+                    if (isRetryableError(e)) {
+                        return true;
+                    }
+                }
+            }
         }
+        return false;
+    }
+
+    /**
+     * Whether a single exception is a deadlock, serialization failure or similar transient conflict.
+     * The default recognizes {@link SQLTransactionRollbackException} and SQLSTATE {@code 40001};
+     * dialects add their own codes.
+     */
+    boolean isRetryableError(SQLException e) {
+        return e instanceof SQLTransactionRollbackException || "40001".equals(e.getSQLState());
+    }
+
+    @Override
+    public @NotNull TransactionStats getTransactionStats() {
+        return transactionStats;
+    }
+
+    /**
+     * Set the callback told about every written table, {@code null} meaning unknown tables,
+     * on each write and again when its transaction ends.
+     */
+    void setWriteObserver(@Nullable Consumer<@Nullable String> observer) {
+        this.writeObserver = observer;
+    }
+
+    /**
+     * How far this database lags behind the primary it replicates from.
+     *
+     * @return the lag in milliseconds, {@code 0} if it is not a replica, or {@link Long#MAX_VALUE} if replication is stopped
+     */
+    long getReplicationLag() throws SQLException {
+        Connection connection = getConnection();
+        try {
+            return getReplicationLag(connection);
+        } finally {
+            releaseConnection(connection);
+        }
+    }
+
+    /**
+     * The dialect query behind {@link #getReplicationLag()}. Databases without replication are never behind.
+     */
+    long getReplicationLag(Connection connection) throws SQLException {
+        return 0L;
+    }
+
+    /**
+     * Whether an exception means the user lacks a privilege, like the one to read the replication status.
+     * The default recognizes SQLSTATE {@code 28000} and {@code 42501}; dialects add their own codes.
+     */
+    boolean isAccessDenied(SQLException e) {
+        String state = e.getSQLState();
+        return "28000".equals(state) || "42501".equals(state);
+    }
+
+    /**
+     * Make a connection read-only for the following transactions, or writable again.
+     * The pool restores the flag when the connection is returned.
+     */
+    void setReadOnly(Connection connection, boolean readOnly) throws SQLException {
+        connection.setReadOnly(readOnly);
+    }
+
+    @FunctionalInterface
+    interface SQLCallable<R> {
+        R call() throws SQLException;
+    }
+
+    @FunctionalInterface
+    interface ProbedCallable<R> {
+        R call(QueryProbe probe) throws SQLException;
+    }
+
+    @FunctionalInterface
+    private interface ChunkAction {
+        void run(PreparedStatement stmt) throws SQLException;
+    }
+
+    @FunctionalInterface
+    private interface StatementBinder {
+        void bind(PreparedStatement stmt) throws SQLException;
+    }
+
+    @FunctionalInterface
+    private interface EntityBinder<T> {
+        void bind(PreparedStatement stmt, T object) throws SQLException;
     }
 }
@@ -0,0 +1,244 @@
+package io.github.lijinhong11.mdatabase.impl;
+
+import io.github.lijinhong11.mdatabase.AsyncDatabaseConnection;
+import io.github.lijinhong11.mdatabase.DatabaseConnection;
+import io.github.lijinhong11.mdatabase.Page;
+import io.github.lijinhong11.mdatabase.TransactionWork;
+import io.github.lijinhong11.mdatabase.enums.DatabaseType;
+import io.github.lijinhong11.mdatabase.enums.OrderType;
+import io.github.lijinhong11.mdatabase.sql.BoundQuery;
+import io.github.lijinhong11.mdatabase.sql.conditions.Condition;
+import io.github.lijinhong11.mdatabase.sql.sentence.SQL;
+import io.github.lijinhong11.mdatabase.sql.sentence.SelectSQL;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+final class AsyncDatabaseConnectionImpl implements AsyncDatabaseConnection {
+    private final DatabaseConnection connection;
+    private final Executor executor;
+    private final @Nullable Executor completionExecutor;
+
+    AsyncDatabaseConnectionImpl(DatabaseConnection connection, Executor executor, @Nullable Executor completionExecutor) {
+        this.connection = connection;
+        this.executor = executor;
+        this.completionExecutor = completionExecutor;
+    }
+
+    private <R> CompletableFuture<R> supply(SQLSupplier<R> action) {
+        CompletableFuture<R> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(action.get());
+                } catch (Throwable t) {
+                    future.completeExceptionally(t);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+
+        if (completionExecutor == null) {
+            return future;
+        }
+
+        CompletableFuture<R> delivered = new CompletableFuture<>();
+        future.whenCompleteAsync((result, error) -> {
+            if (error != null) {
+                delivered.completeExceptionally(error);
+            } else {
+                delivered.complete(result);
+            }
+        }, completionExecutor);
+        return delivered;
+    }
+
+    private CompletableFuture<Void> run(SQLRunnable action) {
+        return supply(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    @Override
+    public @NotNull DatabaseConnection sync() {
+        return connection;
+    }
+
+    @Override
+    public @NotNull AsyncDatabaseConnection withCompletionExecutor(@Nullable Executor completionExecutor) {
+        return new AsyncDatabaseConnectionImpl(connection, executor, completionExecutor);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Boolean> execute(@NotNull SQL sql) {
+        return supply(() -> connection.execute(sql));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> workspace(@NotNull SQL @NotNull ... sqls) {
+        return run(() -> connection.workspace(sqls));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<ResultSet> query(@NotNull SelectSQL sql) {
+        return supply(() -> connection.query(sql));
+    }
+
+    @Override
+    public <T> @NotNull CompletableFuture<T> selectOne(@NotNull Class<T> clazz, @NotNull Condition condition) {
+        return supply(() -> connection.selectOne(clazz, condition));
+    }
+
+    @Override
+    public <T> @NotNull CompletableFuture<T> selectOne(@NotNull String table, @NotNull Class<T> clazz, @NotNull Condition condition) {
+        return supply(() -> connection.selectOne(table, clazz, condition));
+    }
+
+    @Override
+    public <T> @NotNull CompletableFuture<List<T>> selectMulti(@NotNull Class<T> clazz) {
+        return supply(() -> connection.selectMulti(clazz));
+    }
+
+    @Override
+    public <T> @NotNull CompletableFuture<List<T>> selectMulti(@NotNull String table, @NotNull Class<T> clazz) {
+        return supply(() -> connection.selectMulti(table, clazz));
+    }
+
+    @Override
+    public <T> @NotNull CompletableFuture<List<T>> selectMulti(@NotNull Class<T> clazz, @Nullable Condition condition) {
+        return supply(() -> connection.selectMulti(clazz, condition));
+    }
+
+    @Override
+    public <T> @NotNull CompletableFuture<List<T>> selectMulti(@NotNull String table, @NotNull Class<T> clazz, @Nullable Condition condition) {
+        return supply(() -> connection.selectMulti(table, clazz, condition));
+    }
+
+    @Override
+    public <T> @NotNull CompletableFuture<Page<T>> page(@NotNull Class<T> clazz, @Nullable Condition condition, @NotNull List<String> orderBy,
+                                                        int pageSize, @Nullable String token) {
+        return supply(() -> connection.page(clazz, condition, orderBy, pageSize, token));
+    }
+
+    @Override
+    public <T> @NotNull CompletableFuture<Page<T>> page(@NotNull Class<T> clazz, @Nullable Condition condition, @NotNull List<String> orderBy,
+                                                        @NotNull OrderType order, int pageSize, @Nullable String token) {
+        return supply(() -> connection.page(clazz, condition, orderBy, order, pageSize, token));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Boolean> execute(@NotNull BoundQuery query) {
+        return supply(() -> connection.execute(query));
+    }
+
+    @Override
+    public <T> @NotNull CompletableFuture<T> selectOne(@NotNull Class<T> clazz, @NotNull BoundQuery query) {
+        return supply(() -> connection.selectOne(clazz, query));
+    }
+
+    @Override
+    public <T> @NotNull CompletableFuture<List<T>> selectMulti(@NotNull Class<T> clazz, @NotNull BoundQuery query) {
+        return supply(() -> connection.selectMulti(clazz, query));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> createTableByClass(@NotNull Class<?> clazz) {
+        return run(() -> connection.createTableByClass(clazz));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> autoMigrate(@NotNull Class<?> clazz) {
+        return run(() -> connection.autoMigrate(clazz));
+    }
+
+    @Override
+    public <T> @NotNull CompletableFuture<Void> insertObject(@NotNull Class<T> clazz, @NotNull T object, boolean upsert) {
+        return run(() -> connection.insertObject(clazz, object, upsert));
+    }
+
+    @Override
+    public <T> @NotNull CompletableFuture<Void> insertBatch(@NotNull Class<T> clazz, @NotNull List<T> objects) {
+        return run(() -> connection.insertBatch(clazz, objects));
+    }
+
+    @Override
+    public <T> @NotNull CompletableFuture<Void> upsertBatch(@NotNull Class<T> clazz, @NotNull List<T> objects) {
+        return run(() -> connection.upsertBatch(clazz, objects));
+    }
+
+    @Override
+    public <T> @NotNull CompletableFuture<Void> insertIfAbsentBatch(@NotNull Class<T> clazz, @NotNull List<T> objects) {
+        return run(() -> connection.insertIfAbsentBatch(clazz, objects));
+    }
+
+    @Override
+    public <T> @NotNull CompletableFuture<Map<Object, T>> selectByIds(@NotNull Class<T> clazz, @NotNull Collection<?> ids) {
+        return supply(() -> connection.selectByIds(clazz, ids));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Integer> deleteByIds(@NotNull Class<?> clazz, @NotNull Collection<?> ids) {
+        return supply(() -> connection.deleteByIds(clazz, ids));
+    }
+
+    @Override
+    public <T> @NotNull CompletableFuture<T> findById(@NotNull Class<T> clazz, @NotNull Object id) {
+        return supply(() -> connection.findById(clazz, id));
+    }
+
+    @Override
+    public <T> @NotNull CompletableFuture<List<T>> selectCached(@NotNull Class<T> clazz, @Nullable Condition condition, @NotNull Duration ttl) {
+        return supply(() -> connection.selectCached(clazz, condition, ttl));
+    }
+
+    @Override
+    public <R> @NotNull CompletableFuture<R> inTransaction(@NotNull TransactionWork<R> work) {
+        return supply(() -> connection.inTransaction(work));
+    }
+
+    @Override
+    public <T> @NotNull CompletableFuture<Void> updateBatch(@NotNull Class<T> clazz, @NotNull List<T> objects) {
+        return run(() -> connection.updateBatch(clazz, objects));
+    }
+
+    @Override
+    public <T> @NotNull CompletableFuture<Void> updateObject(@NotNull Class<T> clazz, @NotNull T object, @NotNull Condition condition) {
+        return run(() -> connection.updateObject(clazz, object, condition));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> deleteObject(@NotNull Class<?> clazz, @NotNull Condition condition) {
+        return run(() -> connection.deleteObject(clazz, condition));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Boolean> ping() {
+        return supply(connection::ping);
+    }
+
+    @Override
+    public @NotNull DatabaseType getType() {
+        return connection.getType();
+    }
+
+    @FunctionalInterface
+    private interface SQLSupplier<R> {
+        R get() throws SQLException;
+    }
+
+    @FunctionalInterface
+    private interface SQLRunnable {
+        void run() throws SQLException;
+    }
+}
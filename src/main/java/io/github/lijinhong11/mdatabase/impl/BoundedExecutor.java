@@ -0,0 +1,115 @@
+package io.github.lijinhong11.mdatabase.impl;
+
+import java.lang.reflect.Method;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executor that runs at most {@code maxConcurrency} tasks at once on a delegate and queues the rest.
+ * Submitting never blocks the caller, so it is safe to use from a server main thread.
+ * <p>
+ * On JDK 21+ the delegate is a virtual-thread-per-task executor; older runtimes fall back
+ * to a cached pool of daemon platform threads.
+ */
+final class BoundedExecutor implements Executor {
+    private static final AtomicInteger POOL_COUNTER = new AtomicInteger();
+
+    private final ExecutorService delegate;
+    private final int maxConcurrency;
+    private final Queue<Runnable> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger running = new AtomicInteger();
+    private volatile boolean closed;
+
+    BoundedExecutor(ExecutorService delegate, int maxConcurrency) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency must be at least 1");
+        }
+
+        this.delegate = delegate;
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    static BoundedExecutor create(int maxConcurrency) {
+        return new BoundedExecutor(createDelegate(), maxConcurrency);
+    }
+
+    private static ExecutorService createDelegate() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            int pool = POOL_COUNTER.incrementAndGet();
+            AtomicInteger threadCounter = new AtomicInteger();
+            ThreadFactory factory = runnable -> {
+                Thread thread = new Thread(runnable, "MDatabase-async-" + pool + "-" + threadCounter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            };
+            return Executors.newCachedThreadPool(factory);
+        }
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (closed) {
+            throw new RejectedExecutionException("executor has been shut down");
+        }
+
+        queue.add(task);
+        drain();
+    }
+
+    private void drain() {
+        while (true) {
+            int current = running.get();
+            if (current >= maxConcurrency || queue.isEmpty()) {
+                return;
+            }
+
+            if (!running.compareAndSet(current, current + 1)) {
+                continue;
+            }
+
+            Runnable task = queue.poll();
+            if (task == null) {
+                running.decrementAndGet();
+                continue;
+            }
+
+            try {
+                delegate.execute(() -> {
+                    try {
+                        task.run();
+                    } finally {
+                        running.decrementAndGet();
+                        drain();
+                        shutdownIfIdle();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                running.decrementAndGet();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Stop accepting tasks. Tasks already queued still run, after which the delegate is shut down.
+     */
+    void shutdown() {
+        closed = true;
+        shutdownIfIdle();
+    }
+
+    private void shutdownIfIdle() {
+        if (closed && running.get() == 0 && queue.isEmpty()) {
+            delegate.shutdown();
+        }
+    }
+}
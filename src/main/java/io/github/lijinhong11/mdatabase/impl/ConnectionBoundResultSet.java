@@ -0,0 +1,46 @@
+package io.github.lijinhong11.mdatabase.impl;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+
+/**
+ * Keeps a pooled connection checked out, or a session's connection reserved, until the result set read from it is closed.
+ */
+final class ConnectionBoundResultSet implements InvocationHandler {
+    private final ResultSet set;
+    private final AutoCloseable resource;
+
+    private ConnectionBoundResultSet(ResultSet set, AutoCloseable resource) {
+        this.set = set;
+        this.resource = resource;
+    }
+
+    /**
+     * @param resource closed right after the result set, such as the connection it was read from
+     */
+    static ResultSet wrap(ResultSet set, AutoCloseable resource) {
+        return (ResultSet) Proxy.newProxyInstance(ConnectionBoundResultSet.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class}, new ConnectionBoundResultSet(set, resource));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if (method.getName().equals("close") && method.getParameterCount() == 0) {
+            try {
+                set.close();
+            } finally {
+                resource.close();
+            }
+            return null;
+        }
+
+        try {
+            return method.invoke(set, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
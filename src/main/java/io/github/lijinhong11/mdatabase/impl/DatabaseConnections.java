@@ -1,5 +1,6 @@
 package io.github.lijinhong11.mdatabase.impl;
 
+import io.github.lijinhong11.mdatabase.AsyncDatabaseConnection;
 import io.github.lijinhong11.mdatabase.DatabaseConnection;
 import io.github.lijinhong11.mdatabase.DatabaseParameters;
 import io.github.lijinhong11.mdatabase.enums.DatabaseType;
@@ -7,6 +8,9 @@ import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
 
 /**
  * Static factory for creating {@link DatabaseConnection} instances.
@@ -117,4 +121,88 @@ public final class DatabaseConnections {
                                                 String password, DatabaseParameters parameters) {
         return new PostgreSQLConnection(host, port, database, username, password, parameters);
     }
+
+    /**
+     * Create a connection sending reads to replicas and everything else to a primary,
+     * configured by the {@link DatabaseParameters} of the primary.
+     * <pre>{@code
+     * var conn = DatabaseConnections.routing(
+     *         DatabaseConnections.sqlite("primary.db", primaryParams),
+     *         List.of(DatabaseConnections.sqlite("replica.db", replicaParams)));
+     * }</pre>
+     *
+     * @param primary  the connection to the primary database
+     * @param replicas the connections to its replicas, of the same {@link DatabaseType}
+     * @return a routing connection owning all the given connections
+     * @throws IllegalArgumentException if a connection was not created by this factory or has another type
+     */
+    public static RoutingDatabaseConnection routing(DatabaseConnection primary, List<? extends DatabaseConnection> replicas) {
+        if (!(primary instanceof AbstractDatabaseConnection primaryConnection)) {
+            throw new IllegalArgumentException("the primary was not created by this factory");
+        }
+
+        List<AbstractDatabaseConnection> replicaConnections = new ArrayList<>(replicas.size());
+        for (DatabaseConnection replica : replicas) {
+            if (!(replica instanceof AbstractDatabaseConnection replicaConnection)) {
+                throw new IllegalArgumentException("a replica was not created by this factory");
+            }
+            if (replica.getType() != primary.getType()) {
+                throw new IllegalArgumentException("a replica is " + replica.getType() + " but the primary is " + primary.getType());
+            }
+            replicaConnections.add(replicaConnection);
+        }
+        return new RoutingDatabaseConnection(primaryConnection, replicaConnections);
+    }
+
+    /**
+     * Create a non-blocking view of a connection created by this factory, or of a session opened from one.
+     * <p>
+     * All views of the same connection share one executor: virtual threads on JDK 21+,
+     * daemon platform threads otherwise, running at most
+     * {@link DatabaseParameters#getAsyncMaxConcurrency()} tasks at once (the pool size by default).
+     * The executor is shut down when the connection is closed.
+     *
+     * @param connection the connection to wrap
+     * @return an async view of the connection
+     * @throws IllegalArgumentException if the connection was not created by this factory
+     */
+    public static AsyncDatabaseConnection async(DatabaseConnection connection) {
+        AbstractDatabaseConnection owner;
+        if (connection instanceof AbstractDatabaseConnection abstractConnection) {
+            owner = abstractConnection;
+        } else if (connection instanceof SessionImpl session) {
+            owner = session.getOwner();
+        } else if (connection instanceof RoutingDatabaseConnection routing) {
+            owner = routing.getPrimary();
+        } else {
+            throw new IllegalArgumentException("the connection has no shared executor, use async(connection, executor) instead");
+        }
+
+        return new AsyncDatabaseConnectionImpl(connection, owner.getAsyncExecutor(), null);
+    }
+
+    /**
+     * Create a non-blocking view running on the given executor.
+     * The caller owns the executor and is responsible for shutting it down.
+     *
+     * @param connection the connection to wrap
+     * @param executor   the executor running the blocking database calls
+     * @return an async view of the connection
+     */
+    public static AsyncDatabaseConnection async(DatabaseConnection connection, Executor executor) {
+        return async(connection, executor, null);
+    }
+
+    /**
+     * Create a non-blocking view running on the given executor and completing its futures on
+     * {@code completionExecutor}, e.g. a main-thread scheduler.
+     *
+     * @param connection         the connection to wrap
+     * @param executor           the executor running the blocking database calls
+     * @param completionExecutor the executor completing the returned futures, or {@code null}
+     * @return an async view of the connection
+     */
+    public static AsyncDatabaseConnection async(DatabaseConnection connection, Executor executor, @Nullable Executor completionExecutor) {
+        return new AsyncDatabaseConnectionImpl(connection, executor, completionExecutor);
+    }
 }
@@ -0,0 +1,147 @@
+package io.github.lijinhong11.mdatabase.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Encodes the sort key of the last row of a page as an opaque, URL-safe continuation token.
+ * <p>
+ * Only plain JDBC values are written, with an explicit type tag each, so decoding a token
+ * handed back by a client never instantiates arbitrary classes. The token also carries a hash
+ * of the query shape, so a token cannot be replayed against a different table or sort order.
+ */
+final class KeysetToken {
+    private static final byte VERSION = 1;
+
+    private KeysetToken() {
+    }
+
+    static String encode(int shape, List<Object> values) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeInt(shape);
+            out.writeByte(values.size());
+            for (Object value : values) {
+                writeValue(out, value);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+    }
+
+    static List<Object> decode(int shape, String token) {
+        byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(token);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Malformed page token", e);
+        }
+
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            if (in.readByte() != VERSION || in.readInt() != shape) {
+                throw new IllegalArgumentException("The page token belongs to a different query");
+            }
+
+            int count = in.readUnsignedByte();
+            List<Object> values = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                values.add(readValue(in));
+            }
+            return values;
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Malformed page token", e);
+        }
+    }
+
+    private static void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte('N');
+        } else if (value instanceof String string) {
+            out.writeByte('S');
+            writeBytes(out, string.getBytes(StandardCharsets.UTF_8));
+        } else if (value instanceof Integer number) {
+            out.writeByte('I');
+            out.writeInt(number);
+        } else if (value instanceof Long number) {
+            out.writeByte('J');
+            out.writeLong(number);
+        } else if (value instanceof Short number) {
+            out.writeByte('H');
+            out.writeShort(number);
+        } else if (value instanceof Double number) {
+            out.writeByte('D');
+            out.writeDouble(number);
+        } else if (value instanceof Float number) {
+            out.writeByte('F');
+            out.writeFloat(number);
+        } else if (value instanceof Boolean bool) {
+            out.writeByte('Z');
+            out.writeBoolean(bool);
+        } else if (value instanceof BigDecimal decimal) {
+            out.writeByte('M');
+            writeBytes(out, decimal.toString().getBytes(StandardCharsets.UTF_8));
+        } else if (value instanceof Timestamp timestamp) {
+            out.writeByte('T');
+            out.writeLong(timestamp.getTime());
+            out.writeInt(timestamp.getNanos());
+        } else if (value instanceof Date date) {
+            out.writeByte('d');
+            out.writeLong(date.getTime());
+        } else if (value instanceof byte[] array) {
+            out.writeByte('B');
+            writeBytes(out, array);
+        } else {
+            throw new IllegalArgumentException("Cannot page by a column of type " + value.getClass().getName());
+        }
+    }
+
+    private static Object readValue(DataInputStream in) throws IOException {
+        byte tag = in.readByte();
+        return switch (tag) {
+            case 'N' -> null;
+            case 'S' -> new String(readBytes(in), StandardCharsets.UTF_8);
+            case 'I' -> in.readInt();
+            case 'J' -> in.readLong();
+            case 'H' -> in.readShort();
+            case 'D' -> in.readDouble();
+            case 'F' -> in.readFloat();
+            case 'Z' -> in.readBoolean();
+            case 'M' -> new BigDecimal(new String(readBytes(in), StandardCharsets.UTF_8));
+            case 'T' -> {
+                Timestamp timestamp = new Timestamp(in.readLong());
+                timestamp.setNanos(in.readInt());
+                yield timestamp;
+            }
+            case 'd' -> new Date(in.readLong());
+            case 'B' -> readBytes(in);
+            default -> throw new IOException("Unknown value tag " + tag);
+        };
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > in.available()) {
+            throw new IOException("Invalid length " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+}
@@ -7,7 +7,11 @@ import io.github.lijinhong11.mdatabase.enums.DatabaseType;
 import org.jetbrains.annotations.NotNull;
 
 import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Database connection backed by the MariaDB Connector/J driver.
@@ -23,6 +27,7 @@ class MariaDBConnection extends AbstractDatabaseConnection {
 
     MariaDBConnection(DatabaseType type, String host, int port, String database, String username, String password,
                       DatabaseParameters parameters) {
+        super(parameters);
         String urlFormat = type == DatabaseType.MYSQL ? MYSQL_URL_FORMAT : MARIADB_URL_FORMAT;
         this.databaseType = type;
 
@@ -40,13 +45,69 @@ class MariaDBConnection extends AbstractDatabaseConnection {
         return dataSource.getConnection();
     }
 
+    /**
+     * MySQL has no {@code RETURNING}, and the driver reports only the first key of a multi-row insert,
+     * so MySQL inserts of {@code @AutoIncrement} entities go row by row.
+     */
+    @Override
+    boolean supportsReturning(Connection connection) throws SQLException {
+        return getType() == DatabaseType.MARIADB && isVersionAtLeast(connection, 10, 5);
+    }
+
+    /**
+     * 1213 is a deadlock, 1205 a lock wait timeout; both roll back the statement or transaction.
+     */
+    @Override
+    boolean isRetryableError(SQLException e) {
+        return super.isRetryableError(e) || e.getErrorCode() == 1213 || e.getErrorCode() == 1205;
+    }
+
+    /**
+     * 1227 is a missing global privilege like REPLICATION CLIENT, 1044 and 1142 a denied database or table.
+     */
+    @Override
+    boolean isAccessDenied(SQLException e) {
+        return super.isAccessDenied(e) || e.getErrorCode() == 1227 || e.getErrorCode() == 1044 || e.getErrorCode() == 1142;
+    }
+
+    /**
+     * MySQL 8.1 and MariaDB 10.5 renamed {@code SHOW SLAVE STATUS}; MySQL 8.4 dropped the old name.
+     */
+    @Override
+    long getReplicationLag(Connection connection) throws SQLException {
+        boolean renamed = getType() == DatabaseType.MARIADB ? isVersionAtLeast(connection, 10, 5) : isVersionAtLeast(connection, 8, 1);
+        return secondsBehind(connection, renamed ? "SHOW REPLICA STATUS" : "SHOW SLAVE STATUS");
+    }
+
+    /**
+     * Read the replication delay reported by a MySQL-family status statement.
+     * No row means the server is not a replica; a {@code NULL} delay means replication is stopped.
+     */
+    private static long secondsBehind(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement(); ResultSet rs = statement.executeQuery(sql)) {
+            if (!rs.next()) {
+                return 0L;
+            }
+
+            ResultSetMetaData metaData = rs.getMetaData();
+            for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                String label = metaData.getColumnLabel(i);
+                if (label.equalsIgnoreCase("Seconds_Behind_Source") || label.equalsIgnoreCase("Seconds_Behind_Master")) {
+                    long seconds = rs.getLong(i);
+                    return rs.wasNull() ? Long.MAX_VALUE : TimeUnit.SECONDS.toMillis(seconds);
+                }
+            }
+            return 0L;
+        }
+    }
+
     @Override
     public @NotNull DatabaseType getType() {
         return databaseType;
     }
 
     @Override
-    public void close() {
+    void closeDataSource() {
         dataSource.close();
     }
 }
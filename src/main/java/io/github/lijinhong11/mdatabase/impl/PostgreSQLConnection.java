@@ -7,7 +7,9 @@ import io.github.lijinhong11.mdatabase.enums.DatabaseType;
 import org.jetbrains.annotations.NotNull;
 
 import java.sql.Connection;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 
 public class PostgreSQLConnection extends AbstractDatabaseConnection {
     private static final String JDBC_URL_FORMAT = "jdbc:postgresql://%s:%d/%s?useSSL=false&serverTimezone=UTC";
@@ -16,6 +18,7 @@ public class PostgreSQLConnection extends AbstractDatabaseConnection {
     private final HikariDataSource dataSource;
 
     public PostgreSQLConnection(String host, int port, String database, String username, String password, DatabaseParameters parameters) {
+        super(parameters);
         HikariConfig cfg = new HikariConfig();
         cfg.setJdbcUrl(JDBC_URL_FORMAT.formatted(host, port, database));
         cfg.setDriverClassName(JDBC_DRIVER_CLASS_NAME);
@@ -30,13 +33,40 @@ public class PostgreSQLConnection extends AbstractDatabaseConnection {
         return dataSource.getConnection();
     }
 
+    @Override
+    boolean supportsReturning(Connection connection) {
+        return true;
+    }
+
+    /**
+     * {@code 40P01} is a detected deadlock, next to the serialization failure {@code 40001}.
+     */
+    @Override
+    boolean isRetryableError(SQLException e) {
+        return super.isRetryableError(e) || "40P01".equals(e.getSQLState());
+    }
+
+    /**
+     * A standby that has replayed everything it received is idle rather than behind,
+     * however old its last replayed transaction is.
+     */
+    @Override
+    long getReplicationLag(Connection connection) throws SQLException {
+        String sql = "SELECT CASE WHEN NOT pg_is_in_recovery() THEN 0"
+                + " WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0"
+                + " ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0) END";
+        try (Statement statement = connection.createStatement(); ResultSet rs = statement.executeQuery(sql)) {
+            return rs.next() ? (long) rs.getDouble(1) : 0L;
+        }
+    }
+
     @Override
     public @NotNull DatabaseType getType() {
         return DatabaseType.POSTGRESQL;
     }
 
     @Override
-    public void close() {
+    void closeDataSource() {
         dataSource.close();
     }
 }
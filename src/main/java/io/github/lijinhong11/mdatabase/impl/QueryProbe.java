@@ -0,0 +1,171 @@
+package io.github.lijinhong11.mdatabase.impl;
+
+import io.github.lijinhong11.mdatabase.enums.DatabaseType;
+import io.github.lijinhong11.mdatabase.enums.OperationType;
+import io.github.lijinhong11.mdatabase.metrics.QueryEvent;
+import io.github.lijinhong11.mdatabase.metrics.QueryListener;
+import io.github.lijinhong11.mdatabase.sql.BoundQuery;
+import io.github.lijinhong11.mdatabase.sql.CompiledQuery;
+import io.github.lijinhong11.mdatabase.sql.sentence.SQL;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Times one database call in three phases (waiting for a connection, running statements, reading rows)
+ * and reports it to the query listeners. Each mark ends a phase: time up to {@link #acquired()} counts as
+ * waiting, up to {@link #hydrated()} as reading and everything else, including returning the connection,
+ * as running. Calls that run several statements add up the time of each phase. Without listeners the shared {@link #DISABLED} probe is used,
+ * which does nothing, so unobserved calls do not even read the clock.
+ * <pre>{@code
+ * return probed(OperationType.SELECT, table, clazz, probe -> {
+ *     Connection connection = getConnection();
+ *     probe.acquired();
+ *     ... run the statement, then probe.sql(sql) and probe.executed() ...
+ *     ... read the rows, then probe.rows(result.size()) and probe.hydrated() ...
+ *     return result;
+ * });
+ * }</pre>
+ * {@code probed} ends the probe with the outcome of the call, whatever it throws.
+ */
+final class QueryProbe {
+    private static final Logger LOGGER = Logger.getLogger("MDatabase");
+
+    static final QueryProbe DISABLED = new QueryProbe(null, null, OperationType.OTHER, null, null);
+
+    private final @Nullable List<QueryListener> listeners;
+    private final @Nullable DatabaseType type;
+    private final OperationType operation;
+    private final @Nullable String table;
+    private final @Nullable Class<?> entityType;
+    private long mark;
+    private long acquireNanos;
+    private long executeNanos;
+    private long hydrateNanos;
+    private long rows = -1L;
+    private @Nullable Object sql;
+
+    private QueryProbe(@Nullable List<QueryListener> listeners, @Nullable DatabaseType type, OperationType operation,
+                       @Nullable String table, @Nullable Class<?> entityType) {
+        this.listeners = listeners;
+        this.type = type;
+        this.operation = operation;
+        this.table = table;
+        this.entityType = entityType;
+        this.mark = listeners != null ? System.nanoTime() : 0L;
+    }
+
+    static QueryProbe start(List<QueryListener> listeners, DatabaseType type, OperationType operation,
+                            @Nullable String table, @Nullable Class<?> entityType) {
+        return listeners.isEmpty() ? DISABLED : new QueryProbe(listeners, type, operation, table, entityType);
+    }
+
+    /**
+     * @param sql the SQL text, the {@link SQL} builder or the {@link BoundQuery} that ran,
+     *            rendered only if a listener asks for it; of several statements the first one is kept
+     */
+    void sql(Object sql) {
+        if (listeners != null && this.sql == null) {
+            this.sql = sql;
+        }
+    }
+
+    void acquired() {
+        if (listeners != null) {
+            long now = System.nanoTime();
+            acquireNanos += now - mark;
+            mark = now;
+        }
+    }
+
+    void executed() {
+        if (listeners != null) {
+            long now = System.nanoTime();
+            executeNanos += now - mark;
+            mark = now;
+        }
+    }
+
+    void hydrated() {
+        if (listeners != null) {
+            long now = System.nanoTime();
+            hydrateNanos += now - mark;
+            mark = now;
+        }
+    }
+
+    /**
+     * Add to the rows returned or affected; negative counts, which drivers use for "unknown", are ignored.
+     */
+    void rows(long count) {
+        if (listeners != null && count >= 0L) {
+            rows = Math.max(rows, 0L) + count;
+        }
+    }
+
+    void end(@Nullable Throwable error) {
+        if (listeners == null) {
+            return;
+        }
+
+        long execute = executeNanos + System.nanoTime() - mark;
+        Source source = new Source(sql, type);
+        QueryEvent event = new QueryEvent(operation, table, entityType, source::sql, source::parameters, rows,
+                acquireNanos, execute, hydrateNanos, error);
+        for (QueryListener listener : listeners) {
+            try {
+                listener.onQuery(event);
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Query listener " + listener + " failed", e);
+            }
+        }
+    }
+
+    /**
+     * Renders the SQL text and bound values of the statement that ran, at most once and only when asked for.
+     */
+    private static final class Source {
+        private final @Nullable Object statement;
+        private final @Nullable DatabaseType type;
+        private @Nullable CompiledQuery compiled;
+
+        Source(@Nullable Object statement, @Nullable DatabaseType type) {
+            this.statement = statement;
+            this.type = type;
+        }
+
+        String sql() {
+            if (statement instanceof SQL) {
+                return compiled().getSql();
+            }
+            if (statement instanceof BoundQuery bound) {
+                return bound.getQuery().getSql();
+            }
+            return String.valueOf(statement);
+        }
+
+        @Nullable List<Object> parameters() {
+            if (statement instanceof BoundQuery bound) {
+                return bound.getParameters();
+            }
+            if (statement instanceof SQL) {
+                try {
+                    return compiled().bind().getParameters();
+                } catch (IllegalArgumentException e) {
+                    // built with Params, which only a BoundQuery supplies values for
+                    return null;
+                }
+            }
+            return null;
+        }
+
+        private CompiledQuery compiled() {
+            if (compiled == null) {
+                compiled = ((SQL) statement).compile(type);
+            }
+            return compiled;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package io.github.lijinhong11.mdatabase.impl;
+
+import io.github.lijinhong11.mdatabase.Cursor;
+import io.github.lijinhong11.mdatabase.exceptions.DatabaseAccessException;
+import io.github.lijinhong11.mdatabase.exceptions.InstantiationFailedException;
+import io.github.lijinhong11.mdatabase.exceptions.SerializationException;
+import io.github.lijinhong11.mdatabase.serialization.ObjectSerializer;
+import io.github.lijinhong11.mdatabase.serialization.RowMapper;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.NoSuchElementException;
+
+final class ResultSetCursor<T> implements Cursor<T> {
+    private final Class<T> clazz;
+    private final Connection connection;
+    private final boolean ownsConnection;
+    private final boolean restoreAutoCommit;
+    private final PreparedStatement stmt;
+    private final ResultSet set;
+    private final RowMapper<T> mapper;
+    private boolean advanced;
+    private boolean hasRow;
+    private boolean closed;
+
+    /**
+     * @param ownsConnection    whether closing the cursor closes the connection, i.e. it is not a transaction's
+     * @param restoreAutoCommit whether auto-commit was switched off for a server-side cursor
+     */
+    ResultSetCursor(Class<T> clazz, Connection connection, boolean ownsConnection, boolean restoreAutoCommit,
+                    PreparedStatement stmt, ResultSet set) throws SQLException {
+        this.clazz = clazz;
+        this.connection = connection;
+        this.ownsConnection = ownsConnection;
+        this.restoreAutoCommit = restoreAutoCommit;
+        this.stmt = stmt;
+        this.set = set;
+        this.mapper = ObjectSerializer.getRowMapper(clazz, set);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (closed) {
+            return false;
+        }
+
+        if (!advanced) {
+            try {
+                hasRow = set.next();
+            } catch (SQLException e) {
+                throw new DatabaseAccessException("Failed to read the next row", e);
+            }
+            advanced = true;
+        }
+        return hasRow;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        advanced = false;
+        try {
+            return mapper.map(set);
+        } catch (SQLException e) {
+            throw new DatabaseAccessException("Failed to read the current row", e);
+        } catch (SerializationException e) {
+            throw new InstantiationFailedException(clazz, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        try {
+            try {
+                set.close();
+            } finally {
+                try {
+                    stmt.close();
+                } finally {
+                    try {
+                        if (restoreAutoCommit) {
+                            connection.setAutoCommit(true);
+                        }
+                    } finally {
+                        if (ownsConnection) {
+                            connection.close();
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new DatabaseAccessException("Failed to close the cursor", e);
+        }
+    }
+}
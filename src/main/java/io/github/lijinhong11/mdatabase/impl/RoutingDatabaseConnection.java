@@ -0,0 +1,571 @@
+package io.github.lijinhong11.mdatabase.impl;
+
+import io.github.lijinhong11.mdatabase.Cursor;
+import io.github.lijinhong11.mdatabase.DatabaseConnection;
+import io.github.lijinhong11.mdatabase.DatabaseParameters;
+import io.github.lijinhong11.mdatabase.Page;
+import io.github.lijinhong11.mdatabase.Session;
+import io.github.lijinhong11.mdatabase.Transaction;
+import io.github.lijinhong11.mdatabase.TransactionWork;
+import io.github.lijinhong11.mdatabase.cache.CacheStats;
+import io.github.lijinhong11.mdatabase.enums.DatabaseType;
+import io.github.lijinhong11.mdatabase.enums.IsolationLevel;
+import io.github.lijinhong11.mdatabase.enums.OrderType;
+import io.github.lijinhong11.mdatabase.metrics.QueryListener;
+import io.github.lijinhong11.mdatabase.serialization.EntityMetadata;
+import io.github.lijinhong11.mdatabase.sql.BoundQuery;
+import io.github.lijinhong11.mdatabase.sql.StatementCacheStats;
+import io.github.lijinhong11.mdatabase.sql.conditions.Condition;
+import io.github.lijinhong11.mdatabase.sql.sentence.SQL;
+import io.github.lijinhong11.mdatabase.sql.sentence.SelectSQL;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Splits reads and writes over a primary database and its replicas.
+ * <p>
+ * Plain reads ({@code selectOne}, {@code selectMulti}, {@code query}, cursors, streams, pages and
+ * {@code selectByIds}) go round-robin to the healthy replicas. Everything else goes to the primary:
+ * DML, DDL, raw {@link BoundQuery} execution, {@code FOR UPDATE} queries, transactions and sessions, and the
+ * cached lookups {@code findById}/{@code selectCached}, whose caches are invalidated by the primary's writes.
+ * Reads made while the calling thread has a transaction open on the primary stay on the primary.
+ * <p>
+ * After a table is written, reads of it go to the primary for
+ * {@link DatabaseParameters#getReadAfterWriteWindow()}, so that recent writes are visible before the replicas
+ * catch up. Reads whose tables are not known, like {@link BoundQuery} selects, stay on the primary after any write.
+ * <p>
+ * Every {@link DatabaseParameters#getReplicaCheckInterval()} each replica is pinged and asked for its
+ * replication lag; replicas that fail, or lag more than {@link DatabaseParameters#getReplicaMaxLag()},
+ * get no reads until a later check passes. If the user may not read the lag, the replica is judged by its ping alone. A replica whose connection fails during a read is taken out at once
+ * and the read is repeated on the primary. With no usable replica all reads go to the primary.
+ * <pre>{@code
+ * RoutingDatabaseConnection conn = DatabaseConnections.routing(
+ *         DatabaseConnections.mariadb("primary", 3306, "game", user, password, primaryParams),
+ *         List.of(DatabaseConnections.mariadb("replica1", 3306, "game", user, password, replicaParams)));
+ * }</pre>
+ * The parameters of the primary configure the routing; closing the routing connection closes every database.
+ */
+public final class RoutingDatabaseConnection implements DatabaseConnection {
+    private static final Logger LOGGER = Logger.getLogger("MDatabase");
+
+    private final AbstractDatabaseConnection primary;
+    private final Replica[] replicas;
+    private final long windowNanos;
+    private final long maxLag;
+    private final AtomicInteger next = new AtomicInteger();
+    private final Map<String, Long> tableDeadlines = new ConcurrentHashMap<>();
+    private volatile long anyWriteDeadline;
+    private volatile long unknownWriteDeadline;
+    private final LongAdder primaryReads = new LongAdder();
+    private final @Nullable ScheduledExecutorService checker;
+
+    RoutingDatabaseConnection(AbstractDatabaseConnection primary, List<AbstractDatabaseConnection> replicas) {
+        DatabaseParameters parameters = primary.getParameters();
+        this.primary = primary;
+        this.replicas = new Replica[replicas.size()];
+        for (int i = 0; i < this.replicas.length; i++) {
+            this.replicas[i] = new Replica(i, replicas.get(i));
+        }
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0L, parameters.getReadAfterWriteWindow()));
+        this.maxLag = parameters.getReplicaMaxLag();
+
+        long now = System.nanoTime();
+        this.anyWriteDeadline = now;
+        this.unknownWriteDeadline = now;
+        primary.setWriteObserver(this::written);
+
+        long interval = parameters.getReplicaCheckInterval();
+        if (this.replicas.length > 0 && interval > 0L) {
+            checker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "MDatabase-replica-check");
+                thread.setDaemon(true);
+                return thread;
+            });
+            checker.scheduleWithFixedDelay(this::checkReplicas, 0L, interval, TimeUnit.MILLISECONDS);
+        } else {
+            checker = null;
+        }
+    }
+
+    AbstractDatabaseConnection getPrimary() {
+        return primary;
+    }
+
+    private void written(@Nullable String table) {
+        if (windowNanos == 0L) {
+            return;
+        }
+
+        long deadline = System.nanoTime() + windowNanos;
+        anyWriteDeadline = deadline;
+        if (table == null) {
+            unknownWriteDeadline = deadline;
+        } else {
+            tableDeadlines.put(table.toLowerCase(Locale.ROOT), deadline);
+        }
+    }
+
+    /**
+     * Whether reads of the given tables must see recent writes, {@code null} meaning the tables are unknown.
+     */
+    private boolean recentlyWritten(@Nullable Collection<String> tables) {
+        if (windowNanos == 0L) {
+            return false;
+        }
+
+        long now = System.nanoTime();
+        if (tables == null) {
+            return anyWriteDeadline - now > 0L;
+        }
+        if (unknownWriteDeadline - now > 0L) {
+            return true;
+        }
+        for (String table : tables) {
+            Long deadline = tableDeadlines.get(table.toLowerCase(Locale.ROOT));
+            if (deadline != null && deadline - now > 0L) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private @Nullable Replica pickReplica(@Nullable Collection<String> tables) {
+        if (replicas.length == 0 || primary.isInTransaction() || recentlyWritten(tables)) {
+            return null;
+        }
+
+        int start = Math.floorMod(next.getAndIncrement(), replicas.length);
+        for (int i = 0; i < replicas.length; i++) {
+            Replica replica = replicas[(start + i) % replicas.length];
+            if (replica.healthy) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    private <R> R read(@Nullable Collection<String> tables, ReadAction<R> action) throws SQLException {
+        Replica replica = pickReplica(tables);
+        if (replica != null) {
+            try {
+                R result = action.apply(replica.connection);
+                replica.reads.increment();
+                return result;
+            } catch (SQLException e) {
+                if (!isConnectionFailure(e)) {
+                    throw e;
+                }
+                replica.markDown(e);
+            }
+        }
+
+        primaryReads.increment();
+        return action.apply(primary);
+    }
+
+    private <R> R read(Class<?> clazz, ReadAction<R> action) throws SQLException {
+        return read(List.of(EntityMetadata.of(clazz).getTableName()), action);
+    }
+
+    private static boolean isConnectionFailure(SQLException e) {
+        String state = e.getSQLState();
+        return e instanceof SQLTransientConnectionException || e instanceof SQLNonTransientConnectionException
+                || (state != null && state.startsWith("08"));
+    }
+
+    /**
+     * Ping every replica and read its replication lag now, instead of waiting for the next periodic check.
+     */
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            try {
+                long lag = readLag(replica);
+                replica.lag = lag;
+                boolean lagging = lag > maxLag;
+                boolean healthy = replica.connection.ping() && !lagging;
+                if (replica.healthy != healthy) {
+                    LOGGER.info("Replica " + replica.name + (healthy ? " is back in service"
+                            : lagging ? " lags " + lag + " ms behind, taking it out of service" : " failed its ping, taking it out of service"));
+                }
+                replica.healthy = healthy;
+            } catch (SQLException | RuntimeException e) {
+                replica.markDown(e);
+            }
+        }
+    }
+
+    /**
+     * The replica's lag, or {@code -1} if the user lacks the privilege to read it.
+     */
+    private static long readLag(Replica replica) throws SQLException {
+        try {
+            long lag = replica.connection.getReplicationLag();
+            replica.lagDenied = false;
+            return lag;
+        } catch (SQLException e) {
+            if (!replica.connection.isAccessDenied(e)) {
+                throw e;
+            }
+            if (!replica.lagDenied) {
+                replica.lagDenied = true;
+                LOGGER.log(Level.WARNING, "Replica " + replica.name + " does not let this user read its replication lag;"
+                        + " it is checked by ping alone", e);
+            }
+            return -1L;
+        }
+    }
+
+    /**
+     * @return the number of replicas, usable or not
+     */
+    public int getReplicaCount() {
+        return replicas.length;
+    }
+
+    /**
+     * @param index the replica index, in the order given to {@link DatabaseConnections#routing(DatabaseConnection, List)}
+     * @return whether the replica passed its last check and gets reads
+     */
+    public boolean isReplicaHealthy(int index) {
+        return replicas[index].healthy;
+    }
+
+    /**
+     * @param index the replica index
+     * @return the replication lag in milliseconds seen by the last check,
+     * or {@code -1} if it was never read or the user may not read it
+     */
+    public long getReplicaLag(int index) {
+        return replicas[index].lag;
+    }
+
+    /**
+     * @param index the replica index
+     * @return the number of reads the replica served
+     */
+    public long getReplicaReadCount(int index) {
+        return replicas[index].reads.sum();
+    }
+
+    /**
+     * @return the number of reads that went to the primary, because of stickiness or a lack of usable replicas
+     */
+    public long getPrimaryReadCount() {
+        return primaryReads.sum();
+    }
+
+    @Override
+    public void close() throws SQLException {
+        if (checker != null) {
+            checker.shutdownNow();
+        }
+        primary.setWriteObserver(null);
+        primary.close();
+        for (Replica replica : replicas) {
+            replica.connection.close();
+        }
+    }
+
+    @Override
+    public boolean execute(@NotNull SQL sql) throws SQLException {
+        return primary.execute(sql);
+    }
+
+    @Override
+    public void workspace(@NotNull SQL @NotNull ... sqls) throws SQLException {
+        primary.workspace(sqls);
+    }
+
+    @Override
+    public @NotNull ResultSet query(@NotNull SelectSQL sql) throws SQLException {
+        if (sql.isForUpdate()) {
+            return primary.query(sql);
+        }
+        return read(sql.getTables(), connection -> connection.query(sql));
+    }
+
+    @Override
+    public <T> @NotNull T selectOne(@NotNull Class<T> clazz, @NotNull Condition condition) throws SQLException {
+        return read(clazz, connection -> connection.selectOne(clazz, condition));
+    }
+
+    @Override
+    public <T> @NotNull T selectOne(@NotNull String table, @NotNull Class<T> clazz, @NotNull Condition condition) throws SQLException {
+        return read(List.of(table), connection -> connection.selectOne(table, clazz, condition));
+    }
+
+    @Override
+    public <T> @NotNull List<T> selectMulti(@NotNull Class<T> clazz) throws SQLException {
+        return read(clazz, connection -> connection.selectMulti(clazz));
+    }
+
+    @Override
+    public <T> @NotNull List<T> selectMulti(@NotNull String table, @NotNull Class<T> clazz) throws SQLException {
+        return read(List.of(table), connection -> connection.selectMulti(table, clazz));
+    }
+
+    @Override
+    public <T> @NotNull List<T> selectMulti(@NotNull Class<T> clazz, @Nullable Condition condition) throws SQLException {
+        return read(clazz, connection -> connection.selectMulti(clazz, condition));
+    }
+
+    @Override
+    public <T> @NotNull List<T> selectMulti(@NotNull String table, @NotNull Class<T> clazz, @Nullable Condition condition) throws SQLException {
+        return read(List.of(table), connection -> connection.selectMulti(table, clazz, condition));
+    }
+
+    @Override
+    public <T> @NotNull Cursor<T> selectCursor(@NotNull Class<T> clazz, @Nullable Condition condition) throws SQLException {
+        return read(clazz, connection -> connection.selectCursor(clazz, condition));
+    }
+
+    @Override
+    public <T> @NotNull Cursor<T> selectCursor(@NotNull Class<T> clazz, @Nullable Condition condition, int fetchSize) throws SQLException {
+        return read(clazz, connection -> connection.selectCursor(clazz, condition, fetchSize));
+    }
+
+    @Override
+    public <T> @NotNull Stream<T> selectStream(@NotNull Class<T> clazz, @Nullable Condition condition) throws SQLException {
+        return read(clazz, connection -> connection.selectStream(clazz, condition));
+    }
+
+    @Override
+    public <T> @NotNull Stream<T> selectStream(@NotNull Class<T> clazz, @Nullable Condition condition, int fetchSize) throws SQLException {
+        return read(clazz, connection -> connection.selectStream(clazz, condition, fetchSize));
+    }
+
+    @Override
+    public <T> @NotNull Page<T> page(@NotNull Class<T> clazz, @Nullable Condition condition, @NotNull List<String> orderBy,
+                                     int pageSize, @Nullable String token) throws SQLException {
+        return read(clazz, connection -> connection.page(clazz, condition, orderBy, pageSize, token));
+    }
+
+    @Override
+    public <T> @NotNull Page<T> page(@NotNull Class<T> clazz, @Nullable Condition condition, @NotNull List<String> orderBy,
+                                     @NotNull OrderType order, int pageSize, @Nullable String token) throws SQLException {
+        return read(clazz, connection -> connection.page(clazz, condition, orderBy, order, pageSize, token));
+    }
+
+    @Override
+    public boolean execute(@NotNull BoundQuery query) throws SQLException {
+        return primary.execute(query);
+    }
+
+    @Override
+    public <T> @NotNull T selectOne(@NotNull Class<T> clazz, @NotNull BoundQuery query) throws SQLException {
+        return read((Collection<String>) null, connection -> connection.selectOne(clazz, query));
+    }
+
+    @Override
+    public <T> @NotNull List<T> selectMulti(@NotNull Class<T> clazz, @NotNull BoundQuery query) throws SQLException {
+        return read((Collection<String>) null, connection -> connection.selectMulti(clazz, query));
+    }
+
+    @Override
+    public void createTableByClass(@NotNull Class<?> clazz) throws SQLException {
+        primary.createTableByClass(clazz);
+    }
+
+    @Override
+    public void autoMigrate(@NotNull Class<?> clazz) throws SQLException {
+        primary.autoMigrate(clazz);
+    }
+
+    @Override
+    public <T> void insertObject(@NotNull Class<T> clazz, @NotNull T object, boolean upsert) throws SQLException {
+        primary.insertObject(clazz, object, upsert);
+    }
+
+    @Override
+    public <T> void insertBatch(@NotNull Class<T> clazz, @NotNull List<T> objects) throws SQLException {
+        primary.insertBatch(clazz, objects);
+    }
+
+    @Override
+    public <T> void upsertBatch(@NotNull Class<T> clazz, @NotNull List<T> objects) throws SQLException {
+        primary.upsertBatch(clazz, objects);
+    }
+
+    @Override
+    public <T> void insertIfAbsentBatch(@NotNull Class<T> clazz, @NotNull List<T> objects) throws SQLException {
+        primary.insertIfAbsentBatch(clazz, objects);
+    }
+
+    @Override
+    public <T> @NotNull Map<Object, T> selectByIds(@NotNull Class<T> clazz, @NotNull Collection<?> ids) throws SQLException {
+        return read(clazz, connection -> connection.selectByIds(clazz, ids));
+    }
+
+    @Override
+    public int deleteByIds(@NotNull Class<?> clazz, @NotNull Collection<?> ids) throws SQLException {
+        return primary.deleteByIds(clazz, ids);
+    }
+
+    @Override
+    public <T> @Nullable T findById(@NotNull Class<T> clazz, @NotNull Object id) throws SQLException {
+        return primary.findById(clazz, id);
+    }
+
+    @Override
+    public <T> @NotNull List<T> selectCached(@NotNull Class<T> clazz, @Nullable Condition condition, @NotNull Duration ttl) throws SQLException {
+        return primary.selectCached(clazz, condition, ttl);
+    }
+
+    @Override
+    public <T> void updateBatch(@NotNull Class<T> clazz, @NotNull List<T> objects) throws SQLException {
+        primary.updateBatch(clazz, objects);
+    }
+
+    @Override
+    public <T> void updateObject(@NotNull Class<T> clazz, @NotNull T object, @NotNull Condition condition) throws SQLException {
+        primary.updateObject(clazz, object, condition);
+    }
+
+    @Override
+    public void deleteObject(@NotNull Class<?> clazz, @NotNull Condition condition) throws SQLException {
+        primary.deleteObject(clazz, condition);
+    }
+
+    @Override
+    public boolean ping() throws SQLException {
+        return primary.ping();
+    }
+
+    @Override
+    public @NotNull DatabaseType getType() {
+        return primary.getType();
+    }
+
+    @Override
+    public @NotNull StatementCacheStats getStatementCacheStats() {
+        return primary.getStatementCacheStats();
+    }
+
+    @Override
+    public @Nullable CacheStats getEntityCacheStats(@NotNull Class<?> clazz) {
+        return primary.getEntityCacheStats(clazz);
+    }
+
+    @Override
+    public @Nullable CacheStats getQueryCacheStats() {
+        return primary.getQueryCacheStats();
+    }
+
+    @Override
+    public void invalidateCache(@NotNull Class<?> clazz) {
+        primary.invalidateCache(clazz);
+    }
+
+    @Override
+    public void setDebug(boolean debug) {
+        primary.setDebug(debug);
+        for (Replica replica : replicas) {
+            replica.connection.setDebug(debug);
+        }
+    }
+
+    @Override
+    public Transaction beginTransaction() throws SQLException {
+        return primary.beginTransaction();
+    }
+
+    @Override
+    public void commit() throws SQLException {
+        primary.commit();
+    }
+
+    @Override
+    public void rollback() throws SQLException {
+        primary.rollback();
+    }
+
+    @Override
+    public @NotNull Session openSession() throws SQLException {
+        return primary.openSession();
+    }
+
+    @Override
+    public @NotNull Session openSession(@Nullable IsolationLevel isolation, boolean readOnly) throws SQLException {
+        return primary.openSession(isolation, readOnly);
+    }
+
+    @Override
+    public <R> R inTransaction(@NotNull TransactionWork<R> work) throws SQLException {
+        return primary.inTransaction(work);
+    }
+
+    @Override
+    public <R> R inTransaction(@Nullable IsolationLevel isolation, @NotNull TransactionWork<R> work) throws SQLException {
+        return primary.inTransaction(isolation, work);
+    }
+
+    @Override
+    public @NotNull TransactionStats getTransactionStats() {
+        return primary.getTransactionStats();
+    }
+
+    /**
+     * The listener is added to the primary and to every replica, so it sees all calls wherever they run.
+     */
+    @Override
+    public void addQueryListener(@NotNull QueryListener listener) {
+        primary.addQueryListener(listener);
+        for (Replica replica : replicas) {
+            replica.connection.addQueryListener(listener);
+        }
+    }
+
+    @Override
+    public void removeQueryListener(@NotNull QueryListener listener) {
+        primary.removeQueryListener(listener);
+        for (Replica replica : replicas) {
+            replica.connection.removeQueryListener(listener);
+        }
+    }
+
+    @FunctionalInterface
+    private interface ReadAction<R> {
+        R apply(DatabaseConnection connection) throws SQLException;
+    }
+
+    private static final class Replica {
+        final String name;
+        final AbstractDatabaseConnection connection;
+        final LongAdder reads = new LongAdder();
+        volatile boolean healthy = true;
+        volatile long lag = -1L;
+        volatile boolean lagDenied;
+
+        Replica(int index, AbstractDatabaseConnection connection) {
+            String poolName = connection.getParameters().getPoolName();
+            this.name = poolName != null && !poolName.isBlank() ? poolName : "#" + index;
+            this.connection = connection;
+        }
+
+        void markDown(Exception e) {
+            if (healthy) {
+                LOGGER.log(Level.WARNING, "Replica " + name + " failed, taking it out of service", e);
+            }
+            healthy = false;
+        }
+    }
+}
@@ -5,26 +5,110 @@ import com.zaxxer.hikari.HikariDataSource;
 import io.github.lijinhong11.mdatabase.DatabaseParameters;
 import io.github.lijinhong11.mdatabase.enums.DatabaseType;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import javax.sql.DataSource;
+import java.io.PrintWriter;
 import java.sql.Connection;
+import java.sql.Driver;
 import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.logging.Logger;
 
 class SQLiteConnection extends AbstractDatabaseConnection {
     private static final String JDBC_URL_FORMAT = "jdbc:sqlite:%s";
     private static final String JDBC_DRIVER_CLASS_NAME = "org.sqlite.JDBC";
+    private static final Set<String> SYNCHRONOUS_MODES = Set.of("OFF", "NORMAL", "FULL", "EXTRA");
+    private static final Set<String> TEMP_STORES = Set.of("DEFAULT", "FILE", "MEMORY");
 
     private final HikariDataSource dataSource;
+    private final @Nullable HikariDataSource readerDataSource;
+    private final Set<Connection> readerConnections = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
 
     public SQLiteConnection(String absolutePath, DatabaseParameters parameters) {
+        super(parameters);
         if (absolutePath == null || absolutePath.isBlank()) {
             throw new IllegalArgumentException("the absolute path of database file cannot be null or blank");
         }
 
-        HikariConfig cfg = new HikariConfig();
-        cfg.setJdbcUrl(String.format(JDBC_URL_FORMAT, absolutePath));
-        cfg.setDriverClassName(JDBC_DRIVER_CLASS_NAME);
-        parameters.applyTo(cfg);
-        dataSource = new HikariDataSource(cfg);
+        String url = String.format(JDBC_URL_FORMAT, absolutePath);
+        if (!parameters.isSqliteTuned()) {
+            HikariConfig cfg = new HikariConfig();
+            cfg.setJdbcUrl(url);
+            cfg.setDriverClassName(JDBC_DRIVER_CLASS_NAME);
+            parameters.applyTo(cfg);
+            dataSource = new HikariDataSource(cfg);
+            readerDataSource = null;
+            return;
+        }
+
+        Driver driver = loadDriver();
+        HikariConfig writer = new HikariConfig();
+        writer.setDataSource(new PragmaDataSource(driver, url, pragmas(parameters, false), null));
+        parameters.applyTo(writer);
+        writer.setMaximumPoolSize(1);
+        writer.setMinimumIdle(1);
+        setPoolName(writer, parameters, "writer");
+        // opened first so that the reader connections find the database in WAL mode
+        dataSource = new HikariDataSource(writer);
+
+        HikariConfig reader = new HikariConfig();
+        reader.setDataSource(new PragmaDataSource(driver, url, pragmas(parameters, true), readerConnections));
+        parameters.applyTo(reader);
+        setPoolName(reader, parameters, "reader");
+        readerDataSource = new HikariDataSource(reader);
+    }
+
+    private static Driver loadDriver() {
+        try {
+            return (Driver) Class.forName(JDBC_DRIVER_CLASS_NAME).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("The SQLite JDBC driver " + JDBC_DRIVER_CLASS_NAME + " is not available", e);
+        }
+    }
+
+    /**
+     * The pragmas of a tuned connection. The journal mode is stored in the database file,
+     * so only the writer sets it; readers are made read-only with {@code query_only}.
+     */
+    private static List<String> pragmas(DatabaseParameters parameters, boolean reader) {
+        String synchronous = parameters.getSqliteSynchronous().toUpperCase(Locale.ROOT);
+        if (!SYNCHRONOUS_MODES.contains(synchronous)) {
+            throw new IllegalArgumentException("Unknown SQLite synchronous mode: " + parameters.getSqliteSynchronous());
+        }
+        String tempStore = parameters.getSqliteTempStore().toUpperCase(Locale.ROOT);
+        if (!TEMP_STORES.contains(tempStore)) {
+            throw new IllegalArgumentException("Unknown SQLite temp store: " + parameters.getSqliteTempStore());
+        }
+
+        List<String> pragmas = new ArrayList<>();
+        pragmas.add("PRAGMA busy_timeout = " + Math.max(0, parameters.getSqliteBusyTimeout()));
+        if (!reader) {
+            pragmas.add("PRAGMA journal_mode = WAL");
+        }
+        pragmas.add("PRAGMA synchronous = " + synchronous);
+        pragmas.add("PRAGMA cache_size = " + parameters.getSqliteCacheSize());
+        pragmas.add("PRAGMA mmap_size = " + Math.max(0L, parameters.getSqliteMmapSize()));
+        pragmas.add("PRAGMA temp_store = " + tempStore);
+        if (reader) {
+            pragmas.add("PRAGMA query_only = ON");
+        }
+        return pragmas;
+    }
+
+    private static void setPoolName(HikariConfig config, DatabaseParameters parameters, String role) {
+        String poolName = parameters.getPoolName();
+        if (poolName != null && !poolName.isBlank()) {
+            config.setPoolName(poolName + "-" + role);
+        }
     }
 
     @Override
@@ -33,7 +117,54 @@ class SQLiteConnection extends AbstractDatabaseConnection {
     }
 
     @Override
-    public void close() {
+    Connection createReadConnection() throws SQLException {
+        return readerDataSource != null ? readerDataSource.getConnection() : dataSource.getConnection();
+    }
+
+    /**
+     * SQLite raised SQLITE_MAX_VARIABLE_NUMBER from 999 to 32766 in 3.32.0; the bundled library decides which applies.
+     */
+    @Override
+    int getMaxBindParameters(Connection connection) throws SQLException {
+        return isVersionAtLeast(connection, 3, 32) ? 32766 : 999;
+    }
+
+    @Override
+    boolean supportsReturning(Connection connection) throws SQLException {
+        return isVersionAtLeast(connection, 3, 35);
+    }
+
+    /**
+     * The SQLite driver only accepts the read-only flag before the connection is opened,
+     * so pooled connections are switched with {@code PRAGMA query_only} instead.
+     * Connections of the reader pool always stay read-only.
+     */
+    @Override
+    void setReadOnly(Connection connection, boolean readOnly) throws SQLException {
+        if (!readOnly && readerConnections.contains(connection.unwrap(Connection.class))) {
+            return;
+        }
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("PRAGMA query_only = " + (readOnly ? "ON" : "OFF"));
+        }
+    }
+
+    /**
+     * {@code SQLITE_BUSY} (5) and {@code SQLITE_LOCKED} (6), possibly as extended result codes,
+     * mean another connection held the lock for longer than the busy timeout.
+     */
+    @Override
+    boolean isRetryableError(SQLException e) {
+        int code = e.getErrorCode() & 0xFF;
+        return super.isRetryableError(e) || code == 5 || code == 6;
+    }
+
+    @Override
+    void closeDataSource() {
+        if (readerDataSource != null) {
+            readerDataSource.close();
+        }
         dataSource.close();
     }
 
@@ -41,4 +172,82 @@ class SQLiteConnection extends AbstractDatabaseConnection {
     public @NotNull DatabaseType getType() {
         return DatabaseType.SQLITE;
     }
+
+    /**
+     * Opens physical connections for the pool and runs the pragmas on each before the pool hands it out.
+     */
+    private static final class PragmaDataSource implements DataSource {
+        private final Driver driver;
+        private final String url;
+        private final List<String> pragmas;
+        private final @Nullable Set<Connection> opened;
+        private int loginTimeout;
+
+        PragmaDataSource(Driver driver, String url, List<String> pragmas, @Nullable Set<Connection> opened) {
+            this.driver = driver;
+            this.url = url;
+            this.pragmas = pragmas;
+            this.opened = opened;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            Connection connection = driver.connect(url, new Properties());
+            try (Statement statement = connection.createStatement()) {
+                for (String pragma : pragmas) {
+                    statement.execute(pragma);
+                }
+            } catch (SQLException | RuntimeException e) {
+                connection.close();
+                throw e;
+            }
+
+            if (opened != null) {
+                opened.add(connection);
+            }
+            return connection;
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return getConnection();
+        }
+
+        @Override
+        public PrintWriter getLogWriter() {
+            return null;
+        }
+
+        @Override
+        public void setLogWriter(PrintWriter out) {
+        }
+
+        @Override
+        public void setLoginTimeout(int seconds) {
+            this.loginTimeout = seconds;
+        }
+
+        @Override
+        public int getLoginTimeout() {
+            return loginTimeout;
+        }
+
+        @Override
+        public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+            throw new SQLFeatureNotSupportedException();
+        }
+
+        @Override
+        public <T> T unwrap(Class<T> iface) throws SQLException {
+            if (iface.isInstance(this)) {
+                return iface.cast(this);
+            }
+            throw new SQLException("not a wrapper for " + iface.getName());
+        }
+
+        @Override
+        public boolean isWrapperFor(Class<?> iface) {
+            return iface.isInstance(this);
+        }
+    }
 }
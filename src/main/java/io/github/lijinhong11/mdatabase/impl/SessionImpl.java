@@ -0,0 +1,538 @@
+package io.github.lijinhong11.mdatabase.impl;
+
+import io.github.lijinhong11.mdatabase.Cursor;
+import io.github.lijinhong11.mdatabase.Page;
+import io.github.lijinhong11.mdatabase.SavepointScope;
+import io.github.lijinhong11.mdatabase.Session;
+import io.github.lijinhong11.mdatabase.Transaction;
+import io.github.lijinhong11.mdatabase.TransactionWork;
+import io.github.lijinhong11.mdatabase.cache.CacheStats;
+import io.github.lijinhong11.mdatabase.enums.DatabaseType;
+import io.github.lijinhong11.mdatabase.enums.IsolationLevel;
+import io.github.lijinhong11.mdatabase.enums.OrderType;
+import io.github.lijinhong11.mdatabase.metrics.QueryListener;
+import io.github.lijinhong11.mdatabase.sql.BoundQuery;
+import io.github.lijinhong11.mdatabase.sql.StatementCacheStats;
+import io.github.lijinhong11.mdatabase.sql.conditions.Condition;
+import io.github.lijinhong11.mdatabase.sql.sentence.SQL;
+import io.github.lijinhong11.mdatabase.sql.sentence.SelectSQL;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+import java.util.stream.Stream;
+
+/**
+ * Runs every call of the owning connection with the session's transaction bound to the calling thread.
+ * <p>
+ * Cursors, streams and result sets keep reading from the connection after the call returns, so while one is
+ * open the thread that opened it owns the session: calls from other threads wait until it is closed, and
+ * ending the transaction fails instead of closing it under the reader.
+ */
+final class SessionImpl implements Session {
+    private final AbstractDatabaseConnection owner;
+    private final TransactionContext context;
+    private final @Nullable IsolationLevel isolation;
+    private final boolean readOnly;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final java.util.concurrent.locks.Condition resultsClosed = lock.newCondition();
+    private final Set<AutoCloseable> openResults = Collections.newSetFromMap(new IdentityHashMap<>());
+    private @Nullable Thread reader;
+    private volatile boolean closed;
+
+    SessionImpl(AbstractDatabaseConnection owner, TransactionContext context, @Nullable IsolationLevel isolation, boolean readOnly) {
+        this.owner = owner;
+        this.context = context;
+        this.isolation = isolation;
+        this.readOnly = readOnly;
+    }
+
+    AbstractDatabaseConnection getOwner() {
+        return owner;
+    }
+
+    private <R> R call(AbstractDatabaseConnection.SQLCallable<R> action) throws SQLException {
+        lock.lock();
+        try {
+            awaitResults();
+            ensureOpen();
+            return owner.callInTransaction(context, action);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Run a call whose result keeps reading from the connection, reserving the session for this thread
+     * until the result is closed.
+     *
+     * @param track wraps the result so that closing it runs the given callback
+     */
+    private <R extends AutoCloseable> R open(AbstractDatabaseConnection.SQLCallable<R> action,
+                                             BiFunction<R, Runnable, R> track) throws SQLException {
+        lock.lock();
+        try {
+            awaitResults();
+            ensureOpen();
+            R result = owner.callInTransaction(context, action);
+            openResults.add(result);
+            reader = Thread.currentThread();
+            return track.apply(result, () -> resultClosed(result));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void resultClosed(AutoCloseable result) {
+        lock.lock();
+        try {
+            if (openResults.remove(result) && openResults.isEmpty()) {
+                reader = null;
+                resultsClosed.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Wait until the results opened by another thread are closed. Must be called with the lock held.
+     */
+    private void awaitResults() throws SQLException {
+        while (!openResults.isEmpty() && reader != Thread.currentThread()) {
+            try {
+                resultsClosed.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while waiting for a cursor of the session to be closed", e);
+            }
+        }
+    }
+
+    /**
+     * Fail if a result of the session is still open, as ending the transaction would close it under its reader.
+     * Must be called with the lock held.
+     */
+    private void ensureNoResults() throws SQLException {
+        awaitResults();
+        if (!openResults.isEmpty()) {
+            throw new SQLException("Close the cursors, streams and result sets of the session before ending its transaction");
+        }
+    }
+
+    private void run(SQLRunnable action) throws SQLException {
+        call(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    private void ensureOpen() throws SQLException {
+        if (closed) {
+            throw new SQLException("the session has been closed");
+        }
+    }
+
+    @Override
+    public @NotNull SavepointScope savepoint() throws SQLException {
+        return new SavepointScope(this, call(context.connection::setSavepoint));
+    }
+
+    @Override
+    public void rollbackTo(@NotNull Savepoint savepoint) throws SQLException {
+        lock.lock();
+        try {
+            awaitResults();
+            ensureOpen();
+            context.connection.rollback(savepoint);
+            // which snapshots were taken after the savepoint is not known, so drop them all
+            context.snapshots.forEach((object, tracker) -> tracker.forget(object));
+            context.snapshots.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void releaseSavepoint(@NotNull Savepoint savepoint) throws SQLException {
+        run(() -> context.connection.releaseSavepoint(savepoint));
+    }
+
+    @Override
+    public @Nullable IsolationLevel getIsolationLevel() {
+        return isolation;
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public Transaction beginTransaction() throws SQLException {
+        throw new SQLException("A session is already a transaction, use savepoint() for nested scopes");
+    }
+
+    @Override
+    public void commit() throws SQLException {
+        lock.lock();
+        try {
+            ensureNoResults();
+            ensureOpen();
+            context.connection.commit();
+            owner.endTransaction(context, false);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void rollback() throws SQLException {
+        lock.lock();
+        try {
+            ensureNoResults();
+            ensureOpen();
+            try {
+                context.connection.rollback();
+            } finally {
+                owner.endTransaction(context, true);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws SQLException {
+        lock.lock();
+        try {
+            awaitResults();
+            if (closed) {
+                return;
+            }
+            closed = true;
+
+            Connection conn = context.connection;
+            try {
+                closeResults();
+                conn.rollback();
+            } finally {
+                try {
+                    conn.setAutoCommit(true);
+                    if (readOnly) {
+                        owner.setReadOnly(conn, false);
+                    }
+                } finally {
+                    conn.close();
+                    owner.endTransaction(context, true);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Close what the closing thread itself left open, so the connection goes back to the pool without readers.
+     */
+    private void closeResults() {
+        for (AutoCloseable result : new ArrayList<>(openResults)) {
+            try {
+                result.close();
+            } catch (Exception ignored) {
+                // the transaction is being rolled back anyway
+            }
+        }
+        openResults.clear();
+        reader = null;
+    }
+
+    @Override
+    public boolean execute(@NotNull SQL sql) throws SQLException {
+        return call(() -> owner.execute(sql));
+    }
+
+    @Override
+    public void workspace(@NotNull SQL @NotNull ... sqls) throws SQLException {
+        run(() -> owner.workspace(sqls));
+    }
+
+    @Override
+    public @NotNull ResultSet query(@NotNull SelectSQL sql) throws SQLException {
+        return open(() -> owner.query(sql), (set, release) -> ConnectionBoundResultSet.wrap(set, release::run));
+    }
+
+    @Override
+    public <T> @NotNull T selectOne(@NotNull Class<T> clazz, @NotNull Condition condition) throws SQLException {
+        return call(() -> owner.selectOne(clazz, condition));
+    }
+
+    @Override
+    public <T> @NotNull T selectOne(@NotNull String table, @NotNull Class<T> clazz, @NotNull Condition condition) throws SQLException {
+        return call(() -> owner.selectOne(table, clazz, condition));
+    }
+
+    @Override
+    public <T> @NotNull List<T> selectMulti(@NotNull Class<T> clazz) throws SQLException {
+        return call(() -> owner.selectMulti(clazz));
+    }
+
+    @Override
+    public <T> @NotNull List<T> selectMulti(@NotNull String table, @NotNull Class<T> clazz) throws SQLException {
+        return call(() -> owner.selectMulti(table, clazz));
+    }
+
+    @Override
+    public <T> @NotNull List<T> selectMulti(@NotNull Class<T> clazz, @Nullable Condition condition) throws SQLException {
+        return call(() -> owner.selectMulti(clazz, condition));
+    }
+
+    @Override
+    public <T> @NotNull List<T> selectMulti(@NotNull String table, @NotNull Class<T> clazz, @Nullable Condition condition) throws SQLException {
+        return call(() -> owner.selectMulti(table, clazz, condition));
+    }
+
+    @Override
+    public <T> @NotNull Cursor<T> selectCursor(@NotNull Class<T> clazz, @Nullable Condition condition) throws SQLException {
+        return open(() -> owner.selectCursor(clazz, condition), SessionCursor::new);
+    }
+
+    @Override
+    public <T> @NotNull Cursor<T> selectCursor(@NotNull Class<T> clazz, @Nullable Condition condition, int fetchSize) throws SQLException {
+        return open(() -> owner.selectCursor(clazz, condition, fetchSize), SessionCursor::new);
+    }
+
+    @Override
+    public <T> @NotNull Stream<T> selectStream(@NotNull Class<T> clazz, @Nullable Condition condition) throws SQLException {
+        return open(() -> owner.selectStream(clazz, condition), Stream::onClose);
+    }
+
+    @Override
+    public <T> @NotNull Stream<T> selectStream(@NotNull Class<T> clazz, @Nullable Condition condition, int fetchSize) throws SQLException {
+        return open(() -> owner.selectStream(clazz, condition, fetchSize), Stream::onClose);
+    }
+
+    @Override
+    public <T> @NotNull Page<T> page(@NotNull Class<T> clazz, @Nullable Condition condition, @NotNull List<String> orderBy,
+                                     int pageSize, @Nullable String token) throws SQLException {
+        return call(() -> owner.page(clazz, condition, orderBy, pageSize, token));
+    }
+
+    @Override
+    public <T> @NotNull Page<T> page(@NotNull Class<T> clazz, @Nullable Condition condition, @NotNull List<String> orderBy,
+                                     @NotNull OrderType order, int pageSize, @Nullable String token) throws SQLException {
+        return call(() -> owner.page(clazz, condition, orderBy, order, pageSize, token));
+    }
+
+    @Override
+    public boolean execute(@NotNull BoundQuery query) throws SQLException {
+        return call(() -> owner.execute(query));
+    }
+
+    @Override
+    public <T> @NotNull T selectOne(@NotNull Class<T> clazz, @NotNull BoundQuery query) throws SQLException {
+        return call(() -> owner.selectOne(clazz, query));
+    }
+
+    @Override
+    public <T> @NotNull List<T> selectMulti(@NotNull Class<T> clazz, @NotNull BoundQuery query) throws SQLException {
+        return call(() -> owner.selectMulti(clazz, query));
+    }
+
+    @Override
+    public void createTableByClass(@NotNull Class<?> clazz) throws SQLException {
+        run(() -> owner.createTableByClass(clazz));
+    }
+
+    @Override
+    public void autoMigrate(@NotNull Class<?> clazz) throws SQLException {
+        run(() -> owner.autoMigrate(clazz));
+    }
+
+    @Override
+    public <T> void insertObject(@NotNull Class<T> clazz, @NotNull T object, boolean upsert) throws SQLException {
+        run(() -> owner.insertObject(clazz, object, upsert));
+    }
+
+    @Override
+    public <T> void insertBatch(@NotNull Class<T> clazz, @NotNull List<T> objects) throws SQLException {
+        run(() -> owner.insertBatch(clazz, objects));
+    }
+
+    @Override
+    public <T> void upsertBatch(@NotNull Class<T> clazz, @NotNull List<T> objects) throws SQLException {
+        run(() -> owner.upsertBatch(clazz, objects));
+    }
+
+    @Override
+    public <T> void insertIfAbsentBatch(@NotNull Class<T> clazz, @NotNull List<T> objects) throws SQLException {
+        run(() -> owner.insertIfAbsentBatch(clazz, objects));
+    }
+
+    @Override
+    public <T> @NotNull Map<Object, T> selectByIds(@NotNull Class<T> clazz, @NotNull Collection<?> ids) throws SQLException {
+        return call(() -> owner.selectByIds(clazz, ids));
+    }
+
+    @Override
+    public int deleteByIds(@NotNull Class<?> clazz, @NotNull Collection<?> ids) throws SQLException {
+        return call(() -> owner.deleteByIds(clazz, ids));
+    }
+
+    @Override
+    public <T> @Nullable T findById(@NotNull Class<T> clazz, @NotNull Object id) throws SQLException {
+        return call(() -> owner.findById(clazz, id));
+    }
+
+    @Override
+    public <T> @NotNull List<T> selectCached(@NotNull Class<T> clazz, @Nullable Condition condition, @NotNull Duration ttl) throws SQLException {
+        return call(() -> owner.selectCached(clazz, condition, ttl));
+    }
+
+    @Override
+    public <T> void updateBatch(@NotNull Class<T> clazz, @NotNull List<T> objects) throws SQLException {
+        run(() -> owner.updateBatch(clazz, objects));
+    }
+
+    @Override
+    public <T> void updateObject(@NotNull Class<T> clazz, @NotNull T object, @NotNull Condition condition) throws SQLException {
+        run(() -> owner.updateObject(clazz, object, condition));
+    }
+
+    @Override
+    public void deleteObject(@NotNull Class<?> clazz, @NotNull Condition condition) throws SQLException {
+        run(() -> owner.deleteObject(clazz, condition));
+    }
+
+    @Override
+    public boolean ping() throws SQLException {
+        return call(owner::ping);
+    }
+
+    @Override
+    public @NotNull Session openSession() throws SQLException {
+        return owner.openSession();
+    }
+
+    @Override
+    public @NotNull Session openSession(@Nullable IsolationLevel isolation, boolean readOnly) throws SQLException {
+        return owner.openSession(isolation, readOnly);
+    }
+
+    @Override
+    public <R> R inTransaction(@NotNull TransactionWork<R> work) throws SQLException {
+        try (SavepointScope scope = savepoint()) {
+            R result = work.run(this);
+            scope.release();
+            return result;
+        }
+    }
+
+    @Override
+    public <R> R inTransaction(@Nullable IsolationLevel isolation, @NotNull TransactionWork<R> work) throws SQLException {
+        if (isolation != null && isolation != this.isolation) {
+            throw new SQLException("Cannot change the isolation level inside a session");
+        }
+        return inTransaction(work);
+    }
+
+    @Override
+    public @NotNull TransactionStats getTransactionStats() {
+        return owner.getTransactionStats();
+    }
+
+    @Override
+    public void addQueryListener(@NotNull QueryListener listener) {
+        owner.addQueryListener(listener);
+    }
+
+    @Override
+    public void removeQueryListener(@NotNull QueryListener listener) {
+        owner.removeQueryListener(listener);
+    }
+
+    @Override
+    public @NotNull DatabaseType getType() {
+        return owner.getType();
+    }
+
+    @Override
+    public @NotNull StatementCacheStats getStatementCacheStats() {
+        return owner.getStatementCacheStats();
+    }
+
+    @Override
+    public @Nullable CacheStats getEntityCacheStats(@NotNull Class<?> clazz) {
+        return owner.getEntityCacheStats(clazz);
+    }
+
+    @Override
+    public @Nullable CacheStats getQueryCacheStats() {
+        return owner.getQueryCacheStats();
+    }
+
+    @Override
+    public void invalidateCache(@NotNull Class<?> clazz) {
+        owner.invalidateCache(clazz);
+    }
+
+    @Override
+    public void setDebug(boolean debug) {
+        owner.setDebug(debug);
+    }
+
+    @FunctionalInterface
+    private interface SQLRunnable {
+        void run() throws SQLException;
+    }
+
+    /**
+     * A cursor of the session, which tells the session when it is closed.
+     */
+    private static final class SessionCursor<T> implements Cursor<T> {
+        private final Cursor<T> cursor;
+        private final Runnable release;
+
+        SessionCursor(Cursor<T> cursor, Runnable release) {
+            this.cursor = cursor;
+            this.release = release;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return cursor.hasNext();
+        }
+
+        @Override
+        public T next() {
+            return cursor.next();
+        }
+
+        @Override
+        public void close() {
+            try {
+                cursor.close();
+            } finally {
+                release.run();
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package io.github.lijinhong11.mdatabase.impl;
+
+import io.github.lijinhong11.mdatabase.cache.EntityCache;
+import io.github.lijinhong11.mdatabase.serialization.ChangeTracker;
+
+import java.sql.Connection;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The connection of a transaction and the caches it has to reset when it ends.
+ * Bound to the calling thread by {@code beginTransaction()}, or to each call of a {@code Session}.
+ */
+final class TransactionContext {
+    final Connection connection;
+    /**
+     * Entity caches written in the transaction, cleared again when it ends.
+     */
+    final Set<EntityCache> entityCaches = new HashSet<>();
+    /**
+     * Tables written in the transaction, whose query results are invalidated again when it ends;
+     * {@code null} stands for every table.
+     */
+    final Set<String> tables = new HashSet<>();
+    /**
+     * Snapshots taken in the transaction, dropped if it is rolled back.
+     */
+    final Map<Object, ChangeTracker> snapshots = new IdentityHashMap<>();
+
+    TransactionContext(Connection connection) {
+        this.connection = connection;
+    }
+}
@@ -0,0 +1,63 @@
+package io.github.lijinhong11.mdatabase.impl;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of the units of work run by {@code inTransaction} on one database connection.
+ */
+public final class TransactionStats {
+    private final LongAdder commits = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder giveUps = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    void recordCommit() {
+        commits.increment();
+    }
+
+    void recordRetry() {
+        retries.increment();
+    }
+
+    void recordGiveUp() {
+        giveUps.increment();
+    }
+
+    void recordFailure() {
+        failures.increment();
+    }
+
+    /**
+     * @return the number of units of work committed
+     */
+    public long getCommits() {
+        return commits.sum();
+    }
+
+    /**
+     * @return the number of attempts repeated after a deadlock, serialization failure or busy database
+     */
+    public long getRetries() {
+        return retries.sum();
+    }
+
+    /**
+     * @return the number of units of work abandoned because they still failed after the last allowed attempt
+     */
+    public long getGiveUps() {
+        return giveUps.sum();
+    }
+
+    /**
+     * @return the number of units of work that failed with an error that is not retried
+     */
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "TransactionStats{commits=" + getCommits() + ", retries=" + getRetries() + ", giveUps=" + getGiveUps()
+                + ", failures=" + getFailures() + '}';
+    }
+}
@@ -0,0 +1,183 @@
+package io.github.lijinhong11.mdatabase.metrics;
+
+import io.github.lijinhong11.mdatabase.enums.OperationType;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link QueryListener} keeping latency histograms and counters per table and operation.
+ * <pre>{@code
+ * MetricsRecorder metrics = new MetricsRecorder();
+ * conn.addQueryListener(metrics);
+ * ...
+ * logger.info(metrics.toString());   // busiest table and operation first
+ * MetricsRecorder.Stats reads = metrics.getStats("players", OperationType.SELECT);
+ * long p99 = reads.getLatency().getValueAtPercentile(99);
+ * }</pre>
+ */
+public final class MetricsRecorder implements QueryListener {
+    private final Map<Key, Stats> stats = new ConcurrentHashMap<>();
+
+    @Override
+    public void onQuery(@NotNull QueryEvent event) {
+        Key key = new Key(event.getTable() != null ? event.getTable().toLowerCase(Locale.ROOT) : null, event.getOperation());
+        Stats entry = stats.get(key);
+        if (entry == null) {
+            entry = stats.computeIfAbsent(key, k -> new Stats(k.table, k.operation));
+        }
+        entry.record(event);
+    }
+
+    /**
+     * @param table     the table, or {@code null} for statements whose table is not known
+     * @param operation the operation
+     * @return the statistics, or {@code null} if no such statement ran
+     */
+    public @Nullable Stats getStats(@Nullable String table, @NotNull OperationType operation) {
+        return stats.get(new Key(table != null ? table.toLowerCase(Locale.ROOT) : null, operation));
+    }
+
+    /**
+     * @return the statistics of every table and operation, by descending total time
+     */
+    public @NotNull List<Stats> getAllStats() {
+        List<Stats> all = new ArrayList<>(stats.values());
+        all.sort(Comparator.comparingLong((Stats s) -> s.getLatency().getSum()).reversed());
+        return all;
+    }
+
+    /**
+     * Forget everything recorded so far.
+     */
+    public void reset() {
+        stats.clear();
+    }
+
+    /**
+     * @return one line per table and operation, by descending total time, with latencies in microseconds
+     */
+    @Override
+    public String toString() {
+        StringBuilder report = new StringBuilder("MetricsRecorder{");
+        for (Stats entry : getAllStats()) {
+            report.append('\n').append("  ").append(entry);
+        }
+        return report.append(stats.isEmpty() ? "}" : "\n}").toString();
+    }
+
+    private record Key(@Nullable String table, OperationType operation) {
+    }
+
+    /**
+     * The counters of one table and operation.
+     */
+    public static final class Stats {
+        private final @Nullable String table;
+        private final OperationType operation;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder acquireNanos = new LongAdder();
+        private final LongAdder executeNanos = new LongAdder();
+        private final LongAdder hydrateNanos = new LongAdder();
+
+        Stats(@Nullable String table, OperationType operation) {
+            this.table = table;
+            this.operation = operation;
+        }
+
+        void record(QueryEvent event) {
+            latency.record(event.getTotalNanos());
+            acquireNanos.add(event.getAcquireNanos());
+            executeNanos.add(event.getExecuteNanos());
+            hydrateNanos.add(event.getHydrateNanos());
+            if (event.getRows() > 0) {
+                rows.add(event.getRows());
+            }
+            if (event.getError() != null) {
+                errors.increment();
+            }
+        }
+
+        /**
+         * @return the table, in lower case, or {@code null} for statements whose table is not known
+         */
+        public @Nullable String getTable() {
+            return table;
+        }
+
+        /**
+         * @return the operation
+         */
+        public @NotNull OperationType getOperation() {
+            return operation;
+        }
+
+        /**
+         * @return the histogram of the total time of each call in nanoseconds
+         */
+        public @NotNull LatencyHistogram getLatency() {
+            return latency;
+        }
+
+        /**
+         * @return the number of calls that failed
+         */
+        public long getErrorCount() {
+            return errors.sum();
+        }
+
+        /**
+         * @return the rows returned or affected, as far as the driver reported them
+         */
+        public long getRows() {
+            return rows.sum();
+        }
+
+        /**
+         * @return the nanoseconds spent waiting for connections
+         */
+        public long getAcquireNanos() {
+            return acquireNanos.sum();
+        }
+
+        /**
+         * @return the nanoseconds spent running statements
+         */
+        public long getExecuteNanos() {
+            return executeNanos.sum();
+        }
+
+        /**
+         * @return the nanoseconds spent reading rows into objects
+         */
+        public long getHydrateNanos() {
+            return hydrateNanos.sum();
+        }
+
+        @Override
+        public String toString() {
+            return (table != null ? table : "?") + ' ' + operation + ": count=" + latency.getCount()
+                    + ", total=" + TimeUnit.NANOSECONDS.toMillis(latency.getSum()) + "ms"
+                    + ", p50=" + micros(latency.getValueAtPercentile(50)) + ", p99=" + micros(latency.getValueAtPercentile(99))
+                    + ", p999=" + micros(latency.getValueAtPercentile(99.9)) + ", max=" + micros(latency.getMax())
+                    + ", acquire=" + TimeUnit.NANOSECONDS.toMillis(getAcquireNanos()) + "ms"
+                    + ", execute=" + TimeUnit.NANOSECONDS.toMillis(getExecuteNanos()) + "ms"
+                    + ", hydrate=" + TimeUnit.NANOSECONDS.toMillis(getHydrateNanos()) + "ms"
+                    + ", rows=" + getRows() + ", errors=" + getErrorCount();
+        }
+
+        private static String micros(long nanos) {
+            return TimeUnit.NANOSECONDS.toMicros(nanos) + "us";
+        }
+    }
+}
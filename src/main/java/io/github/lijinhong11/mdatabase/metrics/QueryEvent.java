@@ -0,0 +1,148 @@
+package io.github.lijinhong11.mdatabase.metrics;
+
+import io.github.lijinhong11.mdatabase.enums.OperationType;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * One database call reported to a {@link QueryListener}. Calls that run several statements, like chunked
+ * batch inserts, are reported once with the timings and row counts of all of them.
+ */
+public final class QueryEvent {
+    private final OperationType operation;
+    private final @Nullable String table;
+    private final @Nullable Class<?> entityType;
+    private final Supplier<String> sql;
+    private final Supplier<@Nullable List<Object>> parameters;
+    private final long rows;
+    private final long acquireNanos;
+    private final long executeNanos;
+    private final long hydrateNanos;
+    private final @Nullable Throwable error;
+    private String renderedSql;
+    private boolean parametersRead;
+    private @Nullable List<Object> readParameters;
+
+    /**
+     * @param operation    the kind of statement
+     * @param table        the table read or written, or {@code null} if it is not known
+     * @param entityType   the entity class the call was made for, or {@code null} for raw SQL
+     * @param sql          renders the SQL text when first asked for
+     * @param parameters   collects the bound values when first asked for, returning {@code null} if they are not known
+     * @param rows         the rows returned or affected, or {@code -1} if not known
+     * @param acquireNanos the time spent waiting for a connection
+     * @param executeNanos the time spent preparing and running the statement
+     * @param hydrateNanos the time spent reading the result set into objects
+     * @param error        the failure, or {@code null} on success
+     */
+    public QueryEvent(@NotNull OperationType operation, @Nullable String table, @Nullable Class<?> entityType,
+                      @NotNull Supplier<String> sql, @NotNull Supplier<@Nullable List<Object>> parameters, long rows,
+                      long acquireNanos, long executeNanos, long hydrateNanos, @Nullable Throwable error) {
+        this.operation = operation;
+        this.table = table;
+        this.entityType = entityType;
+        this.sql = sql;
+        this.parameters = parameters;
+        this.rows = rows;
+        this.acquireNanos = acquireNanos;
+        this.executeNanos = executeNanos;
+        this.hydrateNanos = hydrateNanos;
+        this.error = error;
+    }
+
+    /**
+     * @return the kind of statement
+     */
+    public @NotNull OperationType getOperation() {
+        return operation;
+    }
+
+    /**
+     * @return the table read or written, or {@code null} if it is not known
+     */
+    public @Nullable String getTable() {
+        return table;
+    }
+
+    /**
+     * @return the entity class the call was made for, or {@code null} for raw SQL
+     */
+    public @Nullable Class<?> getEntityType() {
+        return entityType;
+    }
+
+    /**
+     * @return the SQL text, rendered on the first call; for chunked calls, that of one chunk
+     */
+    public @NotNull String getSql() {
+        String text = renderedSql;
+        if (text == null) {
+            text = sql.get();
+            renderedSql = text;
+        }
+        return text;
+    }
+
+    /**
+     * @return the values bound to the SQL in placeholder order, or {@code null} if they are not known,
+     * like for entity writes that bind straight from the object
+     */
+    public @Nullable List<Object> getParameters() {
+        if (!parametersRead) {
+            readParameters = parameters.get();
+            parametersRead = true;
+        }
+        return readParameters;
+    }
+
+    /**
+     * @return the rows returned or affected, or {@code -1} if the driver did not tell
+     */
+    public long getRows() {
+        return rows;
+    }
+
+    /**
+     * @return the nanoseconds spent waiting for a pooled connection, {@code 0} inside a transaction
+     */
+    public long getAcquireNanos() {
+        return acquireNanos;
+    }
+
+    /**
+     * @return the nanoseconds spent preparing, binding and running the statement
+     */
+    public long getExecuteNanos() {
+        return executeNanos;
+    }
+
+    /**
+     * @return the nanoseconds spent reading rows into objects, {@code 0} for writes
+     */
+    public long getHydrateNanos() {
+        return hydrateNanos;
+    }
+
+    /**
+     * @return the nanoseconds of the whole call
+     */
+    public long getTotalNanos() {
+        return acquireNanos + executeNanos + hydrateNanos;
+    }
+
+    /**
+     * @return the failure, or {@code null} if the call succeeded
+     */
+    public @Nullable Throwable getError() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        return "QueryEvent{" + operation + " " + table + ", rows=" + rows + ", acquire=" + acquireNanos + "ns, execute="
+                + executeNanos + "ns, hydrate=" + hydrateNanos + "ns" + (error != null ? ", error=" + error : "") + '}';
+    }
+}
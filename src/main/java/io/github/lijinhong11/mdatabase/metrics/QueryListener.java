@@ -0,0 +1,25 @@
+package io.github.lijinhong11.mdatabase.metrics;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Observes every statement run by a connection, see
+ * {@link io.github.lijinhong11.mdatabase.DatabaseConnection#addQueryListener(QueryListener)}.
+ * <pre>{@code
+ * conn.addQueryListener(event -> {
+ *     if (event.getTotalNanos() > TimeUnit.MILLISECONDS.toNanos(50)) {
+ *         logger.warning(event.getEntityType() + " took " + event.getTotalNanos() / 1_000_000 + " ms: " + event.getSql());
+ *     }
+ * });
+ * }</pre>
+ */
+@FunctionalInterface
+public interface QueryListener {
+    /**
+     * Called on the thread that ran the statement once it completed or failed. This is on the query path,
+     * so it should be fast and must not block; exceptions it throws are logged and ignored.
+     *
+     * @param event the statement and its timings
+     */
+    void onQuery(@NotNull QueryEvent event);
+}
@@ -0,0 +1,285 @@
+package io.github.lijinhong11.mdatabase.metrics;
+
+import io.github.lijinhong11.mdatabase.DatabaseParameters;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A {@link QueryListener} writing calls slower than {@link DatabaseParameters#getSlowQueryThreshold()} to a log.
+ * <p>
+ * The calling thread only renders the entry: the SQL, the bound values, the timings and, if enabled, the caller.
+ * A background thread writes it, so slow log handlers never add to query latency; when more than
+ * {@value #QUEUE_CAPACITY} entries are waiting, new ones are dropped and counted. Each SQL text is logged at most
+ * {@link DatabaseParameters#getSlowQueryLimitPerMinute()} times a minute, so a slow hot query cannot flood the log;
+ * the next entry after a quiet period tells how many were left out.
+ * <p>
+ * Connections add one automatically when the threshold is set; one can also be added by hand:
+ * <pre>{@code
+ * DatabaseParameters params = new DatabaseParameters();
+ * params.setSlowQueryThreshold(200);
+ * params.setSlowQueryCaptureCaller(true);
+ * conn.addQueryListener(new SlowQueryLog(params, line -> plugin.getLogger().warning(line)));
+ * }</pre>
+ */
+public final class SlowQueryLog implements QueryListener, AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger("MDatabase");
+    private static final int QUEUE_CAPACITY = 1024;
+    private static final int MAX_FINGERPRINTS = 10_000;
+    private static final int MAX_SQL_LENGTH = 2000;
+    private static final long WINDOW_NANOS = TimeUnit.MINUTES.toNanos(1L);
+    private static final Object STOP = new Object();
+    private static final String PACKAGE = "io.github.lijinhong11.mdatabase.";
+
+    private final long thresholdNanos;
+    private final boolean logParameters;
+    private final int maxParameterLength;
+    private final boolean captureCaller;
+    private final int limitPerMinute;
+    private final Consumer<String> sink;
+    private final BlockingQueue<Object> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final Map<String, Window> windows = new ConcurrentHashMap<>();
+    private final AtomicLong logged = new AtomicLong();
+    private final AtomicLong suppressed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread writer;
+    private volatile boolean closed;
+
+    /**
+     * Log to the {@code MDatabase} logger at {@link Level#WARNING}.
+     *
+     * @param parameters the slow query settings
+     */
+    public SlowQueryLog(@NotNull DatabaseParameters parameters) {
+        this(parameters, line -> LOGGER.warning(line));
+    }
+
+    /**
+     * @param parameters the slow query settings
+     * @param sink       receives each entry on the background thread
+     */
+    public SlowQueryLog(@NotNull DatabaseParameters parameters, @NotNull Consumer<String> sink) {
+        if (parameters.getSlowQueryThreshold() <= 0L) {
+            throw new IllegalArgumentException("slowQueryThreshold must be positive");
+        }
+
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(parameters.getSlowQueryThreshold());
+        this.logParameters = parameters.isSlowQueryLogParameters();
+        this.maxParameterLength = Math.max(1, parameters.getSlowQueryMaxParameterLength());
+        this.captureCaller = parameters.isSlowQueryCaptureCaller();
+        this.limitPerMinute = Math.max(1, parameters.getSlowQueryLimitPerMinute());
+        this.sink = sink;
+        this.writer = new Thread(this::runWriter, "MDatabase-slow-query-log");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public void onQuery(@NotNull QueryEvent event) {
+        if (event.getTotalNanos() < thresholdNanos || closed) {
+            return;
+        }
+
+        String sql = event.getSql();
+        long skipped = admit(sql);
+        if (skipped < 0L) {
+            suppressed.incrementAndGet();
+            return;
+        }
+
+        String entry = format(event, sql, captureCaller ? findCaller() : null, skipped);
+        if (queue.offer(entry)) {
+            logged.incrementAndGet();
+        } else {
+            dropped.incrementAndGet();
+        }
+    }
+
+    /**
+     * Count the entry against the limit of its SQL text.
+     *
+     * @return the number of entries left out since the last one was logged, or {@code -1} to leave this one out
+     */
+    private long admit(String sql) {
+        if (windows.size() >= MAX_FINGERPRINTS) {
+            windows.clear();
+        }
+
+        Window window = windows.computeIfAbsent(sql, key -> new Window());
+        synchronized (window) {
+            long now = System.nanoTime();
+            if (now - window.start >= WINDOW_NANOS) {
+                window.start = now;
+                window.count = 0;
+            }
+            if (window.count >= limitPerMinute) {
+                window.skipped++;
+                return -1L;
+            }
+
+            window.count++;
+            long skipped = window.skipped;
+            window.skipped = 0L;
+            return skipped;
+        }
+    }
+
+    private String format(QueryEvent event, String sql, @Nullable StackWalker.StackFrame caller, long skipped) {
+        StringBuilder entry = new StringBuilder("Slow query: ")
+                .append(TimeUnit.NANOSECONDS.toMillis(event.getTotalNanos())).append(" ms (acquire ")
+                .append(TimeUnit.NANOSECONDS.toMillis(event.getAcquireNanos())).append(" ms, execute ")
+                .append(TimeUnit.NANOSECONDS.toMillis(event.getExecuteNanos())).append(" ms, hydrate ")
+                .append(TimeUnit.NANOSECONDS.toMillis(event.getHydrateNanos())).append(" ms), ")
+                .append(event.getOperation());
+        if (event.getTable() != null) {
+            entry.append(' ').append(event.getTable());
+        }
+        if (event.getRows() >= 0L) {
+            entry.append(", ").append(event.getRows()).append(" rows");
+        }
+        if (event.getError() != null) {
+            entry.append(", failed: ").append(event.getError());
+        }
+        appendTruncated(entry.append("\n  "), sql, MAX_SQL_LENGTH);
+
+        List<Object> parameters = event.getParameters();
+        if (parameters != null && !parameters.isEmpty()) {
+            entry.append("\n  parameters: [");
+            for (int i = 0; i < parameters.size(); i++) {
+                if (i > 0) {
+                    entry.append(", ");
+                }
+                appendValue(entry, parameters.get(i));
+            }
+            entry.append(']');
+        }
+        if (caller != null) {
+            entry.append("\n  at ").append(caller.getClassName()).append('.').append(caller.getMethodName())
+                    .append('(').append(caller.getFileName()).append(':').append(caller.getLineNumber()).append(')');
+        }
+        if (skipped > 0L) {
+            entry.append("\n  (").append(skipped).append(" more of this query were not logged)");
+        }
+        return entry.toString();
+    }
+
+    private void appendValue(StringBuilder entry, @Nullable Object value) {
+        if (value == null) {
+            entry.append("NULL");
+            return;
+        }
+        if (!logParameters) {
+            entry.append('<').append(value.getClass().getSimpleName()).append('>');
+            return;
+        }
+        if (value instanceof byte[] bytes) {
+            entry.append('<').append(bytes.length).append(" bytes>");
+            return;
+        }
+
+        String text = String.valueOf(value);
+        boolean quoted = value instanceof CharSequence || value instanceof Character;
+        if (quoted) {
+            entry.append('\'');
+        }
+        appendTruncated(entry, text, maxParameterLength);
+        if (quoted) {
+            entry.append('\'');
+        }
+    }
+
+    private static void appendTruncated(StringBuilder entry, String text, int maxLength) {
+        if (text.length() > maxLength) {
+            entry.append(text, 0, maxLength).append("...(").append(text.length()).append(" chars)");
+        } else {
+            entry.append(text);
+        }
+    }
+
+    /**
+     * @return the innermost frame outside MDatabase and the JDK, or {@code null} if the call came from a pool thread
+     */
+    private static @Nullable StackWalker.StackFrame findCaller() {
+        return StackWalker.getInstance().walk(frames -> frames
+                .filter(frame -> !frame.getClassName().startsWith(PACKAGE) && !frame.getClassName().startsWith("java.")
+                        && !frame.getClassName().startsWith("jdk.") && !frame.getClassName().startsWith("sun.")
+                        && !frame.getClassName().startsWith("com.zaxxer."))
+                .findFirst()
+                .orElse(null));
+    }
+
+    private void runWriter() {
+        while (true) {
+            Object entry;
+            try {
+                entry = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (entry == STOP) {
+                return;
+            }
+
+            try {
+                sink.accept((String) entry);
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Failed to write the slow query log", e);
+            }
+        }
+    }
+
+    /**
+     * @return the number of entries handed to the background thread
+     */
+    public long getLoggedCount() {
+        return logged.get();
+    }
+
+    /**
+     * @return the number of slow calls left out by the per-query limit
+     */
+    public long getSuppressedCount() {
+        return suppressed.get();
+    }
+
+    /**
+     * @return the number of entries dropped because the background thread fell behind
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Stop logging, write the entries still waiting and stop the background thread. Idempotent.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        try {
+            queue.put(STOP);
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class Window {
+        private long start = System.nanoTime();
+        private int count;
+        private long skipped;
+    }
+}
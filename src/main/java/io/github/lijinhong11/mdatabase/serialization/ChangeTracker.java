@@ -0,0 +1,132 @@
+package io.github.lijinhong11.mdatabase.serialization;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Snapshots of the value columns of {@code @TrackChanges} entities, taken when they are loaded or saved.
+ * <p>
+ * Snapshots are keyed by object identity and held weakly, so entities with their own {@code equals} are
+ * told apart and dropping an entity drops its snapshot. Values are kept in their database form, which makes
+ * in-place changes to collections and other serialized fields visible as well.
+ */
+public final class ChangeTracker {
+    private final ColumnMetadata[] columns;
+    private final Map<IdentityReference, Object[]> snapshots = new ConcurrentHashMap<>();
+    private final ReferenceQueue<Object> cleared = new ReferenceQueue<>();
+
+    ChangeTracker(List<ColumnMetadata> columns) {
+        this.columns = columns.toArray(new ColumnMetadata[0]);
+    }
+
+    /**
+     * Remember the current column values of an entity as the ones stored in the database.
+     *
+     * @param entity the entity
+     */
+    public void capture(Object entity) {
+        Object[] values = new Object[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            values[i] = copyOf(columns[i].toDatabase(entity));
+        }
+
+        purge();
+        snapshots.put(new IdentityReference(entity, cleared), values);
+    }
+
+    /**
+     * Compare an entity with its snapshot.
+     *
+     * @param entity the entity
+     * @return the indexes in {@link EntityMetadata#getValueColumns()} of the changed columns,
+     * or {@code null} if the entity has no snapshot
+     */
+    public @Nullable BitSet getChangedColumns(Object entity) {
+        Object[] values = snapshots.get(new IdentityReference(entity, null));
+        if (values == null) {
+            return null;
+        }
+
+        BitSet changed = new BitSet(columns.length);
+        for (int i = 0; i < columns.length; i++) {
+            if (!Objects.deepEquals(values[i], columns[i].toDatabase(entity))) {
+                changed.set(i);
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Drop the snapshot of an entity, so its next update writes every column.
+     *
+     * @param entity the entity
+     */
+    public void forget(Object entity) {
+        snapshots.remove(new IdentityReference(entity, null));
+    }
+
+    /**
+     * @return the number of snapshots, including ones of entities collected but not yet purged
+     */
+    public int size() {
+        return snapshots.size();
+    }
+
+    private void purge() {
+        Object reference;
+        while ((reference = cleared.poll()) != null) {
+            snapshots.remove(reference);
+        }
+    }
+
+    /**
+     * Values passed to the driver as they are may be changed in place afterwards.
+     */
+    private static @Nullable Object copyOf(@Nullable Object value) {
+        if (value instanceof byte[] bytes) {
+            return bytes.clone();
+        }
+        if (value instanceof Object[] array) {
+            return Arrays.copyOf(array, array.length);
+        }
+        if (value instanceof Date date) {
+            return date.clone();
+        }
+        return value;
+    }
+
+    private static final class IdentityReference extends WeakReference<Object> {
+        private final int hash;
+
+        IdentityReference(Object referent, @Nullable ReferenceQueue<Object> queue) {
+            super(referent, queue);
+            this.hash = System.identityHashCode(referent);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof IdentityReference that)) {
+                return false;
+            }
+            Object referent = get();
+            return referent != null && referent == that.get();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
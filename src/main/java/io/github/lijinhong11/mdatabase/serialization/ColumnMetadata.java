@@ -0,0 +1,293 @@
+package io.github.lijinhong11.mdatabase.serialization;
+
+import io.github.lijinhong11.mdatabase.exceptions.SerializationException;
+import io.github.lijinhong11.mdatabase.serialization.annotations.AutoIncrement;
+import io.github.lijinhong11.mdatabase.serialization.annotations.Column;
+import io.github.lijinhong11.mdatabase.serialization.annotations.PrimaryKey;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * One {@code @Column} field of an entity, resolved once by {@link EntityMetadata}.
+ * <p>
+ * Field access goes through method handles typed to the field, so primitive columns are
+ * read with {@code getInt}/{@code getLong}/... and written to the field without boxing.
+ * Fields with a converter are read and written through {@link JdbcObjectConverter}.
+ */
+@SuppressWarnings("unchecked")
+public final class ColumnMetadata {
+    private final Field field;
+    private final String name;
+    private final Column column;
+    private final boolean primaryKey;
+    private final boolean autoIncrement;
+    private final @Nullable String sqlType;
+    private final @Nullable JdbcObjectConverter<Object> converter;
+    private final boolean passThrough;
+
+    private final Kind kind;
+    private final MethodHandle getter;
+    private final MethodHandle setter;
+    private final MethodHandle objectGetter;
+
+    ColumnMetadata(Field field) {
+        this.field = field;
+        this.column = field.getAnnotation(Column.class);
+        this.name = column.name().equals(Column.AUTO_NAMED) ? field.getName() : column.name();
+        this.primaryKey = field.isAnnotationPresent(PrimaryKey.class);
+        this.autoIncrement = field.isAnnotationPresent(AutoIncrement.class);
+
+        Type type = field.getGenericType();
+        Class<?> rawType = ObjectSerializer.getRawType(type);
+        if (rawType.isEnum() || ObjectSerializer.requiresBinarySerialization(rawType)) {
+            this.converter = null;
+            this.passThrough = false;
+        } else {
+            ObjectConverter<Object> found = ObjectSerializer.findConverter((Class<Object>) rawType);
+            this.converter = found != null ? JdbcObjectConverter.of(found) : null;
+            this.passThrough = converter == null;
+        }
+
+        String resolvedType;
+        try {
+            resolvedType = ObjectSerializer.getSqlType(type);
+        } catch (IllegalArgumentException e) {
+            // only needed for DDL, which reports the unsupported type itself
+            resolvedType = null;
+        }
+        this.sqlType = resolvedType;
+
+        this.kind = converter != null ? Kind.CONVERTED : Kind.of(field.getType());
+        try {
+            MethodHandle rawGetter = MethodHandles.lookup().unreflectGetter(field);
+            MethodHandle rawSetter = MethodHandles.lookup().unreflectSetter(field);
+            if (Modifier.isStatic(field.getModifiers())) {
+                rawGetter = MethodHandles.dropArguments(rawGetter, 0, Object.class);
+                rawSetter = MethodHandles.dropArguments(rawSetter, 0, Object.class);
+            }
+
+            Class<?> slot = kind.primitive != null ? kind.primitive : Object.class;
+            this.getter = rawGetter.asType(MethodType.methodType(slot, Object.class));
+            this.setter = rawSetter.asType(MethodType.methodType(void.class, Object.class, slot));
+            this.objectGetter = rawGetter.asType(MethodType.methodType(Object.class, Object.class));
+        } catch (IllegalAccessException e) {
+            throw new SerializationException("Failed to access field " + field.getName(), e);
+        }
+    }
+
+    /**
+     * @return the column name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the backing field
+     */
+    public Field getField() {
+        return field;
+    }
+
+    /**
+     * @return the {@code @Column} annotation of the field
+     */
+    public Column getColumn() {
+        return column;
+    }
+
+    /**
+     * @return {@code true} if the field is annotated with {@code @PrimaryKey}
+     */
+    public boolean isPrimaryKey() {
+        return primaryKey;
+    }
+
+    /**
+     * @return {@code true} if the field is annotated with {@code @AutoIncrement}
+     */
+    public boolean isAutoIncrement() {
+        return autoIncrement;
+    }
+
+    /**
+     * @return the SQL type used in DDL
+     * @throws IllegalArgumentException if the field type has no SQL mapping
+     */
+    public String getSqlType() {
+        if (sqlType == null) {
+            return ObjectSerializer.getSqlType(field.getGenericType());
+        }
+        return sqlType;
+    }
+
+    /**
+     * Read the field without converting it.
+     *
+     * @param entity the entity instance
+     * @return the field value
+     */
+    public @Nullable Object get(Object entity) {
+        try {
+            return (Object) objectGetter.invokeExact(entity);
+        } catch (Throwable t) {
+            throw new SerializationException("Failed to access field " + field.getName(), t);
+        }
+    }
+
+    /**
+     * Convert a value of the field's type to the value bound to the statement, e.g. for a key lookup.
+     *
+     * @param value the field value
+     * @return the database value
+     */
+    public @Nullable Object toDatabaseValue(@Nullable Object value) {
+        return convert(value);
+    }
+
+    /**
+     * Read the field and convert it to the value bound to the statement.
+     *
+     * @param entity the entity instance
+     * @return the database value
+     */
+    public @Nullable Object toDatabase(Object entity) {
+        return convert(get(entity));
+    }
+
+    private @Nullable Object convert(@Nullable Object value) {
+        if (value == null || passThrough) {
+            return value;
+        }
+
+        if (converter != null) {
+            return converter.convertBack(value);
+        }
+
+        return ObjectSerializer.convertBack(value, field.getGenericType());
+    }
+
+    /**
+     * Read the column at {@code index} and store it in the field of {@code target}.
+     * Primitive and wrapper columns are read as SQL {@code 0}/{@code false} when NULL; other fields keep their
+     * initial value.
+     */
+    void read(ResultSet set, int index, Object target) throws SQLException {
+        try {
+            switch (kind) {
+                case INT -> setter.invokeExact(target, set.getInt(index));
+                case LONG -> setter.invokeExact(target, set.getLong(index));
+                case BOOLEAN -> setter.invokeExact(target, set.getBoolean(index));
+                case DOUBLE -> setter.invokeExact(target, set.getDouble(index));
+                case FLOAT -> setter.invokeExact(target, set.getFloat(index));
+                case INTEGER_BOX -> setter.invokeExact(target, (Object) set.getInt(index));
+                case LONG_BOX -> setter.invokeExact(target, (Object) set.getLong(index));
+                case BOOLEAN_BOX -> setter.invokeExact(target, (Object) set.getBoolean(index));
+                case DOUBLE_BOX -> setter.invokeExact(target, (Object) set.getDouble(index));
+                case FLOAT_BOX -> setter.invokeExact(target, (Object) set.getFloat(index));
+                case STRING -> {
+                    String value = set.getString(index);
+                    if (value != null) {
+                        setter.invokeExact(target, (Object) value);
+                    }
+                }
+                case CONVERTED -> {
+                    Object value = converter.read(set, index);
+                    if (value != null) {
+                        setter.invokeExact(target, value);
+                    }
+                }
+                case OTHER -> {
+                    Object value = ObjectSerializer.readValue(set, index, field.getGenericType());
+                    if (value != null) {
+                        setter.invokeExact(target, value);
+                    }
+                }
+            }
+        } catch (SQLException | RuntimeException e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new SerializationException("Failed to set field " + field.getName(), t);
+        }
+    }
+
+    /**
+     * Write the field of {@code source} to parameter {@code index} of the statement.
+     */
+    void bind(PreparedStatement stmt, int index, Object source) throws SQLException {
+        try {
+            switch (kind) {
+                case INT -> stmt.setInt(index, (int) getter.invokeExact(source));
+                case LONG -> stmt.setLong(index, (long) getter.invokeExact(source));
+                case BOOLEAN -> stmt.setBoolean(index, (boolean) getter.invokeExact(source));
+                case DOUBLE -> stmt.setDouble(index, (double) getter.invokeExact(source));
+                case FLOAT -> stmt.setFloat(index, (float) getter.invokeExact(source));
+                case STRING -> stmt.setString(index, (String) (Object) getter.invokeExact(source));
+                case CONVERTED -> {
+                    Object value = (Object) getter.invokeExact(source);
+                    if (value == null) {
+                        converter.writeNull(stmt, index);
+                    } else {
+                        converter.write(stmt, index, value);
+                    }
+                }
+                default -> stmt.setObject(index, convert((Object) getter.invokeExact(source)));
+            }
+        } catch (SQLException | RuntimeException e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new SerializationException("Failed to access field " + field.getName(), t);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    private enum Kind {
+        INT(int.class),
+        LONG(long.class),
+        BOOLEAN(boolean.class),
+        DOUBLE(double.class),
+        FLOAT(float.class),
+        INTEGER_BOX(null),
+        LONG_BOX(null),
+        BOOLEAN_BOX(null),
+        DOUBLE_BOX(null),
+        FLOAT_BOX(null),
+        STRING(null),
+        CONVERTED(null),
+        OTHER(null);
+
+        private final @Nullable Class<?> primitive;
+
+        Kind(@Nullable Class<?> primitive) {
+            this.primitive = primitive;
+        }
+
+        static Kind of(Class<?> type) {
+            if (type == int.class) return INT;
+            if (type == long.class) return LONG;
+            if (type == boolean.class) return BOOLEAN;
+            if (type == double.class) return DOUBLE;
+            if (type == float.class) return FLOAT;
+            if (type == Integer.class) return INTEGER_BOX;
+            if (type == Long.class) return LONG_BOX;
+            if (type == Boolean.class) return BOOLEAN_BOX;
+            if (type == Double.class) return DOUBLE_BOX;
+            if (type == Float.class) return FLOAT_BOX;
+            if (type == String.class) return STRING;
+            return OTHER;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package io.github.lijinhong11.mdatabase.serialization;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+final class ColumnRowBinder<T> implements RowBinder<T> {
+    private final ColumnMetadata[] columns;
+
+    ColumnRowBinder(List<ColumnMetadata> columns) {
+        this.columns = columns.toArray(new ColumnMetadata[0]);
+    }
+
+    @Override
+    public int bind(PreparedStatement stmt, int index, T object) throws SQLException {
+        for (ColumnMetadata column : columns) {
+            column.bind(stmt, index++, object);
+        }
+        return index;
+    }
+}
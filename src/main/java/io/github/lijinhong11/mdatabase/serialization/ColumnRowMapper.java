@@ -0,0 +1,31 @@
+package io.github.lijinhong11.mdatabase.serialization;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+final class ColumnRowMapper<T> implements RowMapper<T> {
+    private final EntityMetadata metadata;
+    private final ColumnMetadata[] columns;
+    private final int[] indexes;
+
+    ColumnRowMapper(EntityMetadata metadata, ColumnMetadata[] columns, int[] indexes) {
+        this.metadata = metadata;
+        this.columns = columns;
+        this.indexes = indexes;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T map(ResultSet set) throws SQLException {
+        Object object = metadata.newInstance();
+        for (int i = 0; i < columns.length; i++) {
+            columns[i].read(set, indexes[i], object);
+        }
+
+        ChangeTracker tracker = metadata.getChangeTracker();
+        if (tracker != null) {
+            tracker.capture(object);
+        }
+        return (T) object;
+    }
+}
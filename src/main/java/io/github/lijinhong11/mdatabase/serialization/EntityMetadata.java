@@ -0,0 +1,619 @@
+package io.github.lijinhong11.mdatabase.serialization;
+
+import io.github.lijinhong11.mdatabase.enums.DatabaseType;
+import io.github.lijinhong11.mdatabase.exceptions.SerializationException;
+import io.github.lijinhong11.mdatabase.serialization.annotations.AutoMigrate;
+import io.github.lijinhong11.mdatabase.serialization.annotations.Column;
+import io.github.lijinhong11.mdatabase.serialization.annotations.Table;
+import io.github.lijinhong11.mdatabase.serialization.annotations.TrackChanges;
+import io.github.lijinhong11.mdatabase.sql.conditions.Condition;
+import io.github.lijinhong11.mdatabase.sql.conditions.Conditions;
+import io.github.lijinhong11.mdatabase.sql.sentence.InsertSQL;
+import io.github.lijinhong11.mdatabase.sql.sentence.SQL;
+import io.github.lijinhong11.mdatabase.sql.sentence.UpdateSQL;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Everything the CRUD methods need to know about an entity class, resolved once per class:
+ * table name, ordered columns, key columns, converters, SQL types and the rendered
+ * INSERT/UPSERT/UPDATE statements per database type.
+ * <p>
+ * Instances are held in a {@link ClassValue}, so entity classes loaded by a plugin classloader
+ * can still be unloaded. Converters are resolved when the metadata is built; register custom
+ * converters before the entity class is first used.
+ * <pre>{@code
+ * EntityMetadata meta = EntityMetadata.of(User.class);
+ * String sql = meta.getInsertSql(DatabaseType.SQLITE);
+ * }</pre>
+ */
+public final class EntityMetadata {
+    private static final ClassValue<EntityMetadata> REGISTRY = new ClassValue<>() {
+        @Override
+        protected EntityMetadata computeValue(Class<?> type) {
+            return new EntityMetadata(type);
+        }
+    };
+
+    private final Class<?> type;
+    private final @Nullable Table table;
+    private final List<ColumnMetadata> columns;
+    private final List<ColumnMetadata> keyColumns;
+    private final List<ColumnMetadata> valueColumns;
+    private final List<ColumnMetadata> insertColumns;
+    private final List<ColumnMetadata> generatedColumns;
+    private final Map<String, ColumnMetadata> columnsByName;
+    private final @Nullable MethodHandle constructor;
+    private final RowBinder<?> rowBinder;
+    private final RowBinder<?> insertBinder;
+    private final RowBinder<?> updateBinder;
+    private final RowBinder<?> updateByKeyBinder;
+
+    private final String[] insertSql = new String[DatabaseType.values().length];
+    private final String[] upsertSql = new String[DatabaseType.values().length];
+    private final String[] updateSql = new String[DatabaseType.values().length];
+    private final String[] updateByKeySql = new String[DatabaseType.values().length];
+    private final String[] insertIgnoreSql = new String[DatabaseType.values().length];
+    private final String[] insertReturningSql = new String[DatabaseType.values().length];
+    private final Map<RowsKey, String> multiRowInsertSql = new ConcurrentHashMap<>();
+    private final Map<PartialKey, String> partialUpdateSql = new ConcurrentHashMap<>();
+    private final Map<PartialKey, RowBinder<?>> partialUpdateBinders = new ConcurrentHashMap<>();
+    private final @Nullable ChangeTracker changeTracker;
+
+    private EntityMetadata(Class<?> type) {
+        this.type = type;
+        this.table = type.getAnnotation(Table.class);
+
+        List<ColumnMetadata> columns = new ArrayList<>();
+        List<ColumnMetadata> keyColumns = new ArrayList<>();
+        List<ColumnMetadata> valueColumns = new ArrayList<>();
+        Map<String, ColumnMetadata> columnsByName = new LinkedHashMap<>();
+        for (Field field : ObjectSerializer.getAllFields(type)) {
+            if (!field.isAnnotationPresent(Column.class)) {
+                continue;
+            }
+
+            ColumnMetadata column = new ColumnMetadata(field);
+            columns.add(column);
+            (column.isPrimaryKey() ? keyColumns : valueColumns).add(column);
+            columnsByName.put(column.getName(), column);
+        }
+
+        this.columns = Collections.unmodifiableList(columns);
+        this.keyColumns = Collections.unmodifiableList(keyColumns);
+        this.valueColumns = Collections.unmodifiableList(valueColumns);
+        this.insertColumns = columns.stream().filter(column -> !column.isAutoIncrement()).toList();
+        this.generatedColumns = columns.stream().filter(ColumnMetadata::isAutoIncrement).toList();
+        this.columnsByName = Collections.unmodifiableMap(columnsByName);
+        this.constructor = findConstructor(type);
+
+        List<ColumnMetadata> updateByKey = new ArrayList<>(valueColumns);
+        updateByKey.addAll(keyColumns);
+        this.rowBinder = new ColumnRowBinder<>(columns);
+        this.insertBinder = new ColumnRowBinder<>(insertColumns);
+        this.updateBinder = new ColumnRowBinder<>(valueColumns);
+        this.updateByKeyBinder = new ColumnRowBinder<>(updateByKey);
+        this.changeTracker = type.isAnnotationPresent(TrackChanges.class) ? new ChangeTracker(this.valueColumns) : null;
+    }
+
+    private static @Nullable MethodHandle findConstructor(Class<?> type) {
+        try {
+            Constructor<?> constructor = type.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            return MethodHandles.lookup().unreflectConstructor(constructor)
+                    .asType(MethodType.methodType(Object.class));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // reported by newInstance() when the class is actually mapped
+            return null;
+        }
+    }
+
+    /**
+     * Return the metadata of an entity class, building it on first use.
+     *
+     * @param type the entity class
+     * @return the metadata
+     * @throws IllegalArgumentException if the class is not annotated with {@code @Table}
+     */
+    public static EntityMetadata of(Class<?> type) {
+        if (!type.isAnnotationPresent(Table.class)) {
+            throw new IllegalArgumentException("the class must be annotated with @Table");
+        }
+        return REGISTRY.get(type);
+    }
+
+    /**
+     * Metadata of any class with {@code @Column} fields, including nested objects without {@code @Table}.
+     */
+    static EntityMetadata forClass(Class<?> type) {
+        return REGISTRY.get(type);
+    }
+
+    /**
+     * Create an instance through the no-argument constructor.
+     *
+     * @return a new instance of the entity class
+     * @throws SerializationException if the class has no usable no-argument constructor
+     */
+    public Object newInstance() {
+        if (constructor == null) {
+            throw new SerializationException("No accessible no-argument constructor in " + type.getName());
+        }
+
+        try {
+            return (Object) constructor.invokeExact();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new SerializationException("Failed to instantiate " + type.getName(), t);
+        }
+    }
+
+    /**
+     * @return the entity class
+     */
+    public Class<?> getType() {
+        return type;
+    }
+
+    /**
+     * @return the {@code @Table} annotation of the class
+     */
+    public Table getTable() {
+        if (table == null) {
+            throw new IllegalArgumentException("the class must be annotated with @Table");
+        }
+        return table;
+    }
+
+    /**
+     * @return the table name from {@code @Table}
+     * @throws IllegalArgumentException if the class has no {@code @Table} or the table name is blank
+     */
+    public String getTableName() {
+        Table table = getTable();
+        if (Objects.isNull(table.name()) || table.name().isBlank()) {
+            throw new IllegalArgumentException("the table name cannot be empty");
+        }
+        return table.name();
+    }
+
+    /**
+     * @return all columns in declaration order
+     */
+    public List<ColumnMetadata> getColumns() {
+        return columns;
+    }
+
+    /**
+     * @return the {@code @PrimaryKey} columns in declaration order
+     */
+    public List<ColumnMetadata> getKeyColumns() {
+        return keyColumns;
+    }
+
+    /**
+     * @return the columns that are not part of the primary key, in declaration order
+     */
+    public List<ColumnMetadata> getValueColumns() {
+        return valueColumns;
+    }
+
+    /**
+     * @return the columns written by a plain insert: every column except {@code @AutoIncrement} ones
+     */
+    public List<ColumnMetadata> getInsertColumns() {
+        return insertColumns;
+    }
+
+    /**
+     * @return the {@code @AutoIncrement} columns, whose values the database generates on insert
+     */
+    public List<ColumnMetadata> getGeneratedColumns() {
+        return generatedColumns;
+    }
+
+    /**
+     * @param name the column name
+     * @return the column, or {@code null} if the class has no such column
+     */
+    public @Nullable ColumnMetadata getColumn(String name) {
+        return columnsByName.get(name);
+    }
+
+    /**
+     * @param <T> the entity type
+     * @return a binder writing {@link #getColumns()} in order, matching {@link #getUpsertSql(DatabaseType)}
+     */
+    @SuppressWarnings("unchecked")
+    public <T> RowBinder<T> getRowBinder() {
+        return (RowBinder<T>) rowBinder;
+    }
+
+    /**
+     * @param <T> the entity type
+     * @return a binder writing {@link #getInsertColumns()} in order, matching {@link #getInsertSql(DatabaseType)}
+     */
+    @SuppressWarnings("unchecked")
+    public <T> RowBinder<T> getInsertBinder() {
+        return (RowBinder<T>) insertBinder;
+    }
+
+    /**
+     * Store the generated values of one inserted row in the entity. The result set holds
+     * {@link #getGeneratedColumns()} in order, as produced by {@link #getInsertReturningSql(DatabaseType, int)}
+     * or {@link java.sql.Statement#getGeneratedKeys()}.
+     *
+     * @param keys   the result set positioned on the row
+     * @param entity the entity that row was inserted from
+     * @throws SQLException if reading a column fails
+     */
+    public void readGeneratedKeys(ResultSet keys, Object entity) throws SQLException {
+        int count = Math.min(generatedColumns.size(), keys.getMetaData().getColumnCount());
+        for (int i = 0; i < count; i++) {
+            generatedColumns.get(i).read(keys, i + 1, entity);
+        }
+    }
+
+    /**
+     * @param <T> the entity type
+     * @return a binder writing {@link #getValueColumns()} in order, matching {@link #getUpdateSql(DatabaseType)}
+     */
+    @SuppressWarnings("unchecked")
+    public <T> RowBinder<T> getUpdateBinder() {
+        return (RowBinder<T>) updateBinder;
+    }
+
+    /**
+     * @param <T> the entity type
+     * @return a binder writing the value columns and then the key columns, matching {@link #getUpdateByKeySql(DatabaseType)}
+     */
+    @SuppressWarnings("unchecked")
+    public <T> RowBinder<T> getUpdateByKeyBinder() {
+        return (RowBinder<T>) updateByKeyBinder;
+    }
+
+    /**
+     * Like {@link #getUpdateBinder()}, restricted to some value columns.
+     *
+     * @param <T>     the entity type
+     * @param columns the indexes in {@link #getValueColumns()} of the columns to write
+     * @return a binder matching {@link #getUpdateSql(DatabaseType, BitSet)}
+     */
+    @SuppressWarnings("unchecked")
+    public <T> RowBinder<T> getUpdateBinder(BitSet columns) {
+        return (RowBinder<T>) partialUpdateBinders.computeIfAbsent(new PartialKey(null, (BitSet) columns.clone(), false),
+                key -> new ColumnRowBinder<>(selectValueColumns(key.columns())));
+    }
+
+    /**
+     * Like {@link #getUpdateByKeyBinder()}, restricted to some value columns.
+     *
+     * @param <T>     the entity type
+     * @param columns the indexes in {@link #getValueColumns()} of the columns to write
+     * @return a binder matching {@link #getUpdateByKeySql(DatabaseType, BitSet)}
+     */
+    @SuppressWarnings("unchecked")
+    public <T> RowBinder<T> getUpdateByKeyBinder(BitSet columns) {
+        return (RowBinder<T>) partialUpdateBinders.computeIfAbsent(new PartialKey(null, (BitSet) columns.clone(), true), key -> {
+            List<ColumnMetadata> bound = new ArrayList<>(selectValueColumns(key.columns()));
+            bound.addAll(keyColumns);
+            return new ColumnRowBinder<>(bound);
+        });
+    }
+
+    /**
+     * @return the snapshots of loaded objects if the class is annotated with {@code @TrackChanges}, otherwise {@code null}
+     */
+    public @Nullable ChangeTracker getChangeTracker() {
+        return changeTracker;
+    }
+
+    /**
+     * @return {@code true} if the class is annotated with {@code @AutoMigrate}
+     */
+    public boolean isAutoMigrate() {
+        return type.isAnnotationPresent(AutoMigrate.class);
+    }
+
+    /**
+     * @return {@code true} if auto migration may drop columns
+     */
+    public boolean isDropOnMigrate() {
+        return isAutoMigrate() && type.getAnnotation(AutoMigrate.class).drop();
+    }
+
+    /**
+     * Render {@code INSERT INTO table (columns...) VALUES (?...)}, binding {@link #getInsertColumns()} in order.
+     *
+     * @param databaseType the database type
+     * @return the SQL text
+     */
+    public String getInsertSql(DatabaseType databaseType) {
+        String sql = insertSql[databaseType.ordinal()];
+        if (sql == null) {
+            sql = renderInsert(InsertKind.INSERT, databaseType, 1);
+            insertSql[databaseType.ordinal()] = sql;
+        }
+        return sql;
+    }
+
+    /**
+     * Render {@code INSERT INTO table (columns...) VALUES (?...), (?...), ...} with the given number of rows,
+     * binding {@link #getInsertColumns()} once per row. Rendered statements are kept per row count.
+     *
+     * @param databaseType the database type
+     * @param rows         the number of rows, at least 1
+     * @return the SQL text
+     */
+    public String getInsertSql(DatabaseType databaseType, int rows) {
+        return rows == 1 ? getInsertSql(databaseType) : getMultiRowSql(InsertKind.INSERT, databaseType, rows);
+    }
+
+    /**
+     * Render {@link #getInsertSql(DatabaseType, int)} followed by {@code RETURNING} the {@link #getGeneratedColumns()}.
+     * Only valid on databases supporting {@code RETURNING}.
+     *
+     * @param databaseType the database type
+     * @param rows         the number of rows, at least 1
+     * @return the SQL text
+     */
+    public String getInsertReturningSql(DatabaseType databaseType, int rows) {
+        if (rows != 1) {
+            return getMultiRowSql(InsertKind.INSERT_RETURNING, databaseType, rows);
+        }
+
+        String sql = insertReturningSql[databaseType.ordinal()];
+        if (sql == null) {
+            sql = renderInsert(InsertKind.INSERT_RETURNING, databaseType, 1);
+            insertReturningSql[databaseType.ordinal()] = sql;
+        }
+        return sql;
+    }
+
+    /**
+     * Render the dialect's upsert, binding {@link #getColumns()} in order.
+     *
+     * @param databaseType the database type
+     * @return the SQL text
+     * @throws IllegalStateException if the database needs conflict keys and the class has no {@code @PrimaryKey}
+     */
+    public String getUpsertSql(DatabaseType databaseType) {
+        String sql = upsertSql[databaseType.ordinal()];
+        if (sql == null) {
+            sql = renderInsert(InsertKind.UPSERT, databaseType, 1);
+            upsertSql[databaseType.ordinal()] = sql;
+        }
+        return sql;
+    }
+
+    /**
+     * Render the dialect's upsert with the given number of rows, binding {@link #getColumns()} once per row.
+     *
+     * @param databaseType the database type
+     * @param rows         the number of rows, at least 1
+     * @return the SQL text
+     * @throws IllegalStateException if the database needs conflict keys and the class has no {@code @PrimaryKey}
+     */
+    public String getUpsertSql(DatabaseType databaseType, int rows) {
+        return rows == 1 ? getUpsertSql(databaseType) : getMultiRowSql(InsertKind.UPSERT, databaseType, rows);
+    }
+
+    /**
+     * Render an insert that skips rows conflicting with an existing key ({@code INSERT IGNORE} on MySQL/MariaDB,
+     * {@code ON CONFLICT DO NOTHING} elsewhere), binding {@link #getColumns()} in order.
+     *
+     * @param databaseType the database type
+     * @return the SQL text
+     */
+    public String getInsertIgnoreSql(DatabaseType databaseType) {
+        String sql = insertIgnoreSql[databaseType.ordinal()];
+        if (sql == null) {
+            sql = renderInsert(InsertKind.IGNORE, databaseType, 1);
+            insertIgnoreSql[databaseType.ordinal()] = sql;
+        }
+        return sql;
+    }
+
+    /**
+     * Render {@link #getInsertIgnoreSql(DatabaseType)} with the given number of rows, binding {@link #getColumns()} once per row.
+     *
+     * @param databaseType the database type
+     * @param rows         the number of rows, at least 1
+     * @return the SQL text
+     */
+    public String getInsertIgnoreSql(DatabaseType databaseType, int rows) {
+        return rows == 1 ? getInsertIgnoreSql(databaseType) : getMultiRowSql(InsertKind.IGNORE, databaseType, rows);
+    }
+
+    /**
+     * Render {@code UPDATE table SET value columns = ?...} without a WHERE clause,
+     * binding {@link #getValueColumns()} in order.
+     *
+     * @param databaseType the database type
+     * @return the SQL text
+     */
+    public String getUpdateSql(DatabaseType databaseType) {
+        String sql = updateSql[databaseType.ordinal()];
+        if (sql == null) {
+            sql = renderUpdate(valueColumns, null, databaseType);
+            updateSql[databaseType.ordinal()] = sql;
+        }
+        return sql;
+    }
+
+    /**
+     * Render {@code UPDATE table SET columns = ?...} for some value columns, without a WHERE clause.
+     *
+     * @param databaseType the database type
+     * @param columns      the indexes in {@link #getValueColumns()} of the columns to write; not empty
+     * @return the SQL text
+     */
+    public String getUpdateSql(DatabaseType databaseType, BitSet columns) {
+        return partialUpdateSql.computeIfAbsent(new PartialKey(databaseType, (BitSet) columns.clone(), false),
+                key -> renderUpdate(selectValueColumns(key.columns()), null, databaseType));
+    }
+
+    /**
+     * Render an UPDATE of some value columns identified by the primary key.
+     *
+     * @param databaseType the database type
+     * @param columns      the indexes in {@link #getValueColumns()} of the columns to write; not empty
+     * @return the SQL text
+     * @throws IllegalStateException if the class has no {@code @PrimaryKey}
+     */
+    public String getUpdateByKeySql(DatabaseType databaseType, BitSet columns) {
+        return partialUpdateSql.computeIfAbsent(new PartialKey(databaseType, (BitSet) columns.clone(), true),
+                key -> renderUpdate(selectValueColumns(key.columns()), keyCondition(), databaseType));
+    }
+
+    private List<ColumnMetadata> selectValueColumns(BitSet columns) {
+        if (columns.isEmpty()) {
+            throw new IllegalArgumentException("at least one column must be updated");
+        }
+
+        List<ColumnMetadata> selected = new ArrayList<>(columns.cardinality());
+        for (int i = columns.nextSetBit(0); i >= 0; i = columns.nextSetBit(i + 1)) {
+            selected.add(valueColumns.get(i));
+        }
+        return selected;
+    }
+
+    /**
+     * Render an UPDATE of the value columns identified by the primary key,
+     * binding {@link #getValueColumns()} and then {@link #getKeyColumns()}.
+     *
+     * @param databaseType the database type
+     * @return the SQL text
+     * @throws IllegalStateException if the class has no {@code @PrimaryKey}
+     */
+    public String getUpdateByKeySql(DatabaseType databaseType) {
+        String sql = updateByKeySql[databaseType.ordinal()];
+        if (sql == null) {
+            sql = renderUpdate(valueColumns, keyCondition(), databaseType);
+            updateByKeySql[databaseType.ordinal()] = sql;
+        }
+        return sql;
+    }
+
+    /**
+     * Whether a condition selects exactly the row of an object: {@code key = value} for each primary key column,
+     * AND-ed in {@code @PrimaryKey} order, with the object's field values or their database values.
+     *
+     * @param condition the condition
+     * @param entity    the entity instance
+     * @return {@code true} if the condition is the object's own key condition
+     */
+    public boolean isKeyCondition(Condition condition, Object entity) {
+        if (keyColumns.isEmpty()) {
+            return false;
+        }
+
+        return condition.equals(keyCondition(entity, false)) || condition.equals(keyCondition(entity, true));
+    }
+
+    private Condition keyCondition(Object entity, boolean converted) {
+        Condition[] keys = keyColumns.stream()
+                .map(column -> Conditions.eq(column.getName(), converted ? column.toDatabase(entity) : column.get(entity)))
+                .toArray(Condition[]::new);
+        return keys.length == 1 ? keys[0] : Conditions.and(keys);
+    }
+
+    private Condition keyCondition() {
+        if (keyColumns.isEmpty()) {
+            throw new IllegalStateException("No @PrimaryKey field found in " + type.getName());
+        }
+
+        Condition[] keys = keyColumns.stream()
+                .map(column -> Conditions.eq(column.getName(), null))
+                .toArray(Condition[]::new);
+        return keys.length == 1 ? keys[0] : Conditions.and(keys);
+    }
+
+    private String getMultiRowSql(InsertKind kind, DatabaseType databaseType, int rows) {
+        if (rows < 1) {
+            throw new IllegalArgumentException("rows must be at least 1");
+        }
+
+        return multiRowInsertSql.computeIfAbsent(new RowsKey(kind, databaseType, rows),
+                key -> renderInsert(key.kind(), key.type(), key.rows()));
+    }
+
+    private String renderInsert(InsertKind kind, DatabaseType databaseType, int rows) {
+        String[] keys = keyColumns.stream().map(ColumnMetadata::getName).toArray(String[]::new);
+        InsertSQL insert = switch (kind) {
+            case INSERT -> SQL.insert();
+            case INSERT_RETURNING -> SQL.insert().returning(generatedColumns.stream().map(ColumnMetadata::getName).toArray(String[]::new));
+            case UPSERT -> {
+                InsertSQL upsert = SQL.upsert();
+                if (databaseType == DatabaseType.SQLITE || databaseType == DatabaseType.POSTGRESQL) {
+                    if (keys.length == 0) {
+                        throw new IllegalStateException("Upsert requires at least one @PrimaryKey or @Column(primaryKey=true) in " + type.getName());
+                    }
+                    upsert.conflictKeys(keys);
+                }
+                yield upsert;
+            }
+            case IGNORE -> keys.length == 0 ? SQL.insertIgnore() : SQL.insertIgnore().conflictKeys(keys);
+        };
+
+        List<ColumnMetadata> written = kind == InsertKind.INSERT || kind == InsertKind.INSERT_RETURNING ? insertColumns : columns;
+        insert.into(getTableName());
+        for (int row = 0; row < rows; row++) {
+            if (row > 0) {
+                insert.nextRow();
+            }
+            for (ColumnMetadata column : written) {
+                insert.value(column.getName(), null);
+            }
+        }
+        return insert.compile(databaseType).getSql();
+    }
+
+    private String renderUpdate(List<ColumnMetadata> written, @Nullable Condition where, DatabaseType databaseType) {
+        UpdateSQL update = SQL.update().table(getTableName());
+        for (ColumnMetadata column : written) {
+            update.set(column.getName(), null);
+        }
+        if (where != null) {
+            update.where(where);
+        }
+        return update.compile(databaseType).getSql();
+    }
+
+    @Override
+    public String toString() {
+        return "EntityMetadata{" + type.getName() + " -> " + (table != null ? table.name() : null) + columns + '}';
+    }
+
+    private enum InsertKind {
+        INSERT,
+        INSERT_RETURNING,
+        UPSERT,
+        IGNORE
+    }
+
+    private record RowsKey(InsertKind kind, DatabaseType type, int rows) {
+    }
+
+    /**
+     * @param type {@code null} for binders, which do not depend on the database
+     */
+    private record PartialKey(@Nullable DatabaseType type, BitSet columns, boolean byKey) {
+    }
+}
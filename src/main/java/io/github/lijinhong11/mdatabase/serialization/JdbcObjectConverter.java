@@ -0,0 +1,84 @@
+package io.github.lijinhong11.mdatabase.serialization;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * An {@link ObjectConverter} that reads and writes JDBC values directly, avoiding
+ * {@link ResultSet#getObject(int)}, {@link PreparedStatement#setObject(int, Object)} and the boxing
+ * and driver-side type guessing that come with them.
+ * <pre>{@code
+ * public class InstantConverter implements JdbcObjectConverter<Instant> {
+ *     public Instant read(ResultSet set, int index) throws SQLException {
+ *         long millis = set.getLong(index);
+ *         return set.wasNull() ? null : Instant.ofEpochMilli(millis);
+ *     }
+ *
+ *     public void write(PreparedStatement stmt, int index, Instant value) throws SQLException {
+ *         stmt.setLong(index, value.toEpochMilli());
+ *     }
+ *
+ *     public int getJdbcType() {
+ *         return Types.BIGINT;
+ *     }
+ *     ...
+ * }
+ * }</pre>
+ * Plain {@link ObjectConverter}s keep working through an adapter, see {@link #of(ObjectConverter)}.
+ *
+ * @param <T> the Java type
+ */
+public interface JdbcObjectConverter<T> extends ObjectConverter<T> {
+    /**
+     * Read the column at {@code index} of the current row.
+     *
+     * @param set   the result set
+     * @param index the column index
+     * @return the value, or {@code null} for SQL NULL
+     * @throws SQLException if reading fails
+     */
+    @Nullable T read(ResultSet set, int index) throws SQLException;
+
+    /**
+     * Write a non-null value to parameter {@code index}.
+     *
+     * @param stmt  the statement
+     * @param index the parameter index
+     * @param value the value
+     * @throws SQLException if writing fails
+     */
+    void write(PreparedStatement stmt, int index, T value) throws SQLException;
+
+    /**
+     * Write SQL NULL to parameter {@code index}. Defaults to {@code setNull(index, getJdbcType())}.
+     *
+     * @param stmt  the statement
+     * @param index the parameter index
+     * @throws SQLException if writing fails
+     */
+    default void writeNull(PreparedStatement stmt, int index) throws SQLException {
+        stmt.setNull(index, getJdbcType());
+    }
+
+    /**
+     * @return the {@link java.sql.Types} constant of the column
+     */
+    int getJdbcType();
+
+    /**
+     * View a plain converter as a JDBC converter going through {@code getObject}/{@code setObject}.
+     *
+     * @param <T>       the Java type
+     * @param converter the converter
+     * @return the converter itself if it already is a JDBC converter, otherwise an adapter
+     */
+    static <T> JdbcObjectConverter<T> of(ObjectConverter<T> converter) {
+        if (converter instanceof JdbcObjectConverter<T> jdbc) {
+            return jdbc;
+        }
+        return new ObjectConverterAdapter<>(converter);
+    }
+}
@@ -0,0 +1,51 @@
+package io.github.lijinhong11.mdatabase.serialization;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+
+final class ObjectConverterAdapter<T> implements JdbcObjectConverter<T> {
+    private final ObjectConverter<T> delegate;
+
+    ObjectConverterAdapter(ObjectConverter<T> delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public @Nullable T read(ResultSet set, int index) throws SQLException {
+        return delegate.convert(set.getObject(index));
+    }
+
+    @Override
+    public void write(PreparedStatement stmt, int index, T value) throws SQLException {
+        stmt.setObject(index, delegate.convertBack(value));
+    }
+
+    @Override
+    public void writeNull(PreparedStatement stmt, int index) throws SQLException {
+        stmt.setObject(index, null);
+    }
+
+    @Override
+    public int getJdbcType() {
+        return Types.JAVA_OBJECT;
+    }
+
+    @Override
+    public @Nullable T convert(@Nullable Object o) {
+        return delegate.convert(o);
+    }
+
+    @Override
+    public Object convertBack(T t) {
+        return delegate.convertBack(t);
+    }
+
+    @Override
+    public String getSqlType() {
+        return delegate.getSqlType();
+    }
+}
@@ -52,38 +52,109 @@ public class ObjectSerializer {
         CONVERTERS.put(clazz, converter);
     }
 
+    /**
+     * Map the current row of the result set to a new object.
+     *
+     * @param clazz the class to instantiate
+     * @param set   the result set positioned on a row
+     * @return the mapped object
+     */
     public static <T> T serializeOne(Class<T> clazz, ResultSet set) {
         try {
-            T obj = clazz.getDeclaredConstructor().newInstance();
-            for (Field field : getCachedFields(clazz)) {
-                try {
-                    setFieldValue(obj, field, set);
-                } catch (SQLException e) {
-                    if (!isColumnExists(set, getColumnName(field))) {
-                        continue;
-                    }
-
-                    throw new SerializationException("Failed to set field " + field.getName(), e);
-                }
-            }
-            return obj;
+            return getRowMapper(clazz, set).map(set);
         } catch (Exception e) {
             throw new InstantiationFailedException(clazz, e);
         }
     }
 
+    /**
+     * Map every remaining row of the result set, resolving the column layout once.
+     *
+     * @param clazz the class to instantiate
+     * @param set   the result set
+     * @return the mapped objects
+     */
     public static <T> List<T> serializeMulti(Class<T> clazz, ResultSet set) {
         List<T> list = new ArrayList<>();
         try {
+            RowMapper<T> mapper = null;
             while (set.next()) {
-                list.add(serializeOne(clazz, set));
+                if (mapper == null) {
+                    mapper = getRowMapper(clazz, set);
+                }
+                list.add(mapper.map(set));
             }
         } catch (SQLException e) {
             throw new SerializationException("Failed to serialize multiple objects", e);
+        } catch (SerializationException e) {
+            throw new InstantiationFailedException(clazz, e);
         }
         return list;
     }
 
+    /**
+     * Return a mapper from rows of the given result set to objects of the class.
+     * The column layout is resolved once from {@link ResultSetMetaData}; fields without a matching
+     * column are skipped. The mapper is only valid for result sets with the same columns.
+     *
+     * @param clazz the class to instantiate
+     * @param set   the result set the mapper will read
+     * @return the row mapper
+     * @throws SQLException if the result set metadata cannot be read
+     */
+    public static <T> RowMapper<T> getRowMapper(Class<T> clazz, ResultSet set) throws SQLException {
+        EntityMetadata metadata = EntityMetadata.forClass(clazz);
+        Map<String, Integer> columnIndexes = getColumnIndexes(set);
+
+        List<ColumnMetadata> columns = metadata.getColumns();
+        ColumnMetadata[] present = new ColumnMetadata[columns.size()];
+        int[] indexes = new int[columns.size()];
+        int count = 0;
+        for (ColumnMetadata column : columns) {
+            Integer index = columnIndexes.get(column.getName().toLowerCase(Locale.ROOT));
+            if (index != null) {
+                present[count] = column;
+                indexes[count] = index;
+                count++;
+            }
+        }
+
+        return new ColumnRowMapper<>(metadata, Arrays.copyOf(present, count), Arrays.copyOf(indexes, count));
+    }
+
+    /**
+     * Map lower-cased column labels (and names, for drivers without labels) to their first index,
+     * mirroring the case-insensitive first-match rule of {@link ResultSet#findColumn(String)}.
+     */
+    private static Map<String, Integer> getColumnIndexes(ResultSet set) throws SQLException {
+        ResultSetMetaData meta = set.getMetaData();
+        int columnCount = meta.getColumnCount();
+        Map<String, Integer> indexes = new HashMap<>(columnCount * 2);
+        for (int i = 1; i <= columnCount; i++) {
+            String label = meta.getColumnLabel(i);
+            if (label != null && !label.isEmpty()) {
+                indexes.putIfAbsent(label.toLowerCase(Locale.ROOT), i);
+            }
+        }
+        for (int i = 1; i <= columnCount; i++) {
+            String name = meta.getColumnName(i);
+            if (name != null && !name.isEmpty()) {
+                indexes.putIfAbsent(name.toLowerCase(Locale.ROOT), i);
+            }
+        }
+        return indexes;
+    }
+
+    /**
+     * Return a binder writing every {@code @Column} field of the class in declaration order.
+     *
+     * @param clazz the entity class
+     * @return the row binder
+     */
+    public static <T> RowBinder<T> getRowBinder(Class<T> clazz) {
+        return EntityMetadata.forClass(clazz).getRowBinder();
+    }
+
     public static <T> Object convertBack(T obj) {
         if (obj == null) {
             return null;
@@ -125,22 +196,6 @@ public class ObjectSerializer {
         }
     }
 
-    private static boolean isColumnExists(ResultSet set, String columnName) {
-        try {
-            return set.findColumn(columnName) > 0;
-        } catch (SQLException e) {
-            return false;
-        }
-    }
-
-    private static <T> void setFieldValue(T obj, Field field, ResultSet set) throws SQLException, IllegalAccessException {
-        String columnName = getColumnName(field);
-        Object value = getValueFromResultSet(set, columnName, field.getGenericType());
-        if (value != null) {
-            field.set(obj, value);
-        }
-    }
-
     @Nullable
     public static String getColumnName(Field field) {
         if (field.isAnnotationPresent(Column.class)) {
@@ -157,45 +212,45 @@ public class ObjectSerializer {
         return null;
     }
 
-    private static Object getValueFromResultSet(ResultSet set, String columnName, Type declaredType) throws SQLException {
+    static Object readValue(ResultSet set, int columnIndex, Type declaredType) throws SQLException {
         Class<?> type = getRawType(declaredType);
         if (type == String.class) {
-            return set.getString(columnName);
+            return set.getString(columnIndex);
         } else if (type == int.class || type == Integer.class) {
-            return set.getInt(columnName);
+            return set.getInt(columnIndex);
         } else if (type == long.class || type == Long.class) {
-            return set.getLong(columnName);
+            return set.getLong(columnIndex);
         } else if (type == boolean.class || type == Boolean.class) {
-            return set.getBoolean(columnName);
+            return set.getBoolean(columnIndex);
         } else if (type == double.class || type == Double.class) {
-            return set.getDouble(columnName);
+            return set.getDouble(columnIndex);
         } else if (type == float.class || type == Float.class) {
-            return set.getFloat(columnName);
+            return set.getFloat(columnIndex);
         } else if (type == Date.class) {
-            return set.getDate(columnName);
+            return set.getDate(columnIndex);
         } else if (type == Timestamp.class) {
-            return set.getTimestamp(columnName);
+            return set.getTimestamp(columnIndex);
         } else if (type == Time.class) {
-            return set.getTime(columnName);
+            return set.getTime(columnIndex);
         } else if (type == BigDecimal.class) {
-            return set.getBigDecimal(columnName);
+            return set.getBigDecimal(columnIndex);
         } else if (type == Blob.class) {
-            return set.getBlob(columnName);
+            return set.getBlob(columnIndex);
         } else if (type == Clob.class) {
-            return set.getClob(columnName);
+            return set.getClob(columnIndex);
         } else if (type == NClob.class) {
-            return set.getNClob(columnName);
+            return set.getNClob(columnIndex);
         } else if (type == byte[].class) {
-            return set.getBytes(columnName);
+            return set.getBytes(columnIndex);
         } else if (type.isEnum()) {
-            String value = set.getString(columnName);
+            String value = set.getString(columnIndex);
             return value != null ? Enum.valueOf((Class<? extends Enum>) type, value) : null;
         } else if (requiresBinarySerialization(type)) {
-            return denormalizeBinaryValue(fromBinary(set.getObject(columnName)), declaredType);
+            return denormalizeBinaryValue(fromBinary(set.getObject(columnIndex)), declaredType);
         } else {
             ObjectConverter<?> converter = findConverter(type);
             if (converter != null) {
-                return converter.convert(set.getObject(columnName));
+                return converter.convert(set.getObject(columnIndex));
             }
         }
 
@@ -485,7 +540,7 @@ public class ObjectSerializer {
         }
     }
 
-    private static boolean requiresBinarySerialization(Class<?> type) {
+    static boolean requiresBinarySerialization(Class<?> type) {
         return Collection.class.isAssignableFrom(type) || isMapType(type) || isCustomObjectType(type);
     }
 
@@ -524,7 +579,7 @@ public class ObjectSerializer {
         return Object.class;
     }
 
-    private static Class<?> getRawType(Type type) {
+    static Class<?> getRawType(Type type) {
         if (type instanceof Class<?> clazz) {
             return clazz;
         }
@@ -605,7 +660,7 @@ public class ObjectSerializer {
     }
 
     @Nullable
-    private static <T> ObjectConverter<T> findConverter(Class<T> clazz) {
+    static <T> ObjectConverter<T> findConverter(Class<T> clazz) {
         ObjectConverter<?> exactConverter = CONVERTERS.get(clazz);
         if (exactConverter != null) {
             return (ObjectConverter<T>) exactConverter;
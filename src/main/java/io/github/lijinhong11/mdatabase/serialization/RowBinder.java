@@ -0,0 +1,22 @@
+package io.github.lijinhong11.mdatabase.serialization;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Writes the fields of an object to consecutive parameters of a {@link PreparedStatement}.
+ * Obtain instances via {@link ObjectSerializer#getRowBinder(Class)} or {@link EntityMetadata}.
+ *
+ * @param <T> the bound type
+ */
+@FunctionalInterface
+public interface RowBinder<T> {
+    /**
+     * @param stmt   the statement
+     * @param index  the first parameter index to write
+     * @param object the object to read fields from
+     * @return the next free parameter index
+     * @throws SQLException if setting a parameter fails
+     */
+    int bind(PreparedStatement stmt, int index, T object) throws SQLException;
+}
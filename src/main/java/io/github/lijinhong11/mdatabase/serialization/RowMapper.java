@@ -0,0 +1,20 @@
+package io.github.lijinhong11.mdatabase.serialization;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps the current row of a {@link ResultSet} to a new object.
+ * Obtain instances via {@link ObjectSerializer#getRowMapper(Class, ResultSet)}.
+ *
+ * @param <T> the mapped type
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+    /**
+     * @param set the result set positioned on a row
+     * @return the mapped object
+     * @throws SQLException if reading the row fails
+     */
+    T map(ResultSet set) throws SQLException;
+}
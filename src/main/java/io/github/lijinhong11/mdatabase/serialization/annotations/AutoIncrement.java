@@ -7,7 +7,9 @@ import java.lang.annotation.Target;
 
 /**
  * Marks a numeric {@code @Column} field as auto-increment.
- * Applied to the {@code CREATE TABLE} statement. The field type must be a {@link Number} subclass.
+ * Applied to the {@code CREATE TABLE} statement. The field type must be an integral type ({@code int}, {@code long},
+ * {@code short} or their wrappers). Plain inserts leave the column out and write the generated value back
+ * into the field.
  */
 @Retention(RetentionPolicy.RUNTIME)
 @Target(ElementType.FIELD)
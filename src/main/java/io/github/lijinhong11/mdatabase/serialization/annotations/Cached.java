@@ -0,0 +1,45 @@
+package io.github.lijinhong11.mdatabase.serialization.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * When present on a {@code @Table} class, {@code findById} reads through a per-connection cache
+ * keyed by primary key. Writes made through the same connection's entity methods invalidate the
+ * affected entries; writes made with raw SQL or by other processes do not, so pick a {@link #ttlSeconds()}
+ * that bounds how stale an entry may get.
+ *
+ * <pre>{@code
+ * @Cached(maxEntries = 5000, ttlSeconds = 60)
+ * @Table(name = "profiles")
+ * public class Profile { ... }
+ * }</pre>
+ * Cached objects are shared between callers; treat them as read-only or write changes back
+ * through the connection.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Cached {
+    /**
+     * The maximum number of cached keys, including remembered misses.
+     *
+     * @return the maximum number of entries
+     */
+    int maxEntries() default 10_000;
+
+    /**
+     * How long an entry stays valid after it was loaded. {@code 0} keeps entries until they are evicted or invalidated.
+     *
+     * @return the time to live in seconds
+     */
+    long ttlSeconds() default 300;
+
+    /**
+     * Whether keys without a row are remembered too, so repeated lookups of absent keys skip the database.
+     *
+     * @return {@code true} to cache misses
+     */
+    boolean cacheAbsent() default true;
+}
@@ -0,0 +1,33 @@
+package io.github.lijinhong11.mdatabase.serialization.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * When present on a {@code @Table} class, loaded and saved objects remember the database values of their
+ * columns, and {@code updateObject}/{@code updateBatch} only SET the columns that changed since. Updates
+ * that change nothing are skipped entirely.
+ *
+ * <pre>{@code
+ * @TrackChanges
+ * @Table(name = "players")
+ * public class PlayerData { ... }
+ * }</pre>
+ *
+ * <h3>Limitations</h3>
+ * <ul>
+ *   <li>Snapshots hold a copy of every column value, including serialized BLOBs, for as long as the
+ *       object is reachable, and taking them serializes those columns once more on load.</li>
+ *   <li>Objects that were never loaded or saved, and objects saved in a transaction that was rolled back,
+ *       are updated in full.</li>
+ *   <li>Rows changed by raw SQL or other processes are not seen; an update only writes what changed in the object.
+ *       {@code updateObject} narrows the SET only when its condition is the object's own primary key condition;
+ *       any other condition writes every column.</li>
+ * </ul>
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface TrackChanges {
+}
@@ -1,11 +1,15 @@
 package io.github.lijinhong11.mdatabase.serialization.converters;
 
-import io.github.lijinhong11.mdatabase.serialization.ObjectConverter;
+import io.github.lijinhong11.mdatabase.serialization.JdbcObjectConverter;
 import org.jetbrains.annotations.Nullable;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
 import java.util.concurrent.atomic.AtomicBoolean;
 
-public class AtomicBooleanConverter implements ObjectConverter<AtomicBoolean> {
+public class AtomicBooleanConverter implements JdbcObjectConverter<AtomicBoolean> {
     @Override
     public @Nullable AtomicBoolean convert(@Nullable Object o) {
         if (o == null) {
@@ -32,4 +36,20 @@ public class AtomicBooleanConverter implements ObjectConverter<AtomicBoolean> {
     public String getSqlType() {
         return "BOOLEAN";
     }
+
+    @Override
+    public @Nullable AtomicBoolean read(ResultSet set, int index) throws SQLException {
+        boolean value = set.getBoolean(index);
+        return set.wasNull() ? null : new AtomicBoolean(value);
+    }
+
+    @Override
+    public void write(PreparedStatement stmt, int index, AtomicBoolean value) throws SQLException {
+        stmt.setBoolean(index, value.get());
+    }
+
+    @Override
+    public int getJdbcType() {
+        return Types.BOOLEAN;
+    }
 }
@@ -1,11 +1,15 @@
 package io.github.lijinhong11.mdatabase.serialization.converters;
 
-import io.github.lijinhong11.mdatabase.serialization.ObjectConverter;
+import io.github.lijinhong11.mdatabase.serialization.JdbcObjectConverter;
 import org.jetbrains.annotations.Nullable;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
 import java.util.concurrent.atomic.AtomicInteger;
 
-public class AtomicIntegerConverter implements ObjectConverter<AtomicInteger> {
+public class AtomicIntegerConverter implements JdbcObjectConverter<AtomicInteger> {
     @Override
     public @Nullable AtomicInteger convert(@Nullable Object o) {
         if (o == null) {
@@ -28,4 +32,20 @@ public class AtomicIntegerConverter implements ObjectConverter<AtomicInteger> {
     public String getSqlType() {
         return "INTEGER";
     }
+
+    @Override
+    public @Nullable AtomicInteger read(ResultSet set, int index) throws SQLException {
+        int value = set.getInt(index);
+        return set.wasNull() ? null : new AtomicInteger(value);
+    }
+
+    @Override
+    public void write(PreparedStatement stmt, int index, AtomicInteger value) throws SQLException {
+        stmt.setInt(index, value.get());
+    }
+
+    @Override
+    public int getJdbcType() {
+        return Types.INTEGER;
+    }
 }
@@ -1,11 +1,15 @@
 package io.github.lijinhong11.mdatabase.serialization.converters;
 
-import io.github.lijinhong11.mdatabase.serialization.ObjectConverter;
+import io.github.lijinhong11.mdatabase.serialization.JdbcObjectConverter;
 import org.jetbrains.annotations.Nullable;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
 import java.util.concurrent.atomic.AtomicLong;
 
-public class AtomicLongConverter implements ObjectConverter<AtomicLong> {
+public class AtomicLongConverter implements JdbcObjectConverter<AtomicLong> {
     @Override
     public @Nullable AtomicLong convert(@Nullable Object o) {
         if (o == null) {
@@ -28,4 +32,20 @@ public class AtomicLongConverter implements ObjectConverter<AtomicLong> {
     public String getSqlType() {
         return "BIGINT";
     }
+
+    @Override
+    public @Nullable AtomicLong read(ResultSet set, int index) throws SQLException {
+        long value = set.getLong(index);
+        return set.wasNull() ? null : new AtomicLong(value);
+    }
+
+    @Override
+    public void write(PreparedStatement stmt, int index, AtomicLong value) throws SQLException {
+        stmt.setLong(index, value.get());
+    }
+
+    @Override
+    public int getJdbcType() {
+        return Types.BIGINT;
+    }
 }
@@ -1,11 +1,15 @@
 package io.github.lijinhong11.mdatabase.serialization.converters;
 
-import io.github.lijinhong11.mdatabase.serialization.ObjectConverter;
+import io.github.lijinhong11.mdatabase.serialization.JdbcObjectConverter;
 import org.jetbrains.annotations.Nullable;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
 import java.util.UUID;
 
-public class UUIDConverter implements ObjectConverter<UUID> {
+public class UUIDConverter implements JdbcObjectConverter<UUID> {
     @Override
     public UUID convert(@Nullable Object o) {
         if (o instanceof String s) {
@@ -28,4 +32,20 @@ public class UUIDConverter implements ObjectConverter<UUID> {
     public String getSqlType() {
         return "TEXT";
     }
+
+    @Override
+    public @Nullable UUID read(ResultSet set, int index) throws SQLException {
+        String value = set.getString(index);
+        return value != null ? UUID.fromString(value) : null;
+    }
+
+    @Override
+    public void write(PreparedStatement stmt, int index, UUID value) throws SQLException {
+        stmt.setString(index, value.toString());
+    }
+
+    @Override
+    public int getJdbcType() {
+        return Types.VARCHAR;
+    }
 }
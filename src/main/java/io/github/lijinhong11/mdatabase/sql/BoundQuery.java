@@ -0,0 +1,59 @@
+package io.github.lijinhong11.mdatabase.sql;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A {@link CompiledQuery} together with the values for one execution.
+ * Created via {@link CompiledQuery#bind(Object...)} or {@link CompiledQuery#bind(java.util.Map)}.
+ */
+public final class BoundQuery {
+    private final CompiledQuery query;
+    private final Object[] values;
+
+    BoundQuery(CompiledQuery query, Object[] values) {
+        this.query = query;
+        this.values = values;
+    }
+
+    /**
+     * @return the compiled query
+     */
+    public CompiledQuery getQuery() {
+        return query;
+    }
+
+    /**
+     * @return the values in placeholder order
+     */
+    public List<Object> getParameters() {
+        return Collections.unmodifiableList(Arrays.asList(values));
+    }
+
+    /**
+     * Lease a statement for the query and bind the values.
+     * The returned statement must be handed back via {@link StatementCache#release(PreparedStatement)}.
+     *
+     * @param statements the statement cache of the connection
+     * @return a PreparedStatement with parameters set
+     * @throws SQLException if a database access error occurs
+     */
+    public PreparedStatement build(StatementCache statements) throws SQLException {
+        PreparedStatement stmt = query.isCacheable()
+                ? statements.prepare(query.getSql())
+                : statements.getConnection().prepareStatement(query.getSql());
+        try {
+            for (int i = 0; i < values.length; i++) {
+                stmt.setObject(i + 1, values[i]);
+            }
+        } catch (SQLException e) {
+            statements.release(stmt);
+            throw e;
+        }
+
+        return stmt;
+    }
+}
@@ -0,0 +1,154 @@
+package io.github.lijinhong11.mdatabase.sql;
+
+import io.github.lijinhong11.mdatabase.enums.DatabaseType;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An immutable, pre-rendered SQL statement with {@link Param} slots, produced by
+ * {@link io.github.lijinhong11.mdatabase.sql.sentence.SQL#compile(DatabaseType)}.
+ * <p>
+ * The SQL text is rendered once, so compiled queries can be kept as constants and
+ * bound and executed concurrently from any number of threads:
+ * <pre>{@code
+ * static final CompiledQuery BY_NAME = SQL.select().allColumns().from("users")
+ *         .where(Conditions.eq("name", Param.positional(0)))
+ *         .compile(DatabaseType.SQLITE);
+ *
+ * List<User> users = conn.selectMulti(User.class, BY_NAME.bind("Alice"));
+ * }</pre>
+ * Values that were not {@link Param}s when compiling are fixed and bound on every execution.
+ */
+public final class CompiledQuery {
+    private final String sql;
+    private final DatabaseType type;
+    private final boolean cacheable;
+    private final Object[] slots;
+    private final int positionalCount;
+    private final Set<String> names;
+
+    /**
+     * Create a compiled query. Prefer {@code SQL#compile(DatabaseType)}.
+     *
+     * @param sql        the rendered SQL text
+     * @param type       the database type the SQL was rendered for
+     * @param parameters the parameters in placeholder order, fixed values or {@link Param}s
+     * @param cacheable  whether the prepared statement may be cached
+     */
+    public CompiledQuery(String sql, DatabaseType type, List<Object> parameters, boolean cacheable) {
+        this.sql = sql;
+        this.type = type;
+        this.cacheable = cacheable;
+        this.slots = parameters.toArray();
+
+        int maxIndex = -1;
+        Set<String> names = new LinkedHashSet<>();
+        for (Object slot : slots) {
+            if (slot instanceof Param param) {
+                if (param.isNamed()) {
+                    names.add(param.getName());
+                } else {
+                    maxIndex = Math.max(maxIndex, param.getIndex());
+                }
+            }
+        }
+        this.positionalCount = maxIndex + 1;
+        this.names = Collections.unmodifiableSet(names);
+    }
+
+    /**
+     * Bind positional parameters.
+     *
+     * @param args the values for {@code Param.positional(0)}, {@code Param.positional(1)}, ...
+     * @return the bound query
+     * @throws IllegalArgumentException if the number of values does not match or named parameters are unbound
+     */
+    public BoundQuery bind(Object... args) {
+        return bind(Map.of(), args);
+    }
+
+    /**
+     * Bind named parameters.
+     *
+     * @param named the values by parameter name
+     * @return the bound query
+     * @throws IllegalArgumentException if a named parameter is missing or positional parameters are unbound
+     */
+    public BoundQuery bind(Map<String, ?> named) {
+        return bind(named, new Object[0]);
+    }
+
+    /**
+     * Bind both named and positional parameters.
+     *
+     * @param named the values by parameter name
+     * @param args  the positional values
+     * @return the bound query
+     * @throws IllegalArgumentException if any parameter is unbound or too many positional values are given
+     */
+    public BoundQuery bind(Map<String, ?> named, Object... args) {
+        if (args.length != positionalCount) {
+            throw new IllegalArgumentException("Expected " + positionalCount + " positional values but got " + args.length);
+        }
+
+        Object[] values = slots.clone();
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] instanceof Param param) {
+                if (param.isNamed()) {
+                    if (!named.containsKey(param.getName())) {
+                        throw new IllegalArgumentException("Missing value for parameter " + param);
+                    }
+                    values[i] = named.get(param.getName());
+                } else {
+                    values[i] = args[param.getIndex()];
+                }
+            }
+        }
+
+        return new BoundQuery(this, values);
+    }
+
+    /**
+     * @return the rendered SQL text
+     */
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * @return the database type the SQL was rendered for
+     */
+    public DatabaseType getType() {
+        return type;
+    }
+
+    /**
+     * @return {@code true} if the prepared statement may be cached
+     */
+    public boolean isCacheable() {
+        return cacheable;
+    }
+
+    /**
+     * @return the number of {@code ?} placeholders in the SQL
+     */
+    public int getParameterCount() {
+        return slots.length;
+    }
+
+    /**
+     * @return the names of all named parameters
+     */
+    public Set<String> getParameterNames() {
+        return names;
+    }
+
+    @Override
+    public String toString() {
+        return "CompiledQuery{" + sql + '}';
+    }
+}
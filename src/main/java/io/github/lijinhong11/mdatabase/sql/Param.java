@@ -0,0 +1,93 @@
+package io.github.lijinhong11.mdatabase.sql;
+
+import java.util.Objects;
+
+/**
+ * A placeholder for a value supplied when a {@link CompiledQuery} is bound.
+ * Use it anywhere a builder or condition accepts a value:
+ * <pre>{@code
+ * static final CompiledQuery BY_UUID = SQL.select().allColumns().from("users")
+ *         .where(Conditions.eq("uuid", Param.named("uuid")))
+ *         .compile(DatabaseType.SQLITE);
+ *
+ * User user = conn.selectOne(User.class, BY_UUID.bind(Map.of("uuid", uuid)));
+ * }</pre>
+ */
+public final class Param {
+    private final String name;
+    private final int index;
+
+    private Param(String name, int index) {
+        this.name = name;
+        this.index = index;
+    }
+
+    /**
+     * Create a parameter bound by name via {@link CompiledQuery#bind(java.util.Map)}.
+     * The same name may appear several times in one query.
+     *
+     * @param name the parameter name
+     * @return a named parameter
+     */
+    public static Param named(String name) {
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("parameter name cannot be null or blank");
+        }
+        return new Param(name, -1);
+    }
+
+    /**
+     * Create a parameter bound by position via {@link CompiledQuery#bind(Object...)}.
+     *
+     * @param index the zero-based index into the bound arguments
+     * @return a positional parameter
+     */
+    public static Param positional(int index) {
+        if (index < 0) {
+            throw new IllegalArgumentException("parameter index cannot be negative");
+        }
+        return new Param(null, index);
+    }
+
+    /**
+     * @return {@code true} if this parameter is bound by name
+     */
+    public boolean isNamed() {
+        return name != null;
+    }
+
+    /**
+     * @return the parameter name, or {@code null} for a positional parameter
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the zero-based argument index, or {@code -1} for a named parameter
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Param param)) {
+            return false;
+        }
+        return index == param.index && Objects.equals(name, param.name);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, index);
+    }
+
+    @Override
+    public String toString() {
+        return isNamed() ? ":" + name : "?" + index;
+    }
+}
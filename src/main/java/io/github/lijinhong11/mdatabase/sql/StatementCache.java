@@ -0,0 +1,209 @@
+package io.github.lijinhong11.mdatabase.sql;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded LRU cache of {@link PreparedStatement}s for one physical connection, keyed by the rendered SQL
+ * and whether generated keys are requested.
+ * <p>
+ * Statements are leased: {@link #prepare(String)} takes a statement out of the cache (or prepares a new one)
+ * and {@link #release(PreparedStatement)} hands it back. A leased statement is never handed out twice, so the
+ * same SQL may be open more than once on a connection. Statements that are not cacheable are closed on release.
+ * <pre>{@code
+ * PreparedStatement stmt = cache.prepare("SELECT * FROM users WHERE id = ?");
+ * try {
+ *     stmt.setInt(1, 42);
+ *     stmt.executeQuery().close();
+ * } finally {
+ *     cache.release(stmt);
+ * }
+ * }</pre>
+ * A physical connection is only used by one thread at a time, so there is no contention on the cache itself.
+ */
+public final class StatementCache {
+    private final Connection connection;
+    private final int maxSize;
+    private final int maxSqlLength;
+    private final StatementCacheStats stats;
+    private final LinkedHashMap<Shape, PreparedStatement> idle = new LinkedHashMap<>(16, 0.75F, true);
+    private final Map<PreparedStatement, Lease> leased = new IdentityHashMap<>();
+    private final AtomicInteger generation = new AtomicInteger();
+    private int idleGeneration;
+
+    /**
+     * @param connection   the connection statements are prepared on
+     * @param maxSize      the maximum number of idle statements kept; {@code 0} disables caching
+     * @param maxSqlLength the longest SQL text that is cached
+     * @param stats        the counters to report to
+     */
+    public StatementCache(Connection connection, int maxSize, int maxSqlLength, StatementCacheStats stats) {
+        this.connection = connection;
+        this.maxSize = Math.max(0, maxSize);
+        this.maxSqlLength = maxSqlLength;
+        this.stats = stats;
+    }
+
+    /**
+     * @return the connection statements are prepared on
+     */
+    public Connection getConnection() {
+        return connection;
+    }
+
+    /**
+     * Lease a statement for the SQL, preparing it if no idle one is cached.
+     *
+     * @param sql the SQL text
+     * @return a statement that must be handed back via {@link #release(PreparedStatement)}
+     * @throws SQLException if preparing fails
+     */
+    public PreparedStatement prepare(String sql) throws SQLException {
+        return prepare(sql, false);
+    }
+
+    /**
+     * Lease a statement for the SQL, preparing it if no idle one is cached.
+     *
+     * @param sql       the SQL text
+     * @param anyLength cache the statement even if it is longer than the SQL length limit;
+     *                  meant for generated SQL that comes in only a few shapes, such as multi-row inserts
+     * @return a statement that must be handed back via {@link #release(PreparedStatement)}
+     * @throws SQLException if preparing fails
+     */
+    public PreparedStatement prepare(String sql, boolean anyLength) throws SQLException {
+        return prepare(new Shape(sql, false), anyLength);
+    }
+
+    /**
+     * Lease a statement for the SQL prepared with {@link Statement#RETURN_GENERATED_KEYS}.
+     * It is cached separately from the plain statement for the same SQL.
+     *
+     * @param sql       the SQL text
+     * @param anyLength cache the statement even if it is longer than the SQL length limit
+     * @return a statement that must be handed back via {@link #release(PreparedStatement)}
+     * @throws SQLException if preparing fails
+     */
+    public PreparedStatement prepareReturningKeys(String sql, boolean anyLength) throws SQLException {
+        return prepare(new Shape(sql, true), anyLength);
+    }
+
+    private synchronized PreparedStatement prepare(Shape shape, boolean anyLength) throws SQLException {
+        if (maxSize == 0 || (!anyLength && shape.sql.length() > maxSqlLength)) {
+            return shape.prepare(connection);
+        }
+
+        purgeIfInvalidated();
+
+        PreparedStatement stmt = idle.remove(shape);
+        if (stmt != null && !stmt.isClosed()) {
+            stats.recordHit();
+        } else {
+            stats.recordMiss();
+            stmt = shape.prepare(connection);
+        }
+
+        leased.put(stmt, new Lease(shape, idleGeneration));
+        return stmt;
+    }
+
+    /**
+     * Hand a statement back. Cached statements return to the idle pool, everything else is closed.
+     *
+     * @param stmt a statement obtained from {@link #prepare(String)}
+     * @throws SQLException if closing the statement fails
+     */
+    public synchronized void release(PreparedStatement stmt) throws SQLException {
+        Lease lease = leased.remove(stmt);
+        if (lease == null) {
+            stmt.close();
+            return;
+        }
+
+        purgeIfInvalidated();
+        if (lease.generation != idleGeneration || stmt.isClosed()) {
+            stmt.close();
+            return;
+        }
+
+        try {
+            stmt.clearParameters();
+        } catch (SQLException e) {
+            // e.g. SQLite closes statements whose execution failed; throwing here would hide that failure
+            stmt.close();
+            return;
+        }
+
+        PreparedStatement previous = idle.put(lease.shape, stmt);
+        if (previous != null) {
+            previous.close();
+        }
+
+        if (idle.size() > maxSize) {
+            Iterator<PreparedStatement> eldest = idle.values().iterator();
+            PreparedStatement evicted = eldest.next();
+            eldest.remove();
+            stats.recordEviction();
+            evicted.close();
+        }
+    }
+
+    /**
+     * Mark every statement prepared so far as stale, e.g. after a schema change.
+     * Idle statements are closed on the next use of this cache; leased ones when they are released.
+     * Safe to call from any thread.
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+    }
+
+    /**
+     * Close all idle statements. Leased statements are closed when they are released.
+     */
+    public synchronized void close() {
+        invalidate();
+        purgeIfInvalidated();
+    }
+
+    /**
+     * @return the number of idle statements currently cached
+     */
+    public synchronized int size() {
+        return idle.size();
+    }
+
+    private void purgeIfInvalidated() {
+        int current = generation.get();
+        if (current == idleGeneration) {
+            return;
+        }
+
+        idleGeneration = current;
+        for (PreparedStatement stmt : idle.values()) {
+            try {
+                stmt.close();
+            } catch (SQLException ignored) {
+                // the statement is being discarded anyway
+            }
+        }
+        idle.clear();
+    }
+
+    private record Shape(String sql, boolean generatedKeys) {
+        PreparedStatement prepare(Connection connection) throws SQLException {
+            return generatedKeys
+                    ? connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)
+                    : connection.prepareStatement(sql);
+        }
+    }
+
+    private record Lease(Shape shape, int generation) {
+    }
+}
@@ -1,6 +1,7 @@
 package io.github.lijinhong11.mdatabase.sql.conditions;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 class AppendableCondition implements Condition {
@@ -35,4 +36,20 @@ class AppendableCondition implements Condition {
         }
         return params;
     }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof AppendableCondition that)) {
+            return false;
+        }
+        return operator.equals(that.operator) && Arrays.equals(multi, that.multi);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * operator.hashCode() + Arrays.hashCode(multi);
+    }
 }
@@ -1,5 +1,8 @@
 package io.github.lijinhong11.mdatabase.sql.conditions;
 
+import io.github.lijinhong11.mdatabase.enums.OrderType;
+
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -117,8 +120,46 @@ public class Conditions {
      * @return a Condition representing the IN clause
      */
     public static Condition in(String column, List<?> values) {
+        if (values.isEmpty()) {
+            return new ListCondition("1 = 0", values);
+        }
         String placeholders = String.join(", ", Collections.nCopies(values.size(), "?"));
-        return new SimpleCondition(column, "IN (" + placeholders + ")", values);
+        return new ListCondition(column + " IN (" + placeholders + ")", values);
+    }
+
+    /**
+     * Create a multi-column IN condition, e.g. {@code (a, b) IN ((?, ?), (?, ?))}
+     *
+     * @param columns   the column names
+     * @param rows      the value tuples, each holding one value per column
+     * @param rowValues {@code true} to render a row-value IN, {@code false} to expand it
+     *                  to {@code ((a = ? AND b = ?) OR (a = ? AND b = ?))} for databases without row-value IN lists
+     * @return a Condition representing the IN clause
+     */
+    public static Condition in(List<String> columns, List<? extends List<?>> rows, boolean rowValues) {
+        if (columns.size() == 1) {
+            return in(columns.get(0), rows.stream().map(row -> row.get(0)).toList());
+        }
+        if (rows.isEmpty()) {
+            return new ListCondition("1 = 0", rows);
+        }
+
+        List<Object> parameters = new ArrayList<>(columns.size() * rows.size());
+        for (List<?> row : rows) {
+            if (row.size() != columns.size()) {
+                throw new IllegalArgumentException("Expected " + columns.size() + " values per row but got " + row.size());
+            }
+            parameters.addAll(row);
+        }
+
+        String tuple = "(" + String.join(", ", Collections.nCopies(columns.size(), "?")) + ")";
+        if (rowValues) {
+            return new ListCondition("(" + String.join(", ", columns) + ") IN ("
+                    + String.join(", ", Collections.nCopies(rows.size(), tuple)) + ")", parameters);
+        }
+
+        String match = "(" + String.join(" AND ", columns.stream().map(column -> column + " = ?").toList()) + ")";
+        return new ListCondition("(" + String.join(" OR ", Collections.nCopies(rows.size(), match)) + ")", parameters);
     }
 
     /**
@@ -129,8 +170,11 @@ public class Conditions {
      * @return a Condition representing the NOT IN clause
      */
     public static Condition notIn(String column, List<?> values) {
+        if (values.isEmpty()) {
+            return new ListCondition("1 = 1", values);
+        }
         String placeholders = String.join(", ", Collections.nCopies(values.size(), "?"));
-        return new SimpleCondition(column, "NOT IN (" + placeholders + ")", values);
+        return new ListCondition(column + " NOT IN (" + placeholders + ")", values);
     }
 
     /**
@@ -142,6 +186,21 @@ public class Conditions {
      * @return a Condition representing the BETWEEN range check
      */
     public static Condition between(String column, Object lower, Object upper) {
-        return new SimpleCondition(column, "BETWEEN ? AND ?", Arrays.asList(lower, upper));
+        return new ListCondition(column + " BETWEEN ? AND ?", Arrays.asList(lower, upper));
+    }
+
+    /**
+     * Create a keyset (seek) condition selecting rows that sort strictly after the given key,
+     * e.g. {@code (a, b) > (?, ?)} for ascending order.
+     *
+     * @param columns   the sort columns, in ORDER BY order
+     * @param values    the sort key of the last row already seen
+     * @param order     the sort direction shared by all columns
+     * @param rowValues {@code true} to render a row-value comparison, {@code false} to expand it
+     *                  to {@code (a > ? OR (a = ? AND b > ?))}
+     * @return a Condition representing the keyset comparison
+     */
+    public static Condition after(List<String> columns, List<?> values, OrderType order, boolean rowValues) {
+        return new KeysetCondition(columns, values, order, rowValues);
     }
 }
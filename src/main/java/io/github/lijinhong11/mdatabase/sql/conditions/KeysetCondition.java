@@ -0,0 +1,87 @@
+package io.github.lijinhong11.mdatabase.sql.conditions;
+
+import io.github.lijinhong11.mdatabase.enums.OrderType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Rows strictly after a sort key, either as a row-value comparison {@code (a, b) > (?, ?)}
+ * or expanded to {@code (a > ? OR (a = ? AND b > ?))} for databases that cannot use an index for row values.
+ */
+class KeysetCondition implements Condition {
+    private final List<String> columns;
+    private final List<?> values;
+    private final OrderType order;
+    private final boolean rowValues;
+
+    KeysetCondition(List<String> columns, List<?> values, OrderType order, boolean rowValues) {
+        if (columns.isEmpty() || columns.size() != values.size()) {
+            throw new IllegalArgumentException("Expected one value per keyset column");
+        }
+
+        this.columns = List.copyOf(columns);
+        this.values = new ArrayList<>(values);
+        this.order = order;
+        this.rowValues = rowValues;
+    }
+
+    @Override
+    public String getSql() {
+        String operator = order == OrderType.DESC ? " < " : " > ";
+        if (columns.size() == 1) {
+            return columns.get(0) + operator + "?";
+        }
+
+        if (rowValues) {
+            return "(" + String.join(", ", columns) + ")" + operator
+                    + "(" + String.join(", ", Collections.nCopies(columns.size(), "?")) + ")";
+        }
+
+        StringBuilder sql = new StringBuilder("(");
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                sql.append(" OR ");
+            }
+            sql.append("(");
+            for (int j = 0; j < i; j++) {
+                sql.append(columns.get(j)).append(" = ? AND ");
+            }
+            sql.append(columns.get(i)).append(operator).append("?)");
+        }
+        return sql.append(")").toString();
+    }
+
+    @Override
+    public List<Object> getParameters() {
+        if (columns.size() == 1 || rowValues) {
+            return new ArrayList<>(values);
+        }
+
+        List<Object> parameters = new ArrayList<>();
+        for (int i = 0; i < columns.size(); i++) {
+            for (int j = 0; j <= i; j++) {
+                parameters.add(values.get(j));
+            }
+        }
+        return parameters;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof KeysetCondition that)) {
+            return false;
+        }
+        return rowValues == that.rowValues && order == that.order && columns.equals(that.columns) && values.equals(that.values);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(columns, values, order, rowValues);
+    }
+}
@@ -0,0 +1,43 @@
+package io.github.lijinhong11.mdatabase.sql.conditions;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A rendered condition with one placeholder per parameter, e.g. an IN list or BETWEEN.
+ */
+class ListCondition implements Condition {
+    private final String sql;
+    private final List<Object> parameters;
+
+    ListCondition(String sql, List<?> parameters) {
+        this.sql = sql;
+        this.parameters = new ArrayList<>(parameters);
+    }
+
+    @Override
+    public String getSql() {
+        return sql;
+    }
+
+    @Override
+    public List<Object> getParameters() {
+        return new ArrayList<>(parameters);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ListCondition that)) {
+            return false;
+        }
+        return sql.equals(that.sql) && parameters.equals(that.parameters);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * sql.hashCode() + parameters.hashCode();
+    }
+}
@@ -2,6 +2,7 @@ package io.github.lijinhong11.mdatabase.sql.conditions;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 
 class SimpleCondition implements Condition {
     private final String column;
@@ -23,4 +24,20 @@ class SimpleCondition implements Condition {
     public List<Object> getParameters() {
         return Collections.singletonList(value);
     }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SimpleCondition that)) {
+            return false;
+        }
+        return column.equals(that.column) && operator.equals(that.operator) && Objects.equals(value, that.value);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(column, operator, value);
+    }
 }
@@ -162,7 +162,7 @@ public final class CreateTableSQL extends SQL {
                 })
                 .collect(Collectors.toList());
 
-        if (!primaryKeys.isEmpty()) {
+        if (!primaryKeys.isEmpty() && !isSqliteRowIdAlias(type)) {
             columnDefs.add("  PRIMARY KEY (" + String.join(", ", primaryKeys) + ")");
         }
 
@@ -192,13 +192,19 @@ public final class CreateTableSQL extends SQL {
     }
 
     private String buildColumnDefinition(String name, ColumnDefinition def, DatabaseType type) {
-        StringBuilder colDef = new StringBuilder("  ").append(name).append(" ").append(def.dataType);
+        StringBuilder colDef = new StringBuilder("  ").append(name).append(" ");
 
+        if (def.autoIncrement && primaryKeys.contains(name) && isSqliteRowIdAlias(type)) {
+            // SQLite only auto-increments an INTEGER PRIMARY KEY declared on the column itself
+            return colDef.append("INTEGER PRIMARY KEY AUTOINCREMENT").toString();
+        }
+
+        colDef.append(def.dataType);
         if (def.autoIncrement) {
-            if (type == DatabaseType.MYSQL) {
-                colDef.append(" AUTO_INCREMENT");
-            } else if (type == DatabaseType.SQLITE) {
-                colDef.append(" AUTOINCREMENT");
+            switch (type) {
+                case MYSQL, MARIADB -> colDef.append(" AUTO_INCREMENT");
+                case POSTGRESQL -> colDef.append(" GENERATED BY DEFAULT AS IDENTITY");
+                case SQLITE -> colDef.append(" AUTOINCREMENT");
             }
         }
 
@@ -215,6 +221,14 @@ public final class CreateTableSQL extends SQL {
         return colDef.toString();
     }
 
+    private boolean isSqliteRowIdAlias(DatabaseType type) {
+        if (type != DatabaseType.SQLITE || primaryKeys.size() != 1) {
+            return false;
+        }
+        ColumnDefinition def = columns.get(primaryKeys.get(0));
+        return def != null && def.autoIncrement;
+    }
+
     private static class ColumnDefinition {
         final String dataType;
         final Integer length;
@@ -1,6 +1,7 @@
 package io.github.lijinhong11.mdatabase.sql.sentence;
 
 import io.github.lijinhong11.mdatabase.enums.DatabaseType;
+import io.github.lijinhong11.mdatabase.enums.OperationType;
 import io.github.lijinhong11.mdatabase.sql.conditions.Condition;
 
 public final class DeleteSQL extends SQL {
@@ -33,4 +34,19 @@ public final class DeleteSQL extends SQL {
 
         return sqlBuilder.toString();
     }
+
+    @Override
+    public boolean isCacheable() {
+        return true;
+    }
+
+    @Override
+    public String getModifiedTable() {
+        return table;
+    }
+
+    @Override
+    public OperationType getOperationType() {
+        return OperationType.DELETE;
+    }
 }
@@ -1,20 +1,30 @@
 package io.github.lijinhong11.mdatabase.sql.sentence;
 
 import io.github.lijinhong11.mdatabase.enums.DatabaseType;
+import io.github.lijinhong11.mdatabase.enums.OperationType;
 import io.github.lijinhong11.mdatabase.sql.conditions.Condition;
 
 import java.util.*;
 import java.util.stream.Collectors;
 
 public final class InsertSQL extends SQL {
-    private final Map<String, Object> values = new LinkedHashMap<>();
+    private final List<Map<String, Object>> rows = new ArrayList<>();
+    private Map<String, Object> values = new LinkedHashMap<>();
     private final boolean upsert;
+    private final boolean ignore;
     private String table;
     private Condition whereCondition;
     private List<String> conflictKeys;
+    private List<String> returning;
 
     InsertSQL(boolean upsert) {
+        this(upsert, false);
+    }
+
+    InsertSQL(boolean upsert, boolean ignore) {
         this.upsert = upsert;
+        this.ignore = ignore;
+        this.rows.add(values);
     }
 
     public InsertSQL into(String table) {
@@ -29,6 +39,18 @@ public final class InsertSQL extends SQL {
         return this;
     }
 
+    /**
+     * Start another row of a multi-row {@code INSERT ... VALUES (...), (...)}. Every row must
+     * set the same columns in the same order as the first one.
+     *
+     * @return this builder
+     */
+    public InsertSQL nextRow() {
+        values = new LinkedHashMap<>();
+        rows.add(values);
+        return this;
+    }
+
     public InsertSQL where(Condition condition) {
         this.whereCondition = condition;
         return this;
@@ -39,27 +61,76 @@ public final class InsertSQL extends SQL {
         return this;
     }
 
+    /**
+     * Append {@code RETURNING columns...}, producing one result row per inserted row.
+     * Only supported by PostgreSQL, SQLite 3.35+ and MariaDB 10.5+.
+     *
+     * @param columns the columns to return
+     * @return this builder
+     */
+    public InsertSQL returning(String... columns) {
+        for (String column : columns) {
+            validateIdentifier(column);
+        }
+        this.returning = Arrays.asList(columns);
+        return this;
+    }
+
     @Override
     public String getSql(DatabaseType type) {
         sqlBuilder.setLength(0);
         parameters.clear();
 
-        sqlBuilder.append("INSERT INTO ").append(table);
+        boolean insertIgnore = ignore && (type == DatabaseType.MYSQL || type == DatabaseType.MARIADB);
+        sqlBuilder.append(insertIgnore ? "INSERT IGNORE INTO " : "INSERT INTO ").append(table);
 
-        if (!values.isEmpty()) {
+        Map<String, Object> first = rows.get(0);
+        if (!first.isEmpty()) {
+            List<String> columns = new ArrayList<>(first.keySet());
+            String placeholders = "(" + String.join(", ", Collections.nCopies(columns.size(), "?")) + ")";
             sqlBuilder.append(" (")
-                    .append(String.join(", ", values.keySet()))
-                    .append(") VALUES (")
-                    .append(String.join(", ", Collections.nCopies(values.size(), "?")))
-                    .append(")");
-            parameters.addAll(values.values());
+                    .append(String.join(", ", columns))
+                    .append(") VALUES ");
+            for (int i = 0; i < rows.size(); i++) {
+                Map<String, Object> row = rows.get(i);
+                if (!columns.equals(new ArrayList<>(row.keySet()))) {
+                    throw new IllegalStateException("Row " + i + " does not set the same columns as the first row");
+                }
+                if (i > 0) {
+                    sqlBuilder.append(", ");
+                }
+                sqlBuilder.append(placeholders);
+                parameters.addAll(row.values());
+            }
+        } else if (rows.size() == 1) {
+            sqlBuilder.append(type == DatabaseType.MYSQL || type == DatabaseType.MARIADB ? " () VALUES ()" : " DEFAULT VALUES");
+        }
+
+        if (ignore && !insertIgnore) {
+            switch (type) {
+                case SQLITE, POSTGRESQL -> {
+                    sqlBuilder.append(" ON CONFLICT");
+                    if (conflictKeys != null && !conflictKeys.isEmpty()) {
+                        sqlBuilder.append("(").append(String.join(", ", conflictKeys)).append(")");
+                    }
+                    sqlBuilder.append(" DO NOTHING");
+                }
+                default -> throw new UnsupportedOperationException("Unsupported database type: " + type);
+            }
         }
 
-        if (!upsert) {
-            appendWhere();
-            return sqlBuilder.toString();
+        if (upsert) {
+            appendUpsert(type, first);
         }
 
+        appendWhere();
+        if (returning != null && !returning.isEmpty()) {
+            sqlBuilder.append(" RETURNING ").append(String.join(", ", returning));
+        }
+        return sqlBuilder.toString();
+    }
+
+    private void appendUpsert(DatabaseType type, Map<String, Object> first) {
         switch (type) {
             case SQLITE, POSTGRESQL -> {
                 if (conflictKeys == null || conflictKeys.isEmpty()) {
@@ -68,22 +139,19 @@ public final class InsertSQL extends SQL {
                 sqlBuilder.append(" ON CONFLICT(")
                         .append(String.join(", ", conflictKeys))
                         .append(") DO UPDATE SET ");
-                sqlBuilder.append(values.keySet().stream()
+                sqlBuilder.append(first.keySet().stream()
                         .map(col -> col + " = excluded." + col)
                         .collect(Collectors.joining(", ")));
             }
             case MYSQL, MARIADB -> {
                 sqlBuilder.append(" ON DUPLICATE KEY UPDATE ");
-                sqlBuilder.append(values.keySet().stream()
+                sqlBuilder.append(first.keySet().stream()
                         .map(col -> col + " = VALUES(" + col + ")")
                         .collect(Collectors.joining(", ")));
             }
 
             default -> throw new UnsupportedOperationException("Unsupported database type: " + type);
         }
-
-        appendWhere();
-        return sqlBuilder.toString();
     }
 
     private void appendWhere() {
@@ -92,4 +160,19 @@ public final class InsertSQL extends SQL {
             parameters.addAll(whereCondition.getParameters());
         }
     }
-}
\ No newline at end of file
+
+    @Override
+    public boolean isCacheable() {
+        return true;
+    }
+
+    @Override
+    public String getModifiedTable() {
+        return table;
+    }
+
+    @Override
+    public OperationType getOperationType() {
+        return upsert ? OperationType.UPSERT : OperationType.INSERT;
+    }
+}
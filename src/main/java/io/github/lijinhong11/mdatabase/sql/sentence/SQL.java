@@ -1,7 +1,11 @@
 package io.github.lijinhong11.mdatabase.sql.sentence;
 
 import io.github.lijinhong11.mdatabase.enums.DatabaseType;
+import io.github.lijinhong11.mdatabase.enums.OperationType;
 import io.github.lijinhong11.mdatabase.exceptions.IllegalIdentifierException;
+import io.github.lijinhong11.mdatabase.sql.CompiledQuery;
+import io.github.lijinhong11.mdatabase.sql.StatementCache;
+import org.jetbrains.annotations.Nullable;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
@@ -52,6 +56,16 @@ public sealed abstract class SQL permits AlterTableSQL, CreateIndexSQL, CreateTa
         return new InsertSQL(true);
     }
 
+    /**
+     * Create an INSERT that skips rows conflicting with an existing key
+     * (INSERT IGNORE / ON CONFLICT DO NOTHING) SQL builder
+     *
+     * @return a new InsertSQL instance configured to ignore conflicting rows
+     */
+    public static InsertSQL insertIgnore() {
+        return new InsertSQL(false, true);
+    }
+
     /**
      * Create an UPDATE SQL builder
      *
@@ -150,6 +164,105 @@ public sealed abstract class SQL permits AlterTableSQL, CreateIndexSQL, CreateTa
         return stmt;
     }
 
+    /**
+     * Build a PreparedStatement leased from a statement cache. Cacheable statements are reused
+     * across calls with the same rendered SQL; others are prepared through {@link #build(Connection, DatabaseType)}.
+     * The returned statement must be handed back via {@link StatementCache#release(PreparedStatement)}.
+     *
+     * @param statements the statement cache of the connection
+     * @param type       the database type
+     * @return a PreparedStatement with parameters set
+     * @throws SQLException if a database access error occurs
+     */
+    public PreparedStatement build(StatementCache statements, DatabaseType type) throws SQLException {
+        if (!isCacheable()) {
+            return build(statements.getConnection(), type);
+        }
+
+        parameters.clear();
+        String sql = getSql(type);
+
+        int expectedParams = countParametersInSql(sql);
+        if (parameters.size() != expectedParams) {
+            throw new SQLException("Parameter count mismatch. Expected " + expectedParams +
+                    " but got " + parameters.size());
+        }
+
+        PreparedStatement stmt = statements.prepare(sql);
+        try {
+            for (int i = 0; i < parameters.size(); i++) {
+                stmt.setObject(i + 1, parameters.get(i));
+            }
+        } catch (SQLException e) {
+            statements.release(stmt);
+            throw e;
+        }
+
+        return stmt;
+    }
+
+    /**
+     * Render this statement once into an immutable {@link CompiledQuery}. Values given as
+     * {@link io.github.lijinhong11.mdatabase.sql.Param} become slots filled per execution;
+     * all other values are fixed. The builder itself can be discarded afterwards.
+     *
+     * @param type the database type
+     * @return the compiled query
+     * @throws IllegalStateException if the rendered placeholders do not match the parameters
+     */
+    public synchronized CompiledQuery compile(DatabaseType type) {
+        parameters.clear();
+        String sql = getSql(type);
+
+        int expectedParams = countParametersInSql(sql);
+        if (parameters.size() != expectedParams) {
+            throw new IllegalStateException("Parameter count mismatch. Expected " + expectedParams +
+                    " but got " + parameters.size());
+        }
+
+        return new CompiledQuery(sql, type, parameters, isCacheable());
+    }
+
+    /**
+     * Whether the prepared form of this statement may be cached and reused.
+     * True for queries and data manipulation; schema changes are never cached and
+     * invalidate previously cached statements.
+     *
+     * @return {@code true} if this statement is cacheable
+     */
+    public boolean isCacheable() {
+        return false;
+    }
+
+    /**
+     * Whether this statement only reads data, so running it leaves cached query results valid.
+     *
+     * @return {@code true} for queries
+     */
+    public boolean isReadOnly() {
+        return false;
+    }
+
+    /**
+     * The table whose rows this statement changes, used to invalidate cached query results.
+     * Statements that return {@code null} and are not {@link #isReadOnly() read-only} invalidate every cached result.
+     *
+     * @return the changed table, or {@code null} if it is not known
+     */
+    public @Nullable String getModifiedTable() {
+        return null;
+    }
+
+    /**
+     * The kind of this statement, as reported to query listeners. Statements other than the DML ones
+     * change the schema.
+     *
+     * @return the operation type
+     */
+    public OperationType getOperationType() {
+        return OperationType.DDL;
+    }
+
     private int countParametersInSql(String sql) {
         int count = 0;
         int index = -1;
@@ -2,12 +2,10 @@ package io.github.lijinhong11.mdatabase.sql.sentence;
 
 import io.github.lijinhong11.mdatabase.enums.DatabaseType;
 import io.github.lijinhong11.mdatabase.enums.JoinType;
+import io.github.lijinhong11.mdatabase.enums.OperationType;
 import io.github.lijinhong11.mdatabase.enums.OrderType;
 import io.github.lijinhong11.mdatabase.sql.conditions.Condition;
 
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -17,7 +15,6 @@ public final class SelectSQL extends SQL {
     private final List<JoinClause> joins = new ArrayList<>();
     private final List<GroupBy> groupByList = new ArrayList<>();
     private final List<OrderBy> orderByList = new ArrayList<>();
-    private final List<Object> parameters = new ArrayList<>();
     private boolean distinct = false;
     private String table;
     private Condition whereCondition;
@@ -204,15 +201,34 @@ public final class SelectSQL extends SQL {
     }
 
     @Override
-    public PreparedStatement build(Connection connection, DatabaseType type) throws SQLException {
-        String sql = getSql(type);
-        PreparedStatement stmt = connection.prepareStatement(sql);
+    public boolean isCacheable() {
+        return true;
+    }
 
-        for (int i = 0; i < parameters.size(); i++) {
-            stmt.setObject(i + 1, parameters.get(i));
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
+    /**
+     * @return the table in the {@code FROM} clause followed by the joined tables
+     */
+    public List<String> getTables() {
+        List<String> tables = new ArrayList<>(joins.size() + 1);
+        if (table != null) {
+            tables.add(table);
+        }
+        for (JoinClause join : joins) {
+            tables.add(join.table());
         }
+        return tables;
+    }
 
-        return stmt;
+    /**
+     * @return {@code true} if the rows read are locked with {@code FOR UPDATE}
+     */
+    public boolean isForUpdate() {
+        return forUpdate;
     }
 
     protected void validateIdentifier(String identifier) {
@@ -232,4 +248,9 @@ public final class SelectSQL extends SQL {
 
     private record OrderBy(String column, OrderType orderType) {
     }
-}
\ No newline at end of file
+
+    @Override
+    public OperationType getOperationType() {
+        return OperationType.SELECT;
+    }
+}
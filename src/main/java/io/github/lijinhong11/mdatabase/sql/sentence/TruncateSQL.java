@@ -1,6 +1,7 @@
 package io.github.lijinhong11.mdatabase.sql.sentence;
 
 import io.github.lijinhong11.mdatabase.enums.DatabaseType;
+import io.github.lijinhong11.mdatabase.enums.OperationType;
 
 public final class TruncateSQL extends SQL {
     private String tableName;
@@ -54,4 +55,14 @@ public final class TruncateSQL extends SQL {
             throws java.sql.SQLException {
         return connection.prepareStatement(getSql(type));
     }
+
+    @Override
+    public String getModifiedTable() {
+        return tableName;
+    }
+
+    @Override
+    public OperationType getOperationType() {
+        return OperationType.DELETE;
+    }
 }
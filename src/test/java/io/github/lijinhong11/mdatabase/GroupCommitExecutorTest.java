@@ -0,0 +1,179 @@
+package io.github.lijinhong11.mdatabase;
+
+import io.github.lijinhong11.mdatabase.impl.DatabaseConnections;
+import io.github.lijinhong11.mdatabase.serialization.annotations.Column;
+import io.github.lijinhong11.mdatabase.serialization.annotations.PrimaryKey;
+import io.github.lijinhong11.mdatabase.serialization.annotations.Table;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.reflect.Proxy;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GroupCommitExecutorTest {
+    private static final int THREADS = 16;
+    private static final int WRITES_PER_THREAD = 200;
+
+    @TempDir
+    Path dir;
+
+    private DatabaseConnection connection;
+
+    @BeforeEach
+    void open() throws SQLException {
+        connection = DatabaseConnections.sqlite(dir.resolve("mail.db").toString(), new DatabaseParameters());
+        connection.createTableByClass(Mail.class);
+    }
+
+    @AfterEach
+    void close() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    void onlyConflictingWritesFail() throws Exception {
+        // every 50th id already exists, so 63 of the 3200 inserts conflict
+        Set<Integer> taken = new HashSet<>();
+        List<Mail> existing = new ArrayList<>();
+        for (int id = 50; id < THREADS * WRITES_PER_THREAD; id += 50) {
+            taken.add(id);
+            existing.add(new Mail(id, "old"));
+        }
+        connection.insertBatch(Mail.class, existing);
+
+        GroupCommitExecutor writes = new GroupCommitExecutor(connection, Duration.ofMillis(5), 256);
+        List<List<CompletableFuture<Void>>> futures = new ArrayList<>();
+        ExecutorService threads = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<List<CompletableFuture<Void>>>> submitted = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                submitted.add(threads.submit(() -> {
+                    List<CompletableFuture<Void>> own = new ArrayList<>();
+                    for (int i = 0; i < WRITES_PER_THREAD; i++) {
+                        own.add(writes.insertObject(Mail.class, new Mail(thread * WRITES_PER_THREAD + i, "new"), false));
+                    }
+                    return own;
+                }));
+            }
+            for (Future<List<CompletableFuture<Void>>> future : submitted) {
+                futures.add(future.get(30, TimeUnit.SECONDS));
+            }
+        } finally {
+            threads.shutdown();
+        }
+        writes.close();
+
+        int failed = 0;
+        for (int t = 0; t < THREADS; t++) {
+            for (int i = 0; i < WRITES_PER_THREAD; i++) {
+                CompletableFuture<Void> future = futures.get(t).get(i);
+                assertTrue(future.isDone());
+                int id = t * WRITES_PER_THREAD + i;
+                if (taken.contains(id)) {
+                    CompletionException e = assertThrows(CompletionException.class, future::join);
+                    assertInstanceOf(SQLException.class, e.getCause());
+                    failed++;
+                } else {
+                    assertDoesNotThrow(future::join);
+                }
+            }
+        }
+
+        assertEquals(63, failed);
+        assertEquals(63, writes.getFailedWriteCount());
+        assertEquals(THREADS * WRITES_PER_THREAD, writes.getWriteCount());
+        assertTrue(writes.getCommitCount() < THREADS * WRITES_PER_THREAD);
+        List<Mail> stored = connection.selectMulti(Mail.class);
+        assertEquals(THREADS * WRITES_PER_THREAD, stored.size());
+        assertEquals(63, stored.stream().filter(mail -> mail.body.equals("old")).count());
+    }
+
+    @Test
+    void closeCommitsQueuedWrites() {
+        GroupCommitExecutor writes = new GroupCommitExecutor(connection, Duration.ofSeconds(10), 1000);
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int id = 0; id < 100; id++) {
+            futures.add(writes.insertObject(Mail.class, new Mail(id, "queued"), false));
+        }
+        writes.close();
+
+        for (CompletableFuture<Void> future : futures) {
+            assertTrue(future.isDone());
+            assertDoesNotThrow(future::join);
+        }
+        assertThrows(IllegalStateException.class, () -> writes.insertObject(Mail.class, new Mail(100, "late"), false));
+    }
+
+    @Test
+    void errorsOfOneWriteAreIsolated() throws SQLException {
+        GroupCommitExecutor writes = new GroupCommitExecutor(connection, Duration.ofMillis(50), 10);
+        CompletableFuture<Void> first = writes.insertObject(Mail.class, new Mail(1, "kept"), false);
+        CompletableFuture<Object> broken = writes.submit(session -> {
+            session.insertObject(Mail.class, new Mail(2, "rolled back"), false);
+            throw new AssertionError("broken work");
+        });
+        CompletableFuture<Void> last = writes.insertObject(Mail.class, new Mail(3, "kept"), false);
+        writes.close();
+
+        assertDoesNotThrow(first::join);
+        assertInstanceOf(AssertionError.class, assertThrows(CompletionException.class, broken::join).getCause());
+        assertDoesNotThrow(last::join);
+        assertEquals(2, connection.selectMulti(Mail.class).size());
+    }
+
+    @Test
+    void deadWorkerFailsPendingWritesAndRejectsNewOnes() {
+        DatabaseConnection failing = (DatabaseConnection) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{DatabaseConnection.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("openSession")) {
+                        throw new AssertionError("session cannot be opened");
+                    }
+                    return null;
+                });
+
+        GroupCommitExecutor writes = new GroupCommitExecutor(failing, Duration.ZERO, 1);
+        CompletableFuture<Void> write = writes.insertObject(Mail.class, new Mail(1, "lost"), false);
+
+        assertInstanceOf(AssertionError.class, assertThrows(CompletionException.class, write::join).getCause());
+        IllegalStateException rejected = assertThrows(IllegalStateException.class,
+                () -> writes.insertObject(Mail.class, new Mail(2, "late"), false));
+        assertInstanceOf(AssertionError.class, rejected.getCause());
+        assertEquals(1, writes.getFailedWriteCount());
+        writes.close();
+    }
+
+    @Table(name = "mail")
+    public static class Mail {
+        @PrimaryKey
+        @Column
+        public int id;
+
+        @Column
+        public String body;
+
+        public Mail() {
+        }
+
+        Mail(int id, String body) {
+            this.id = id;
+            this.body = body;
+        }
+    }
+}
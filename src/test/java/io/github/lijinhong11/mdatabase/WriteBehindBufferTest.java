@@ -0,0 +1,156 @@
+package io.github.lijinhong11.mdatabase;
+
+import io.github.lijinhong11.mdatabase.serialization.annotations.Column;
+import io.github.lijinhong11.mdatabase.serialization.annotations.PrimaryKey;
+import io.github.lijinhong11.mdatabase.serialization.annotations.Table;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteBehindBufferTest {
+    private static final Duration NEVER = Duration.ofHours(1);
+
+    @Test
+    void writesOfOneKeyAreCoalesced() throws Exception {
+        RecordingConnection db = new RecordingConnection();
+        try (WriteBehindBuffer<Score> buffer = new WriteBehindBuffer<>(db.proxy, Score.class, NEVER, 100)) {
+            Score latest = new Score(1, 30);
+            buffer.write(new Score(1, 10));
+            buffer.write(new Score(2, 5));
+            buffer.write(latest);
+
+            assertEquals(2, buffer.flush().get(10, TimeUnit.SECONDS));
+            List<Score> batch = db.batches.poll();
+            assertEquals(2, batch.size());
+            assertTrue(batch.stream().anyMatch(score -> score == latest));
+            assertEquals(3, buffer.getWriteCount());
+            assertEquals(1, buffer.getCoalescedCount());
+            assertEquals(2, buffer.getFlushedCount());
+        }
+    }
+
+    @Test
+    void reachingMaxPendingFlushesRightAway() throws Exception {
+        RecordingConnection db = new RecordingConnection();
+        try (WriteBehindBuffer<Score> buffer = new WriteBehindBuffer<>(db.proxy, Score.class, NEVER, 3)) {
+            buffer.write(new Score(1, 1));
+            buffer.write(new Score(2, 1));
+            assertNull(db.batches.poll(100, TimeUnit.MILLISECONDS));
+
+            buffer.write(new Score(3, 1));
+
+            List<Score> batch = db.batches.poll(10, TimeUnit.SECONDS);
+            assertNotNull(batch);
+            assertEquals(3, batch.size());
+        }
+    }
+
+    @Test
+    void failedFlushRequeuesWithoutOverwritingNewerVersions() throws Exception {
+        RecordingConnection db = new RecordingConnection();
+        try (WriteBehindBuffer<Score> buffer = new WriteBehindBuffer<>(db.proxy, Score.class, NEVER, 100)) {
+            Score other = new Score(2, 1);
+            buffer.write(new Score(1, 1));
+            buffer.write(other);
+
+            db.failNext = true;
+            db.blockNext();
+            CompletableFuture<Integer> failing = buffer.flush();
+            assertTrue(db.entered.await(10, TimeUnit.SECONDS));
+            // written while the failing batch is in flight
+            Score newer = new Score(1, 2);
+            buffer.write(newer);
+            db.release.countDown();
+
+            ExecutionException e = assertThrows(ExecutionException.class, () -> failing.get(10, TimeUnit.SECONDS));
+            assertInstanceOf(SQLException.class, e.getCause());
+            assertEquals(1, buffer.getFailedFlushCount());
+            assertEquals(2, buffer.getPendingCount());
+
+            db.batches.clear();
+            assertEquals(2, buffer.flush().get(10, TimeUnit.SECONDS));
+            List<Score> retried = db.batches.poll();
+            assertTrue(retried.stream().anyMatch(score -> score == newer));
+            assertTrue(retried.stream().anyMatch(score -> score == other));
+        }
+    }
+
+    @Test
+    void closeFlushesEverythingPending() {
+        RecordingConnection db = new RecordingConnection();
+        WriteBehindBuffer<Score> buffer = new WriteBehindBuffer<>(db.proxy, Score.class, NEVER, 100);
+        buffer.write(new Score(1, 1));
+        buffer.write(new Score(2, 1));
+
+        buffer.close();
+
+        assertEquals(2, db.batches.poll().size());
+        assertEquals(0, buffer.getPendingCount());
+        assertThrows(IllegalStateException.class, () -> buffer.write(new Score(3, 1)));
+    }
+
+    /**
+     * A {@link DatabaseConnection} that only records upsert batches, and can fail or hold the next one.
+     */
+    private static final class RecordingConnection {
+        final BlockingQueue<List<Score>> batches = new LinkedBlockingQueue<>();
+        final DatabaseConnection proxy;
+        volatile boolean failNext;
+        volatile CountDownLatch entered = new CountDownLatch(0);
+        volatile CountDownLatch release = new CountDownLatch(0);
+
+        @SuppressWarnings("unchecked")
+        RecordingConnection() {
+            proxy = (DatabaseConnection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{DatabaseConnection.class},
+                    (self, method, args) -> {
+                        if (!method.getName().equals("upsertBatch")) {
+                            throw new UnsupportedOperationException(method.getName());
+                        }
+
+                        entered.countDown();
+                        release.await();
+                        if (failNext) {
+                            failNext = false;
+                            throw new SQLException("connection lost", "08006");
+                        }
+                        batches.add(new ArrayList<>((List<Score>) args[1]));
+                        return null;
+                    });
+        }
+
+        void blockNext() {
+            entered = new CountDownLatch(1);
+            release = new CountDownLatch(1);
+        }
+    }
+
+    @Table(name = "scores")
+    public static class Score {
+        @PrimaryKey
+        @Column
+        public int id;
+
+        @Column
+        public int points;
+
+        public Score() {
+        }
+
+        Score(int id, int points) {
+            this.id = id;
+            this.points = points;
+        }
+    }
+}
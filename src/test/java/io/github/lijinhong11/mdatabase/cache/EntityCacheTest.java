@@ -0,0 +1,84 @@
+package io.github.lijinhong11.mdatabase.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EntityCacheTest {
+    @Test
+    void entriesExpireAfterTheirTtl() throws InterruptedException {
+        EntityCache cache = new EntityCache(16, TimeUnit.MILLISECONDS.toNanos(20), false);
+        cache.put(1, "alice", cache.startLoad(1));
+        assertEquals("alice", cache.get(1));
+
+        Thread.sleep(50);
+
+        assertNull(cache.get(1));
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.getStats().getHits());
+        assertEquals(1, cache.getStats().getMisses());
+    }
+
+    @Test
+    void absentKeysAreOnlyRememberedWhenEnabled() {
+        EntityCache remembering = new EntityCache(16, 0L, true);
+        remembering.put(1, null, remembering.startLoad(1));
+        assertSame(EntityCache.ABSENT, remembering.get(1));
+
+        EntityCache forgetting = new EntityCache(16, 0L, false);
+        forgetting.put(1, null, forgetting.startLoad(1));
+        assertNull(forgetting.get(1));
+        assertEquals(0, forgetting.size());
+    }
+
+    @Test
+    void segmentsEvictTheirLeastRecentlyUsedEntry() {
+        // 16 segments of 2 entries; small integers land in the segment of their low four bits
+        EntityCache cache = new EntityCache(32, 0L, false);
+        cache.put(0, "a", cache.startLoad(0));
+        cache.put(16, "b", cache.startLoad(16));
+        cache.put(1, "other", cache.startLoad(1));
+        assertEquals("a", cache.get(0));
+
+        cache.put(32, "c", cache.startLoad(32));
+
+        assertEquals("a", cache.get(0));
+        assertNull(cache.get(16));
+        assertEquals("c", cache.get(32));
+        assertEquals("other", cache.get(1));
+        assertEquals(1, cache.getStats().getEvictions());
+        assertEquals(3, cache.size());
+    }
+
+    @Test
+    void loadsRacingAnInvalidationAreDropped() {
+        EntityCache cache = new EntityCache(16, 0L, true);
+
+        long token = cache.startLoad(1);
+        // a write of the key lands while the load is reading the old row
+        cache.invalidate(1);
+        cache.put(1, "stale", token);
+        assertNull(cache.get(1));
+
+        long cleared = cache.startLoad(2);
+        cache.clear();
+        cache.put(2, "stale", cleared);
+        assertNull(cache.get(2));
+
+        cache.put(1, "fresh", cache.startLoad(1));
+        assertEquals("fresh", cache.get(1));
+    }
+
+    @Test
+    void invalidationDropsTheEntry() {
+        EntityCache cache = new EntityCache(16, 0L, false);
+        cache.put(1, "alice", cache.startLoad(1));
+
+        cache.invalidate(1);
+
+        assertNull(cache.get(1));
+        assertEquals(1, cache.getStats().getInvalidations());
+    }
+}
@@ -0,0 +1,90 @@
+package io.github.lijinhong11.mdatabase.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryCacheTest {
+    private static final long MINUTE = TimeUnit.MINUTES.toNanos(1);
+
+    @Test
+    void writesMakeResultsOfTheirTablesStale() {
+        QueryCache cache = new QueryCache(16);
+        cache.put("users", "u", cache.startLoad(List.of("users")), MINUTE);
+        cache.put("join", "j", cache.startLoad(List.of("users", "guilds")), MINUTE);
+        cache.put("guilds", "g", cache.startLoad(List.of("guilds")), MINUTE);
+
+        cache.invalidateTable("USERS");
+
+        assertNull(cache.get("users"));
+        assertNull(cache.get("join"));
+        assertEquals("g", cache.get("guilds"));
+        assertEquals(2, cache.getStats().getInvalidations());
+    }
+
+    @Test
+    void invalidateAllMakesEveryResultStale() {
+        QueryCache cache = new QueryCache(16);
+        cache.put("users", "u", cache.startLoad(List.of("users")), MINUTE);
+        cache.put("guilds", "g", cache.startLoad(List.of("guilds")), MINUTE);
+
+        cache.invalidateAll();
+
+        assertNull(cache.get("users"));
+        assertNull(cache.get("guilds"));
+        cache.put("users", "fresh", cache.startLoad(List.of("users")), MINUTE);
+        assertEquals("fresh", cache.get("users"));
+    }
+
+    @Test
+    void loadsRacingAWriteAreDropped() {
+        QueryCache cache = new QueryCache(16);
+
+        QueryCache.Ticket table = cache.startLoad(List.of("users"));
+        cache.invalidateTable("users");
+        cache.put("users", "stale", table, MINUTE);
+        assertNull(cache.get("users"));
+
+        QueryCache.Ticket global = cache.startLoad(List.of("guilds"));
+        cache.invalidateAll();
+        cache.put("guilds", "stale", global, MINUTE);
+        assertNull(cache.get("guilds"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void resultsExpireAfterTheirOwnTtl() throws InterruptedException {
+        QueryCache cache = new QueryCache(16);
+        cache.put("short", "s", cache.startLoad(List.of("users")), TimeUnit.MILLISECONDS.toNanos(20));
+        cache.put("long", "l", cache.startLoad(List.of("users")), MINUTE);
+        cache.put("none", "n", cache.startLoad(List.of("users")), 0L);
+
+        Thread.sleep(50);
+
+        assertNull(cache.get("short"));
+        assertEquals("l", cache.get("long"));
+        assertNull(cache.get("none"));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void segmentsEvictTheirLeastRecentlyUsedResult() {
+        // 16 segments of 2 entries; small integers land in the segment of their low four bits
+        QueryCache cache = new QueryCache(32);
+        cache.put(0, "a", cache.startLoad(List.of("t")), MINUTE);
+        cache.put(16, "b", cache.startLoad(List.of("t")), MINUTE);
+        cache.put(1, "other", cache.startLoad(List.of("t")), MINUTE);
+        assertEquals("a", cache.get(0));
+
+        cache.put(32, "c", cache.startLoad(List.of("t")), MINUTE);
+
+        assertEquals("a", cache.get(0));
+        assertNull(cache.get(16));
+        assertEquals("c", cache.get(32));
+        assertEquals("other", cache.get(1));
+        assertEquals(1, cache.getStats().getEvictions());
+    }
+}
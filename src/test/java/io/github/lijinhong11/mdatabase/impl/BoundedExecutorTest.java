@@ -0,0 +1,116 @@
+package io.github.lijinhong11.mdatabase.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedExecutorTest {
+    @Test
+    void runsAtMostMaxConcurrencyTasksAtOnce() throws InterruptedException {
+        ExecutorService delegate = Executors.newCachedThreadPool();
+        BoundedExecutor executor = new BoundedExecutor(delegate, 2);
+        BlockingQueue<Integer> started = new LinkedBlockingQueue<>();
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(6);
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+
+        for (int i = 0; i < 6; i++) {
+            int task = i;
+            executor.execute(() -> {
+                maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+                started.add(task);
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                active.decrementAndGet();
+                finished.countDown();
+            });
+        }
+
+        assertNotNull(started.poll(10, TimeUnit.SECONDS));
+        assertNotNull(started.poll(10, TimeUnit.SECONDS));
+        assertNull(started.poll(100, TimeUnit.MILLISECONDS));
+        release.countDown();
+
+        assertTrue(finished.await(10, TimeUnit.SECONDS));
+        assertEquals(2, maxActive.get());
+        delegate.shutdown();
+    }
+
+    @Test
+    void queuedTasksRunInSubmissionOrder() throws InterruptedException {
+        ExecutorService delegate = Executors.newCachedThreadPool();
+        BoundedExecutor executor = new BoundedExecutor(delegate, 1);
+        List<Integer> order = new ArrayList<>();
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(5);
+
+        executor.execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            finished.countDown();
+        });
+        for (int i = 0; i < 4; i++) {
+            int task = i;
+            executor.execute(() -> {
+                synchronized (order) {
+                    order.add(task);
+                }
+                finished.countDown();
+            });
+        }
+        release.countDown();
+
+        assertTrue(finished.await(10, TimeUnit.SECONDS));
+        synchronized (order) {
+            assertEquals(List.of(0, 1, 2, 3), order);
+        }
+        delegate.shutdown();
+    }
+
+    @Test
+    void shutdownStillRunsQueuedTasks() throws InterruptedException {
+        ExecutorService delegate = Executors.newCachedThreadPool();
+        BoundedExecutor executor = new BoundedExecutor(delegate, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger ran = new AtomicInteger();
+
+        executor.execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            ran.incrementAndGet();
+        });
+        for (int i = 0; i < 3; i++) {
+            executor.execute(ran::incrementAndGet);
+        }
+
+        executor.shutdown();
+        assertThrows(RejectedExecutionException.class, () -> executor.execute(ran::incrementAndGet));
+        assertFalse(delegate.isShutdown());
+        release.countDown();
+
+        // the delegate is shut down once the last queued task has run
+        assertTrue(delegate.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(4, ran.get());
+    }
+}
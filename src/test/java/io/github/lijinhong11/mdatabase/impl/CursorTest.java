@@ -0,0 +1,193 @@
+package io.github.lijinhong11.mdatabase.impl;
+
+import io.github.lijinhong11.mdatabase.Cursor;
+import io.github.lijinhong11.mdatabase.DatabaseParameters;
+import io.github.lijinhong11.mdatabase.enums.DatabaseType;
+import io.github.lijinhong11.mdatabase.exceptions.DatabaseAccessException;
+import io.github.lijinhong11.mdatabase.serialization.annotations.Column;
+import io.github.lijinhong11.mdatabase.serialization.annotations.PrimaryKey;
+import io.github.lijinhong11.mdatabase.serialization.annotations.Table;
+import io.github.lijinhong11.mdatabase.sql.conditions.Conditions;
+import io.github.lijinhong11.mdatabase.sql.sentence.SQL;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CursorTest {
+    private static final int POOL_SIZE = 2;
+    private static final AtomicInteger MAPPED = new AtomicInteger();
+
+    @TempDir
+    Path dir;
+
+    private AbstractDatabaseConnection connection;
+
+    @BeforeEach
+    void open() throws SQLException {
+        DatabaseParameters parameters = new DatabaseParameters();
+        // a connection that is never handed back makes the next checkout fail quickly
+        parameters.setMaxPoolSize(POOL_SIZE);
+        parameters.setConnectionTimeout(500L);
+        connection = new SQLiteConnection(dir.resolve("test.db").toString(), parameters);
+        connection.createTableByClass(Reading.class);
+        connection.insertBatch(Reading.class, IntStream.range(0, 100).mapToObj(id -> new Reading(id, id * 10L)).toList());
+        MAPPED.set(0);
+    }
+
+    @AfterEach
+    void close() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    void rowsAreMappedOnlyWhenRead() throws SQLException {
+        try (Cursor<Reading> cursor = connection.selectCursor(Reading.class, null, 10)) {
+            assertEquals(0, MAPPED.get());
+            assertTrue(cursor.hasNext());
+            assertEquals(0, MAPPED.get());
+
+            assertEquals(0, cursor.next().id);
+            assertEquals(1, cursor.next().id);
+            assertEquals(2, MAPPED.get());
+        }
+
+        try (Stream<Reading> stream = connection.selectStream(Reading.class, Conditions.gt("id", 49))) {
+            assertEquals(List.of(50, 51, 52), stream.limit(3).map(reading -> reading.id).toList());
+        }
+        assertEquals(5, MAPPED.get());
+    }
+
+    @Test
+    void closingHandsTheConnectionBackToThePool() throws SQLException {
+        for (int i = 0; i < POOL_SIZE * 3; i++) {
+            try (Cursor<Reading> cursor = connection.selectCursor(Reading.class, null)) {
+                // left unfinished on purpose
+                assertTrue(cursor.hasNext());
+                cursor.next();
+            }
+
+            try (Stream<Reading> stream = connection.selectStream(Reading.class, null)) {
+                assertTrue(stream.findFirst().isPresent());
+            }
+
+            try (ResultSet set = connection.query(SQL.select().allColumns().from("readings"))) {
+                assertTrue(set.next());
+            }
+        }
+
+        assertEquals(100, connection.selectMulti(Reading.class).size());
+    }
+
+    @Test
+    void closingTwiceIsHarmless() throws SQLException {
+        Cursor<Reading> cursor = connection.selectCursor(Reading.class, null);
+        cursor.close();
+        cursor.close();
+
+        assertFalse(cursor.hasNext());
+        assertEquals(100, connection.selectMulti(Reading.class).size());
+    }
+
+    @Test
+    void readFailuresSurfaceAsDatabaseAccessExceptions() throws SQLException {
+        try (Connection raw = connection.createRawConnection();
+             Statement statement = raw.createStatement()) {
+            // abs() of the smallest integer overflows while the row is stepped to, not when the query starts
+            statement.executeUpdate("CREATE TABLE raw_samples (id INTEGER PRIMARY KEY, value INTEGER)");
+            statement.executeUpdate("INSERT INTO raw_samples VALUES (1, -5), (2, -9223372036854775808), (3, 7)");
+            statement.executeUpdate("CREATE VIEW samples AS SELECT id, abs(value) AS value FROM raw_samples ORDER BY id");
+        }
+
+        for (int i = 0; i < POOL_SIZE * 2; i++) {
+            try (Cursor<Sample> cursor = connection.selectCursor(Sample.class, null)) {
+                assertEquals(5, cursor.next().value);
+
+                DatabaseAccessException error = assertThrows(DatabaseAccessException.class, cursor::hasNext);
+                assertInstanceOf(SQLException.class, error.getCause());
+            }
+
+            try (Stream<Sample> stream = connection.selectStream(Sample.class, null)) {
+                assertThrows(DatabaseAccessException.class, () -> stream.forEach(sample -> {
+                }));
+            }
+        }
+
+        assertEquals(100, connection.selectMulti(Reading.class).size());
+    }
+
+    @Test
+    void postgresCursorsSwitchAutoCommitOffUntilClosed() throws SQLException {
+        RecordingDatabaseConnection postgres = new RecordingDatabaseConnection(DatabaseType.POSTGRESQL, new DatabaseParameters());
+
+        Cursor<Reading> cursor = postgres.selectCursor(Reading.class, null);
+        // the driver only fetches in chunks inside a transaction
+        assertFalse(postgres.autoCommit);
+        assertFalse(cursor.hasNext());
+        cursor.close();
+        assertTrue(postgres.autoCommit);
+        assertEquals(1, postgres.released.get());
+
+        try (Stream<Reading> stream = postgres.selectStream(Reading.class, null)) {
+            assertFalse(postgres.autoCommit);
+            assertEquals(0, stream.count());
+        }
+        assertTrue(postgres.autoCommit);
+        assertEquals(2, postgres.released.get());
+    }
+
+    @Test
+    void otherDialectsKeepAutoCommit() throws SQLException {
+        RecordingDatabaseConnection mariadb = new RecordingDatabaseConnection(DatabaseType.MARIADB, new DatabaseParameters());
+
+        try (Cursor<Reading> cursor = mariadb.selectCursor(Reading.class, null)) {
+            assertTrue(mariadb.autoCommit);
+            assertFalse(cursor.hasNext());
+        }
+        assertEquals(1, mariadb.released.get());
+    }
+
+    @Table(name = "readings")
+    public static class Reading {
+        @PrimaryKey
+        @Column
+        public int id;
+
+        @Column
+        public long value;
+
+        public Reading() {
+            MAPPED.incrementAndGet();
+        }
+
+        Reading(int id, long value) {
+            this.id = id;
+            this.value = value;
+        }
+    }
+
+    @Table(name = "samples")
+    public static class Sample {
+        @PrimaryKey
+        @Column
+        public int id;
+
+        @Column
+        public long value;
+
+        public Sample() {
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package io.github.lijinhong11.mdatabase.impl;
+
+import io.github.lijinhong11.mdatabase.DatabaseParameters;
+import io.github.lijinhong11.mdatabase.enums.BatchMode;
+import io.github.lijinhong11.mdatabase.serialization.annotations.AutoIncrement;
+import io.github.lijinhong11.mdatabase.serialization.annotations.Column;
+import io.github.lijinhong11.mdatabase.serialization.annotations.PrimaryKey;
+import io.github.lijinhong11.mdatabase.serialization.annotations.Table;
+import io.github.lijinhong11.mdatabase.sql.StatementCacheStats;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GeneratedKeysTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void multiRowChunksReadKeysThroughReturningInInsertOrder() throws SQLException {
+        DatabaseParameters parameters = new DatabaseParameters();
+        parameters.setMultiRowBatchSize(1000);
+        AbstractDatabaseConnection connection = open("returning.db", parameters, true);
+        try {
+            StatementCacheStats stats = connection.getStatementCacheStats();
+            long misses = stats.getMisses();
+            long hits = stats.getHits();
+            List<Event> events = events(2007);
+
+            connection.insertBatch(Event.class, events);
+
+            // 1000 + 1000 + 4 + 2 + 1 rows: four statement shapes
+            assertEquals(misses + 4, stats.getMisses());
+            assertEquals(hits + 1, stats.getHits());
+            assertKeysMatchStoredRows(connection, events);
+        } finally {
+            connection.close();
+        }
+    }
+
+    @Test
+    void withoutReturningKeysAreReadRowByRow() throws SQLException {
+        AbstractDatabaseConnection connection = open("fallback.db", new DatabaseParameters(), false);
+        try {
+            StatementCacheStats stats = connection.getStatementCacheStats();
+            long misses = stats.getMisses();
+            long hits = stats.getHits();
+            List<Event> events = events(7);
+
+            connection.insertBatch(Event.class, events);
+
+            // one single-row statement, run once per object
+            assertEquals(misses + 1, stats.getMisses());
+            assertEquals(hits + 6, stats.getHits());
+            assertKeysMatchStoredRows(connection, events);
+        } finally {
+            connection.close();
+        }
+    }
+
+    @Test
+    void singleInsertsAndJdbcBatchesReadTheirKeys() throws SQLException {
+        DatabaseParameters jdbcBatch = new DatabaseParameters();
+        jdbcBatch.setBatchMode(BatchMode.JDBC_BATCH);
+        for (AbstractDatabaseConnection connection : List.of(open("single.db", new DatabaseParameters(), true),
+                open("single-fallback.db", new DatabaseParameters(), false), open("batch.db", jdbcBatch, true))) {
+            try {
+                Event first = new Event("first");
+                connection.insertObject(Event.class, first, false);
+                assertEquals(1, first.id);
+
+                List<Event> events = events(5);
+                connection.insertBatch(Event.class, events);
+                assertEquals(List.of(2L, 3L, 4L, 5L, 6L), events.stream().map(event -> event.id).toList());
+                assertKeysMatchStoredRows(connection, events);
+            } finally {
+                connection.close();
+            }
+        }
+    }
+
+    @Test
+    void autoIncrementKeysBecomeSqliteRowIdsThatAreNeverReused() throws SQLException {
+        AbstractDatabaseConnection connection = open("ddl.db", new DatabaseParameters(), true);
+        try (Connection raw = connection.createRawConnection();
+             Statement statement = raw.createStatement()) {
+            try (ResultSet set = statement.executeQuery("SELECT sql FROM sqlite_master WHERE name = 'events'")) {
+                assertTrue(set.next());
+                assertTrue(set.getString(1).contains("id INTEGER PRIMARY KEY AUTOINCREMENT"), set.getString(1));
+            }
+
+            List<Event> events = events(3);
+            connection.insertBatch(Event.class, events);
+            connection.deleteByIds(Event.class, List.of(3L));
+
+            // AUTOINCREMENT keeps the highest key ever used, so a deleted key is not handed out again
+            Event next = new Event("next");
+            connection.insertObject(Event.class, next, false);
+            assertEquals(4, next.id);
+        } finally {
+            connection.close();
+        }
+    }
+
+    private AbstractDatabaseConnection open(String file, DatabaseParameters parameters, boolean returning) throws SQLException {
+        AbstractDatabaseConnection connection = new SQLiteConnection(dir.resolve(file).toString(), parameters) {
+            @Override
+            boolean supportsReturning(Connection connection) throws SQLException {
+                return returning && super.supportsReturning(connection);
+            }
+        };
+        connection.createTableByClass(Event.class);
+        return connection;
+    }
+
+    private static void assertKeysMatchStoredRows(AbstractDatabaseConnection connection, List<Event> events) throws SQLException {
+        Map<String, Long> stored = connection.selectMulti(Event.class).stream()
+                .collect(Collectors.toMap(event -> event.name, event -> event.id));
+        for (Event event : events) {
+            assertEquals(stored.get(event.name), event.id, event.name);
+        }
+        // the database hands out increasing keys in insert order
+        assertEquals(events.stream().map(event -> event.id).sorted().toList(), events.stream().map(event -> event.id).toList());
+    }
+
+    private static List<Event> events(int count) {
+        return IntStream.range(0, count).mapToObj(i -> new Event("event " + i)).collect(Collectors.toList());
+    }
+
+    @Table(name = "events")
+    public static class Event {
+        @PrimaryKey
+        @AutoIncrement
+        @Column
+        public long id;
+
+        @Column
+        public String name;
+
+        public Event() {
+        }
+
+        Event(String name) {
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package io.github.lijinhong11.mdatabase.impl;
+
+import io.github.lijinhong11.mdatabase.DatabaseConnection;
+import io.github.lijinhong11.mdatabase.DatabaseParameters;
+import io.github.lijinhong11.mdatabase.Page;
+import io.github.lijinhong11.mdatabase.enums.OrderType;
+import io.github.lijinhong11.mdatabase.serialization.annotations.Column;
+import io.github.lijinhong11.mdatabase.serialization.annotations.PrimaryKey;
+import io.github.lijinhong11.mdatabase.serialization.annotations.Table;
+import io.github.lijinhong11.mdatabase.sql.conditions.Condition;
+import io.github.lijinhong11.mdatabase.sql.conditions.Conditions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeysetPageTest {
+    private static final int ROWS = 25;
+
+    @TempDir
+    Path dir;
+
+    private DatabaseConnection connection;
+    private final List<Score> scores = new ArrayList<>();
+
+    @BeforeEach
+    void open() throws SQLException {
+        connection = DatabaseConnections.sqlite(dir.resolve("test.db").toString(), new DatabaseParameters());
+        connection.createTableByClass(Score.class);
+        // ids are inserted out of order, and only four distinct point values exist
+        for (int i = 0; i < ROWS; i++) {
+            scores.add(new Score((i * 7) % ROWS, i % 4, "player" + i));
+        }
+        connection.insertBatch(Score.class, scores);
+    }
+
+    @AfterEach
+    void close() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    void tokensWalkEveryRowOnceInOrder() throws SQLException {
+        List<Integer> seen = readAll(null, OrderType.ASC, 7);
+
+        // ties on points are broken by the primary key, so no row is skipped or repeated
+        assertEquals(expected(null, Comparator.comparingInt((Score score) -> score.points).thenComparingInt(score -> score.id)), seen);
+    }
+
+    @Test
+    void descendingPagesWalkBackwards() throws SQLException {
+        List<Integer> seen = readAll(null, OrderType.DESC, 4);
+
+        assertEquals(expected(null, Comparator.comparingInt((Score score) -> score.points).thenComparingInt(score -> score.id).reversed()), seen);
+    }
+
+    @Test
+    void pagesKeepTheFilter() throws SQLException {
+        Condition filter = Conditions.lt("points", 2);
+
+        List<Integer> seen = readAll(filter, OrderType.ASC, 5);
+
+        assertEquals(expected(score -> score.points < 2, Comparator.comparingInt((Score score) -> score.points).thenComparingInt(score -> score.id)), seen);
+    }
+
+    @Test
+    void lastPageHasNoToken() throws SQLException {
+        Page<Score> all = connection.page(Score.class, null, List.of("points"), ROWS, null);
+
+        assertEquals(ROWS, all.getItems().size());
+        assertFalse(all.hasNext());
+        assertNull(all.getNextToken());
+    }
+
+    @Test
+    void foreignOrTamperedTokensAreRejected() throws SQLException {
+        String token = connection.page(Score.class, null, List.of("points"), 5, null).getNextToken();
+        assertNotNull(token);
+
+        // another sort column, another direction
+        assertThrows(IllegalArgumentException.class, () -> connection.page(Score.class, null, List.of("name"), 5, token));
+        assertThrows(IllegalArgumentException.class, () -> connection.page(Score.class, null, List.of("points"), OrderType.DESC, 5, token));
+
+        assertThrows(IllegalArgumentException.class, () -> connection.page(Score.class, null, List.of("points"), 5, "not a token!"));
+        assertThrows(IllegalArgumentException.class, () -> connection.page(Score.class, null, List.of("points"), 5, token.substring(0, token.length() - 4)));
+
+        byte[] bytes = Base64.getUrlDecoder().decode(token);
+        // the type tag of the first value, after the version, the shape and the value count
+        bytes[6] = 'X';
+        String tampered = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        assertThrows(IllegalArgumentException.class, () -> connection.page(Score.class, null, List.of("points"), 5, tampered));
+    }
+
+    @Test
+    void expandedAndRowValueConditionsSelectTheSameRows() throws SQLException {
+        List<String> columns = List.of("points", "id");
+        for (OrderType order : OrderType.values()) {
+            List<Object> key = List.of(2, 10);
+            List<Integer> rowValues = ids(connection.selectMulti(Score.class, Conditions.after(columns, key, order, true)));
+            List<Integer> expanded = ids(connection.selectMulti(Score.class, Conditions.after(columns, key, order, false)));
+
+            assertFalse(rowValues.isEmpty());
+            assertEquals(rowValues.stream().sorted().toList(), expanded.stream().sorted().toList());
+        }
+    }
+
+    private List<Integer> readAll(Condition filter, OrderType order, int pageSize) throws SQLException {
+        List<Integer> seen = new ArrayList<>();
+        String token = null;
+        int pages = 0;
+        do {
+            Page<Score> page = connection.page(Score.class, filter, List.of("points"), order, pageSize, token);
+            assertTrue(page.getItems().size() <= pageSize);
+            seen.addAll(ids(page.getItems()));
+            token = page.getNextToken();
+            pages++;
+        } while (token != null);
+
+        assertEquals((seen.size() + pageSize - 1) / pageSize, pages, "no empty trailing page");
+        return seen;
+    }
+
+    private List<Integer> expected(Predicate<Score> filter, Comparator<Score> order) {
+        return scores.stream().filter(filter == null ? score -> true : filter).sorted(order).map(score -> score.id).toList();
+    }
+
+    private static List<Integer> ids(List<Score> scores) {
+        return scores.stream().map(score -> score.id).toList();
+    }
+
+    @Table(name = "scores")
+    public static class Score {
+        @PrimaryKey
+        @Column
+        public int id;
+
+        @Column
+        public int points;
+
+        @Column
+        public String name;
+
+        public Score() {
+        }
+
+        Score(int id, int points, String name) {
+            this.id = id;
+            this.points = points;
+            this.name = name;
+        }
+    }
+}
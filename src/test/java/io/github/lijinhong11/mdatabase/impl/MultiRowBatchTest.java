@@ -0,0 +1,172 @@
+package io.github.lijinhong11.mdatabase.impl;
+
+import io.github.lijinhong11.mdatabase.DatabaseParameters;
+import io.github.lijinhong11.mdatabase.enums.BatchMode;
+import io.github.lijinhong11.mdatabase.enums.DatabaseType;
+import io.github.lijinhong11.mdatabase.serialization.annotations.Column;
+import io.github.lijinhong11.mdatabase.serialization.annotations.PrimaryKey;
+import io.github.lijinhong11.mdatabase.serialization.annotations.Table;
+import io.github.lijinhong11.mdatabase.sql.StatementCacheStats;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.sqlite.SQLiteLimits;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MultiRowBatchTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void fullChunksFillTheSqliteLimit() throws SQLException {
+        DatabaseParameters parameters = new DatabaseParameters();
+        parameters.setMultiRowBatchSize(100_000);
+        AbstractDatabaseConnection connection = new SQLiteConnection(dir.resolve("test.db").toString(), parameters);
+        try {
+            connection.createTableByClass(Row.class);
+            StatementCacheStats stats = connection.getStatementCacheStats();
+            long misses = stats.getMisses();
+            long hits = stats.getHits();
+
+            // 32766 / 3 columns = 10922 rows per statement: two full chunks, then 3156 = 2048 + 1024 + 64 + 16 + 4
+            connection.insertBatch(Row.class, rows(0, 25_000));
+
+            assertEquals(misses + 6, stats.getMisses());
+            assertEquals(hits + 1, stats.getHits());
+            assertEquals(25_000, connection.selectMulti(Row.class).size());
+        } finally {
+            connection.close();
+        }
+    }
+
+    @Test
+    void chunksFitTheLimitOfOldSqlite() throws SQLException {
+        AbstractDatabaseConnection connection = new SQLiteConnection(dir.resolve("old.db").toString(), new DatabaseParameters()) {
+            @Override
+            int getMaxBindParameters(Connection connection) throws SQLException {
+                // what SQLite before 3.32 allows, enforced on the connection so that a larger statement fails
+                connection.unwrap(org.sqlite.SQLiteConnection.class).setLimit(SQLiteLimits.SQLITE_LIMIT_VARIABLE_NUMBER, 999);
+                return 999;
+            }
+        };
+        try {
+            connection.createTableByClass(Row.class);
+
+            // 999 / 3 columns = 333 rows per statement
+            connection.insertBatch(Row.class, rows(0, 1000));
+
+            assertEquals(1000, connection.selectMulti(Row.class).size());
+        } finally {
+            connection.close();
+        }
+    }
+
+    @Test
+    void chunksFitTheUnsignedShortLimit() throws SQLException {
+        DatabaseParameters parameters = new DatabaseParameters();
+        parameters.setMultiRowBatchSize(100_000);
+        RecordingDatabaseConnection connection = new RecordingDatabaseConnection(DatabaseType.POSTGRESQL, parameters);
+
+        // 65535 / 3 columns = 21845 rows per statement, then 8155 = 4096 + 2048 + 1024 + 512 + 256 + 128 + 64 + 16 + 8 + 2 + 1
+        connection.insertBatch(Row.class, rows(0, 30_000));
+
+        List<Integer> chunks = connection.executed.stream().map(executed -> executed.parameterCount() / 3).toList();
+        assertEquals(List.of(21845, 4096, 2048, 1024, 512, 256, 128, 64, 16, 8, 2, 1), chunks);
+        assertTrue(connection.executed.stream().allMatch(executed -> executed.parameterCount() <= 65535));
+        // the first id of each chunk follows the last id of the one before
+        assertEquals(0, connection.executed.get(0).executions().get(0).get(0));
+        assertEquals(21845, connection.executed.get(1).executions().get(0).get(0));
+    }
+
+    @Test
+    void tailChunksReuseCachedShapes() throws SQLException {
+        AbstractDatabaseConnection connection = new SQLiteConnection(dir.resolve("test.db").toString(), new DatabaseParameters());
+        try {
+            connection.createTableByClass(Row.class);
+            StatementCacheStats stats = connection.getStatementCacheStats();
+            long misses = stats.getMisses();
+            long hits = stats.getHits();
+
+            connection.insertBatch(Row.class, rows(0, 7));
+            connection.insertBatch(Row.class, rows(7, 5));
+            connection.insertBatch(Row.class, rows(12, 6));
+
+            // 7 = 4 + 2 + 1, 5 = 4 + 1, 6 = 4 + 2: three shapes, prepared once each
+            assertEquals(misses + 3, stats.getMisses());
+            assertEquals(hits + 4, stats.getHits());
+            assertEquals(18, connection.selectMulti(Row.class).size());
+        } finally {
+            connection.close();
+        }
+    }
+
+    @Test
+    void batchModesWriteTheSameRows() throws SQLException {
+        List<Row> rows = rows(0, 2500);
+        // nulls must bind the same way in both modes
+        rows.get(3).name = null;
+        rows.get(2499).name = null;
+
+        List<List<Row>> stored = new ArrayList<>();
+        for (BatchMode mode : BatchMode.values()) {
+            DatabaseParameters parameters = new DatabaseParameters();
+            parameters.setBatchMode(mode);
+            AbstractDatabaseConnection connection = new SQLiteConnection(dir.resolve(mode + ".db").toString(), parameters);
+            try (Connection raw = connection.createRawConnection();
+                 Statement statement = raw.createStatement()) {
+                // created by hand, as createTableByClass makes every column NOT NULL
+                statement.executeUpdate("CREATE TABLE rows (id INTEGER PRIMARY KEY, level INTEGER NOT NULL, name TEXT)");
+                connection.insertBatch(Row.class, rows);
+                connection.upsertBatch(Row.class, List.of(new Row(5, 99, "updated"), new Row(5000, 1, "new")));
+                stored.add(connection.selectMulti(Row.class).stream().sorted(Comparator.comparingInt(row -> row.id)).toList());
+            } finally {
+                connection.close();
+            }
+        }
+
+        assertEquals(2501, stored.get(0).size());
+        assertEquals(describe(stored.get(0)), describe(stored.get(1)));
+    }
+
+    private static List<Row> rows(int from, int count) {
+        List<Row> rows = new ArrayList<>(count);
+        for (int id = from; id < from + count; id++) {
+            rows.add(new Row(id, id % 7, "row " + id));
+        }
+        return rows;
+    }
+
+    private static List<String> describe(List<Row> rows) {
+        return rows.stream().map(row -> row.id + "/" + row.level + "/" + row.name).toList();
+    }
+
+    @Table(name = "rows")
+    public static class Row {
+        @PrimaryKey
+        @Column
+        public int id;
+
+        @Column
+        public int level;
+
+        @Column
+        public String name;
+
+        public Row() {
+        }
+
+        Row(int id, int level, String name) {
+            this.id = id;
+            this.level = level;
+            this.name = name;
+        }
+    }
+}
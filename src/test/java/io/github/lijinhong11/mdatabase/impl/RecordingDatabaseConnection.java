@@ -0,0 +1,146 @@
+package io.github.lijinhong11.mdatabase.impl;
+
+import io.github.lijinhong11.mdatabase.DatabaseParameters;
+import io.github.lijinhong11.mdatabase.enums.DatabaseType;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A connection of any dialect whose JDBC calls only record the statements they would send,
+ * for statements no database available to the tests accepts. Queries return no rows.
+ */
+final class RecordingDatabaseConnection extends AbstractDatabaseConnection {
+    final List<Executed> executed = new CopyOnWriteArrayList<>();
+    final AtomicInteger released = new AtomicInteger();
+    volatile boolean autoCommit = true;
+    private final DatabaseType type;
+    private final Connection connection;
+
+    RecordingDatabaseConnection(DatabaseType type, DatabaseParameters parameters) {
+        super(parameters);
+        this.type = type;
+        this.connection = (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                (self, method, args) -> switch (method.getName()) {
+                    case "prepareStatement" -> prepare((String) args[0]);
+                    case "isWrapperFor", "isClosed" -> false;
+                    case "getAutoCommit" -> autoCommit;
+                    case "setAutoCommit" -> {
+                        autoCommit = (Boolean) args[0];
+                        yield null;
+                    }
+                    case "close" -> {
+                        released.incrementAndGet();
+                        yield null;
+                    }
+                    case "hashCode" -> System.identityHashCode(self);
+                    case "equals" -> self == args[0];
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private PreparedStatement prepare(String sql) {
+        Map<Integer, Object> parameters = new TreeMap<>();
+        List<List<Object>> batch = new ArrayList<>();
+        boolean[] closed = new boolean[1];
+        return (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{PreparedStatement.class},
+                (self, method, args) -> {
+                    String name = method.getName();
+                    if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                        parameters.put(index, name.equals("setNull") ? null : args[1]);
+                        return null;
+                    }
+                    return switch (name) {
+                        case "executeUpdate" -> {
+                            executed.add(new Executed(sql, List.of(new ArrayList<>(parameters.values()))));
+                            yield 1;
+                        }
+                        case "executeQuery" -> {
+                            executed.add(new Executed(sql, List.of(new ArrayList<>(parameters.values()))));
+                            yield emptyResult();
+                        }
+                        case "setFetchSize", "closeOnCompletion" -> null;
+                        case "addBatch" -> {
+                            batch.add(new ArrayList<>(parameters.values()));
+                            yield null;
+                        }
+                        case "executeBatch" -> {
+                            executed.add(new Executed(sql, new ArrayList<>(batch)));
+                            int[] counts = new int[batch.size()];
+                            batch.clear();
+                            yield counts;
+                        }
+                        case "clearParameters" -> {
+                            parameters.clear();
+                            yield null;
+                        }
+                        case "close" -> {
+                            closed[0] = true;
+                            yield null;
+                        }
+                        case "isClosed" -> closed[0];
+                        case "hashCode" -> System.identityHashCode(self);
+                        case "equals" -> self == args[0];
+                        default -> throw new UnsupportedOperationException(name);
+                    };
+                });
+    }
+
+    private ResultSet emptyResult() {
+        ResultSetMetaData metaData = (ResultSetMetaData) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{ResultSetMetaData.class},
+                (self, method, args) -> switch (method.getName()) {
+                    case "getColumnCount" -> 0;
+                    case "hashCode" -> System.identityHashCode(self);
+                    case "equals" -> self == args[0];
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        boolean[] closed = new boolean[1];
+        return (ResultSet) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{ResultSet.class},
+                (self, method, args) -> switch (method.getName()) {
+                    case "next" -> false;
+                    case "getMetaData" -> metaData;
+                    case "close" -> {
+                        closed[0] = true;
+                        yield null;
+                    }
+                    case "isClosed" -> closed[0];
+                    case "hashCode" -> System.identityHashCode(self);
+                    case "equals" -> self == args[0];
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    @Override
+    Connection createRawConnection() {
+        return connection;
+    }
+
+    @Override
+    void closeDataSource() {
+    }
+
+    @Override
+    public @NotNull DatabaseType getType() {
+        return type;
+    }
+
+    /**
+     * One statement sent to the database, with the values bound for each of its executions.
+     */
+    record Executed(String sql, List<List<Object>> executions) {
+        int parameterCount() {
+            return executions.get(0).size();
+        }
+    }
+}
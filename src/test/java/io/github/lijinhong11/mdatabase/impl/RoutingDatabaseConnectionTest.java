@@ -0,0 +1,154 @@
+package io.github.lijinhong11.mdatabase.impl;
+
+import io.github.lijinhong11.mdatabase.Cursor;
+import io.github.lijinhong11.mdatabase.DatabaseParameters;
+import io.github.lijinhong11.mdatabase.serialization.annotations.Column;
+import io.github.lijinhong11.mdatabase.serialization.annotations.PrimaryKey;
+import io.github.lijinhong11.mdatabase.serialization.annotations.Table;
+import io.github.lijinhong11.mdatabase.sql.conditions.Conditions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoutingDatabaseConnectionTest {
+    @TempDir
+    Path dir;
+
+    private RoutingDatabaseConnection routing;
+
+    @AfterEach
+    void close() throws SQLException {
+        if (routing != null) {
+            routing.close();
+        }
+    }
+
+    @Test
+    void readsGoRoundRobinOverReplicas() throws SQLException {
+        routing = DatabaseConnections.routing(database("primary", parameters()),
+                List.of(database("replica0", parameters()), database("replica1", parameters())));
+
+        List<String> sources = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            sources.add(routing.selectOne(Node.class, Conditions.eq("id", 1)).source);
+        }
+
+        assertEquals(List.of("replica0", "replica1", "replica0", "replica1"), sources);
+        assertEquals(2, routing.getReplicaReadCount(0));
+        assertEquals(2, routing.getReplicaReadCount(1));
+        assertEquals(0, routing.getPrimaryReadCount());
+    }
+
+    @Test
+    void readsOfWrittenTablesStickToThePrimary() throws SQLException {
+        routing = DatabaseConnections.routing(database("primary", parameters()), List.of(database("replica0", parameters())));
+
+        routing.insertObject(Node.class, new Node(2, "primary"), false);
+
+        assertEquals(2, routing.selectMulti(Node.class).size());
+        assertEquals(1, routing.getPrimaryReadCount());
+        // other tables still read from the replica
+        assertEquals("replica0", routing.selectOne(Marker.class, Conditions.eq("id", 1)).source);
+        assertEquals(1, routing.getReplicaReadCount(0));
+    }
+
+    @Test
+    void failedReplicaReadIsRepeatedOnThePrimary() throws SQLException {
+        DatabaseParameters single = parameters();
+        single.setMaxPoolSize(1);
+        single.setConnectionTimeout(250L);
+        AbstractDatabaseConnection replica0 = database("replica0", single);
+        routing = DatabaseConnections.routing(database("primary", parameters()), List.of(replica0, database("replica1", parameters())));
+
+        // holding the only pooled connection makes the next read of replica0 time out
+        try (Cursor<Node> held = replica0.selectCursor(Node.class, null)) {
+            assertTrue(held.hasNext());
+            assertEquals("primary", routing.selectOne(Node.class, Conditions.eq("id", 1)).source);
+            assertFalse(routing.isReplicaHealthy(0));
+            assertEquals("replica1", routing.selectOne(Node.class, Conditions.eq("id", 1)).source);
+            assertEquals("replica1", routing.selectOne(Node.class, Conditions.eq("id", 1)).source);
+        }
+
+        routing.checkReplicas();
+        assertTrue(routing.isReplicaHealthy(0));
+    }
+
+    @Test
+    void deniedLagKeepsTheReplicaOnPingHealth() throws SQLException {
+        AbstractDatabaseConnection denied = new SQLiteConnection(dir.resolve("replica0.db").toString(), parameters()) {
+            @Override
+            long getReplicationLag(Connection connection) throws SQLException {
+                throw new SQLException("REPLICATION CLIENT privilege required", "42501");
+            }
+        };
+        AbstractDatabaseConnection stopped = new SQLiteConnection(dir.resolve("replica1.db").toString(), parameters()) {
+            @Override
+            long getReplicationLag(Connection connection) {
+                return Long.MAX_VALUE;
+            }
+        };
+        routing = DatabaseConnections.routing(database("primary", parameters()), List.of(denied, stopped));
+
+        routing.checkReplicas();
+        routing.checkReplicas();
+
+        assertTrue(routing.isReplicaHealthy(0));
+        assertEquals(-1L, routing.getReplicaLag(0));
+        assertFalse(routing.isReplicaHealthy(1));
+    }
+
+    private static DatabaseParameters parameters() {
+        DatabaseParameters parameters = new DatabaseParameters();
+        parameters.setReplicaCheckInterval(0L);
+        parameters.setReadAfterWriteWindow(60_000L);
+        return parameters;
+    }
+
+    private AbstractDatabaseConnection database(String name, DatabaseParameters parameters) throws SQLException {
+        AbstractDatabaseConnection connection = new SQLiteConnection(dir.resolve(name + ".db").toString(), parameters);
+        connection.createTableByClass(Node.class);
+        connection.createTableByClass(Marker.class);
+        connection.insertObject(Node.class, new Node(1, name), false);
+        Marker marker = new Marker();
+        marker.id = 1;
+        marker.source = name;
+        connection.insertObject(Marker.class, marker, false);
+        return connection;
+    }
+
+    @Table(name = "nodes")
+    public static class Node {
+        @PrimaryKey
+        @Column
+        public int id;
+
+        @Column
+        public String source;
+
+        public Node() {
+        }
+
+        Node(int id, String source) {
+            this.id = id;
+            this.source = source;
+        }
+    }
+
+    @Table(name = "markers")
+    public static class Marker {
+        @PrimaryKey
+        @Column
+        public int id;
+
+        @Column
+        public String source;
+    }
+}
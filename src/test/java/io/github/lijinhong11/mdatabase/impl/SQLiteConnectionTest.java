@@ -0,0 +1,169 @@
+package io.github.lijinhong11.mdatabase.impl;
+
+import io.github.lijinhong11.mdatabase.DatabaseConnection;
+import io.github.lijinhong11.mdatabase.DatabaseParameters;
+import io.github.lijinhong11.mdatabase.serialization.annotations.Column;
+import io.github.lijinhong11.mdatabase.serialization.annotations.PrimaryKey;
+import io.github.lijinhong11.mdatabase.serialization.annotations.Table;
+import io.github.lijinhong11.mdatabase.serialization.annotations.TrackChanges;
+import io.github.lijinhong11.mdatabase.sql.conditions.Conditions;
+import io.github.lijinhong11.mdatabase.sql.sentence.SQL;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SQLiteConnectionTest {
+    @TempDir
+    Path dir;
+
+    private DatabaseConnection connection;
+
+    @BeforeEach
+    void open() {
+        connection = DatabaseConnections.sqlite(dir.resolve("test.db").toString(), new DatabaseParameters());
+    }
+
+    @AfterEach
+    void close() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    void unchangedTrackedObjectUpdatesRowsOfOtherConditions() throws SQLException {
+        connection.createTableByClass(Hero.class);
+        connection.insertBatch(Hero.class, List.of(new Hero(1, 5, "knight"), new Hero(2, 5, "mage"), new Hero(3, 7, "rogue")));
+
+        Hero template = connection.selectOne(Hero.class, Conditions.eq("id", 3));
+        connection.updateObject(Hero.class, template, Conditions.eq("level", 5));
+
+        for (Hero hero : connection.selectMulti(Hero.class, Conditions.in("id", List.of(1, 2)))) {
+            assertEquals(7, hero.level);
+            assertEquals("rogue", hero.name);
+        }
+    }
+
+    @Test
+    void trackedObjectUpdatesOnlyChangedColumnsOfItsOwnRow() throws SQLException {
+        connection.createTableByClass(Hero.class);
+        connection.insertObject(Hero.class, new Hero(1, 5, "knight"), false);
+
+        Hero loaded = connection.selectOne(Hero.class, Conditions.eq("id", 1));
+        connection.execute(SQL.update().table("heroes")
+                .set("name", "paladin").where(Conditions.eq("id", 1)));
+
+        loaded.level = 6;
+        connection.updateObject(Hero.class, loaded, Conditions.eq("id", 1));
+
+        Hero stored = connection.selectOne(Hero.class, Conditions.eq("id", 1));
+        assertEquals(6, stored.level);
+        // the name column was not written back, so the concurrent change survives
+        assertEquals("paladin", stored.name);
+    }
+
+    @Test
+    void tunedModeAppliesPragmasAndReadOnlyReaders() throws SQLException {
+        AbstractDatabaseConnection tuned = new SQLiteConnection(dir.resolve("tuned.db").toString(), tunedParameters());
+        try {
+            try (Connection writer = tuned.createRawConnection()) {
+                assertEquals("wal", pragma(writer, "journal_mode"));
+                assertEquals("1", pragma(writer, "synchronous"));
+                assertEquals("-16384", pragma(writer, "cache_size"));
+                assertEquals("2", pragma(writer, "temp_store"));
+                assertEquals("0", pragma(writer, "query_only"));
+            }
+            try (Connection reader = tuned.createReadConnection()) {
+                assertEquals("wal", pragma(reader, "journal_mode"));
+                assertEquals("1", pragma(reader, "query_only"));
+                try (Statement statement = reader.createStatement()) {
+                    assertThrows(SQLException.class, () -> statement.execute("CREATE TABLE t (id INTEGER)"));
+                }
+            }
+        } finally {
+            tuned.close();
+        }
+    }
+
+    @Test
+    void tunedModeSerializesConcurrentWritesThroughOneWriter() throws Exception {
+        DatabaseParameters parameters = tunedParameters();
+        // without waiting for locks, any second writer would fail with SQLITE_BUSY at once
+        parameters.setSqliteBusyTimeout(0);
+        DatabaseConnection tuned = DatabaseConnections.sqlite(dir.resolve("tuned.db").toString(), parameters);
+        ExecutorService threads = Executors.newFixedThreadPool(8);
+        try {
+            tuned.createTableByClass(Hero.class);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int thread = t;
+                futures.add(threads.submit(() -> {
+                    for (int i = 0; i < 100; i++) {
+                        int id = thread * 100 + i;
+                        tuned.insertObject(Hero.class, new Hero(id, i, "hero-" + id), false);
+                        tuned.selectMulti(Hero.class, Conditions.eq("level", i));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+
+            assertEquals(800, tuned.selectMulti(Hero.class).size());
+        } finally {
+            threads.shutdown();
+            tuned.close();
+        }
+    }
+
+    private static DatabaseParameters tunedParameters() {
+        DatabaseParameters parameters = new DatabaseParameters();
+        parameters.setSqliteTuned(true);
+        parameters.setMaxPoolSize(4);
+        return parameters;
+    }
+
+    private static String pragma(Connection connection, String name) throws SQLException {
+        try (Statement statement = connection.createStatement(); ResultSet rs = statement.executeQuery("PRAGMA " + name)) {
+            assertTrue(rs.next());
+            return rs.getString(1);
+        }
+    }
+
+    @TrackChanges
+    @Table(name = "heroes")
+    public static class Hero {
+        @PrimaryKey
+        @Column
+        public int id;
+
+        @Column
+        public int level;
+
+        @Column
+        public String name;
+
+        public Hero() {
+        }
+
+        Hero(int id, int level, String name) {
+            this.id = id;
+            this.level = level;
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package io.github.lijinhong11.mdatabase.impl;
+
+import io.github.lijinhong11.mdatabase.DatabaseParameters;
+import io.github.lijinhong11.mdatabase.enums.DatabaseType;
+import io.github.lijinhong11.mdatabase.serialization.annotations.Column;
+import io.github.lijinhong11.mdatabase.serialization.annotations.PrimaryKey;
+import io.github.lijinhong11.mdatabase.serialization.annotations.Table;
+import io.github.lijinhong11.mdatabase.sql.StatementCacheStats;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.sqlite.SQLiteLimits;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SelectByIdsTest {
+    @TempDir
+    Path dir;
+
+    private AbstractDatabaseConnection connection;
+
+    @BeforeEach
+    void open() throws SQLException {
+        connection = new SQLiteConnection(dir.resolve("test.db").toString(), new DatabaseParameters());
+        connection.createTableByClass(Item.class);
+        connection.insertBatch(Item.class, IntStream.range(0, 3000).mapToObj(id -> new Item(id, "item " + id)).toList());
+    }
+
+    @AfterEach
+    void close() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    void idsAboveTheInListLimitAreChunked() throws SQLException {
+        StatementCacheStats stats = connection.getStatementCacheStats();
+        long misses = stats.getMisses();
+        long hits = stats.getHits();
+        List<Integer> ids = new ArrayList<>(IntStream.range(500, 3000).boxed().toList());
+        ids.add(5000);
+
+        Map<Object, Item> items = connection.selectByIds(Item.class, ids);
+
+        // 1024 + 1024 + 453 keys, the last chunk padded to 512: two shapes
+        assertEquals(misses + 2, stats.getMisses());
+        assertEquals(hits + 1, stats.getHits());
+        assertEquals(2500, items.size());
+        assertEquals("item 2999", items.get(2999).name);
+        assertNull(items.get(5000));
+
+        assertEquals(2500, connection.deleteByIds(Item.class, ids));
+        assertEquals(500, connection.selectMulti(Item.class).size());
+    }
+
+    @Test
+    void chunksFitTheBindLimit() throws SQLException {
+        DatabaseParameters parameters = new DatabaseParameters();
+        parameters.setInListMaxSize(100_000);
+        AbstractDatabaseConnection old = new SQLiteConnection(dir.resolve("old.db").toString(), parameters) {
+            @Override
+            int getMaxBindParameters(Connection connection) throws SQLException {
+                connection.unwrap(org.sqlite.SQLiteConnection.class).setLimit(SQLiteLimits.SQLITE_LIMIT_VARIABLE_NUMBER, 999);
+                return 999;
+            }
+        };
+        try {
+            old.createTableByClass(Item.class);
+            old.createTableByClass(Stock.class);
+            old.insertBatch(Item.class, IntStream.range(0, 1500).mapToObj(id -> new Item(id, "item " + id)).toList());
+            old.insertBatch(Stock.class, IntStream.range(0, 600).mapToObj(id -> new Stock(id % 3, "item " + id, id)).toList());
+
+            // 512 keys per statement, and 256 for two key columns
+            assertEquals(1500, old.selectByIds(Item.class, IntStream.range(0, 1500).boxed().toList()).size());
+            List<List<Object>> keys = IntStream.range(0, 600).mapToObj(id -> List.<Object>of(id % 3, "item " + id)).toList();
+            assertEquals(600, old.selectByIds(Stock.class, keys).size());
+            assertEquals(600, old.deleteByIds(Stock.class, keys));
+        } finally {
+            old.close();
+        }
+    }
+
+    @Test
+    void lastChunkIsPaddedWithItsLastKey() throws SQLException {
+        RecordingDatabaseConnection recording = new RecordingDatabaseConnection(DatabaseType.POSTGRESQL, new DatabaseParameters());
+
+        recording.deleteByIds(Item.class, List.of(1));
+        recording.deleteByIds(Item.class, List.of(1, 2, 3));
+        recording.deleteByIds(Item.class, List.of(1, 2, 3, 4, 5));
+
+        assertEquals("DELETE FROM items WHERE id IN (?)", recording.executed.get(0).sql());
+        assertEquals(List.of(1, 2, 3, 3), recording.executed.get(1).executions().get(0));
+        assertEquals(List.of(1, 2, 3, 4, 5, 5, 5, 5), recording.executed.get(2).executions().get(0));
+    }
+
+    @Test
+    void compositeKeysUseRowValuesOrExpandedConditions() throws SQLException {
+        RecordingDatabaseConnection recording = new RecordingDatabaseConnection(DatabaseType.POSTGRESQL, new DatabaseParameters());
+        recording.deleteByIds(Stock.class, List.of(List.of(1, "apple"), List.of(2, "pear"), List.of(2, "plum")));
+
+        assertEquals("DELETE FROM stock WHERE (warehouse, item) IN ((?, ?), (?, ?), (?, ?), (?, ?))", recording.executed.get(0).sql());
+        assertEquals(List.of(1, "apple", 2, "pear", 2, "plum", 2, "plum"), recording.executed.get(0).executions().get(0));
+
+        // SQLite only takes row values in IN against a subquery, so the keys are OR-ed
+        connection.createTableByClass(Stock.class);
+        connection.insertBatch(Stock.class, List.of(new Stock(1, "apple", 5), new Stock(1, "pear", 3), new Stock(2, "pear", 7)));
+
+        Map<Object, Stock> stock = connection.selectByIds(Stock.class, List.of(List.of(1, "pear"), List.of(2, "pear"), List.of(2, "apple")));
+
+        assertEquals(2, stock.size());
+        assertEquals(3, stock.get(List.of(1, "pear")).quantity);
+        assertEquals(7, stock.get(List.of(2, "pear")).quantity);
+        assertEquals(1, connection.deleteByIds(Stock.class, List.of(List.of(1, "apple"), List.of(2, "apple"))));
+        assertThrows(IllegalArgumentException.class, () -> connection.selectByIds(Stock.class, List.of(1)));
+        assertThrows(IllegalArgumentException.class, () -> connection.selectByIds(Stock.class, List.of(List.of(1))));
+    }
+
+    @Test
+    void duplicateIdsMatchTheirRowOnce() throws SQLException {
+        Map<Object, Item> items = connection.selectByIds(Item.class, List.of(7, 7, 8, 7));
+
+        assertEquals(List.of(7, 8), List.copyOf(items.keySet()));
+        assertEquals(2, connection.deleteByIds(Item.class, List.of(7, 8, 8)));
+    }
+
+    @Test
+    void noIdsRunNoStatement() throws SQLException {
+        RecordingDatabaseConnection recording = new RecordingDatabaseConnection(DatabaseType.POSTGRESQL, new DatabaseParameters());
+
+        assertTrue(recording.selectByIds(Item.class, List.of()).isEmpty());
+        assertEquals(0, recording.deleteByIds(Item.class, List.of()));
+        assertTrue(recording.executed.isEmpty());
+        assertEquals(3000, connection.selectMulti(Item.class).size());
+    }
+
+    @Table(name = "items")
+    public static class Item {
+        @PrimaryKey
+        @Column
+        public int id;
+
+        @Column
+        public String name;
+
+        public Item() {
+        }
+
+        Item(int id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+    }
+
+    @Table(name = "stock")
+    public static class Stock {
+        @PrimaryKey
+        @Column
+        public int warehouse;
+
+        @PrimaryKey
+        @Column
+        public String item;
+
+        @Column
+        public int quantity;
+
+        public Stock() {
+        }
+
+        Stock(int warehouse, String item, int quantity) {
+            this.warehouse = warehouse;
+            this.item = item;
+            this.quantity = quantity;
+        }
+    }
+}
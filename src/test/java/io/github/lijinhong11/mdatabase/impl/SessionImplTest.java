@@ -0,0 +1,338 @@
+package io.github.lijinhong11.mdatabase.impl;
+
+import io.github.lijinhong11.mdatabase.Cursor;
+import io.github.lijinhong11.mdatabase.DatabaseConnection;
+import io.github.lijinhong11.mdatabase.DatabaseParameters;
+import io.github.lijinhong11.mdatabase.SavepointScope;
+import io.github.lijinhong11.mdatabase.Session;
+import io.github.lijinhong11.mdatabase.enums.IsolationLevel;
+import io.github.lijinhong11.mdatabase.serialization.annotations.Column;
+import io.github.lijinhong11.mdatabase.serialization.annotations.PrimaryKey;
+import io.github.lijinhong11.mdatabase.serialization.annotations.Table;
+import io.github.lijinhong11.mdatabase.sql.conditions.Conditions;
+import io.github.lijinhong11.mdatabase.sql.sentence.SQL;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionImplTest {
+    @TempDir
+    Path dir;
+
+    private DatabaseConnection connection;
+
+    @BeforeEach
+    void open() throws SQLException {
+        connection = DatabaseConnections.sqlite(dir.resolve("test.db").toString(), new DatabaseParameters());
+        connection.createTableByClass(Account.class);
+        connection.insertBatch(Account.class, List.of(new Account(1, 100), new Account(2, 200), new Account(3, 300)));
+    }
+
+    @AfterEach
+    void close() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    void otherThreadsWaitForAnOpenCursor() throws Exception {
+        try (Session session = connection.openSession()) {
+            Cursor<Account> cursor = session.selectCursor(Account.class, null);
+            CompletableFuture<Void> write = CompletableFuture.runAsync(() -> {
+                try {
+                    session.insertObject(Account.class, new Account(4, 400), false);
+                } catch (SQLException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+
+            List<Integer> read = new ArrayList<>();
+            while (cursor.hasNext()) {
+                read.add(cursor.next().id);
+                // the write cannot run on the connection while this cursor reads from it
+                assertFalse(write.isDone());
+            }
+            Thread.sleep(100);
+            assertFalse(write.isDone());
+            cursor.close();
+
+            write.get(10, TimeUnit.SECONDS);
+            assertEquals(List.of(1, 2, 3), read);
+            session.commit();
+        }
+        assertEquals(4, connection.selectMulti(Account.class).size());
+    }
+
+    @Test
+    void otherThreadsWaitForAnOpenStream() throws Exception {
+        try (Session session = connection.openSession()) {
+            Stream<Account> stream = session.selectStream(Account.class, null);
+            CompletableFuture<Integer> read = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return session.selectMulti(Account.class).size();
+                } catch (SQLException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+
+            assertEquals(600, stream.mapToInt(account -> account.balance).sum());
+            assertThrows(Exception.class, () -> read.get(100, TimeUnit.MILLISECONDS));
+            stream.close();
+
+            assertEquals(3, read.get(10, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void theReadingThreadCanKeepUsingTheSession() throws SQLException {
+        try (Session session = connection.openSession();
+             Cursor<Account> cursor = session.selectCursor(Account.class, null)) {
+            session.createTableByClass(Audit.class);
+            while (cursor.hasNext()) {
+                Account account = cursor.next();
+                session.insertObject(Audit.class, new Audit(account.id, "seen"), false);
+            }
+            cursor.close();
+            session.commit();
+        }
+        assertEquals(3, connection.selectMulti(Audit.class).size());
+    }
+
+    @Test
+    void endingTheTransactionWithAnOpenResultFails() throws SQLException {
+        try (Session session = connection.openSession()) {
+            session.insertObject(Account.class, new Account(4, 400), false);
+            ResultSet set = session.query(SQL.select().allColumns().from("accounts"));
+
+            assertThrows(SQLException.class, session::commit);
+            assertThrows(SQLException.class, session::rollback);
+            // the result set is still readable, and the transaction still open
+            int rows = 0;
+            while (set.next()) {
+                rows++;
+            }
+            assertEquals(4, rows);
+            set.close();
+
+            session.commit();
+        }
+        assertEquals(4, connection.selectMulti(Account.class).size());
+    }
+
+    @Test
+    void closeClosesWhatTheSessionLeftOpen() throws SQLException {
+        Session session = connection.openSession();
+        session.insertObject(Account.class, new Account(4, 400), false);
+        Cursor<Account> cursor = session.selectCursor(Account.class, null);
+        ResultSet set = session.query(SQL.select().allColumns().from("accounts"));
+        assertTrue(cursor.hasNext());
+
+        session.close();
+
+        assertFalse(cursor.hasNext());
+        assertTrue(set.isClosed());
+        // rolled back, and the connection is back in the pool
+        assertEquals(3, connection.selectMulti(Account.class).size());
+        cursor.close();
+        set.close();
+    }
+
+    @Test
+    void oneTransactionSpreadsOverSeveralThreads() throws Exception {
+        ExecutorService threads = Executors.newFixedThreadPool(4);
+        try (Session session = connection.openSession()) {
+            List<CompletableFuture<Void>> writes = new ArrayList<>();
+            for (int id = 10; id < 50; id++) {
+                Account account = new Account(id, id);
+                writes.add(CompletableFuture.runAsync(() -> {
+                    try {
+                        session.insertObject(Account.class, account, false);
+                    } catch (SQLException e) {
+                        throw new RuntimeException(e);
+                    }
+                }, threads));
+            }
+            CompletableFuture.allOf(writes.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+
+            // every thread wrote into the one transaction, which nobody else sees yet
+            assertEquals(43, session.selectMulti(Account.class).size());
+            assertEquals(3, connection.selectMulti(Account.class).size());
+
+            session.commit();
+        } finally {
+            threads.shutdown();
+        }
+        assertEquals(43, connection.selectMulti(Account.class).size());
+    }
+
+    @Test
+    void savepointScopesKeepOrUndoTheirOwnWork() throws SQLException {
+        try (Session session = connection.openSession()) {
+            session.insertObject(Account.class, new Account(4, 400), false);
+            try (SavepointScope kept = session.savepoint()) {
+                session.insertObject(Account.class, new Account(5, 500), false);
+                kept.release();
+            }
+            try (SavepointScope undone = session.savepoint()) {
+                session.insertObject(Account.class, new Account(6, 600), false);
+                session.updateObject(Account.class, new Account(1, 0), Conditions.eq("id", 1));
+            }
+            SavepointScope explicit = session.savepoint();
+            session.insertObject(Account.class, new Account(7, 700), false);
+            explicit.rollback();
+            explicit.close();
+
+            session.commit();
+        }
+
+        assertEquals(List.of(1, 2, 3, 4, 5), ids(connection.selectMulti(Account.class)));
+        assertEquals(100, connection.selectOne(Account.class, Conditions.eq("id", 1)).balance);
+    }
+
+    @Test
+    void commitAndRollbackStartTheNextTransaction() throws SQLException {
+        try (Session session = connection.openSession()) {
+            session.insertObject(Account.class, new Account(4, 400), false);
+            session.commit();
+            assertEquals(4, connection.selectMulti(Account.class).size());
+
+            session.insertObject(Account.class, new Account(5, 500), false);
+            session.rollback();
+            assertEquals(4, session.selectMulti(Account.class).size());
+
+            session.insertObject(Account.class, new Account(6, 600), false);
+            session.commit();
+
+            // not committed, so undone by close
+            session.insertObject(Account.class, new Account(7, 700), false);
+        }
+
+        assertEquals(List.of(1, 2, 3, 4, 6), ids(connection.selectMulti(Account.class)));
+    }
+
+    @Test
+    void readOnlyAndIsolationAreSetOnOpenAndResetOnClose() throws SQLException {
+        DatabaseParameters parameters = new DatabaseParameters();
+        // one connection, so the session gets it and hands it back to the next user
+        parameters.setMaxPoolSize(1);
+        AbstractDatabaseConnection single = new SQLiteConnection(dir.resolve("single.db").toString(), parameters);
+        try {
+            single.createTableByClass(Account.class);
+
+            try (Session session = single.openSession(IsolationLevel.READ_UNCOMMITTED, true)) {
+                assertTrue(session.isReadOnly());
+                assertEquals(IsolationLevel.READ_UNCOMMITTED, session.getIsolationLevel());
+                assertEquals(1, pragma(session, "query_only"));
+                assertEquals(1, pragma(session, "read_uncommitted"));
+                assertThrows(SQLException.class, () -> session.insertObject(Account.class, new Account(1, 100), false));
+            }
+
+            try (Connection pooled = single.createRawConnection();
+                 Statement statement = pooled.createStatement()) {
+                assertTrue(pooled.getAutoCommit());
+                assertEquals(Connection.TRANSACTION_SERIALIZABLE, pooled.getTransactionIsolation());
+                assertEquals(0, pragma(statement, "query_only"));
+                assertEquals(0, pragma(statement, "read_uncommitted"));
+            }
+            single.insertObject(Account.class, new Account(1, 100), false);
+            assertEquals(1, single.selectMulti(Account.class).size());
+        } finally {
+            single.close();
+        }
+    }
+
+    @Test
+    void readOnlySessionsOfTunedDatabasesUseReadersThatStayReadOnly() throws SQLException {
+        DatabaseParameters parameters = new DatabaseParameters();
+        parameters.setSqliteTuned(true);
+        parameters.setMaxPoolSize(1);
+        AbstractDatabaseConnection tuned = new SQLiteConnection(dir.resolve("tuned.db").toString(), parameters);
+        try {
+            tuned.createTableByClass(Account.class);
+            tuned.insertObject(Account.class, new Account(1, 100), false);
+
+            try (Session session = tuned.openSession(null, true)) {
+                assertEquals(1, session.selectMulti(Account.class).size());
+                assertThrows(SQLException.class, () -> session.insertObject(Account.class, new Account(2, 200), false));
+            }
+
+            try (Connection reader = tuned.createReadConnection();
+                 Statement statement = reader.createStatement()) {
+                assertEquals(1, pragma(statement, "query_only"));
+            }
+            tuned.insertObject(Account.class, new Account(2, 200), false);
+            assertEquals(2, tuned.selectMulti(Account.class).size());
+        } finally {
+            tuned.close();
+        }
+    }
+
+    private static int pragma(Session session, String name) throws SQLException {
+        try (ResultSet set = session.query(SQL.select().allColumns().from("pragma_" + name))) {
+            assertTrue(set.next());
+            return set.getInt(1);
+        }
+    }
+
+    private static int pragma(Statement statement, String name) throws SQLException {
+        try (ResultSet set = statement.executeQuery("PRAGMA " + name)) {
+            assertTrue(set.next());
+            return set.getInt(1);
+        }
+    }
+
+    private static List<Integer> ids(List<Account> accounts) {
+        return accounts.stream().map(account -> account.id).sorted().toList();
+    }
+
+    @Table(name = "accounts")
+    public static class Account {
+        @PrimaryKey
+        @Column
+        public int id;
+
+        @Column
+        public int balance;
+
+        public Account() {
+        }
+
+        Account(int id, int balance) {
+            this.id = id;
+            this.balance = balance;
+        }
+    }
+
+    @Table(name = "audits")
+    public static class Audit {
+        @PrimaryKey
+        @Column
+        public int id;
+
+        @Column
+        public String note;
+
+        public Audit() {
+        }
+
+        Audit(int id, String note) {
+            this.id = id;
+            this.note = note;
+        }
+    }
+}
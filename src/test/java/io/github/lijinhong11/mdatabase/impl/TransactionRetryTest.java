@@ -0,0 +1,215 @@
+package io.github.lijinhong11.mdatabase.impl;
+
+import io.github.lijinhong11.mdatabase.DatabaseParameters;
+import io.github.lijinhong11.mdatabase.Session;
+import io.github.lijinhong11.mdatabase.enums.IsolationLevel;
+import io.github.lijinhong11.mdatabase.exceptions.DatabaseAccessException;
+import io.github.lijinhong11.mdatabase.serialization.annotations.Column;
+import io.github.lijinhong11.mdatabase.serialization.annotations.PrimaryKey;
+import io.github.lijinhong11.mdatabase.serialization.annotations.Table;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionRetryTest {
+    @TempDir
+    Path dir;
+
+    private AbstractDatabaseConnection connection;
+
+    @BeforeEach
+    void open() throws SQLException {
+        connection = new SQLiteConnection(dir.resolve("test.db").toString(), retryImmediately());
+        connection.createTableByClass(Entry.class);
+    }
+
+    @AfterEach
+    void close() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    void busySqliteIsRetried() throws SQLException {
+        assertRetried(busy());
+    }
+
+    @Test
+    void serializationFailureIsRetried() throws SQLException {
+        assertRetried(new SQLException("could not serialize access due to concurrent update", "40001"));
+    }
+
+    @Test
+    void retryableCausesAreFound() throws SQLException {
+        assertRetried(new DatabaseAccessException("Failed to read the next row", busy()));
+
+        SQLException batch = new SQLException("Batch entry 0 was aborted", "HY000");
+        batch.setNextException(new SQLException("deadlock detected", "40001"));
+        assertRetried(batch);
+    }
+
+    @Test
+    void givesUpAfterTheLastAttempt() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        SQLException error = assertThrows(SQLException.class, () -> connection.inTransaction(session -> {
+            session.insertObject(Entry.class, new Entry(attempts.incrementAndGet()), false);
+            throw busy();
+        }));
+
+        assertEquals(5, error.getErrorCode());
+        assertEquals(5, attempts.get());
+        TransactionStats stats = connection.getTransactionStats();
+        assertEquals(0, stats.getCommits());
+        assertEquals(4, stats.getRetries());
+        assertEquals(1, stats.getGiveUps());
+        assertEquals(0, stats.getFailures());
+    }
+
+    @Test
+    void otherErrorsAreThrownAtOnce() throws SQLException {
+        connection.insertObject(Entry.class, new Entry(1), false);
+        AtomicInteger attempts = new AtomicInteger();
+
+        // a duplicate key is not a lost race
+        assertThrows(SQLException.class, () -> connection.inTransaction(session -> {
+            attempts.incrementAndGet();
+            session.insertObject(Entry.class, new Entry(1), false);
+            return null;
+        }));
+        IllegalStateException bug = new IllegalStateException("bug");
+        assertSame(bug, assertThrows(IllegalStateException.class, () -> connection.inTransaction(session -> {
+            attempts.incrementAndGet();
+            session.insertObject(Entry.class, new Entry(2), false);
+            throw bug;
+        })));
+
+        assertEquals(2, attempts.get());
+        assertEquals(1, connection.selectMulti(Entry.class).size());
+        TransactionStats stats = connection.getTransactionStats();
+        assertEquals(0, stats.getRetries());
+        assertEquals(2, stats.getFailures());
+    }
+
+    @Test
+    void workOfASessionRunsOnceInASavepoint() throws SQLException {
+        AtomicInteger attempts = new AtomicInteger();
+        try (Session session = connection.openSession()) {
+            session.insertObject(Entry.class, new Entry(1), false);
+            assertEquals(2, (int) session.inTransaction(nested -> {
+                nested.insertObject(Entry.class, new Entry(2), false);
+                return 2;
+            }));
+            assertThrows(SQLException.class, () -> session.inTransaction(nested -> {
+                attempts.incrementAndGet();
+                nested.insertObject(Entry.class, new Entry(3), false);
+                throw busy();
+            }));
+            session.commit();
+        }
+
+        // only the failed scope was undone, and it was not run again
+        assertEquals(1, attempts.get());
+        assertEquals(List.of(1, 2), connection.selectMulti(Entry.class).stream().map(entry -> entry.id).sorted().toList());
+        assertEquals(0, connection.getTransactionStats().getRetries());
+    }
+
+    @Test
+    void failedCloseAfterTheCommitDoesNotRunTheWorkAgain() throws SQLException {
+        AbstractDatabaseConnection failingClose = new SQLiteConnection(dir.resolve("close.db").toString(), retryImmediately()) {
+            @Override
+            public @NotNull Session openSession(@Nullable IsolationLevel isolation, boolean readOnly) throws SQLException {
+                Session session = super.openSession(isolation, readOnly);
+                return (Session) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Session.class},
+                        (proxy, method, args) -> {
+                            Object result;
+                            try {
+                                result = method.invoke(session, args);
+                            } catch (InvocationTargetException e) {
+                                throw e.getCause();
+                            }
+                            if (method.getName().equals("close")) {
+                                throw busy();
+                            }
+                            return result;
+                        });
+            }
+        };
+        try {
+            failingClose.createTableByClass(Entry.class);
+            AtomicInteger attempts = new AtomicInteger();
+
+            int id = failingClose.inTransaction(session -> {
+                session.insertObject(Entry.class, new Entry(attempts.incrementAndGet()), false);
+                return attempts.get();
+            });
+
+            assertEquals(1, id);
+            assertEquals(1, attempts.get());
+            assertEquals(1, failingClose.selectMulti(Entry.class).size());
+            assertEquals(1, failingClose.getTransactionStats().getCommits());
+            assertEquals(0, failingClose.getTransactionStats().getRetries());
+        } finally {
+            failingClose.close();
+        }
+    }
+
+    private void assertRetried(Exception error) throws SQLException {
+        AtomicInteger attempts = new AtomicInteger();
+        long retries = connection.getTransactionStats().getRetries();
+
+        int id = connection.inTransaction(session -> {
+            int attempt = attempts.incrementAndGet();
+            session.insertObject(Entry.class, new Entry(100 + attempt), false);
+            if (attempt == 1) {
+                if (error instanceof SQLException sql) {
+                    throw sql;
+                }
+                throw (RuntimeException) error;
+            }
+            return 100 + attempt;
+        });
+
+        // the first attempt was rolled back, the second committed
+        assertEquals(102, id);
+        assertNull(connection.findById(Entry.class, 101));
+        assertNotNull(connection.findById(Entry.class, 102));
+        assertEquals(retries + 1, connection.getTransactionStats().getRetries());
+        connection.deleteByIds(Entry.class, List.of(102));
+    }
+
+    static SQLException busy() {
+        return new SQLException("[SQLITE_BUSY] The database file is locked (database is locked)", null, 5);
+    }
+
+    private static DatabaseParameters retryImmediately() {
+        DatabaseParameters parameters = new DatabaseParameters();
+        parameters.setTransactionRetryBaseDelay(0L);
+        return parameters;
+    }
+
+    @Table(name = "entries")
+    public static class Entry {
+        @PrimaryKey
+        @Column
+        public int id;
+
+        public Entry() {
+        }
+
+        Entry(int id) {
+            this.id = id;
+        }
+    }
+}
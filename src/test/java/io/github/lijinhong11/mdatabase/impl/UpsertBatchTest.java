@@ -0,0 +1,142 @@
+package io.github.lijinhong11.mdatabase.impl;
+
+import io.github.lijinhong11.mdatabase.DatabaseParameters;
+import io.github.lijinhong11.mdatabase.enums.BatchMode;
+import io.github.lijinhong11.mdatabase.enums.DatabaseType;
+import io.github.lijinhong11.mdatabase.serialization.annotations.Column;
+import io.github.lijinhong11.mdatabase.serialization.annotations.PrimaryKey;
+import io.github.lijinhong11.mdatabase.serialization.annotations.Table;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UpsertBatchTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void upsertUpdatesExistingRowsAndInsertsNewOnes() throws SQLException {
+        for (BatchMode mode : BatchMode.values()) {
+            AbstractDatabaseConnection connection = open(mode);
+            try {
+                connection.insertBatch(Stock.class, List.of(new Stock(1, "apple", 5), new Stock(1, "pear", 3), new Stock(2, "apple", 7)));
+
+                // same item in another warehouse, and same warehouse with another item, are other keys
+                connection.upsertBatch(Stock.class, List.of(new Stock(1, "apple", 10), new Stock(2, "pear", 1), new Stock(3, "apple", 4)));
+
+                assertEquals(List.of("1/apple/10", "1/pear/3", "2/apple/7", "2/pear/1", "3/apple/4"), stored(connection), mode.name());
+            } finally {
+                connection.close();
+            }
+        }
+    }
+
+    @Test
+    void upsertOfOneKeyTwiceKeepsTheLastRow() throws SQLException {
+        for (BatchMode mode : BatchMode.values()) {
+            AbstractDatabaseConnection connection = open(mode);
+            try {
+                connection.insertObject(Stock.class, new Stock(1, "apple", 5), false);
+
+                connection.upsertBatch(Stock.class, List.of(new Stock(1, "apple", 6), new Stock(2, "pear", 1), new Stock(1, "apple", 8)));
+
+                assertEquals(List.of("1/apple/8", "2/pear/1"), stored(connection), mode.name());
+            } finally {
+                connection.close();
+            }
+        }
+    }
+
+    @Test
+    void insertIfAbsentLeavesExistingRowsAlone() throws SQLException {
+        for (BatchMode mode : BatchMode.values()) {
+            AbstractDatabaseConnection connection = open(mode);
+            try {
+                connection.insertBatch(Stock.class, List.of(new Stock(1, "apple", 5), new Stock(2, "apple", 7)));
+
+                connection.insertIfAbsentBatch(Stock.class, List.of(new Stock(1, "apple", 99), new Stock(1, "pear", 3), new Stock(2, "apple", 99)));
+
+                assertEquals(List.of("1/apple/5", "1/pear/3", "2/apple/7"), stored(connection), mode.name());
+            } finally {
+                connection.close();
+            }
+        }
+    }
+
+    @Test
+    void postgresMultiRowUpsertSendsEachKeyOnce() throws SQLException {
+        RecordingDatabaseConnection connection = new RecordingDatabaseConnection(DatabaseType.POSTGRESQL, new DatabaseParameters());
+
+        connection.upsertBatch(Stock.class, List.of(new Stock(1, "apple", 6), new Stock(1, "pear", 2), new Stock(1, "apple", 8)));
+
+        // a key written twice moves to its last position, with its last values
+        assertEquals(1, connection.executed.size());
+        assertEquals(List.of(List.of(1, "pear", 2, 1, "apple", 8)), connection.executed.get(0).executions());
+        assertTrue(connection.executed.get(0).sql().endsWith("ON CONFLICT(warehouse, item) DO UPDATE SET warehouse = excluded.warehouse, item = excluded.item, quantity = excluded.quantity"));
+    }
+
+    @Test
+    void postgresJdbcBatchUpsertKeepsEveryRow() throws SQLException {
+        DatabaseParameters parameters = new DatabaseParameters();
+        parameters.setBatchMode(BatchMode.JDBC_BATCH);
+        RecordingDatabaseConnection connection = new RecordingDatabaseConnection(DatabaseType.POSTGRESQL, parameters);
+
+        connection.upsertBatch(Stock.class, List.of(new Stock(1, "apple", 6), new Stock(1, "pear", 2), new Stock(1, "apple", 8)));
+
+        // single-row statements run one after another, so the last one wins without help
+        assertEquals(List.of(List.of(1, "apple", 6), List.of(1, "pear", 2), List.of(1, "apple", 8)), connection.executed.get(0).executions());
+    }
+
+    @Test
+    void otherDialectsSendDuplicateKeysAsGiven() throws SQLException {
+        RecordingDatabaseConnection connection = new RecordingDatabaseConnection(DatabaseType.MARIADB, new DatabaseParameters());
+
+        connection.upsertBatch(Stock.class, List.of(new Stock(1, "apple", 6), new Stock(1, "apple", 8)));
+
+        assertEquals(List.of(List.of(1, "apple", 6, 1, "apple", 8)), connection.executed.get(0).executions());
+    }
+
+    private AbstractDatabaseConnection open(BatchMode mode) throws SQLException {
+        DatabaseParameters parameters = new DatabaseParameters();
+        parameters.setBatchMode(mode);
+        AbstractDatabaseConnection connection = new SQLiteConnection(dir.resolve(mode + ".db").toString(), parameters);
+        connection.createTableByClass(Stock.class);
+        return connection;
+    }
+
+    private static List<String> stored(AbstractDatabaseConnection connection) throws SQLException {
+        return connection.selectMulti(Stock.class).stream()
+                .sorted(Comparator.comparingInt((Stock stock) -> stock.warehouse).thenComparing(stock -> stock.item))
+                .map(stock -> stock.warehouse + "/" + stock.item + "/" + stock.quantity)
+                .toList();
+    }
+
+    @Table(name = "stock")
+    public static class Stock {
+        @PrimaryKey
+        @Column
+        public int warehouse;
+
+        @PrimaryKey
+        @Column
+        public String item;
+
+        @Column
+        public int quantity;
+
+        public Stock() {
+        }
+
+        Stock(int warehouse, String item, int quantity) {
+            this.warehouse = warehouse;
+            this.item = item;
+            this.quantity = quantity;
+        }
+    }
+}
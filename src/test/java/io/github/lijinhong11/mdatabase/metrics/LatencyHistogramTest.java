@@ -0,0 +1,67 @@
+package io.github.lijinhong11.mdatabase.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+    private static final int TOP = LatencyHistogram.indexOf(Long.MAX_VALUE);
+
+    @Test
+    void bucketsRoundTripAndCoverEveryValue() {
+        assertEquals(0, LatencyHistogram.indexOf(0L));
+        for (int i = 0; i <= TOP; i++) {
+            long highest = LatencyHistogram.highestOf(i);
+            assertEquals(i, LatencyHistogram.indexOf(highest), "bucket " + i);
+            if (i > 0) {
+                // buckets are contiguous: the next bucket starts right after the previous one ends
+                assertEquals(i, LatencyHistogram.indexOf(LatencyHistogram.highestOf(i - 1) + 1), "bucket " + i);
+            }
+        }
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.highestOf(TOP));
+    }
+
+    @Test
+    void topBucketIsInRange() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(Long.MAX_VALUE);
+        histogram.record(-5L);
+
+        assertEquals(2, histogram.getCount());
+        assertEquals(0L, histogram.getValueAtPercentile(50));
+        assertEquals(Long.MAX_VALUE, histogram.getValueAtPercentile(100));
+        assertEquals(Long.MAX_VALUE, histogram.getMax());
+    }
+
+    @Test
+    void percentilesStayWithinTheStatedError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Random random = new Random(42);
+        long[] values = new long[100_000];
+        for (int i = 0; i < values.length; i++) {
+            // log-uniform from 1 ns to about 17 minutes
+            values[i] = (long) Math.exp(random.nextDouble() * Math.log(1e12));
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+
+        for (double percentile : new double[]{1, 10, 50, 90, 99, 99.9, 99.99, 100}) {
+            long exact = values[(int) Math.ceil(percentile / 100D * values.length) - 1];
+            long reported = histogram.getValueAtPercentile(percentile);
+            assertTrue(reported >= exact, percentile + ": " + reported + " < " + exact);
+            assertTrue(reported - exact <= exact / 32, percentile + ": " + reported + " is more than 1/32 above " + exact);
+        }
+        assertEquals(values[values.length - 1], histogram.getMax());
+    }
+
+    @Test
+    void emptyHistogramReportsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        assertEquals(0L, histogram.getValueAtPercentile(99));
+        assertEquals(0D, histogram.getMean());
+    }
+}
@@ -0,0 +1,107 @@
+package io.github.lijinhong11.mdatabase.metrics;
+
+import io.github.lijinhong11.mdatabase.DatabaseParameters;
+import io.github.lijinhong11.mdatabase.enums.OperationType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlowQueryLogTest {
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(500);
+
+    @Test
+    void eachSqlTextIsLimitedOnItsOwn() {
+        DatabaseParameters parameters = slowQueries();
+        parameters.setSlowQueryLimitPerMinute(2);
+        List<String> lines = new CopyOnWriteArrayList<>();
+        SlowQueryLog log = new SlowQueryLog(parameters, lines::add);
+
+        for (int i = 0; i < 5; i++) {
+            log.onQuery(event("SELECT * FROM users", List.of(), SLOW));
+        }
+        log.onQuery(event("SELECT * FROM guilds", List.of(), SLOW));
+        log.onQuery(event("SELECT * FROM guilds", List.of(), TimeUnit.MILLISECONDS.toNanos(10)));
+        log.close();
+
+        assertEquals(3, lines.size());
+        assertEquals(2, lines.stream().filter(line -> line.contains("FROM users")).count());
+        assertEquals(3, log.getLoggedCount());
+        assertEquals(3, log.getSuppressedCount());
+    }
+
+    @Test
+    void longSqlIsTruncated() {
+        List<String> lines = new CopyOnWriteArrayList<>();
+        SlowQueryLog log = new SlowQueryLog(slowQueries(), lines::add);
+        String sql = "SELECT * FROM users WHERE id IN (" + "?, ".repeat(1000) + "?)";
+
+        log.onQuery(event(sql, List.of(), SLOW));
+        log.close();
+
+        String line = lines.get(0);
+        assertFalse(line.contains(sql));
+        assertTrue(line.contains(sql.substring(0, 2000) + "...(" + sql.length() + " chars)"));
+    }
+
+    @Test
+    void parametersAreRedactedToTheirType() {
+        List<String> lines = new CopyOnWriteArrayList<>();
+        SlowQueryLog log = new SlowQueryLog(slowQueries(), lines::add);
+
+        log.onQuery(event("UPDATE users SET password = ? WHERE id = ?", Arrays.asList("hunter2", 42, null), SLOW));
+        log.close();
+
+        String line = lines.get(0);
+        assertTrue(line.contains("parameters: [<String>, <Integer>, NULL]"), line);
+        assertFalse(line.contains("hunter2"));
+    }
+
+    @Test
+    void entriesAreDroppedWhileTheWriterIsBehind() throws InterruptedException {
+        DatabaseParameters parameters = slowQueries();
+        parameters.setSlowQueryLimitPerMinute(Integer.MAX_VALUE);
+        List<String> lines = new ArrayList<>();
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        SlowQueryLog log = new SlowQueryLog(parameters, line -> {
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            lines.add(line);
+        });
+
+        log.onQuery(event("SELECT 1", List.of(), SLOW));
+        assertTrue(entered.await(10, TimeUnit.SECONDS));
+        // the writer holds the first entry, so the queue takes 1024 more
+        for (int i = 0; i < 1034; i++) {
+            log.onQuery(event("SELECT 1", List.of(), SLOW));
+        }
+        release.countDown();
+        log.close();
+
+        assertEquals(10, log.getDroppedCount());
+        assertEquals(1025, log.getLoggedCount());
+        assertEquals(1025, lines.size());
+    }
+
+    private static DatabaseParameters slowQueries() {
+        DatabaseParameters parameters = new DatabaseParameters();
+        parameters.setSlowQueryThreshold(100);
+        return parameters;
+    }
+
+    private static QueryEvent event(String sql, List<Object> parameters, long executeNanos) {
+        return new QueryEvent(OperationType.SELECT, null, null, () -> sql, () -> parameters, -1L,
+                0L, executeNanos, 0L, null);
+    }
+}
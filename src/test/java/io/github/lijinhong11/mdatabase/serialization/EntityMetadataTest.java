@@ -0,0 +1,197 @@
+package io.github.lijinhong11.mdatabase.serialization;
+
+import io.github.lijinhong11.mdatabase.enums.DatabaseType;
+import io.github.lijinhong11.mdatabase.serialization.annotations.AutoIncrement;
+import io.github.lijinhong11.mdatabase.serialization.annotations.Column;
+import io.github.lijinhong11.mdatabase.serialization.annotations.PrimaryKey;
+import io.github.lijinhong11.mdatabase.serialization.annotations.Table;
+import io.github.lijinhong11.mdatabase.serialization.annotations.TrackChanges;
+import io.github.lijinhong11.mdatabase.sql.conditions.Conditions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EntityMetadataTest {
+    @Test
+    void resolvesColumnsAndStatementsOnce() {
+        EntityMetadata metadata = EntityMetadata.of(Account.class);
+
+        assertSame(metadata, EntityMetadata.of(Account.class));
+        assertEquals("accounts", metadata.getTableName());
+        assertEquals(3, metadata.getColumns().size());
+        assertEquals("id", metadata.getKeyColumns().get(0).getName());
+        assertEquals("display_name", metadata.getValueColumns().get(0).getName());
+
+        assertEquals("INSERT INTO accounts (id, display_name, owner) VALUES (?, ?, ?)",
+                metadata.getInsertSql(DatabaseType.MYSQL));
+        assertEquals("UPDATE accounts SET display_name = ?, owner = ? WHERE id = ?",
+                metadata.getUpdateByKeySql(DatabaseType.SQLITE));
+        assertTrue(metadata.getUpsertSql(DatabaseType.POSTGRESQL).contains("ON CONFLICT(id)"));
+    }
+
+    @Test
+    void rendersMultiRowInsertsPerRowCount() {
+        EntityMetadata metadata = EntityMetadata.of(Account.class);
+
+        assertEquals("INSERT INTO accounts (id, display_name, owner) VALUES (?, ?, ?), (?, ?, ?), (?, ?, ?)",
+                metadata.getInsertSql(DatabaseType.SQLITE, 3));
+        assertSame(metadata.getInsertSql(DatabaseType.SQLITE, 3), metadata.getInsertSql(DatabaseType.SQLITE, 3));
+        assertEquals(metadata.getInsertSql(DatabaseType.SQLITE), metadata.getInsertSql(DatabaseType.SQLITE, 1));
+        assertThrows(IllegalArgumentException.class, () -> metadata.getInsertSql(DatabaseType.SQLITE, 0));
+    }
+
+    @Test
+    void rendersUpsertAndInsertIgnorePerDialect() {
+        EntityMetadata metadata = EntityMetadata.of(Account.class);
+
+        assertEquals("INSERT INTO accounts (id, display_name, owner) VALUES (?, ?, ?), (?, ?, ?)"
+                        + " ON CONFLICT(id) DO UPDATE SET id = excluded.id, display_name = excluded.display_name, owner = excluded.owner",
+                metadata.getUpsertSql(DatabaseType.SQLITE, 2));
+        assertEquals("INSERT IGNORE INTO accounts (id, display_name, owner) VALUES (?, ?, ?)",
+                metadata.getInsertIgnoreSql(DatabaseType.MARIADB));
+        assertEquals("INSERT INTO accounts (id, display_name, owner) VALUES (?, ?, ?), (?, ?, ?) ON CONFLICT(id) DO NOTHING",
+                metadata.getInsertIgnoreSql(DatabaseType.POSTGRESQL, 2));
+    }
+
+    @Test
+    void rendersCompositeKeyConflictsPerDialect() {
+        EntityMetadata metadata = EntityMetadata.of(Stock.class);
+
+        assertEquals("INSERT INTO stock (warehouse, item, quantity) VALUES (?, ?, ?)"
+                        + " ON CONFLICT(warehouse, item) DO UPDATE SET warehouse = excluded.warehouse, item = excluded.item, quantity = excluded.quantity",
+                metadata.getUpsertSql(DatabaseType.SQLITE));
+        assertEquals("INSERT INTO stock (warehouse, item, quantity) VALUES (?, ?, ?), (?, ?, ?)"
+                        + " ON CONFLICT(warehouse, item) DO UPDATE SET warehouse = excluded.warehouse, item = excluded.item, quantity = excluded.quantity",
+                metadata.getUpsertSql(DatabaseType.POSTGRESQL, 2));
+        assertEquals("INSERT INTO stock (warehouse, item, quantity) VALUES (?, ?, ?)"
+                        + " ON DUPLICATE KEY UPDATE warehouse = VALUES(warehouse), item = VALUES(item), quantity = VALUES(quantity)",
+                metadata.getUpsertSql(DatabaseType.MYSQL));
+        assertEquals("INSERT INTO stock (warehouse, item, quantity) VALUES (?, ?, ?), (?, ?, ?)"
+                        + " ON DUPLICATE KEY UPDATE warehouse = VALUES(warehouse), item = VALUES(item), quantity = VALUES(quantity)",
+                metadata.getUpsertSql(DatabaseType.MARIADB, 2));
+
+        assertEquals("INSERT INTO stock (warehouse, item, quantity) VALUES (?, ?, ?), (?, ?, ?) ON CONFLICT(warehouse, item) DO NOTHING",
+                metadata.getInsertIgnoreSql(DatabaseType.SQLITE, 2));
+        assertEquals("INSERT INTO stock (warehouse, item, quantity) VALUES (?, ?, ?) ON CONFLICT(warehouse, item) DO NOTHING",
+                metadata.getInsertIgnoreSql(DatabaseType.POSTGRESQL));
+        assertEquals("INSERT IGNORE INTO stock (warehouse, item, quantity) VALUES (?, ?, ?), (?, ?, ?)",
+                metadata.getInsertIgnoreSql(DatabaseType.MYSQL, 2));
+    }
+
+    @Test
+    void leavesGeneratedColumnsOutOfInserts() {
+        EntityMetadata metadata = EntityMetadata.of(Event.class);
+
+        assertEquals("id", metadata.getGeneratedColumns().get(0).getName());
+        assertEquals("INSERT INTO events (name) VALUES (?)", metadata.getInsertSql(DatabaseType.MYSQL));
+        assertEquals("INSERT INTO events (name) VALUES (?), (?) RETURNING id",
+                metadata.getInsertReturningSql(DatabaseType.POSTGRESQL, 2));
+        assertTrue(metadata.getUpsertSql(DatabaseType.SQLITE).startsWith("INSERT INTO events (id, name)"));
+    }
+
+    @Test
+    void tracksChangedColumnsOfLoadedObjects() {
+        EntityMetadata metadata = EntityMetadata.of(Wallet.class);
+        ChangeTracker tracker = metadata.getChangeTracker();
+        assertNotNull(tracker);
+        assertNull(EntityMetadata.of(Account.class).getChangeTracker());
+
+        Wallet wallet = new Wallet();
+        assertNull(tracker.getChangedColumns(wallet));
+
+        tracker.capture(wallet);
+        assertTrue(tracker.getChangedColumns(wallet).isEmpty());
+
+        wallet.items.add("sword");
+        BitSet changed = tracker.getChangedColumns(wallet);
+        assertEquals(BitSet.valueOf(new long[]{0b10}), changed);
+        assertEquals("UPDATE wallets SET items = ? WHERE id = ?", metadata.getUpdateByKeySql(DatabaseType.SQLITE, changed));
+
+        tracker.forget(wallet);
+        assertNull(tracker.getChangedColumns(wallet));
+    }
+
+    @Test
+    void recognizesTheKeyConditionOfAnObject() {
+        EntityMetadata metadata = EntityMetadata.of(Wallet.class);
+        Wallet wallet = new Wallet();
+        wallet.id = 4;
+
+        assertTrue(metadata.isKeyCondition(Conditions.eq("id", 4), wallet));
+        assertFalse(metadata.isKeyCondition(Conditions.eq("id", 5), wallet));
+        assertFalse(metadata.isKeyCondition(Conditions.eq("coins", 4), wallet));
+        assertFalse(metadata.isKeyCondition(Conditions.and(Conditions.eq("id", 4), Conditions.gt("coins", 0)), wallet));
+    }
+
+    @Test
+    void convertsValuesWithRegisteredConverters() {
+        UUID owner = UUID.randomUUID();
+        Account account = new Account();
+        account.owner = owner;
+
+        assertEquals(owner.toString(), EntityMetadata.of(Account.class).getColumn("owner").toDatabase(account));
+    }
+
+    @Test
+    void rejectsClassesWithoutTable() {
+        assertThrows(IllegalArgumentException.class, () -> EntityMetadata.of(String.class));
+    }
+
+    @Table(name = "accounts")
+    static class Account {
+        @PrimaryKey
+        @Column
+        int id;
+
+        @Column(name = "display_name")
+        String displayName;
+
+        @Column
+        UUID owner;
+
+        int transientCounter;
+    }
+
+    @TrackChanges
+    @Table(name = "wallets")
+    static class Wallet {
+        @PrimaryKey
+        @Column
+        int id;
+
+        @Column
+        long coins;
+
+        @Column
+        ArrayList<String> items = new ArrayList<>();
+    }
+
+    @Table(name = "stock")
+    static class Stock {
+        @PrimaryKey
+        @Column
+        int warehouse;
+
+        @PrimaryKey
+        @Column
+        String item;
+
+        @Column
+        int quantity;
+    }
+
+    @Table(name = "events")
+    static class Event {
+        @PrimaryKey
+        @AutoIncrement
+        @Column
+        long id;
+
+        @Column
+        String name;
+    }
+}
@@ -254,6 +254,34 @@ class ObjectSerializerTest {
         assertTrue(entity.anotherOne.living);
     }
 
+    @Test
+    void skipFieldsWithoutMatchingColumn() throws Exception {
+        CachedRowSet rowSet = RowSetProvider.newFactory().createCachedRowSet();
+        RowSetMetaDataImpl metaData = new RowSetMetaDataImpl();
+        metaData.setColumnCount(2);
+        metaData.setColumnName(1, "WHATISTHAT");
+        metaData.setColumnType(1, Types.VARCHAR);
+        metaData.setColumnName(2, "unrelated");
+        metaData.setColumnType(2, Types.INTEGER);
+        rowSet.setMetaData(metaData);
+        for (String value : List.of("cat", "dog")) {
+            rowSet.moveToInsertRow();
+            rowSet.updateString(1, value);
+            rowSet.updateInt(2, 1);
+            rowSet.insertRow();
+        }
+        rowSet.moveToCurrentRow();
+        rowSet.beforeFirst();
+
+        List<ACustomObject> objects = ObjectSerializer.serializeMulti(ACustomObject.class, rowSet);
+        printValue("objects", objects);
+
+        assertEquals(2, objects.size());
+        assertEquals("cat", objects.get(0).whatIsThat);
+        assertEquals("dog", objects.get(1).whatIsThat);
+        assertFalse(objects.get(0).living);
+    }
+
     private static ACustomObject createCustomObject(String whatIsThat, boolean living) {
         ACustomObject object = new ACustomObject();
         object.whatIsThat = whatIsThat;
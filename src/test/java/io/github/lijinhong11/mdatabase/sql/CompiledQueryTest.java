@@ -0,0 +1,102 @@
+package io.github.lijinhong11.mdatabase.sql;
+
+import io.github.lijinhong11.mdatabase.enums.DatabaseType;
+import io.github.lijinhong11.mdatabase.enums.OrderType;
+import io.github.lijinhong11.mdatabase.sql.conditions.Conditions;
+import io.github.lijinhong11.mdatabase.sql.sentence.SQL;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompiledQueryTest {
+    @Test
+    void bindNamedAndFixedValues() {
+        CompiledQuery query = SQL.select().allColumns().from("users")
+                .where(Conditions.and(Conditions.eq("uuid", Param.named("uuid")), Conditions.eq("active", true)))
+                .compile(DatabaseType.SQLITE);
+
+        assertEquals(2, query.getParameterCount());
+        assertEquals(Set.of("uuid"), query.getParameterNames());
+
+        BoundQuery bound = query.bind(Map.of("uuid", "abc"));
+        assertEquals(Arrays.asList("abc", true), bound.getParameters());
+    }
+
+    @Test
+    void bindPositionalValues() {
+        CompiledQuery query = SQL.update().table("users")
+                .set("name", Param.positional(1))
+                .where(Conditions.eq("id", Param.positional(0)))
+                .compile(DatabaseType.MYSQL);
+
+        assertEquals(Arrays.asList("Alice", 7), query.bind(7, "Alice").getParameters());
+        assertThrows(IllegalArgumentException.class, () -> query.bind(7));
+    }
+
+    @Test
+    void inListsBindEveryValue() {
+        CompiledQuery single = SQL.delete().from("users")
+                .where(Conditions.in("id", Arrays.asList(1, 2, 3)))
+                .compile(DatabaseType.MYSQL);
+        assertEquals("DELETE FROM users WHERE id IN (?, ?, ?)", single.getSql());
+        assertEquals(Arrays.asList(1, 2, 3), single.bind().getParameters());
+
+        List<List<?>> keys = Arrays.asList(Arrays.asList(1, "a"), Arrays.asList(2, "b"));
+        assertTrue(SQL.select().allColumns().from("members")
+                .where(Conditions.in(Arrays.asList("guild", "name"), keys, true))
+                .compile(DatabaseType.POSTGRESQL).getSql()
+                .endsWith("WHERE (guild, name) IN ((?, ?), (?, ?))"));
+
+        CompiledQuery expanded = SQL.select().allColumns().from("members")
+                .where(Conditions.in(Arrays.asList("guild", "name"), keys, false))
+                .compile(DatabaseType.SQLITE);
+        assertTrue(expanded.getSql().endsWith("WHERE ((guild = ? AND name = ?) OR (guild = ? AND name = ?))"));
+        assertEquals(Arrays.asList(1, "a", 2, "b"), expanded.bind().getParameters());
+    }
+
+    @Test
+    void keysetConditionsRenderAsRowValuesOrExpanded() {
+        List<String> columns = Arrays.asList("points", "name", "id");
+        List<Object> key = Arrays.asList(5, "b", 9);
+
+        CompiledQuery rowValues = SQL.select().allColumns().from("scores")
+                .where(Conditions.after(columns, key, OrderType.ASC, true))
+                .compile(DatabaseType.POSTGRESQL);
+        assertTrue(rowValues.getSql().endsWith("WHERE (points, name, id) > (?, ?, ?)"));
+        assertEquals(key, rowValues.bind().getParameters());
+
+        // the form MariaDB and MySQL get, since they cannot use an index for row values
+        CompiledQuery expanded = SQL.select().allColumns().from("scores")
+                .where(Conditions.after(columns, key, OrderType.DESC, false))
+                .compile(DatabaseType.MARIADB);
+        assertTrue(expanded.getSql().endsWith("WHERE ((points < ?) OR (points = ? AND name < ?) OR (points = ? AND name = ? AND id < ?))"));
+        assertEquals(Arrays.asList(5, 5, "b", 5, "b", 9), expanded.bind().getParameters());
+
+        assertEquals("id > ?", Conditions.after(List.of("id"), List.of(3), OrderType.ASC, false).getSql());
+        assertThrows(IllegalArgumentException.class, () -> Conditions.after(columns, List.of(1), OrderType.ASC, true));
+    }
+
+    @Test
+    void conditionsCompareByValue() {
+        assertEquals(Conditions.and(Conditions.eq("name", "a"), Conditions.in("id", Arrays.asList(1, 2))),
+                Conditions.and(Conditions.eq("name", "a"), Conditions.in("id", Arrays.asList(1, 2))));
+        assertEquals(Conditions.gt("score", 5).hashCode(), Conditions.gt("score", 5).hashCode());
+        assertNotEquals(Conditions.gt("score", 5), Conditions.lt("score", 5));
+        assertNotEquals(Conditions.or(Conditions.eq("a", 1), Conditions.eq("b", 2)),
+                Conditions.and(Conditions.eq("a", 1), Conditions.eq("b", 2)));
+    }
+
+    @Test
+    void missingNamedValueIsRejected() {
+        CompiledQuery query = SQL.delete().from("users")
+                .where(Conditions.eq("id", Param.named("id")))
+                .compile(DatabaseType.POSTGRESQL);
+
+        assertThrows(IllegalArgumentException.class, () -> query.bind(Map.of("other", 1)));
+    }
+}
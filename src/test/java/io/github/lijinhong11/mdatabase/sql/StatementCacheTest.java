@@ -0,0 +1,175 @@
+package io.github.lijinhong11.mdatabase.sql;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatementCacheTest {
+    private static final String SELECT = "SELECT * FROM users WHERE id = ?";
+    private static final String INSERT = "INSERT INTO users (name) VALUES (?)";
+
+    @Test
+    void releasedStatementsAreReused() throws SQLException {
+        StubConnection connection = new StubConnection();
+        StatementCacheStats stats = new StatementCacheStats();
+        StatementCache cache = new StatementCache(connection.proxy, 8, 1000, stats);
+
+        PreparedStatement first = cache.prepare(SELECT);
+        cache.release(first);
+        PreparedStatement second = cache.prepare(SELECT);
+
+        assertSame(first, second);
+        assertEquals(1, connection.prepared.size());
+        assertEquals(1, stats.getHits());
+        assertEquals(1, stats.getMisses());
+        assertFalse(second.isClosed());
+    }
+
+    @Test
+    void leasedStatementsAreNotHandedOutTwice() throws SQLException {
+        StubConnection connection = new StubConnection();
+        StatementCache cache = new StatementCache(connection.proxy, 8, 1000, new StatementCacheStats());
+
+        PreparedStatement outer = cache.prepare(SELECT);
+        PreparedStatement inner = cache.prepare(SELECT);
+        assertNotSame(outer, inner);
+
+        cache.release(inner);
+        cache.release(outer);
+
+        // only one idle statement is kept per SQL text
+        assertEquals(1, cache.size());
+        assertTrue(inner.isClosed());
+        assertSame(outer, cache.prepare(SELECT));
+    }
+
+    @Test
+    void leastRecentlyUsedStatementIsEvicted() throws SQLException {
+        StubConnection connection = new StubConnection();
+        StatementCacheStats stats = new StatementCacheStats();
+        StatementCache cache = new StatementCache(connection.proxy, 2, 1000, stats);
+
+        PreparedStatement a = cache.prepare("SELECT a");
+        cache.release(a);
+        PreparedStatement b = cache.prepare("SELECT b");
+        cache.release(b);
+        cache.release(cache.prepare("SELECT a"));
+        PreparedStatement c = cache.prepare("SELECT c");
+        cache.release(c);
+
+        assertEquals(2, cache.size());
+        assertEquals(1, stats.getEvictions());
+        assertTrue(b.isClosed());
+        assertFalse(a.isClosed());
+        assertSame(a, cache.prepare("SELECT a"));
+        assertSame(c, cache.prepare("SELECT c"));
+    }
+
+    @Test
+    void invalidatedStatementsAreClosedInsteadOfReused() throws SQLException {
+        StubConnection connection = new StubConnection();
+        StatementCache cache = new StatementCache(connection.proxy, 8, 1000, new StatementCacheStats());
+        PreparedStatement idle = cache.prepare("SELECT a");
+        cache.release(idle);
+        PreparedStatement leased = cache.prepare("SELECT b");
+
+        cache.invalidate();
+        // idle statements are closed on the next use of the cache
+        assertFalse(idle.isClosed());
+        PreparedStatement fresh = cache.prepare("SELECT a");
+        assertNotSame(idle, fresh);
+        assertTrue(idle.isClosed());
+
+        cache.release(leased);
+        assertTrue(leased.isClosed());
+        cache.release(fresh);
+        assertEquals(1, cache.size());
+        assertFalse(fresh.isClosed());
+    }
+
+    @Test
+    void generatedKeysStatementsAreCachedSeparately() throws SQLException {
+        StubConnection connection = new StubConnection();
+        StatementCache cache = new StatementCache(connection.proxy, 8, 1000, new StatementCacheStats());
+
+        PreparedStatement plain = cache.prepare(INSERT);
+        PreparedStatement keys = cache.prepareReturningKeys(INSERT, false);
+        cache.release(plain);
+        cache.release(keys);
+
+        assertEquals(2, cache.size());
+        assertEquals(List.of(false, true), connection.prepared.stream().map(stub -> stub.generatedKeys).toList());
+        assertSame(keys, cache.prepareReturningKeys(INSERT, false));
+        assertSame(plain, cache.prepare(INSERT));
+    }
+
+    @Test
+    void longSqlIsOnlyCachedWhenAllowed() throws SQLException {
+        StubConnection connection = new StubConnection();
+        StatementCacheStats stats = new StatementCacheStats();
+        StatementCache cache = new StatementCache(connection.proxy, 8, 10, stats);
+
+        PreparedStatement uncached = cache.prepare(INSERT);
+        cache.release(uncached);
+        assertTrue(uncached.isClosed());
+        assertEquals(0, cache.size());
+        assertEquals(0, stats.getMisses());
+
+        PreparedStatement generated = cache.prepare(INSERT, true);
+        cache.release(generated);
+        assertFalse(generated.isClosed());
+        assertSame(generated, cache.prepare(INSERT, true));
+    }
+
+    /**
+     * A {@link Connection} whose statements only know whether they are closed.
+     */
+    private static final class StubConnection {
+        final List<StubStatement> prepared = new ArrayList<>();
+        final Connection proxy;
+
+        StubConnection() {
+            proxy = (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                    (self, method, args) -> {
+                        if (!method.getName().equals("prepareStatement")) {
+                            throw new UnsupportedOperationException(method.getName());
+                        }
+
+                        boolean generatedKeys = args.length == 2 && (int) args[1] == Statement.RETURN_GENERATED_KEYS;
+                        StubStatement stub = new StubStatement(generatedKeys);
+                        prepared.add(stub);
+                        return stub.proxy;
+                    });
+        }
+    }
+
+    private static final class StubStatement {
+        final boolean generatedKeys;
+        final PreparedStatement proxy;
+        boolean closed;
+
+        StubStatement(boolean generatedKeys) {
+            this.generatedKeys = generatedKeys;
+            this.proxy = (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class}, (self, method, args) -> switch (method.getName()) {
+                        case "isClosed" -> closed;
+                        case "close" -> {
+                            closed = true;
+                            yield null;
+                        }
+                        case "clearParameters" -> null;
+                        case "hashCode" -> System.identityHashCode(self);
+                        case "equals" -> self == args[0];
+                        default -> throw new UnsupportedOperationException(method.getName());
+                    });
+        }
+    }
+}